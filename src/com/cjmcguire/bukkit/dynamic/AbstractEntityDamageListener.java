@@ -8,7 +8,7 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.projectiles.ProjectileSource;
 
-import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobTypeCache;
 
 /**
  * An abstract class for a Listener that listens to entity damage
@@ -18,6 +18,15 @@ import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
  */
 public abstract class AbstractEntityDamageListener implements Listener
 {
+	protected final MobTypeCache mobTypeCache;
+	
+	/**
+	 * Initializes the AbstractEntityDamageListener.
+	 */
+	public AbstractEntityDamageListener()
+	{
+		this.mobTypeCache = MobTypeCache.getInstance();
+	}
 	
 	protected void onEntityDamageByEntityAction(EntityDamageByEntityEvent event)
 	{
@@ -47,7 +56,7 @@ public abstract class AbstractEntityDamageListener implements Listener
 		{
 			alteredDamage = this.playerDamagedAction((Player)damaged, (LivingEntity)damager, originalDamage);
 		}
-		else if(this.livingEntityDamagedByPlayer(damaged, damager) && MobType.potentiallyHostile((LivingEntity) damaged))
+		else if(this.livingEntityDamagedByPlayer(damaged, damager) && mobTypeCache.potentiallyHostile((LivingEntity) damaged))
 		{
 			alteredDamage = this.livingEntityDamagedAction((LivingEntity) damaged, (Player) damager, originalDamage);
 		}
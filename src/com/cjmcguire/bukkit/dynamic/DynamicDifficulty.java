@@ -23,11 +23,15 @@ import org.bukkit.plugin.PluginManager;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import com.cjmcguire.bukkit.dynamic.analyzer.AnalyzerTask;
+import com.cjmcguire.bukkit.dynamic.analyzer.EstimatorSelection;
 import com.cjmcguire.bukkit.dynamic.commands.DynamicCommandExecutor;
 import com.cjmcguire.bukkit.dynamic.controller.LootControllerListener;
 import com.cjmcguire.bukkit.dynamic.controller.MobControllerListener;
+import com.cjmcguire.bukkit.dynamic.filehandlers.AutoSaveTask;
+import com.cjmcguire.bukkit.dynamic.filehandlers.ConfigFileHandler;
 import com.cjmcguire.bukkit.dynamic.filehandlers.PlayerFileHandler;
 import com.cjmcguire.bukkit.dynamic.monitor.MonitorListener;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobTypeCache;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
 
 /**
@@ -39,11 +43,13 @@ import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
 public final class DynamicDifficulty extends JavaPlugin
 {	
 	
-	private final static long TICKS_PER_MINUTE = 1200;
-	private final static long HALF_MINUTE = TICKS_PER_MINUTE / 2;
-//	private final static long TICKS_PER_SECOND = 20;
+	private final static long TICKS_PER_SECOND = 20;
 	
-//	private ConfigFileHandler configFileHandler;
+	private ConfigFileHandler configFileHandler;
+	
+	private PlayerFileHandler playerFileHandler;
+	
+	private AnalyzerTask analyzer;
 	
 	/**
 	 * Starts the DynamicDifficulty plugin.
@@ -51,9 +57,13 @@ public final class DynamicDifficulty extends JavaPlugin
 	@Override
 	public void onEnable()
 	{
-//		configFileHandler = new ConfigFileHandler(this);
+		configFileHandler = new ConfigFileHandler(this);
+		EstimatorSelection estimators = configFileHandler.getEstimators();
 		
-		PlayerFileHandler playerFileHandler = new PlayerFileHandler(this);
+		boolean journal = configFileHandler.isJournalEnabled();
+		playerFileHandler = new PlayerFileHandler(this, configFileHandler.getStorageType(), journal);
+		playerFileHandler.setWriteChecksums(configFileHandler.isChecksumEnabled());
+		playerFileHandler.setSparsePlayerFiles(configFileHandler.isSparseEnabled());
 		
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.setPlayerFileHandler(playerFileHandler);
@@ -64,14 +74,28 @@ public final class DynamicDifficulty extends JavaPlugin
 		// <player name>.yml files.
 		pluginManager.registerEvents(playerFileHandler, this);
 		
+		// Forget cached mob classifications when mobs die or unload.
+		pluginManager.registerEvents(MobTypeCache.getInstance(), this);
+		
 		// Set up the Monitor.
-		pluginManager.registerEvents(new MonitorListener(), this);
+		pluginManager.registerEvents(new MonitorListener(estimators), this);
+		
+		// Set up the Analyzer. It runs every tick and works out when 
+		// each player is due from how much the player is fighting.
+		long ticks = configFileHandler.getSecondsBetweenUpdates() * TICKS_PER_SECOND;
+		long minTicks = configFileHandler.getMinSecondsBetweenUpdates() * TICKS_PER_SECOND;
+		long maxTicks = configFileHandler.getMaxSecondsBetweenUpdates() * TICKS_PER_SECOND;
+		analyzer = new AnalyzerTask(this, estimators, (int) minTicks, (int) ticks, (int) maxTicks, 
+				configFileHandler.getAnalyzerTickBudget());
+		analyzer.setThreads(configFileHandler.getAnalyzerThreads());
+		analyzer.runTaskTimer(this, 0, 1);
 		
-		// Set up the Analyzer.
-		AnalyzerTask analyzer = new AnalyzerTask();
-//		long ticks = configFileHandler.getSecondsBetweenUpdates() * TICKS_PER_SECOND;
-//		analyzer.runTaskTimer(this, 0, ticks);
-		analyzer.runTaskTimer(this, 0, HALF_MINUTE);
+		// With the journal on, saving only writes what changed, so 
+		// save everyone whose data changed once every update interval.
+		if(journal)
+		{
+			new AutoSaveTask().runTaskTimer(this, 1, ticks);
+		}
 		
 		// Set up the Controller.
 		pluginManager.registerEvents(new MobControllerListener(), this);
@@ -87,8 +111,16 @@ public final class DynamicDifficulty extends JavaPlugin
 	@Override
 	public void onDisable()
 	{
+		// Loads that finish after this point must not add their data.
+		playerFileHandler.cancelPendingLoads();
+		
+		analyzer.shutdown();
+		
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.saveAllPlayerData();
+		
+		// Wait for the saves to be written before the server stops.
+		playerFileHandler.shutdown();
 		playerDataManager.clearPlayerData();
 	}
 }
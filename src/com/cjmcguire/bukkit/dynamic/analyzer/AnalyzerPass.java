@@ -0,0 +1,490 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
+
+/**
+ * One run of the Analyzer, split into three steps so that the 
+ * expensive one does not have to happen on the main thread. 
+ * snapshot() copies what the analysis needs out of every AUTO 
+ * MobInfo that has been marked for analysis. compute() works out 
+ * the new performance levels from that copy and touches nothing 
+ * else, so it can run on any thread. commit() writes the new 
+ * performance levels back.
+ *
+ * A MobInfo is marked when the player fights that type of mob, so 
+ * the mobs a player has not been fighting are skipped and a run 
+ * costs about as much as there has been fighting since the last 
+ * one. A MobInfo whose auto performance level has not caught up 
+ * with its estimated performance level yet is marked again by the 
+ * commit, so that it keeps moving on the following runs.
+ *
+ * With a very large snapshot, compute() can split the entries into 
+ * partitions and work them out on a ForkJoinPool. Every partition 
+ * writes into buffers of its own, which are copied back in one go 
+ * once they are all done.
+ *
+ * A player whose data changed between the snapshot and the commit, 
+ * such as by logging out or by a command changing one of the 
+ * player's settings, is skipped. The next run picks the player up 
+ * again.
+ * @author CJ McGuire
+ */
+class AnalyzerPass
+{
+	private static final MobType[] MOB_TYPES = MobType.values();
+	
+	// Snapshots with fewer entries than this are not split, since 
+	// handing them to other threads costs more than it saves.
+	static final int MIN_PARTITION_SIZE = 2048;
+	
+	// The number of partitions per thread of the pool, so that a 
+	// thread that finishes early can take over some of the work.
+	private static final int PARTITIONS_PER_THREAD = 4;
+	
+	private final EstimatorSelection estimators;
+	
+	// The players in the snapshot, the version of each player's data 
+	// when the snapshot was taken, and the MobTypes that were marked 
+	// for analysis.
+	private int playerCount;
+	private PlayerInfo[] players;
+	private long[] versions;
+	private long[] analysisMasks;
+	
+	// One entry for every AUTO MobInfo in the snapshot. The entries 
+	// of each player are next to each other, in the same order as 
+	// the players.
+	private int entries;
+	private int[] playerIndexes;
+	private MobType[] mobTypes;
+	private Estimator[] entryEstimators;
+	private int[] interactedWith;
+	private int[] damageGave;
+	private int[] damageReceived;
+	private int[] maxIncrements;
+	private double[] estimatedPerformanceLevels;
+	private double[] autoPerformanceLevels;
+	
+	// Estimator.STATE_SIZE numbers for every entry.
+	private double[] estimatorStates;
+	
+	private volatile boolean computed;
+	private volatile boolean done;
+	
+	/**
+	 * Initializes an empty AnalyzerPass that uses the given 
+	 * EstimatorMode for every MobType.
+	 * @param estimatorMode the way the performance levels are worked 
+	 * out
+	 */
+	AnalyzerPass(EstimatorMode estimatorMode)
+	{
+		this(new EstimatorSelection(estimatorMode));
+	}
+	
+	/**
+	 * Initializes an empty AnalyzerPass.
+	 * @param estimators the Estimator of every MobType
+	 */
+	AnalyzerPass(EstimatorSelection estimators)
+	{
+		this.estimators = estimators;
+		
+		this.playerCount = 0;
+		this.players = new PlayerInfo[16];
+		this.versions = new long[16];
+		this.analysisMasks = new long[16];
+		
+		int capacity = 16;
+		this.entries = 0;
+		this.playerIndexes = new int[capacity];
+		this.mobTypes = new MobType[capacity];
+		this.entryEstimators = new Estimator[capacity];
+		this.interactedWith = new int[capacity];
+		this.damageGave = new int[capacity];
+		this.damageReceived = new int[capacity];
+		this.maxIncrements = new int[capacity];
+		this.estimatedPerformanceLevels = new double[capacity];
+		this.autoPerformanceLevels = new double[capacity];
+		this.estimatorStates = new double[capacity * Estimator.STATE_SIZE];
+		
+		this.computed = false;
+		this.done = false;
+	}
+	
+	/**
+	 * Copies what the analysis needs out of every AUTO MobInfo of the 
+	 * given players that has been marked for analysis, and unmarks 
+	 * them. This must be called on the main thread, where the 
+	 * players' data is changed.
+	 * @param playerCollection the players to analyze
+	 * @param estimatorMode the way the performance levels are worked 
+	 * out for every MobType
+	 * @return the AnalyzerPass holding the snapshot
+	 */
+	static AnalyzerPass snapshot(Collection<PlayerInfo> playerCollection, EstimatorMode estimatorMode)
+	{
+		return snapshot(playerCollection, new EstimatorSelection(estimatorMode));
+	}
+	
+	/**
+	 * Copies what the analysis needs out of every AUTO MobInfo of the 
+	 * given players that has been marked for analysis, and unmarks 
+	 * them. This must be called on the main thread.
+	 * @param playerCollection the players to analyze
+	 * @param estimators the Estimator of every MobType
+	 * @return the AnalyzerPass holding the snapshot
+	 */
+	static AnalyzerPass snapshot(Collection<PlayerInfo> playerCollection, EstimatorSelection estimators)
+	{
+		AnalyzerPass pass = new AnalyzerPass(estimators);
+		
+		for(PlayerInfo playerInfo: playerCollection)
+		{
+			pass.add(playerInfo);
+		}
+		
+		return pass;
+	}
+	
+	/**
+	 * Copies what the analysis needs out of every AUTO MobInfo of the 
+	 * given player that has been marked for analysis, and unmarks 
+	 * them. A player with no marked MobInfos is left out. This must 
+	 * be called on the main thread.
+	 * @param playerInfo the player to analyze
+	 */
+	void add(PlayerInfo playerInfo)
+	{
+		long analysisMask = playerInfo.takeAnalysisMask();
+		
+		if(analysisMask != 0)
+		{
+			this.addPlayer(playerInfo, analysisMask);
+		}
+	}
+	
+	/**
+	 * Adds the given player, with an entry for every AUTO MobInfo 
+	 * whose bit is set in the given mask.
+	 */
+	private void addPlayer(PlayerInfo playerInfo, long analysisMask)
+	{
+		if(playerCount == players.length)
+		{
+			players = Arrays.copyOf(players, playerCount * 2);
+			versions = Arrays.copyOf(versions, playerCount * 2);
+			analysisMasks = Arrays.copyOf(analysisMasks, playerCount * 2);
+		}
+		
+		int playerIndex = playerCount;
+		players[playerIndex] = playerInfo;
+		versions[playerIndex] = playerInfo.getVersion();
+		analysisMasks[playerIndex] = analysisMask;
+		playerCount++;
+		
+		for(MobType mobType: MOB_TYPES)
+		{
+			MobInfo mobInfo = playerInfo.getMobInfo(mobType);
+			
+			if((analysisMask & (1L << mobType.ordinal())) != 0 && mobInfo.getSetting() == Setting.AUTO)
+			{
+				this.ensureCapacity(entries + 1);
+				
+				Estimator estimator = estimators.getEstimator(mobType);
+				
+				playerIndexes[entries] = playerIndex;
+				mobTypes[entries] = mobType;
+				entryEstimators[entries] = estimator;
+				if(!estimator.isEstimatedByMonitor())
+				{
+					interactedWith[entries] = mobInfo.getNumberInteractedWith();
+					damageGave[entries] = mobInfo.getDamagePlayerGave();
+					damageReceived[entries] = mobInfo.getDamagePlayerReceived();
+				}
+				maxIncrements[entries] = mobInfo.getMaxIncrement();
+				estimatedPerformanceLevels[entries] = mobInfo.getEstimatedPerformanceLevel();
+				autoPerformanceLevels[entries] = mobInfo.getAutoPerformanceLevel();
+				for(int index = 0; index < Estimator.STATE_SIZE; index++)
+				{
+					estimatorStates[entries * Estimator.STATE_SIZE + index] = mobInfo.getEstimatorState(index);
+				}
+				
+				entries++;
+			}
+		}
+	}
+	
+	private void ensureCapacity(int capacity)
+	{
+		if(capacity > playerIndexes.length)
+		{
+			int newCapacity = Math.max(capacity, playerIndexes.length * 2);
+			
+			playerIndexes = Arrays.copyOf(playerIndexes, newCapacity);
+			mobTypes = Arrays.copyOf(mobTypes, newCapacity);
+			entryEstimators = Arrays.copyOf(entryEstimators, newCapacity);
+			interactedWith = Arrays.copyOf(interactedWith, newCapacity);
+			damageGave = Arrays.copyOf(damageGave, newCapacity);
+			damageReceived = Arrays.copyOf(damageReceived, newCapacity);
+			maxIncrements = Arrays.copyOf(maxIncrements, newCapacity);
+			estimatedPerformanceLevels = Arrays.copyOf(estimatedPerformanceLevels, newCapacity);
+			autoPerformanceLevels = Arrays.copyOf(autoPerformanceLevels, newCapacity);
+			estimatorStates = Arrays.copyOf(estimatorStates, newCapacity * Estimator.STATE_SIZE);
+		}
+	}
+	
+	/**
+	 * @return the number of players in the snapshot
+	 */
+	int getPlayers()
+	{
+		return playerCount;
+	}
+	
+	/**
+	 * @return the number of AUTO MobInfos in the snapshot
+	 */
+	int getEntries()
+	{
+		return entries;
+	}
+	
+	/**
+	 * Works out the new estimated and auto performance levels of 
+	 * every entry in the snapshot with the entry's Estimator. The 
+	 * estimated performance levels are only worked out again when 
+	 * the Estimator does not leave them to the Monitor. This can be 
+	 * called on any thread.
+	 */
+	void compute()
+	{
+		this.compute(null);
+	}
+	
+	/**
+	 * Works out the new estimated and auto performance levels of 
+	 * every entry in the snapshot, the same way compute() does. If 
+	 * the snapshot is large enough, the entries are split into 
+	 * partitions that are worked out on the given pool, and this 
+	 * waits for all of them. This can be called on any thread other 
+	 * than one of the pool's.
+	 * @param pool the pool to split the work over, or null to do it 
+	 * all on this thread
+	 */
+	void compute(ForkJoinPool pool)
+	{
+		try
+		{
+			if(pool == null || entries < 2 * MIN_PARTITION_SIZE)
+			{
+				this.computeEntries(0, entries, estimatedPerformanceLevels, autoPerformanceLevels, estimatorStates);
+			}
+			else
+			{
+				this.computePartitions(pool);
+			}
+			computed = true;
+		}
+		finally
+		{
+			done = true;
+		}
+	}
+	
+	/**
+	 * Splits the entries into partitions, works them out on the given 
+	 * pool, and copies each partition's results back into the 
+	 * snapshot.
+	 */
+	private void computePartitions(ForkJoinPool pool)
+	{
+		int partitionCount = pool.getParallelism() * PARTITIONS_PER_THREAD;
+		int partitionSize = Math.max(MIN_PARTITION_SIZE, (entries + partitionCount - 1) / partitionCount);
+		
+		Partition[] partitions = new Partition[(entries + partitionSize - 1) / partitionSize];
+		for(int i = 0; i < partitions.length; i++)
+		{
+			int start = i * partitionSize;
+			partitions[i] = new Partition(start, Math.min(entries, start + partitionSize));
+			pool.execute(partitions[i]);
+		}
+		
+		for(Partition partition: partitions)
+		{
+			partition.join();
+			
+			int length = partition.end - partition.start;
+			System.arraycopy(partition.estimatedResults, 0, estimatedPerformanceLevels, partition.start, length);
+			System.arraycopy(partition.autoResults, 0, autoPerformanceLevels, partition.start, length);
+			System.arraycopy(partition.stateResults, 0, estimatorStates, partition.start * Estimator.STATE_SIZE, 
+					length * Estimator.STATE_SIZE);
+		}
+	}
+	
+	/**
+	 * Works out the new performance levels of the entries from start 
+	 * up to but not including end, and writes them into the given 
+	 * arrays starting at index 0 for the first entry. stateResults 
+	 * must already hold the Estimator numbers of the entries, which 
+	 * are changed in place. The arrays may be the snapshot's own when 
+	 * start is 0.
+	 */
+	private void computeEntries(int start, int end, double[] estimatedResults, double[] autoResults, 
+			double[] stateResults)
+	{
+		for(int entry = start; entry < end; entry++)
+		{
+			Estimator estimator = entryEstimators[entry];
+			int offset = (entry - start) * Estimator.STATE_SIZE;
+			double estimatedPerformanceLevel = estimatedPerformanceLevels[entry];
+			
+			if(!estimator.isEstimatedByMonitor() && interactedWith[entry] >= MobInfo.MINIMUM_MOBS_TO_INTERACT_WITH)
+			{
+				estimatedPerformanceLevel = limit(estimator.estimate(mobTypes[entry], estimatedPerformanceLevel, 
+						interactedWith[entry], damageGave[entry], damageReceived[entry], stateResults, offset));
+			}
+			
+			estimatedResults[entry - start] = estimatedPerformanceLevel;
+			autoResults[entry - start] = limit(estimator.step(estimatedPerformanceLevel, 
+					autoPerformanceLevels[entry], maxIncrements[entry], stateResults, offset));
+		}
+	}
+	
+	/**
+	 * A range of entries that is worked out on a ForkJoinPool into 
+	 * buffers of its own, so that no two threads write to the same 
+	 * array.
+	 */
+	private class Partition extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+		
+		private final int start;
+		private final int end;
+		
+		private final double[] estimatedResults;
+		private final double[] autoResults;
+		private final double[] stateResults;
+		
+		private Partition(int start, int end)
+		{
+			this.start = start;
+			this.end = end;
+			this.estimatedResults = new double[end - start];
+			this.autoResults = new double[end - start];
+			this.stateResults = Arrays.copyOfRange(estimatorStates, start * Estimator.STATE_SIZE, 
+					end * Estimator.STATE_SIZE);
+		}
+		
+		@Override
+		protected void compute()
+		{
+			computeEntries(start, end, estimatedResults, autoResults, stateResults);
+		}
+	}
+	
+	/**
+	 * @return true once compute() has returned or thrown, after which 
+	 * the pass is ready to be committed
+	 */
+	boolean isDone()
+	{
+		return done;
+	}
+	
+	/**
+	 * Keeps the given performance level between 
+	 * MobInfo.MIN_PERFORMANCE_LEVEL and MobInfo.MAX_PERFORMANCE_LEVEL, 
+	 * the same way the MobInfo setters do.
+	 */
+	private static double limit(double performanceLevel)
+	{
+		return Math.max(MobInfo.MIN_PERFORMANCE_LEVEL, Math.min(MobInfo.MAX_PERFORMANCE_LEVEL, performanceLevel));
+	}
+	
+	/**
+	 * Writes the performance levels worked out by compute() back to 
+	 * the players. A player is skipped if the player's data is no 
+	 * longer the data in the given PlayerDataManager, which happens 
+	 * when the player logs out, or if anything that gets saved has 
+	 * changed since the snapshot, which happens when a setting is 
+	 * changed. The MobInfos of a player who is skipped are marked for 
+	 * analysis again. This must be called on the main thread. Nothing 
+	 * is written if compute() has not finished, and every player is 
+	 * marked for analysis again instead.
+	 * @param playerDataManager the PlayerDataManager that holds the 
+	 * players' data
+	 * @return the number of players whose performance levels were 
+	 * written
+	 */
+	int commit(PlayerDataManager playerDataManager)
+	{
+		int committedPlayers = 0;
+		
+		if(!computed)
+		{
+			for(int playerIndex = 0; playerIndex < playerCount; playerIndex++)
+			{
+				players[playerIndex].markForAnalysis(analysisMasks[playerIndex]);
+			}
+			return committedPlayers;
+		}
+		
+		int entry = 0;
+		for(int playerIndex = 0; playerIndex < playerCount; playerIndex++)
+		{
+			PlayerInfo playerInfo = players[playerIndex];
+			
+			boolean unchanged = playerDataManager.getLoadedPlayerInfo(playerInfo.getPlayerID()) == playerInfo &&
+					playerInfo.getVersion() == versions[playerIndex];
+			boolean committed = false;
+			
+			for(; entry < entries && playerIndexes[entry] == playerIndex; entry++)
+			{
+				if(unchanged)
+				{
+					MobInfo mobInfo = playerInfo.getMobInfo(mobTypes[entry]);
+					
+					if(!entryEstimators[entry].isEstimatedByMonitor())
+					{
+						mobInfo.setEstimatedPerformanceLevel(estimatedPerformanceLevels[entry]);
+					}
+					mobInfo.setAutoPerformanceLevel(autoPerformanceLevels[entry]);
+					for(int index = 0; index < Estimator.STATE_SIZE; index++)
+					{
+						mobInfo.setEstimatorState(index, estimatorStates[entry * Estimator.STATE_SIZE + index]);
+					}
+					
+					// still converging
+					if(mobInfo.getAutoPerformanceLevel() != mobInfo.getEstimatedPerformanceLevel())
+					{
+						mobInfo.markForAnalysis();
+					}
+					
+					committed = true;
+				}
+			}
+			
+			if(committed)
+			{
+				committedPlayers++;
+			}
+			else if(!unchanged)
+			{
+				playerInfo.markForAnalysis(analysisMasks[playerIndex]);
+			}
+		}
+		
+		return committedPlayers;
+	}
+}
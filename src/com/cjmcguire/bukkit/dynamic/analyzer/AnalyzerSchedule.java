@@ -0,0 +1,235 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * Decides on which tick each player is analyzed next, so that no 
+ * single tick has to analyze everyone. The players who are due are 
+ * handed out one at a time, so the caller can stop once it has used 
+ * up its time for the tick. The players it did not get to stay due 
+ * and are handed out first on the next tick.
+ *
+ * Every player has an interval of their own, which is worked out 
+ * again every time the player is analyzed. A player who is fighting 
+ * hard is analyzed every minimum interval, so the difficulty keeps up 
+ * with the fight. A player who has not fought at all since the last 
+ * analysis has the interval doubled, starting from the normal 
+ * interval and up to the maximum interval, so idle players cost next 
+ * to nothing. Everyone else is analyzed every 
+ * normal interval. When the server is falling behind, every interval 
+ * is stretched by a load factor. See getLoadFactor().
+ *
+ * New players are picked up once every minimum interval, and are 
+ * first due on a tick within it picked from their UUID, so players 
+ * who log in together are spread out.
+ * @author CJ McGuire
+ */
+class AnalyzerSchedule
+{
+	static final int TICKS_PER_SECOND = 20;
+	
+	// A player with at least this many hits per second since the last 
+	// analysis is in combat.
+	static final double COMBAT_EVENTS_PER_SECOND = 0.5;
+	
+	// The length of a tick in milliseconds when the server keeps up, 
+	// and how much longer ticks may run on average before the 
+	// intervals are stretched.
+	static final double TICK_MILLIS = 1000.0 / TICKS_PER_SECOND;
+	static final double LAG_TOLERANCE_MILLIS = 2.5;
+	
+	private final int minIntervalTicks;
+	private final int normalIntervalTicks;
+	private final int maxIntervalTicks;
+	
+	// One slot for every tick up to the maximum interval ahead. The 
+	// players in a slot are due when the tick comes around.
+	private final List<List<PlayerInfo>> wheel;
+	
+	// The interval every player in the schedule was last given.
+	private final Map<PlayerInfo, Integer> intervals;
+	
+	private final ArrayDeque<PlayerInfo> duePlayers;
+	
+	private long tick;
+	
+	/**
+	 * Initializes the AnalyzerSchedule. The intervals are put in order 
+	 * if they are not.
+	 * @param minIntervalTicks the number of ticks between two analyses 
+	 * of a player who is in combat
+	 * @param normalIntervalTicks the number of ticks between two 
+	 * analyses of a player who is fighting now and then
+	 * @param maxIntervalTicks the most ticks there may be between two 
+	 * analyses of the same player
+	 */
+	AnalyzerSchedule(int minIntervalTicks, int normalIntervalTicks, int maxIntervalTicks)
+	{
+		this.minIntervalTicks = Math.max(1, minIntervalTicks);
+		this.maxIntervalTicks = Math.max(this.minIntervalTicks, maxIntervalTicks);
+		this.normalIntervalTicks = Math.max(this.minIntervalTicks, Math.min(this.maxIntervalTicks, normalIntervalTicks));
+		
+		this.wheel = new ArrayList<List<PlayerInfo>>(this.maxIntervalTicks + 1);
+		for(int slot = 0; slot <= this.maxIntervalTicks; slot++)
+		{
+			this.wheel.add(new ArrayList<PlayerInfo>());
+		}
+		
+		this.intervals = new IdentityHashMap<PlayerInfo, Integer>();
+		this.duePlayers = new ArrayDeque<PlayerInfo>();
+		this.tick = 0;
+	}
+	
+	/**
+	 * @param playerID the UUID of a player
+	 * @param intervalTicks the number of ticks in the interval
+	 * @return the tick within the interval that the given player is 
+	 * first due on
+	 */
+	static int getPhase(UUID playerID, int intervalTicks)
+	{
+		long bits = playerID.getMostSignificantBits() ^ playerID.getLeastSignificantBits();
+		int hash = (int) (bits ^ (bits >>> 32));
+		
+		return (hash & Integer.MAX_VALUE) % Math.max(1, intervalTicks);
+	}
+	
+	/**
+	 * @param averageTickMillis the average time between two ticks, in 
+	 * milliseconds
+	 * @return how many times longer every interval should be. This is 
+	 * 1 while the average tick is no more than LAG_TOLERANCE_MILLIS 
+	 * longer than TICK_MILLIS, and goes up by 1 for every 
+	 * LAG_TOLERANCE_MILLIS after that.
+	 */
+	static double getLoadFactor(double averageTickMillis)
+	{
+		return Math.max(1, (averageTickMillis - TICK_MILLIS) / LAG_TOLERANCE_MILLIS);
+	}
+	
+	/**
+	 * Moves on to the next tick and makes the players whose tick it is 
+	 * due. Once every minimum interval, the given players who are not 
+	 * in the schedule yet are added to it.
+	 * @param playerCollection the players who are online
+	 */
+	void nextTick(Collection<PlayerInfo> playerCollection)
+	{
+		if(tick % minIntervalTicks == 0)
+		{
+			for(PlayerInfo playerInfo: playerCollection)
+			{
+				if(!intervals.containsKey(playerInfo))
+				{
+					intervals.put(playerInfo, normalIntervalTicks);
+					this.getSlot(getPhase(playerInfo.getPlayerID(), minIntervalTicks)).add(playerInfo);
+				}
+			}
+		}
+		
+		List<PlayerInfo> slot = this.getSlot(0);
+		duePlayers.addAll(slot);
+		slot.clear();
+		
+		tick++;
+	}
+	
+	/**
+	 * @return the slot of the wheel the given number of ticks after 
+	 * the current one
+	 */
+	private List<PlayerInfo> getSlot(int ticksAhead)
+	{
+		return wheel.get((int) ((tick + ticksAhead) % wheel.size()));
+	}
+	
+	/**
+	 * Hands out the next player who is due. The player is out of the 
+	 * schedule until schedule() or remove() is called for the player.
+	 * @return the next player who is due on this tick or was left over 
+	 * from an earlier tick, or null if there is no such player
+	 */
+	PlayerInfo nextDuePlayer()
+	{
+		return duePlayers.poll();
+	}
+	
+	/**
+	 * Works out the given player's next interval and makes the player 
+	 * due again after it. This should be called on the same tick the 
+	 * player was handed out.
+	 * @param playerInfo a player who was handed out by nextDuePlayer()
+	 * @param combatEvents the number of hits between the player and 
+	 * any mob since the last time the player was analyzed
+	 * @param loadFactor how many times longer the interval should be, 
+	 * from getLoadFactor()
+	 * @return the player's next interval in ticks
+	 */
+	int schedule(PlayerInfo playerInfo, int combatEvents, double loadFactor)
+	{
+		Integer lastInterval = intervals.get(playerInfo);
+		if(lastInterval == null)
+		{
+			lastInterval = normalIntervalTicks;
+		}
+		
+		double eventsPerSecond = combatEvents * (double) TICKS_PER_SECOND / lastInterval;
+		
+		int interval;
+		if(eventsPerSecond >= COMBAT_EVENTS_PER_SECOND)
+		{
+			interval = minIntervalTicks;
+		}
+		else if(combatEvents == 0)
+		{
+			interval = Math.max(lastInterval * 2, normalIntervalTicks);
+		}
+		else
+		{
+			interval = normalIntervalTicks;
+		}
+		
+		interval = (int) Math.min(maxIntervalTicks, Math.max(minIntervalTicks, interval * loadFactor));
+		
+		intervals.put(playerInfo, interval);
+		// nextTick() has already moved past the tick the player was due
+		this.getSlot(interval - 1).add(playerInfo);
+		
+		return interval;
+	}
+	
+	/**
+	 * Takes the given player out of the schedule, such as after the 
+	 * player logged out.
+	 * @param playerInfo a player who was handed out by nextDuePlayer()
+	 */
+	void remove(PlayerInfo playerInfo)
+	{
+		intervals.remove(playerInfo);
+	}
+	
+	/**
+	 * @return the number of players who are due and have not been 
+	 * handed out yet
+	 */
+	int getRemainingPlayers()
+	{
+		return duePlayers.size();
+	}
+	
+	/**
+	 * @return the number of players in the schedule
+	 */
+	int getPlayers()
+	{
+		return intervals.size();
+	}
+}
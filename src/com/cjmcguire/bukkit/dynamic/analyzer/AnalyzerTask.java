@@ -1,14 +1,12 @@
 package com.cjmcguire.bukkit.dynamic.analyzer;
 
-import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
 
+import org.bukkit.plugin.Plugin;
 import org.bukkit.scheduler.BukkitRunnable;
 
-import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
-import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
-import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
 
 /**
  * The AnalyzerTask carries out the function of the Analyzer in the 
@@ -16,57 +14,235 @@ import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
  * repeatedly on a timer. The AnalyzerTask takes the data obtained by 
  * the Monitor and analyzes it to determine all of the players' 
  * performance levels.
+ * 
+ * Only the cheap parts of the analysis happen on the main thread. 
+ * Each run takes a snapshot of the players' data on the main thread, 
+ * works out the new performance levels from it on another thread, 
+ * and writes them back on the main thread on a later tick. See 
+ * AnalyzerPass. When running headless, all three steps happen right 
+ * away for every player.
+ * 
+ * When not running headless, the AnalyzerTask runs every tick and 
+ * only analyzes the players who are due. Players in combat are 
+ * analyzed more often and idle players less often, and everyone is 
+ * analyzed less often while the server is falling behind. See 
+ * AnalyzerSchedule. Each tick stops taking players into the 
+ * snapshot once it has used up its time budget, and the next tick 
+ * carries on from there.
+ * 
+ * For very large numbers of players, the work on the other thread 
+ * can be split over a number of threads. See setThreads().
  * @author CJ McGuire
  */
 public class AnalyzerTask extends BukkitRunnable
 {
+	private final Plugin plugin;
 	
 	private final PlayerDataManager playerDataManager;
 	
+	private final EstimatorSelection estimators;
+	
+	private final AnalyzerSchedule schedule;
+	
+	private final long budgetNanos;
+	
+	// The time of the last run, and the average time between two 
+	// runs, which is the length of a tick.
+	private long lastRunNanos;
+	private double averageTickMillis;
+	
+	// The pool that large passes are split over, or null.
+	private ForkJoinPool pool;
+	
+	// The pass whose performance levels are being worked out on 
+	// another thread, or null. Only used on the main thread.
+	private AnalyzerPass runningPass;
+	
 	/**
-	 * Initializes the AnalyzerTask.
+	 * Initializes the AnalyzerTask using EstimatorMode.WINDOW so that 
+	 * it runs headless.
 	 */
 	public AnalyzerTask()
 	{
+		this(EstimatorMode.WINDOW);
+	}
+	
+	/**
+	 * Initializes the AnalyzerTask so that it runs headless.
+	 * @param estimatorMode the way players' performance levels are 
+	 * worked out for every MobType. If it is EstimatorMode.EWMA, the 
+	 * MonitorListener keeps the estimated performance levels up to 
+	 * date and this AnalyzerTask only updates the auto performance 
+	 * levels.
+	 */
+	public AnalyzerTask(EstimatorMode estimatorMode)
+	{
+		this(null, new EstimatorSelection(estimatorMode), 1, 1, 1, 0);
+	}
+	
+	/**
+	 * Initializes the AnalyzerTask. It should be scheduled to run 
+	 * every tick.
+	 * @param plugin the plugin to schedule the work off the main 
+	 * thread with, or null to run headless
+	 * @param estimators the Estimator of every MobType, which must be 
+	 * the same as the MonitorListener's
+	 * @param minIntervalTicks the number of ticks between two 
+	 * analyses of a player who is in combat
+	 * @param intervalTicks the number of ticks between two analyses 
+	 * of a player who is fighting now and then
+	 * @param maxIntervalTicks the most ticks there may be between two 
+	 * analyses of the same player
+	 * @param budgetMicros the time in microseconds each tick may 
+	 * spend taking players into the snapshot. At least one due player 
+	 * is taken every tick.
+	 */
+	public AnalyzerTask(Plugin plugin, EstimatorSelection estimators, int minIntervalTicks, int intervalTicks,
+			int maxIntervalTicks, long budgetMicros)
+	{
+		this.plugin = plugin;
 		this.playerDataManager = PlayerDataManager.getInstance();
+		this.estimators = estimators;
+		this.schedule = new AnalyzerSchedule(minIntervalTicks, intervalTicks, maxIntervalTicks);
+		this.budgetNanos = budgetMicros * 1000;
+		this.lastRunNanos = 0;
+		this.averageTickMillis = AnalyzerSchedule.TICK_MILLIS;
+		this.pool = null;
+		this.runningPass = null;
+	}
+	
+	/**
+	 * Sets the number of threads that the work of a pass is split 
+	 * over. Passes with only a few thousand MobInfos to analyze are 
+	 * never split. See AnalyzerPass.compute(ForkJoinPool).
+	 * @param threads the number of threads. With 1 or less, each pass 
+	 * is worked out on a single thread.
+	 */
+	public void setThreads(int threads)
+	{
+		this.shutdown();
+		
+		if(threads > 1)
+		{
+			pool = new ForkJoinPool(threads);
+		}
+	}
+	
+	/**
+	 * Stops the threads that passes are split over, if there are any. 
+	 * Passes after this are worked out on a single thread.
+	 */
+	public void shutdown()
+	{
+		if(pool != null)
+		{
+			pool.shutdown();
+			pool = null;
+		}
 	}
 	
 	/**
 	 * This method updates the values for the players' estimated 
 	 * performance levels and current performance levels for each 
-	 * type of mob. 
+	 * type of mob. When not running headless, it only does this for 
+	 * the players who are due on this tick, and only once the last 
+	 * tick's players have had their results written back.
 	 */
 	@Override
 	public void run()
 	{
-		this.updatePlayerData();
+		if(plugin == null)
+		{
+			this.updatePlayerData();
+		}
+		else
+		{
+			this.runTick();
+		}
 	}
 	
 	/**
-	 * Updates the players' estimated performance level and current 
-	 * performance levels for each type of mob as long as the player's 
-	 * setting is set to AUTO.
+	 * Writes back the results of the last pass if they are ready, 
+	 * then takes the players who are due into a new snapshot until 
+	 * the time budget is used up, and works out their new 
+	 * performance levels on another thread. While the server is 
+	 * falling behind, the budget is cut by the load factor.
 	 */
-	protected void updatePlayerData()
+	private void runTick()
 	{
-		Collection<PlayerInfo> playerCollection = playerDataManager.getPlayerData();
+		long now = System.nanoTime();
+		if(lastRunNanos != 0)
+		{
+			// about the last second of ticks
+			double tickMillis = (now - lastRunNanos) / 1000000.0;
+			averageTickMillis += (tickMillis - averageTickMillis) / AnalyzerSchedule.TICKS_PER_SECOND;
+		}
+		lastRunNanos = now;
+		
+		double loadFactor = AnalyzerSchedule.getLoadFactor(averageTickMillis);
+		long deadline = now + (long) (budgetNanos / loadFactor);
 		
-		MobType[] mobTypes = MobType.values();
+		schedule.nextTick(playerDataManager.getPlayerData());
 		
-		// Loop through all PlayerInfos.
-		for(PlayerInfo playerInfo: playerCollection)
+		if(runningPass != null)
 		{
-			// Loop through each MobType in the PlayerInfo.
-			for(MobType mobType: mobTypes)
+			if(!runningPass.isDone())
 			{
-				MobInfo mobInfo = playerInfo.getMobInfo(mobType);
-				
-				if(mobInfo.getSetting() == Setting.AUTO)
-				{
-					mobInfo.updateEstimatedPerformanceLevel();
-					mobInfo.updateAutoPerformanceLevel();
-				}		
+				return;
+			}
+			
+			runningPass.commit(playerDataManager);
+			runningPass = null;
+		}
+		
+		final AnalyzerPass pass = new AnalyzerPass(estimators);
+		
+		PlayerInfo playerInfo;
+		while((playerInfo = schedule.nextDuePlayer()) != null)
+		{
+			// drop players who logged out since they were scheduled
+			if(playerDataManager.getLoadedPlayerInfo(playerInfo.getPlayerID()) == playerInfo)
+			{
+				pass.add(playerInfo);
+				schedule.schedule(playerInfo, playerInfo.takeCombatEvents(), loadFactor);
+			}
+			else
+			{
+				schedule.remove(playerInfo);
+			}
+			
+			if(System.nanoTime() >= deadline)
+			{
+				break;
 			}
 		}
+		
+		if(pass.getPlayers() > 0)
+		{
+			runningPass = pass;
+			final ForkJoinPool passPool = pool;
+			plugin.getServer().getScheduler().runTaskAsynchronously(plugin, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					pass.compute(passPool);
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Updates the players' estimated performance level and current 
+	 * performance levels for each type of mob as long as the player's 
+	 * setting is set to AUTO. The estimated performance levels are 
+	 * only recomputed here when the Estimator does not leave them to 
+	 * the MonitorListener.
+	 */
+	protected void updatePlayerData()
+	{
+		AnalyzerPass pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), estimators);
+		pass.compute(pool);
+		pass.commit(playerDataManager);
 	}
 }
@@ -0,0 +1,79 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+
+/**
+ * A rating style Estimator in the spirit of Glicko. The estimated 
+ * performance level is the player's rating, and the Estimator also 
+ * keeps how unsure it is of the rating, as a variance. Every run of 
+ * the Analyzer treats the level worked out by the formula in 
+ * MobInfo.updateEstimatedPerformanceLevel() as a noisy measurement 
+ * of the player's real level, which is less noisy the more mobs it 
+ * is made from, and moves the rating toward it by how much the 
+ * measurement is trusted compared to the rating. That makes the 
+ * rating move quickly while it is unsure, such as after logging in, 
+ * and settle down once it has seen enough fights.
+ *
+ * The variance grows a little every run with new fights, so that a 
+ * player who gets better or worse is followed. A MobInfo that is 
+ * analyzed again without new fights, such as while its auto 
+ * performance level is still catching up, is not measured again, 
+ * since the same mobs would otherwise be counted twice.
+ * @author CJ McGuire
+ */
+class BayesianEstimator extends WindowEstimator
+{
+	// The variance of a rating that nothing is known about yet.
+	static final double PRIOR_VARIANCE = 50 * 50;
+	
+	// How much the variance grows every run.
+	static final double DRIFT_VARIANCE = 5 * 5;
+	
+	// The variance of a measurement made from a single mob.
+	static final double MOB_VARIANCE = 100 * 100;
+	
+	// Used to mix the numbers of the window into one.
+	private static final long WINDOW_PRIME = 1000003;
+	
+	@Override
+	public String getName()
+	{
+		return "bayesian";
+	}
+	
+	/**
+	 * Moves the rating toward the measured level. The variance is 
+	 * kept in state[offset], where 0 means nothing is known yet. The 
+	 * window that was last measured is kept in state[offset + 1], and 
+	 * the rating is left alone if the window has not changed since.
+	 */
+	@Override
+	public double estimate(MobType mobType, double estimatedPerformanceLevel, int interactedWith, int damageGave,
+			int damageReceived, double[] state, int offset)
+	{
+		double window = (((long) interactedWith * WINDOW_PRIME) + damageGave) * WINDOW_PRIME + damageReceived;
+		if(window == state[offset + 1])
+		{
+			return estimatedPerformanceLevel;
+		}
+		state[offset + 1] = window;
+		
+		double measured = MobInfo.estimatePerformanceLevel(mobType, interactedWith, damageGave, damageReceived);
+		measured = Math.max(MobInfo.MIN_PERFORMANCE_LEVEL, Math.min(MobInfo.MAX_PERFORMANCE_LEVEL, measured));
+		
+		double variance = state[offset];
+		if(variance <= 0)
+		{
+			variance = PRIOR_VARIANCE;
+		}
+		variance += DRIFT_VARIANCE;
+		
+		double measuredVariance = MOB_VARIANCE / interactedWith;
+		double gain = variance / (variance + measuredVariance);
+		
+		state[offset] = variance * (1 - gain);
+		
+		return estimatedPerformanceLevel + gain * (measured - estimatedPerformanceLevel);
+	}
+}
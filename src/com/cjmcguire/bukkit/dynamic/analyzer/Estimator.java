@@ -0,0 +1,89 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+
+/**
+ * An Estimator is a way of working out a player's estimated 
+ * performance level for a type of mob and of moving the player's auto 
+ * performance level toward it. The Estimator can be chosen for the 
+ * whole server and for single MobTypes in the config.yml. See 
+ * EstimatorMode for the Estimators that come with the plugin and 
+ * EstimatorSelection for how they are chosen.
+ *
+ * Every MobInfo keeps STATE_SIZE numbers for its Estimator, such as 
+ * the running sums of a controller. They start out as 0, and they 
+ * are not saved, so they start out as 0 again every time the player 
+ * logs in.
+ *
+ * estimate() and step() are called by the Analyzer on any thread, so 
+ * they must only use what they are given.
+ * @author CJ McGuire
+ */
+public interface Estimator
+{
+	/**
+	 * The number of numbers every MobInfo keeps for its Estimator.
+	 */
+	int STATE_SIZE = MobInfo.ESTIMATOR_STATE_SIZE;
+	
+	/**
+	 * @return the name of this Estimator, as it is written in the 
+	 * config.yml
+	 */
+	String getName();
+	
+	/**
+	 * @return true if the estimated performance level is kept up to 
+	 * date by recordHit() as damage is recorded, in which case the 
+	 * Analyzer does not call estimate() and only moves the auto 
+	 * performance level
+	 */
+	boolean isEstimatedByMonitor();
+	
+	/**
+	 * Called by the Monitor on the main thread every time it has 
+	 * recorded damage between a player and a mob.
+	 * @param mobInfo the player's MobInfo for the type of mob
+	 */
+	void recordHit(MobInfo mobInfo);
+	
+	/**
+	 * Works out a new estimated performance level from the damage 
+	 * recorded against the most recent mobs of a type. It is only 
+	 * called once the player has interacted with at least 
+	 * MobInfo.MINIMUM_MOBS_TO_INTERACT_WITH of them.
+	 * @param mobType the type of mob
+	 * @param estimatedPerformanceLevel the current estimated 
+	 * performance level
+	 * @param interactedWith the number of recent mobs
+	 * @param damageGave the damage the player gave to the recent mobs
+	 * @param damageReceived the damage the player received from the 
+	 * recent mobs
+	 * @param state the Estimator's numbers for the MobInfo, which may 
+	 * be changed
+	 * @param offset the index of the first of them in state
+	 * @return the new estimated performance level. It is kept between 
+	 * MobInfo.MIN_PERFORMANCE_LEVEL and MobInfo.MAX_PERFORMANCE_LEVEL 
+	 * afterwards.
+	 */
+	double estimate(MobType mobType, double estimatedPerformanceLevel, int interactedWith, int damageGave,
+			int damageReceived, double[] state, int offset);
+	
+	/**
+	 * Works out the auto performance level that one run of the 
+	 * Analyzer moves to.
+	 * @param estimatedPerformanceLevel the estimated performance level
+	 * @param autoPerformanceLevel the current auto performance level
+	 * @param maxIncrement the most the auto performance level should 
+	 * change by
+	 * @param state the Estimator's numbers for the MobInfo, which may 
+	 * be changed
+	 * @param offset the index of the first of them in state
+	 * @return the new auto performance level. It is kept between 
+	 * MobInfo.MIN_PERFORMANCE_LEVEL and MobInfo.MAX_PERFORMANCE_LEVEL 
+	 * afterwards.
+	 */
+	double step(double estimatedPerformanceLevel, double autoPerformanceLevel, int maxIncrement,
+			double[] state, int offset);
+}
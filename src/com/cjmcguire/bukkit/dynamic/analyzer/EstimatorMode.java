@@ -0,0 +1,85 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+/**
+ * The EstimatorMode Enum is used to represent the Estimators that 
+ * come with the plugin. One is chosen per server in the config.yml, 
+ * and others can be chosen for single MobTypes.
+ * @author CJ McGuire
+ */
+public enum EstimatorMode
+{
+	/**
+	 * The AnalyzerTask recomputes every estimated performance level 
+	 * each time it runs from the damage in each MobInfo's window of 
+	 * recent mobs.
+	 */
+	WINDOW(new WindowEstimator()),
+	
+	/**
+	 * The MonitorListener updates an exponentially weighted moving 
+	 * average every time it records damage, and the AnalyzerTask 
+	 * only moves the auto performance levels toward it.
+	 */
+	EWMA(new EwmaEstimator()),
+	
+	/**
+	 * The AnalyzerTask keeps a rating and how sure it is of it, and 
+	 * moves the rating toward the window's level by how much it 
+	 * trusts the window.
+	 */
+	BAYESIAN(new BayesianEstimator()),
+	
+	/**
+	 * The estimated performance level is worked out as in WINDOW, 
+	 * and a PID controller moves the auto performance level toward 
+	 * it.
+	 */
+	PID(new PidEstimator());
+	
+	
+	private Estimator estimator;
+	
+	
+	EstimatorMode(Estimator estimator)
+	{
+		this.estimator = estimator;
+	}
+	
+	/**
+	 * @return a String representation of the EstimatorMode
+	 */
+	public String getName()
+	{
+		return estimator.getName();
+	}
+	
+	/**
+	 * @return the Estimator of this EstimatorMode
+	 */
+	public Estimator getEstimator()
+	{
+		return estimator;
+	}
+	
+	/**
+	 * Gets the EstimatorMode for the given estimatorName.
+	 * @param estimatorName the name of the EstimatorMode you want. 
+	 * Not case sensitive.
+	 * @return the EstimatorMode with the given estimatorName or null 
+	 * if no EstimatorMode has the given estimatorName
+	 */
+	public static EstimatorMode getEstimatorMode(String estimatorName)
+	{
+		EstimatorMode estimatorMode = null;
+		
+		for(EstimatorMode tempEstimatorMode: EstimatorMode.values())
+		{
+			if(tempEstimatorMode.getName().equalsIgnoreCase(estimatorName))
+			{
+				estimatorMode = tempEstimatorMode;
+			}
+		}
+		
+		return estimatorMode;
+	}
+}
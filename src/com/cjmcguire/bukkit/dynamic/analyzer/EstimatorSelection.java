@@ -0,0 +1,58 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+
+/**
+ * Holds the Estimator that is used for every MobType. Every MobType 
+ * uses the server's Estimator unless one was chosen for it in the 
+ * config.yml.
+ * @author CJ McGuire
+ */
+public class EstimatorSelection
+{
+	private final Estimator[] estimators;
+	
+	/**
+	 * Initializes the EstimatorSelection so that every MobType uses 
+	 * the Estimator of the given EstimatorMode.
+	 * @param estimatorMode the server's EstimatorMode
+	 */
+	public EstimatorSelection(EstimatorMode estimatorMode)
+	{
+		this(estimatorMode.getEstimator());
+	}
+	
+	/**
+	 * Initializes the EstimatorSelection so that every MobType uses 
+	 * the given Estimator.
+	 * @param estimator the server's Estimator
+	 */
+	public EstimatorSelection(Estimator estimator)
+	{
+		this.estimators = new Estimator[MobType.values().length];
+		
+		for(int i = 0; i < estimators.length; i++)
+		{
+			estimators[i] = estimator;
+		}
+	}
+	
+	/**
+	 * @param mobType the type of mob
+	 * @return the Estimator used for the given MobType
+	 */
+	public Estimator getEstimator(MobType mobType)
+	{
+		return estimators[mobType.ordinal()];
+	}
+	
+	/**
+	 * Sets the Estimator used for the given MobType.
+	 * @param mobType the type of mob
+	 * @param estimator the Estimator to use for it
+	 */
+	public void setEstimator(MobType mobType, Estimator estimator)
+	{
+		estimators[mobType.ordinal()] = estimator;
+	}
+}
@@ -0,0 +1,32 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+
+/**
+ * An Estimator that keeps the estimated performance level as an 
+ * exponentially weighted moving average over every mob of a type, 
+ * updated by the Monitor every time it records damage. See 
+ * MobInfo.updateAveragePerformanceLevel(). The Analyzer only moves 
+ * the auto performance level toward it.
+ * @author CJ McGuire
+ */
+class EwmaEstimator extends WindowEstimator
+{
+	@Override
+	public String getName()
+	{
+		return "ewma";
+	}
+	
+	@Override
+	public boolean isEstimatedByMonitor()
+	{
+		return true;
+	}
+	
+	@Override
+	public void recordHit(MobInfo mobInfo)
+	{
+		mobInfo.updateAveragePerformanceLevel();
+	}
+}
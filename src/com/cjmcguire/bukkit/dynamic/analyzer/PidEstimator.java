@@ -0,0 +1,81 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+/**
+ * An Estimator that works out the estimated performance level the 
+ * same way as the window Estimator, but moves the auto performance 
+ * level with a PID controller instead of a fixed step. The error is 
+ * how far the auto performance level is from the estimated one. The 
+ * controller moves by a part of the error, plus a part of the sum of 
+ * the past errors so that a small error does not linger, plus a part 
+ * of how much the error changed since the last run so that it eases 
+ * off as it gets close. It still never moves by more than the max 
+ * increment, never past the estimated performance level, and never 
+ * away from it.
+ * @author CJ McGuire
+ */
+class PidEstimator extends WindowEstimator
+{
+	static final double PROPORTIONAL_GAIN = 0.6;
+	static final double INTEGRAL_GAIN = 0.1;
+	static final double DERIVATIVE_GAIN = 0.2;
+	
+	// The sum of the past errors is kept within this much of 0.
+	static final double MAX_INTEGRAL = 100;
+	
+	// Once the auto performance level is this close, or the 
+	// controller would take it past the estimated performance level, 
+	// it is set to the estimated performance level and the controller 
+	// starts over.
+	static final double SETTLED = 0.5;
+	
+	@Override
+	public String getName()
+	{
+		return "pid";
+	}
+	
+	/**
+	 * Moves the auto performance level with the PID controller. The 
+	 * sum of the past errors is kept in state[offset] and the last 
+	 * error in state[offset + 1]. The sum only takes in the error 
+	 * while the controller is not held back, so that it does not 
+	 * build up during a long climb. Right after a large step, the 
+	 * change in the error can outweigh the error itself, so the 
+	 * output is held at 0 instead of moving away from the estimated 
+	 * performance level.
+	 */
+	@Override
+	public double step(double estimatedPerformanceLevel, double autoPerformanceLevel, int maxIncrement,
+			double[] state, int offset)
+	{
+		double error = estimatedPerformanceLevel - autoPerformanceLevel;
+		double integral = Math.max(-MAX_INTEGRAL, Math.min(MAX_INTEGRAL, state[offset] + error));
+		double derivative = error - state[offset + 1];
+		
+		double output = PROPORTIONAL_GAIN * error + INTEGRAL_GAIN * integral + DERIVATIVE_GAIN * derivative;
+		
+		// reached it, so the controller starts over
+		if(Math.abs(error) < SETTLED || (Math.abs(error) <= maxIncrement && output * error >= error * error))
+		{
+			state[offset] = 0;
+			state[offset + 1] = 0;
+			return estimatedPerformanceLevel;
+		}
+		
+		if(output * error < 0)
+		{
+			output = 0;
+		}
+		else if(output > maxIncrement || output < -maxIncrement)
+		{
+			output = Math.max(-maxIncrement, Math.min(maxIncrement, output));
+		}
+		else
+		{
+			state[offset] = integral;
+		}
+		state[offset + 1] = error;
+		
+		return autoPerformanceLevel + output;
+	}
+}
@@ -0,0 +1,48 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+
+/**
+ * The Estimator the plugin has always used. The estimated performance 
+ * level is worked out from scratch on every run of the Analyzer with 
+ * the formula in MobInfo.updateEstimatedPerformanceLevel(), and the 
+ * auto performance level moves toward it by at most the max 
+ * increment, as in MobInfo.updateAutoPerformanceLevel(). The other 
+ * Estimators that come with the plugin extend this one.
+ * @author CJ McGuire
+ */
+class WindowEstimator implements Estimator
+{
+	@Override
+	public String getName()
+	{
+		return "window";
+	}
+	
+	@Override
+	public boolean isEstimatedByMonitor()
+	{
+		return false;
+	}
+	
+	@Override
+	public void recordHit(MobInfo mobInfo)
+	{
+	
+	}
+	
+	@Override
+	public double estimate(MobType mobType, double estimatedPerformanceLevel, int interactedWith, int damageGave,
+			int damageReceived, double[] state, int offset)
+	{
+		return MobInfo.estimatePerformanceLevel(mobType, interactedWith, damageGave, damageReceived);
+	}
+	
+	@Override
+	public double step(double estimatedPerformanceLevel, double autoPerformanceLevel, int maxIncrement,
+			double[] state, int offset)
+	{
+		return MobInfo.stepAutoPerformanceLevel(estimatedPerformanceLevel, autoPerformanceLevel, maxIncrement);
+	}
+}
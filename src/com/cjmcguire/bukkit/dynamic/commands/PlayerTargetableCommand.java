@@ -8,6 +8,7 @@ import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
 
 /**
  * This abstract command lays out the basic setup for commands that 
@@ -133,7 +134,11 @@ public abstract class PlayerTargetableCommand implements DDCommand
 	 * 7. If the sender put in the incorrect number of arguments, then 
 	 * the method will not work as intended.
 	 * 
-	 * 8. If the sender is asking for another player who does not 
+	 * 8. If the sender is asking for another player who is not 
+	 * logged in, then the method will work as intended if the player 
+	 * has stored data.
+	 * 
+	 * 9. If the sender is asking for another player who does not 
 	 * exist, then this method will not work as intended.
 	 * 
 	 * @param sender the sender of the command
@@ -218,13 +223,31 @@ public abstract class PlayerTargetableCommand implements DDCommand
 		
 		UUID playerID = this.getUUIDFromPlayerName(otherPlayerName);
 		
+		// A player who is not logged in can still be targeted if the 
+		// player has stored data. It is loaded for the command and 
+		// saved and let go of afterwards.
+		boolean loadedForCommand = false;
+		if(playerID == null)
+		{
+			playerID = this.playerDataManager.getStoredPlayerID(otherPlayerName);
+			if(playerID != null)
+			{
+				loadedForCommand = this.playerDataManager.loadStoredPlayerInfo(playerID);
+			}
+		}
+		
 		if(playerID != null && this.playerDataManager.playerInfoExists(playerID))
 		{
 			workedAsIntended = this.commandAction(sender, playerID, args);
+			
+			if(loadedForCommand)
+			{
+				this.playerDataManager.unloadStoredPlayerInfo(playerID);
+			}
 		}
 		else
 		{
-			sender.sendMessage(ChatColor.GOLD + otherPlayerName + ChatColor.RESET + " is not a logged in player");
+			sender.sendMessage(ChatColor.GOLD + otherPlayerName + ChatColor.RESET + " is not a known player");
 		}
 		
 		return workedAsIntended;
@@ -266,6 +289,38 @@ public abstract class PlayerTargetableCommand implements DDCommand
 		return senderIsThePlayer;
 	}
 	
+	/**
+	 * @param player the Player with the given UUID, or null if the 
+	 * player is not logged in
+	 * @param playerID the UUID of the player
+	 * @return the name of the player, or the player's last known name 
+	 * if the player is not logged in
+	 */
+	protected String getPlayerName(Player player, UUID playerID)
+	{
+		String playerName = null;
+		
+		if(player != null)
+		{
+			playerName = player.getName();
+		}
+		else
+		{
+			PlayerInfo playerInfo = this.playerDataManager.getLoadedPlayerInfo(playerID);
+			if(playerInfo != null)
+			{
+				playerName = playerInfo.getLastKnownName();
+			}
+		}
+		
+		if(playerName == null)
+		{
+			playerName = playerID.toString();
+		}
+		
+		return playerName;
+	}
+	
 	/**
 	 * 
 	 * @param sender the sender of the command
@@ -161,10 +161,14 @@ public class ChangeLevelCommand extends AbstractChangeCommand
 		else
 		{
 			Player player = this.server.getPlayer(playerID);
-			String playerName = player.getName();
-			player.sendMessage(ChatColor.GOLD + "Your " +
-					ChatColor.RESET + "manual performance levels for " + ChatColor.GOLD + "all mobs" + 
-					ChatColor.RESET + " were changed to " + ChatColor.GOLD + actualPerformanceLevel);
+			String playerName = this.getPlayerName(player, playerID);
+			
+			if(player != null)
+			{
+				player.sendMessage(ChatColor.GOLD + "Your " +
+						ChatColor.RESET + "manual performance levels for " + ChatColor.GOLD + "all mobs" + 
+						ChatColor.RESET + " were changed to " + ChatColor.GOLD + actualPerformanceLevel);
+			}
 			
 			sender.sendMessage(ChatColor.GOLD + playerName +
 					ChatColor.RESET + "'s manual performance levels for " + ChatColor.GOLD + "all mobs" + 
@@ -209,11 +213,14 @@ public class ChangeLevelCommand extends AbstractChangeCommand
 		else
 		{
 			Player player = this.server.getPlayer(playerID);
-			String playerName = player.getName();
+			String playerName = this.getPlayerName(player, playerID);
 			
-			player.sendMessage(ChatColor.GOLD + "Your " +
-					ChatColor.RESET + "manual performance level for " + ChatColor.GOLD + mobType.getName() + 
-					ChatColor.RESET + " was changed to " + ChatColor.GOLD + actualPerformanceLevel);
+			if(player != null)
+			{
+				player.sendMessage(ChatColor.GOLD + "Your " +
+						ChatColor.RESET + "manual performance level for " + ChatColor.GOLD + mobType.getName() + 
+						ChatColor.RESET + " was changed to " + ChatColor.GOLD + actualPerformanceLevel);
+			}
 			
 			sender.sendMessage(ChatColor.GOLD + playerName +
 					ChatColor.RESET + "'s manual performance level for " + ChatColor.GOLD + mobType.getName() + 
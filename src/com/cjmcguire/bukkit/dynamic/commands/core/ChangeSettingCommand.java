@@ -157,11 +157,14 @@ public class ChangeSettingCommand extends AbstractChangeCommand
 		else
 		{
 			Player player = this.server.getPlayer(playerID);
-			String playerName = player.getName();
+			String playerName = this.getPlayerName(player, playerID);
 			
-			player.sendMessage(ChatColor.GOLD + "Your " + 
-					ChatColor.RESET + "settings for " + ChatColor.GOLD + "all mobs" + 
-					ChatColor.RESET + " were changed to " + ChatColor.GOLD + setting.getName());
+			if(player != null)
+			{
+				player.sendMessage(ChatColor.GOLD + "Your " + 
+						ChatColor.RESET + "settings for " + ChatColor.GOLD + "all mobs" + 
+						ChatColor.RESET + " were changed to " + ChatColor.GOLD + setting.getName());
+			}
 			
 			sender.sendMessage(ChatColor.GOLD + playerName + 
 					ChatColor.RESET + "'s settings for " + ChatColor.GOLD + "all mobs" + 
@@ -186,11 +189,14 @@ public class ChangeSettingCommand extends AbstractChangeCommand
 		else
 		{
 			Player player = this.server.getPlayer(playerID);
-			String playerName = player.getName();
+			String playerName = this.getPlayerName(player, playerID);
 			
-			player.sendMessage(ChatColor.GOLD + "Your " + 
-					ChatColor.RESET + "setting for " + ChatColor.GOLD + mobType.getName() + 
-					ChatColor.RESET + " was changed to " + ChatColor.GOLD + setting.getName());
+			if(player != null)
+			{
+				player.sendMessage(ChatColor.GOLD + "Your " + 
+						ChatColor.RESET + "setting for " + ChatColor.GOLD + mobType.getName() + 
+						ChatColor.RESET + " was changed to " + ChatColor.GOLD + setting.getName());
+			}
 			
 			sender.sendMessage(ChatColor.GOLD + playerName + 
 					ChatColor.RESET + "'s setting for " + ChatColor.GOLD + mobType.getName() + 
@@ -109,7 +109,7 @@ public class InfoCommand extends PlayerTargetableCommand
 		else
 		{
 			Player player = this.server.getPlayer(playerID);
-			String playerName = player.getName();
+			String playerName = this.getPlayerName(player, playerID);
 			sender.sendMessage(ChatColor.LIGHT_PURPLE + "DynamicDifficulty settings and performance levels for " + playerName + ":");
 		}
 		
@@ -145,7 +145,7 @@ public class InfoCommand extends PlayerTargetableCommand
 		else
 		{
 			Player player = this.server.getPlayer(playerID);
-			String playerName = player.getName();
+			String playerName = this.getPlayerName(player, playerID);
 			sender.sendMessage(ChatColor.LIGHT_PURPLE + playerName + "'s DynamicDifficulty information for " + mobType.getName() + ":");
 		}
 
@@ -149,11 +149,14 @@ public class SetMaxIncrementCommand extends AbstractChangeCommand
 		else
 		{
 			Player player = this.server.getPlayer(playerID);
-			String playerName = player.getName();
+			String playerName = this.getPlayerName(player, playerID);
 			
-			player.sendMessage(ChatColor.GOLD + "Your " +
-					ChatColor.RESET + "max increment for " + ChatColor.GOLD + "all mobs" + 
-					ChatColor.RESET + " were changed to " + ChatColor.GOLD + actualMaxIncrement);
+			if(player != null)
+			{
+				player.sendMessage(ChatColor.GOLD + "Your " +
+						ChatColor.RESET + "max increment for " + ChatColor.GOLD + "all mobs" + 
+						ChatColor.RESET + " were changed to " + ChatColor.GOLD + actualMaxIncrement);
+			}
 			
 			sender.sendMessage(ChatColor.GOLD + playerName +
 					ChatColor.RESET + "'s max increments for " + ChatColor.GOLD + "all mobs" + 
@@ -180,11 +183,14 @@ public class SetMaxIncrementCommand extends AbstractChangeCommand
 		else
 		{
 			Player player = this.server.getPlayer(playerID);
-			String playerName = player.getName();
+			String playerName = this.getPlayerName(player, playerID);
 			
-			player.sendMessage(ChatColor.GOLD + "Your " +
-					ChatColor.RESET + "max increment for " + ChatColor.GOLD + mobType.getName() + 
-					ChatColor.RESET + " was changed to " + ChatColor.GOLD + actualMaxIncrement);
+			if(player != null)
+			{
+				player.sendMessage(ChatColor.GOLD + "Your " +
+						ChatColor.RESET + "max increment for " + ChatColor.GOLD + mobType.getName() + 
+						ChatColor.RESET + " was changed to " + ChatColor.GOLD + actualMaxIncrement);
+			}
 			
 			sender.sendMessage(ChatColor.GOLD + playerName +
 					ChatColor.RESET + "'s max increment for " + ChatColor.GOLD + mobType.getName() + 
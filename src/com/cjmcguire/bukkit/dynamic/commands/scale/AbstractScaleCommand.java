@@ -140,11 +140,14 @@ public abstract class AbstractScaleCommand extends PlayerTargetableCommand
 		else
 		{
 			Player player = this.server.getPlayer(playerID);
-			String playerName = player.getName();
+			String playerName = this.getPlayerName(player, playerID);
 			
-			player.sendMessage(ChatColor.GOLD + "Your " + 
-					ChatColor.RESET + "scale " + attributeName + " settings for " + ChatColor.GOLD + "all mobs" + 
-					ChatColor.RESET + " were changed to " + ChatColor.GOLD + setting.getName());
+			if(player != null)
+			{
+				player.sendMessage(ChatColor.GOLD + "Your " + 
+						ChatColor.RESET + "scale " + attributeName + " settings for " + ChatColor.GOLD + "all mobs" + 
+						ChatColor.RESET + " were changed to " + ChatColor.GOLD + setting.getName());
+			}
 			
 			sender.sendMessage(ChatColor.GOLD + playerName + 
 					ChatColor.RESET + "'s scale attack settings for " + ChatColor.GOLD + "all mobs" + 
@@ -177,11 +180,14 @@ public abstract class AbstractScaleCommand extends PlayerTargetableCommand
 		else
 		{
 			Player player = this.server.getPlayer(playerID);
-			String playerName = player.getName();
+			String playerName = this.getPlayerName(player, playerID);
 			
-			player.sendMessage(ChatColor.GOLD + "Your " + 
-					ChatColor.RESET + "scale " + attributeName + " setting for " + ChatColor.GOLD + mobType.getName() + 
-					ChatColor.RESET + " was changed to " + ChatColor.GOLD + setting.getName());
+			if(player != null)
+			{
+				player.sendMessage(ChatColor.GOLD + "Your " + 
+						ChatColor.RESET + "scale " + attributeName + " setting for " + ChatColor.GOLD + mobType.getName() + 
+						ChatColor.RESET + " was changed to " + ChatColor.GOLD + setting.getName());
+			}
 			
 			sender.sendMessage(ChatColor.GOLD + playerName + 
 					ChatColor.RESET + "'s scale " + attributeName + " setting for " + ChatColor.GOLD + mobType.getName() + 
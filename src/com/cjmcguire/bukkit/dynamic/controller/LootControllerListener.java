@@ -14,6 +14,7 @@ import org.bukkit.inventory.ItemStack;
 
 import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
 import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobTypeCache;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
 
 /**
@@ -26,6 +27,8 @@ import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
 public class LootControllerListener implements Listener
 {
 	private final PlayerDataManager playerDataManager;
+	
+	private final MobTypeCache mobTypeCache;
 
 	/**
 	 * Initializes the LootControllerListener.
@@ -33,6 +36,7 @@ public class LootControllerListener implements Listener
 	public LootControllerListener()
 	{
 		this.playerDataManager = PlayerDataManager.getInstance();
+		this.mobTypeCache = MobTypeCache.getInstance();
 	}
 	
 	/**
@@ -48,12 +52,12 @@ public class LootControllerListener implements Listener
 		LivingEntity killedEntity = event.getEntity();
 		
 		// Get the MobType of the living entity.
-		MobType mobType = MobType.getEntitysMobType(killedEntity);
+		MobType mobType = mobTypeCache.getMobType(killedEntity);
 		
 		Player player = killedEntity.getKiller();
 		
 		// If the player exists and the mob had a valid MobType
-		if(player != null && mobType != null && player.getGameMode() != GameMode.CREATIVE && MobType.potentiallyHostile(killedEntity))
+		if(player != null && mobType != null && player.getGameMode() != GameMode.CREATIVE && mobTypeCache.potentiallyHostile(killedEntity))
 		{
 			UUID playerID = player.getUniqueId();
 			
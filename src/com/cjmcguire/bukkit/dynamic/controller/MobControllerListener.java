@@ -63,7 +63,7 @@ public class MobControllerListener extends AbstractEntityDamageListener
 		int alteredDamage = damage;
 		
 		// Get the mobType of the mob.
-		MobType mobType = MobType.getEntitysMobType(mob);
+		MobType mobType = mobTypeCache.getMobType(mob);
 
 		// If the mob had a valid mobType
 		if(mobType != null)
@@ -88,7 +88,7 @@ public class MobControllerListener extends AbstractEntityDamageListener
 		int alteredDamage = damage;
 		
 		// Get the mobType of the mob
-		MobType mobType = MobType.getEntitysMobType(mob);
+		MobType mobType = mobTypeCache.getMobType(mob);
 
 		// If the mob had a valid mobType
 		if(mobType != null)
@@ -183,7 +183,7 @@ public class MobControllerListener extends AbstractEntityDamageListener
 
 		// If targeter was a LivingEntity (Ideally, the targeter should 
 		// be a mob but there is no way to know that at this point)
-		if(targeter instanceof LivingEntity && MobType.potentiallyHostile((LivingEntity) targeter))
+		if(targeter instanceof LivingEntity && mobTypeCache.potentiallyHostile((LivingEntity) targeter))
 		{
 			if(target instanceof Player)
 			{
@@ -205,7 +205,7 @@ public class MobControllerListener extends AbstractEntityDamageListener
 	private void makeTargeterDynamic(LivingEntity targeter, Player player)
 	{
 		// get the mob's MobType
-		MobType mobType = MobType.getEntitysMobType(targeter);
+		MobType mobType = mobTypeCache.getMobType(targeter);
 
 		// if the mob had a valid MobType
 		if(mobType != null)
@@ -321,7 +321,7 @@ public class MobControllerListener extends AbstractEntityDamageListener
 	 */
 	private void resetTargeterToDefault(LivingEntity targeter)
 	{
-		MobType mobType = MobType.getEntitysMobType(targeter);
+		MobType mobType = mobTypeCache.getMobType(targeter);
 
 		if(mobType != null)
 		{
@@ -0,0 +1,35 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import org.bukkit.scheduler.BukkitRunnable;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
+
+/**
+ * The AutoSaveTask saves every player whose data has changed. It is 
+ * scheduled to run repeatedly on a timer when saves go through the 
+ * journal, so that a player's progress is kept even if the server 
+ * goes down before the player logs out.
+ * @author CJ McGuire
+ */
+public class AutoSaveTask extends BukkitRunnable
+{
+	private final PlayerDataManager playerDataManager;
+	
+	/**
+	 * Initializes the AutoSaveTask.
+	 */
+	public AutoSaveTask()
+	{
+		this.playerDataManager = PlayerDataManager.getInstance();
+	}
+	
+	/**
+	 * Saves every player whose data has changed since it was last 
+	 * saved. The data is written on the save thread.
+	 */
+	@Override
+	public void run()
+	{
+		playerDataManager.saveAllPlayerData();
+	}
+}
@@ -0,0 +1,721 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
+
+/**
+ * Keeps the data of every player in a single memory-mapped file made
+ * of fixed size records, one record per player. A record holds the
+ * player's UUID, the player's last known name and one slot for each
+ * MobType, in MobType ordinal order, and ends with a CRC32 of the
+ * rest of the record. An index from UUID to record is built when the
+ * file is opened, so a player's record can be found, read and changed
+ * in place without reading or rewriting anything else. Since a record
+ * is changed in place, a crash while it is being written can leave
+ * it half old and half new. The CRC is written last, so such a record
+ * is found when it is loaded, and is read as missing instead of as
+ * the player's data.
+ *
+ * The file starts with a header that holds a magic number, the
+ * format version, the number of mob slots in each record and the
+ * number of records. If the number of MobTypes has changed since the
+ * file was written, or the file was written in the first format,
+ * which had no CRCs, the file is rewritten in the current format
+ * when it is opened. The rewrite goes to a new file that is
+ * moved over the old one in a single step once it is complete.
+ *
+ * Changes are written to the mapped memory and reach the disk
+ * whenever the operating system writes them back, or when force()
+ * or close() is called. All of the methods are synchronized, so a
+ * BinaryPlayerStore can be used from any thread.
+ * @author CJ McGuire
+ */
+class BinaryPlayerStore implements PlayerStore
+{
+	private final static int MAGIC = 0x44445053; // "DDPS"
+	private final static short FORMAT_VERSION = 2;
+	
+	// The first format, whose records have no CRC.
+	private final static short NO_CRC_FORMAT_VERSION = 1;
+	
+	// The header.
+	private final static int MAGIC_OFFSET = 0;
+	private final static int FORMAT_VERSION_OFFSET = 4;
+	private final static int MOB_SLOTS_OFFSET = 6;
+	private final static int RECORD_COUNT_OFFSET = 8;
+	private final static int HEADER_SIZE = 16;
+	
+	// A record.
+	private final static int MAX_NAME_BYTES = 16;
+	private final static int UUID_MOST_OFFSET = 0;
+	private final static int UUID_LEAST_OFFSET = 8;
+	private final static int NAME_LENGTH_OFFSET = 16;
+	private final static int NAME_OFFSET = 17;
+	private final static int FIRST_MOB_SLOT_OFFSET = NAME_OFFSET + MAX_NAME_BYTES;
+	private final static int CRC_SIZE = 4;
+	
+	// A mob slot within a record.
+	private final static int SETTING_OFFSET = 0;
+	private final static int SCALE_FLAGS_OFFSET = 1;
+	private final static int MAX_INCREMENT_OFFSET = 2;
+	private final static int MANUAL_LEVEL_OFFSET = 6;
+	private final static int AUTO_LEVEL_OFFSET = 14;
+	private final static int MOB_SLOT_SIZE = 22;
+	
+	// Bits in a mob slot's scale flags.
+	private final static int SCALE_ATTACK = 1;
+	private final static int SCALE_DEFENSE = 2;
+	private final static int SCALE_SPEED = 4;
+	private final static int SCALE_KNOCKBACK_RESISTANCE = 8;
+	private final static int SCALE_MAX_FOLLOW_DISTANCE = 16;
+	private final static int SCALE_XP = 32;
+	private final static int SCALE_LOOT = 64;
+	
+	// Stored in place of a Setting's ordinal when the Setting is null.
+	private final static byte NO_SETTING = -1;
+	
+	private final static int INITIAL_CAPACITY = 64;
+	
+	private final static Charset NAME_CHARSET = Charset.forName("UTF-8");
+	
+	private final static MobType[] MOB_TYPES = MobType.values();
+	private final static Setting[] SETTINGS = Setting.values();
+	
+	private final File file;
+	
+	private final int mobSlots;
+	private final int recordSize;
+	
+	private RandomAccessFile randomAccessFile;
+	private FileChannel channel;
+	private MappedByteBuffer buffer;
+	
+	// The number of records the mapped memory has room for.
+	private int capacity;
+	private int recordCount;
+	
+	// The record number of each player in the file.
+	private final HashMap<UUID, Integer> index;
+	
+	// Used to work out the CRCs of records.
+	private final CRC32 crc;
+	private byte[] recordBytes;
+	
+	/**
+	 * Opens the given file, creating it if it does not exist.
+	 * @param file the file to keep the player data in
+	 * @throws IOException if the file cannot be opened or is not a
+	 * player data file
+	 */
+	BinaryPlayerStore(File file) throws IOException
+	{
+		this(file, MOB_TYPES.length);
+	}
+	
+	/**
+	 * Opens the given file, creating it if it does not exist, with 
+	 * the given number of mob slots in each record. If the file has a 
+	 * different number of mob slots, it is rewritten.
+	 * @param file the file to keep the player data in
+	 * @param mobSlots the number of MobTypes to keep in each record, 
+	 * starting from the first MobType
+	 * @throws IOException if the file cannot be opened or is not a
+	 * player data file
+	 */
+	BinaryPlayerStore(File file, int mobSlots) throws IOException
+	{
+		this.file = file;
+		this.mobSlots = mobSlots;
+		this.recordSize = getRecordSize(mobSlots, FORMAT_VERSION);
+		this.index = new HashMap<UUID, Integer>();
+		this.crc = new CRC32();
+		this.recordBytes = new byte[recordSize];
+		
+		this.open();
+		
+		if(this.getFileMobSlots() != mobSlots || this.getFileFormatVersion() != FORMAT_VERSION)
+		{
+			this.rewriteInCurrentFormat();
+		}
+	}
+	
+	/**
+	 * Reads a player's data from the file. A record that does not 
+	 * match its CRC, which means it was only partly written, is read 
+	 * as missing, though exists() still reports it. The 
+	 * PlayerFileHandler then logs it, uses the player's yml file or 
+	 * the default values instead, and the next save of the player 
+	 * writes over the record.
+	 * @param playerID the UUID of the player
+	 * @return the player's data, or null if the file has no record for 
+	 * the player or the record is damaged
+	 */
+	@Override
+	public synchronized PlayerInfo load(UUID playerID)
+	{
+		PlayerInfo playerInfo = null;
+		
+		Integer record = index.get(playerID);
+		if(record != null)
+		{
+			int position = this.getRecordPosition(record);
+			
+			if(this.isIntact(position, recordSize))
+			{
+				playerInfo = this.readRecord(position, mobSlots);
+			}
+		}
+		
+		return playerInfo;
+	}
+	
+	/**
+	 * Writes a player's data to the file. If the file already has a
+	 * record for the player, the record is changed in place.
+	 * Otherwise a new record is added to the end, and is only counted 
+	 * in the header once it has been written.
+	 * @param playerInfo the player data to write
+	 * @throws IOException if the file needs to grow and cannot
+	 */
+	@Override
+	public synchronized void save(PlayerInfo playerInfo) throws IOException
+	{
+		UUID playerID = playerInfo.getPlayerID();
+		
+		Integer record = index.get(playerID);
+		if(record == null)
+		{
+			if(recordCount == capacity)
+			{
+				this.map(capacity * 2);
+			}
+			
+			record = recordCount;
+			this.writeRecord(this.getRecordPosition(record), playerInfo);
+			
+			recordCount++;
+			index.put(playerID, record);
+			buffer.putInt(RECORD_COUNT_OFFSET, recordCount);
+		}
+		else
+		{
+			this.writeRecord(this.getRecordPosition(record), playerInfo);
+		}
+	}
+	
+	/**
+	 * Adds a record for the given player that does not match its CRC, 
+	 * unless the player already has a record.
+	 */
+	private void addDamagedRecord(UUID playerID) throws IOException
+	{
+		if(!index.containsKey(playerID))
+		{
+			if(recordCount == capacity)
+			{
+				this.map(capacity * 2);
+			}
+			
+			int position = this.getRecordPosition(recordCount);
+			for(int i = 0; i < recordSize; i++)
+			{
+				buffer.put(position + i, (byte) 0);
+			}
+			buffer.putLong(position + UUID_MOST_OFFSET, playerID.getMostSignificantBits());
+			buffer.putLong(position + UUID_LEAST_OFFSET, playerID.getLeastSignificantBits());
+			
+			int dataSize = recordSize - CRC_SIZE;
+			buffer.putInt(position + dataSize, ~this.getChecksum(position, dataSize));
+			
+			index.put(playerID, recordCount);
+			recordCount++;
+			buffer.putInt(RECORD_COUNT_OFFSET, recordCount);
+		}
+	}
+	
+	/**
+	 * Writes each player's record and then writes the changes to the
+	 * disk, so that the whole batch is on disk when this returns.
+	 * @param snapshots the player data to write
+	 * @throws IOException if the file needs to grow and cannot
+	 */
+	@Override
+	public synchronized void saveBatch(Collection<PlayerInfo> snapshots) throws IOException
+	{
+		for(PlayerInfo snapshot: snapshots)
+		{
+			this.save(snapshot);
+		}
+		
+		this.force();
+	}
+	
+	@Override
+	public synchronized boolean exists(UUID playerID)
+	{
+		return index.containsKey(playerID);
+	}
+	
+	/**
+	 * @return the number of players in the file
+	 */
+	synchronized int size()
+	{
+		return recordCount;
+	}
+	
+	/**
+	 * Writes every change made so far to the disk.
+	 */
+	synchronized void force()
+	{
+		buffer.force();
+	}
+	
+	/**
+	 * Writes every change made so far to the disk and closes the
+	 * file. The BinaryPlayerStore cannot be used afterwards.
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if(channel != null)
+		{
+			if(buffer != null)
+			{
+				buffer.force();
+				unmap(buffer);
+				buffer = null;
+			}
+			
+			channel.close();
+			channel = null;
+			
+			randomAccessFile.close();
+			randomAccessFile = null;
+		}
+	}
+	
+	private void open() throws IOException
+	{
+		boolean isNew = !file.exists() || file.length() == 0;
+		
+		if(file.getParentFile() != null)
+		{
+			file.getParentFile().mkdirs();
+		}
+		
+		randomAccessFile = new RandomAccessFile(file, "rw");
+		channel = randomAccessFile.getChannel();
+		
+		if(isNew)
+		{
+			this.map(INITIAL_CAPACITY);
+			
+			buffer.putInt(MAGIC_OFFSET, MAGIC);
+			buffer.putShort(FORMAT_VERSION_OFFSET, FORMAT_VERSION);
+			buffer.putShort(MOB_SLOTS_OFFSET, (short) mobSlots);
+			buffer.putInt(RECORD_COUNT_OFFSET, 0);
+			
+			recordCount = 0;
+		}
+		else
+		{
+			this.openExisting();
+		}
+	}
+	
+	private void openExisting() throws IOException
+	{
+		if(file.length() < HEADER_SIZE)
+		{
+			this.close();
+			throw new IOException(file + " is too short to be a player data file");
+		}
+		
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+		
+		short fileFormatVersion = this.getFileFormatVersion();
+		
+		if(buffer.getInt(MAGIC_OFFSET) != MAGIC || 
+				(fileFormatVersion != FORMAT_VERSION && fileFormatVersion != NO_CRC_FORMAT_VERSION))
+		{
+			this.close();
+			throw new IOException(file + " is not a player data file");
+		}
+		
+		int fileRecordSize = getRecordSize(this.getFileMobSlots(), fileFormatVersion);
+		recordCount = buffer.getInt(RECORD_COUNT_OFFSET);
+		
+		int fileCapacity = (int) ((file.length() - HEADER_SIZE) / fileRecordSize);
+		if(recordCount < 0 || recordCount > fileCapacity)
+		{
+			this.close();
+			throw new IOException(file + " says it holds " + recordCount + " players but only has room for " + fileCapacity);
+		}
+		
+		if(this.getFileMobSlots() == mobSlots && fileFormatVersion == FORMAT_VERSION)
+		{
+			this.map(Math.max(fileCapacity, INITIAL_CAPACITY));
+			
+			for(int record = 0; record < recordCount; record++)
+			{
+				int position = this.getRecordPosition(record);
+				UUID playerID = new UUID(buffer.getLong(position + UUID_MOST_OFFSET), buffer.getLong(position + UUID_LEAST_OFFSET));
+				
+				index.put(playerID, record);
+			}
+		}
+		else
+		{
+			// The records are read with the file's own record size by
+			// rewriteInCurrentFormat().
+			MappedByteBuffer headerBuffer = buffer;
+			buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) recordCount * fileRecordSize);
+			unmap(headerBuffer);
+		}
+	}
+	
+	/**
+	 * Copies every record into a new file in the current format, with 
+	 * a slot for every MobType there is now, and puts the new file in 
+	 * place of the old one. A record that does not match its CRC 
+	 * cannot be trusted, so it is copied as a damaged record that 
+	 * only holds the player's UUID, which is read the same way as the 
+	 * record it came from. The old file is closed and unmapped first, 
+	 * since some systems do not let a file that is mapped be 
+	 * replaced. If the rewrite fails, the old file is left as it was.
+	 */
+	private void rewriteInCurrentFormat() throws IOException
+	{
+		int fileMobSlots = this.getFileMobSlots();
+		short fileFormatVersion = this.getFileFormatVersion();
+		int fileRecordSize = getRecordSize(fileMobSlots, fileFormatVersion);
+		
+		if(fileRecordSize > recordBytes.length)
+		{
+			recordBytes = new byte[fileRecordSize];
+		}
+		
+		List<PlayerInfo> players = new ArrayList<PlayerInfo>(recordCount);
+		List<UUID> damagedPlayers = new ArrayList<UUID>();
+		for(int record = 0; record < recordCount; record++)
+		{
+			int position = HEADER_SIZE + record * fileRecordSize;
+			
+			if(fileFormatVersion == NO_CRC_FORMAT_VERSION || this.isIntact(position, fileRecordSize))
+			{
+				players.add(this.readRecord(position, Math.min(fileMobSlots, mobSlots)));
+			}
+			else
+			{
+				damagedPlayers.add(new UUID(buffer.getLong(position + UUID_MOST_OFFSET), 
+						buffer.getLong(position + UUID_LEAST_OFFSET)));
+			}
+		}
+		
+		File newFile = new File(file.getPath() + ".new");
+		newFile.delete();
+		
+		BinaryPlayerStore newStore = new BinaryPlayerStore(newFile, mobSlots);
+		for(PlayerInfo playerInfo: players)
+		{
+			newStore.save(playerInfo);
+		}
+		for(UUID playerID: damagedPlayers)
+		{
+			newStore.addDamagedRecord(playerID);
+		}
+		newStore.close();
+		
+		this.close();
+		
+		try
+		{
+			Files.move(newFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(AtomicMoveNotSupportedException e)
+		{
+			Files.move(newFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		
+		index.clear();
+		this.open();
+	}
+	
+	/**
+	 * Maps enough of the file to hold the given number of records,
+	 * growing the file if it is too short.
+	 */
+	private void map(int newCapacity) throws IOException
+	{
+		MappedByteBuffer oldBuffer = buffer;
+		
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) newCapacity * recordSize);
+		capacity = newCapacity;
+		
+		if(oldBuffer != null)
+		{
+			unmap(oldBuffer);
+		}
+	}
+	
+	/**
+	 * Releases the given mapping right away instead of whenever the 
+	 * buffer is garbage collected. The buffer must not be used 
+	 * afterwards. Java has no public way to do this, so if neither of 
+	 * the ways the JDK allows works, the mapping is left to the 
+	 * garbage collector.
+	 */
+	private static void unmap(MappedByteBuffer mappedBuffer)
+	{
+		try
+		{
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			
+			Method invokeCleaner;
+			try
+			{
+				invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			}
+			catch(NoSuchMethodException e)
+			{
+				invokeCleaner = null;
+			}
+			
+			if(invokeCleaner != null)
+			{
+				// Java 9 and later
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				invokeCleaner.invoke(theUnsafe.get(null), mappedBuffer);
+			}
+			else
+			{
+				// Java 7 and 8
+				Method cleanerMethod = mappedBuffer.getClass().getMethod("cleaner");
+				cleanerMethod.setAccessible(true);
+				Object cleaner = cleanerMethod.invoke(mappedBuffer);
+				if(cleaner != null)
+				{
+					cleaner.getClass().getMethod("clean").invoke(cleaner);
+				}
+			}
+		}
+		catch(Exception e)
+		{
+			// left to the garbage collector
+		}
+	}
+	
+	private int getFileMobSlots()
+	{
+		return buffer.getShort(MOB_SLOTS_OFFSET);
+	}
+	
+	private short getFileFormatVersion()
+	{
+		return buffer.getShort(FORMAT_VERSION_OFFSET);
+	}
+	
+	private static int getRecordSize(int mobSlots, short formatVersion)
+	{
+		int size = FIRST_MOB_SLOT_OFFSET + mobSlots * MOB_SLOT_SIZE;
+		
+		if(formatVersion != NO_CRC_FORMAT_VERSION)
+		{
+			size += CRC_SIZE;
+		}
+		
+		return size;
+	}
+	
+	/**
+	 * @return the CRC32 of the given number of bytes of the record at 
+	 * the given position
+	 */
+	private int getChecksum(int position, int length)
+	{
+		ByteBuffer record = buffer.duplicate();
+		record.position(position);
+		record.get(recordBytes, 0, length);
+		
+		crc.reset();
+		crc.update(recordBytes, 0, length);
+		
+		return (int) crc.getValue();
+	}
+	
+	/**
+	 * @return true if the record at the given position, which ends 
+	 * with its CRC, matches its CRC
+	 */
+	private boolean isIntact(int position, int size)
+	{
+		int dataSize = size - CRC_SIZE;
+		
+		return buffer.getInt(position + dataSize) == this.getChecksum(position, dataSize);
+	}
+	
+	private int getRecordPosition(int record)
+	{
+		return HEADER_SIZE + record * recordSize;
+	}
+	
+	private PlayerInfo readRecord(int position, int slotsToRead)
+	{
+		UUID playerID = new UUID(buffer.getLong(position + UUID_MOST_OFFSET), buffer.getLong(position + UUID_LEAST_OFFSET));
+		PlayerInfo playerInfo = new PlayerInfo(playerID);
+		
+		int nameLength = buffer.get(position + NAME_LENGTH_OFFSET);
+		if(nameLength > 0)
+		{
+			byte[] nameBytes = new byte[nameLength];
+			for(int i = 0; i < nameLength; i++)
+			{
+				nameBytes[i] = buffer.get(position + NAME_OFFSET + i);
+			}
+			playerInfo.setLastKnownName(new String(nameBytes, NAME_CHARSET));
+		}
+		
+		for(int slot = 0; slot < slotsToRead; slot++)
+		{
+			int slotPosition = position + FIRST_MOB_SLOT_OFFSET + slot * MOB_SLOT_SIZE;
+			MobInfo mobInfo = playerInfo.getMobInfo(MOB_TYPES[slot]);
+			
+			// NO_SETTING, or anything that is not a Setting's ordinal, 
+			// is read as no Setting.
+			byte setting = buffer.get(slotPosition + SETTING_OFFSET);
+			if(setting < 0 || setting >= SETTINGS.length)
+			{
+				mobInfo.setSetting(null);
+			}
+			else
+			{
+				mobInfo.setSetting(SETTINGS[setting]);
+			}
+			
+			int scaleFlags = buffer.get(slotPosition + SCALE_FLAGS_OFFSET);
+			mobInfo.setScaleAttack((scaleFlags & SCALE_ATTACK) != 0);
+			mobInfo.setScaleDefense((scaleFlags & SCALE_DEFENSE) != 0);
+			mobInfo.setScaleSpeed((scaleFlags & SCALE_SPEED) != 0);
+			mobInfo.setScaleKnockbackResistance((scaleFlags & SCALE_KNOCKBACK_RESISTANCE) != 0);
+			mobInfo.setScaleMaxFollowDistance((scaleFlags & SCALE_MAX_FOLLOW_DISTANCE) != 0);
+			mobInfo.setScaleXP((scaleFlags & SCALE_XP) != 0);
+			mobInfo.setScaleLoot((scaleFlags & SCALE_LOOT) != 0);
+			
+			mobInfo.setMaxIncrement(buffer.getInt(slotPosition + MAX_INCREMENT_OFFSET));
+			mobInfo.setManualPerformanceLevel(buffer.getDouble(slotPosition + MANUAL_LEVEL_OFFSET));
+			
+			mobInfo.setAutoPerformanceLevel(buffer.getDouble(slotPosition + AUTO_LEVEL_OFFSET));
+		}
+		
+		// what was just read is what is on disk
+		playerInfo.markSaved(playerInfo.getVersion());
+		
+		return playerInfo;
+	}
+	
+	private void writeRecord(int position, PlayerInfo playerInfo)
+	{
+		UUID playerID = playerInfo.getPlayerID();
+		buffer.putLong(position + UUID_MOST_OFFSET, playerID.getMostSignificantBits());
+		buffer.putLong(position + UUID_LEAST_OFFSET, playerID.getLeastSignificantBits());
+		
+		byte[] nameBytes = new byte[0];
+		if(playerInfo.getLastKnownName() != null)
+		{
+			nameBytes = playerInfo.getLastKnownName().getBytes(NAME_CHARSET);
+		}
+		
+		int nameLength = Math.min(nameBytes.length, MAX_NAME_BYTES);
+		buffer.put(position + NAME_LENGTH_OFFSET, (byte) nameLength);
+		for(int i = 0; i < MAX_NAME_BYTES; i++)
+		{
+			byte nameByte = 0;
+			if(i < nameLength)
+			{
+				nameByte = nameBytes[i];
+			}
+			buffer.put(position + NAME_OFFSET + i, nameByte);
+		}
+		
+		for(int slot = 0; slot < mobSlots; slot++)
+		{
+			int slotPosition = position + FIRST_MOB_SLOT_OFFSET + slot * MOB_SLOT_SIZE;
+			MobInfo mobInfo = playerInfo.getMobInfo(MOB_TYPES[slot]);
+			
+			Setting setting = mobInfo.getSetting();
+			if(setting == null)
+			{
+				buffer.put(slotPosition + SETTING_OFFSET, NO_SETTING);
+			}
+			else
+			{
+				buffer.put(slotPosition + SETTING_OFFSET, (byte) setting.ordinal());
+			}
+			
+			int scaleFlags = 0;
+			if(mobInfo.shouldScaleAttack())
+			{
+				scaleFlags |= SCALE_ATTACK;
+			}
+			if(mobInfo.shouldScaleDefense())
+			{
+				scaleFlags |= SCALE_DEFENSE;
+			}
+			if(mobInfo.shouldScaleSpeed())
+			{
+				scaleFlags |= SCALE_SPEED;
+			}
+			if(mobInfo.shouldScaleKnockbackResistance())
+			{
+				scaleFlags |= SCALE_KNOCKBACK_RESISTANCE;
+			}
+			if(mobInfo.shouldScaleMaxFollowDistance())
+			{
+				scaleFlags |= SCALE_MAX_FOLLOW_DISTANCE;
+			}
+			if(mobInfo.shouldScaleXP())
+			{
+				scaleFlags |= SCALE_XP;
+			}
+			if(mobInfo.shouldScaleLoot())
+			{
+				scaleFlags |= SCALE_LOOT;
+			}
+			buffer.put(slotPosition + SCALE_FLAGS_OFFSET, (byte) scaleFlags);
+			
+			buffer.putInt(slotPosition + MAX_INCREMENT_OFFSET, mobInfo.getMaxIncrement());
+			buffer.putDouble(slotPosition + MANUAL_LEVEL_OFFSET, mobInfo.getManualPerformanceLevel());
+			buffer.putDouble(slotPosition + AUTO_LEVEL_OFFSET, mobInfo.getAutoPerformanceLevel());
+		}
+		
+		// last, so that a record that was only partly written does not 
+		// match it
+		int dataSize = recordSize - CRC_SIZE;
+		buffer.putInt(position + dataSize, this.getChecksum(position, dataSize));
+	}
+}
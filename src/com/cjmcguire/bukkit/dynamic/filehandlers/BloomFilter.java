@@ -0,0 +1,96 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import java.util.UUID;
+
+/**
+ * A Bloom filter of player UUIDs. It answers whether a UUID might 
+ * have been added, using about ten bits per UUID. A UUID that was 
+ * added is always found, and a UUID that was not added is found by 
+ * mistake about one time in a hundred, as long as no more UUIDs are 
+ * added than the filter was made for. Past that, mistakes become 
+ * more common, and the filter should be made again with room for 
+ * more.
+ * @author CJ McGuire
+ */
+final class BloomFilter
+{
+	private final static int BITS_PER_ENTRY = 10;
+	private final static int HASHES = 7;
+	
+	private final long[] bits;
+	private final long bitCount;
+	private final int capacity;
+	
+	/**
+	 * Initializes an empty BloomFilter.
+	 * @param capacity the number of UUIDs the filter is made for
+	 */
+	BloomFilter(int capacity)
+	{
+		this.capacity = Math.max(1, capacity);
+		
+		int words = (int) (((long) this.capacity * BITS_PER_ENTRY + 63) / 64);
+		this.bits = new long[words];
+		this.bitCount = (long) words * 64;
+	}
+	
+	/**
+	 * @return the number of UUIDs the filter is made for
+	 */
+	int getCapacity()
+	{
+		return capacity;
+	}
+	
+	/**
+	 * Adds the given UUID to the filter.
+	 * @param playerID the UUID to add
+	 */
+	synchronized void add(UUID playerID)
+	{
+		long hash1 = mix(playerID.getMostSignificantBits());
+		long hash2 = mix(playerID.getLeastSignificantBits() ^ hash1) | 1;
+		
+		for(int i = 0; i < HASHES; i++)
+		{
+			long bit = ((hash1 + i * hash2) >>> 1) % bitCount;
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+	
+	/**
+	 * @param playerID the UUID to look for
+	 * @return false if the UUID was never added, or true if it might 
+	 * have been
+	 */
+	synchronized boolean mightContain(UUID playerID)
+	{
+		long hash1 = mix(playerID.getMostSignificantBits());
+		long hash2 = mix(playerID.getLeastSignificantBits() ^ hash1) | 1;
+		
+		boolean found = true;
+		for(int i = 0; i < HASHES && found; i++)
+		{
+			long bit = ((hash1 + i * hash2) >>> 1) % bitCount;
+			found = (bits[(int) (bit >>> 6)] & (1L << bit)) != 0;
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Spreads the bits of the given value over the whole long, so 
+	 * that UUIDs that only differ by a few bits still set different 
+	 * bits in the filter.
+	 */
+	private static long mix(long value)
+	{
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		
+		return value;
+	}
+}
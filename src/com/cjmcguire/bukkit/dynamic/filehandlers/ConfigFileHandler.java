@@ -1,32 +1,45 @@
-/*package com.cjmcguire.bukkit.dynamic.filehandlers;
+package com.cjmcguire.bukkit.dynamic.filehandlers;
 
-import com.cjmcguire.bukkit.dynamic.DynamicDifficulty;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.plugin.Plugin;
+
+import com.cjmcguire.bukkit.dynamic.analyzer.EstimatorMode;
+import com.cjmcguire.bukkit.dynamic.analyzer.EstimatorSelection;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
 
 /**
  * The ConfigFileHandler is responsible for handling all of the i/o 
  * that goes on with the config.yml file.
  * @author CJ McGuire
- *
+ */
 public class ConfigFileHandler extends FileHandler
 {
 	private final static String SECONDS_BETWEEN_UPDATES = "secondsBetweenUpdates";
-	private final static String MAX_INCREMENT = "maxIncrement";
-	private final static String MIN_PERFORMANCE_LEVEL = "minPerformanceLevel";
-	private final static String MAX_PERFORMANCE_LEVEL = "maxPerformanceLevel";
+	private final static String MIN_SECONDS_BETWEEN_UPDATES = "minSecondsBetweenUpdates";
+	private final static String MAX_SECONDS_BETWEEN_UPDATES = "maxSecondsBetweenUpdates";
+	private final static String ANALYZER_TICK_BUDGET = "analyzerTickBudget";
+	private final static String ANALYZER_THREADS = "analyzerThreads";
+	private final static String ESTIMATOR = "estimator";
+	private final static String MOB_ESTIMATORS = "mobEstimators";
+	private final static String STORAGE = "storage";
+	private final static String JOURNAL = "journal";
+	private final static String PLAYER_FILE_CHECKSUMS = "playerFileChecksums";
+	private final static String SPARSE_PLAYER_FILES = "sparsePlayerFiles";
 	
-	private final static String MOB_ATTRIBUTES_ATTACK_DAMAGE = "mobAttributes.attackDamage";
-	private final static String MOB_ATTRIBUTES_SPEED = "mobAttributes.speed";
-	private final static String MOB_ATTRIBUTES_KNOCKBACK_RESISTANCE = "mobAttributes.knockbackResistance";
-	private final static String MOB_ATTRIBUTES_MAX_FOLLOW_DISTANCE = "mobAttributes.maxFollowDistance";
+	private final static int DEFAULT_SECONDS_BETWEEN_UPDATES = 30;
+	private final static int DEFAULT_MIN_SECONDS_BETWEEN_UPDATES = 5;
+	private final static int DEFAULT_MAX_SECONDS_BETWEEN_UPDATES = 120;
+	private final static int DEFAULT_ANALYZER_TICK_BUDGET = 500;
 	
 	private final static String CONFIG_FILE_NAME = "config.yml";
-
+	
 	/**
 	 * Initializes the ConfigFileHandler.
-	 * @param plugin a reference to the DynamicDifficulty plugin that 
-	 * uses this ConfigFileHandler
-	 *
-	public ConfigFileHandler(DynamicDifficulty plugin)
+	 * @param plugin a reference to the plugin that uses this 
+	 * ConfigFileHandler. If null is passed in, then this 
+	 * ConfigFileHandler is running without its head.
+	 */
+	public ConfigFileHandler(Plugin plugin)
 	{
 		super(plugin, CONFIG_FILE_NAME);
 	}
@@ -34,75 +47,171 @@ public class ConfigFileHandler extends FileHandler
 	/**
 	 * @return the seconds to wait between updates. This value is 
 	 * found in the config.yml.
-	 *
+	 */
 	public int getSecondsBetweenUpdates()
 	{
-		return config.getInt(SECONDS_BETWEEN_UPDATES);
+		int seconds = config.getInt(SECONDS_BETWEEN_UPDATES, DEFAULT_SECONDS_BETWEEN_UPDATES);
+		
+		if(seconds < 1)
+		{
+			seconds = DEFAULT_SECONDS_BETWEEN_UPDATES;
+		}
+		
+		return seconds;
+	}
+	
+	/**
+	 * @return the seconds to wait between updates of a player who is 
+	 * in combat. This value is found in the config.yml.
+	 */
+	public int getMinSecondsBetweenUpdates()
+	{
+		int seconds = config.getInt(MIN_SECONDS_BETWEEN_UPDATES, DEFAULT_MIN_SECONDS_BETWEEN_UPDATES);
+		
+		if(seconds < 1)
+		{
+			seconds = DEFAULT_MIN_SECONDS_BETWEEN_UPDATES;
+		}
+		
+		return seconds;
+	}
+	
+	/**
+	 * @return the most seconds to wait between updates of a player who 
+	 * is idle or while the server is falling behind. This value is 
+	 * found in the config.yml.
+	 */
+	public int getMaxSecondsBetweenUpdates()
+	{
+		int seconds = config.getInt(MAX_SECONDS_BETWEEN_UPDATES, DEFAULT_MAX_SECONDS_BETWEEN_UPDATES);
+		
+		if(seconds < 1)
+		{
+			seconds = DEFAULT_MAX_SECONDS_BETWEEN_UPDATES;
+		}
+		
+		return seconds;
+	}
+	
+	/**
+	 * @return the time in microseconds the analyzer may spend on the 
+	 * main thread each tick. This value is found in the config.yml.
+	 */
+	public int getAnalyzerTickBudget()
+	{
+		int micros = config.getInt(ANALYZER_TICK_BUDGET, DEFAULT_ANALYZER_TICK_BUDGET);
+		
+		if(micros < 1)
+		{
+			micros = DEFAULT_ANALYZER_TICK_BUDGET;
+		}
+		
+		return micros;
 	}
 	
 	/**
-	 * @return the max increment that a performance level can change. 
-	 * This value is found in the config.yml.
-	 *
-	public int getMaxIncrement()
+	 * @return the number of threads the analyzer may split its work 
+	 * over. This value is found in the config.yml. If the value is 
+	 * missing or less than 1, 1 is returned.
+	 */
+	public int getAnalyzerThreads()
 	{
-		return config.getInt(MAX_INCREMENT);
+		return Math.max(1, config.getInt(ANALYZER_THREADS, 1));
 	}
 	
 	/**
-	 * @return the minimum possible value for a performance level. 
-	 * This value is found in the config.yml.
-	 *
-	public int getMinPerformanceLevel()
+	 * @return the way players' estimated performance levels should be 
+	 * worked out. This value is found in the config.yml. If the value 
+	 * is missing or is not the name of an EstimatorMode, 
+	 * EstimatorMode.WINDOW is returned.
+	 */
+	public EstimatorMode getEstimatorMode()
 	{
-		return config.getInt(MIN_PERFORMANCE_LEVEL);
+		String estimatorName = config.getString(ESTIMATOR, EstimatorMode.WINDOW.getName());
+		EstimatorMode estimatorMode = EstimatorMode.getEstimatorMode(estimatorName);
+		
+		if(estimatorMode == null)
+		{
+			estimatorMode = EstimatorMode.WINDOW;
+		}
+		
+		return estimatorMode;
 	}
 	
 	/**
-	 * @return the maximum possible value for a performance level. 
-	 * This value is found in the config.yml.
-	 *
-	public int getMaxPerformanceLevel()
+	 * @return the Estimator to use for every MobType. Every MobType 
+	 * uses the Estimator of getEstimatorMode() unless another one is 
+	 * named for it in the mobEstimators section of the config.yml. 
+	 * Names in that section that are not the name of a MobType or of 
+	 * an EstimatorMode are ignored.
+	 */
+	public EstimatorSelection getEstimators()
 	{
-		return config.getInt(MAX_PERFORMANCE_LEVEL);
+		EstimatorSelection estimators = new EstimatorSelection(this.getEstimatorMode());
+		ConfigurationSection mobEstimators = config.getConfigurationSection(MOB_ESTIMATORS);
+		
+		if(mobEstimators != null)
+		{
+			for(String mobName: mobEstimators.getKeys(false))
+			{
+				MobType mobType = MobType.getMobType(mobName);
+				EstimatorMode estimatorMode = EstimatorMode.getEstimatorMode(mobEstimators.getString(mobName));
+				
+				if(mobType != null && estimatorMode != null)
+				{
+					estimators.setEstimator(mobType, estimatorMode.getEstimator());
+				}
+			}
+		}
+		
+		return estimators;
 	}
 	
 	/**
-	 * @return true if the plugin should scale mobs' attack damage.
-	 * false if it should not. This value is found in the config.yml.
-	 *
-	public boolean shouldScaleAttackDamage()
+	 * @return the way player data should be kept on disk. This value 
+	 * is found in the config.yml. If the value is missing or is not 
+	 * the name of a StorageType, StorageType.YAML is returned.
+	 */
+	public StorageType getStorageType()
 	{
-		return config.getBoolean(MOB_ATTRIBUTES_ATTACK_DAMAGE);
+		String storageName = config.getString(STORAGE, StorageType.YAML.getName());
+		StorageType storageType = StorageType.getStorageType(storageName);
+		
+		if(storageType == null)
+		{
+			storageType = StorageType.YAML;
+		}
+		
+		return storageType;
 	}
 	
 	/**
-	 * @return true if the plugin should scale mobs' speed.
-	 * false if it should not. This value is found in the config.yml.
-	 *
-	public boolean shouldScaleSpeed()
+	 * @return true if player saves should go through a journal. This 
+	 * value is found in the config.yml. If the value is missing, 
+	 * false is returned.
+	 */
+	public boolean isJournalEnabled()
 	{
-		return config.getBoolean(MOB_ATTRIBUTES_SPEED);
+		return config.getBoolean(JOURNAL, false);
 	}
 	
 	/**
-	 * @return true if the plugin should scale mobs' knockback 
-	 * resistance.
-	 * false if it should not. This value is found in the config.yml.
-	 *
-	public boolean shouldScaleKnockbackResistance()
+	 * @return true if a checksum should be written at the end of 
+	 * every player yml file. This value is found in the config.yml. 
+	 * If the value is missing, false is returned.
+	 */
+	public boolean isChecksumEnabled()
 	{
-		return config.getBoolean(MOB_ATTRIBUTES_KNOCKBACK_RESISTANCE);
+		return config.getBoolean(PLAYER_FILE_CHECKSUMS, false);
 	}
 	
 	/**
-	 * @return true if the plugin should scale mobs' max follow 
-	 * distance. false if it should not. This value is found in the 
-	 * config.yml.
-	 *
-	public boolean shouldScaleMaxFollowDistance()
+	 * @return true if player yml files should only hold the values 
+	 * that differ from the default_player.yml. This value is found in 
+	 * the config.yml. If the value is missing, false is returned.
+	 */
+	public boolean isSparseEnabled()
 	{
-		return config.getBoolean(MOB_ATTRIBUTES_MAX_FOLLOW_DISTANCE);
+		return config.getBoolean(SPARSE_PLAYER_FILES, false);
 	}
 }
-*/
\ No newline at end of file
@@ -0,0 +1,621 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
+
+/**
+ * Puts an append-only journal in front of another PlayerStore. A
+ * save does not rewrite the player's data in the other PlayerStore.
+ * Instead, a small record for each value that changed since the
+ * player was last saved is appended to the end of the journal file
+ * and forced to disk, which is cheap enough to do after every
+ * analyzer run, so almost nothing is lost if the server goes down.
+ *
+ * Once the journal has grown past a size, it is compacted: the
+ * newest data of every player in it is written to the other
+ * PlayerStore as one batch and the journal is emptied. Saves happen
+ * on the save thread, so that is where compaction happens too. The
+ * journal is also compacted when it is closed, and when it is opened
+ * any records that were never compacted are replayed and compacted
+ * first.
+ *
+ * The journal file starts with a magic number and the format
+ * version. After that come frames, one for every save or batch. A
+ * frame is the length of its records, the records themselves and a
+ * CRC32 of the records. A frame that was only partly written when
+ * the server went down fails its check and is ignored, along with
+ * anything after it. Every record starts with a record type and the
+ * player's UUID. The first record for a player in the journal is
+ * always a NEW_PLAYER record, which stands for a PlayerInfo with the
+ * default values, and each record after it sets one value, so a
+ * player can always be rebuilt from the journal alone.
+ *
+ * All of the methods are synchronized, so a JournaledPlayerStore can
+ * be used from any thread.
+ * @author CJ McGuire
+ */
+class JournaledPlayerStore implements PlayerStore
+{
+	private final static int MAGIC = 0x44444A4C; // "DDJL"
+	private final static short FORMAT_VERSION = 1;
+	private final static int HEADER_SIZE = 6;
+	
+	/**
+	 * The size in bytes the journal can grow to before it is
+	 * compacted.
+	 */
+	final static long DEFAULT_COMPACT_SIZE = 1024 * 1024;
+	
+	// Record types.
+	private final static byte NEW_PLAYER = 0;
+	private final static byte NAME = 1;
+	private final static byte SETTING = 2;
+	private final static byte MAX_INCREMENT = 3;
+	private final static byte AUTO_LEVEL = 4;
+	private final static byte MANUAL_LEVEL = 5;
+	private final static byte SCALE_FLAGS = 6;
+	
+	// Bits in a SCALE_FLAGS record.
+	private final static int SCALE_ATTACK = 1;
+	private final static int SCALE_DEFENSE = 2;
+	private final static int SCALE_SPEED = 4;
+	private final static int SCALE_KNOCKBACK_RESISTANCE = 8;
+	private final static int SCALE_MAX_FOLLOW_DISTANCE = 16;
+	private final static int SCALE_XP = 32;
+	private final static int SCALE_LOOT = 64;
+	
+	// Written in place of a Setting's name when the Setting is null.
+	private final static String NO_SETTING = "";
+	
+	private final static MobType[] MOB_TYPES = MobType.values();
+	
+	private final File file;
+	private final PlayerStore mainStore;
+	private final long compactSize;
+	
+	private RandomAccessFile randomAccessFile;
+	private FileChannel channel;
+	
+	// The newest data of every player who is in the journal. This is
+	// what each new save is compared against, and what compaction
+	// writes to the mainStore.
+	private final HashMap<UUID, PlayerInfo> uncompacted;
+	
+	/**
+	 * Opens the given journal file in front of the given PlayerStore,
+	 * creating the file if it does not exist. Anything left in the
+	 * journal is replayed into the PlayerStore.
+	 * @param file the file to keep the journal in
+	 * @param mainStore the PlayerStore that the journal is compacted
+	 * into
+	 * @throws IOException if the file cannot be opened, is not a
+	 * journal, or cannot be replayed
+	 */
+	JournaledPlayerStore(File file, PlayerStore mainStore) throws IOException
+	{
+		this(file, mainStore, DEFAULT_COMPACT_SIZE);
+	}
+	
+	/**
+	 * Opens the given journal file in front of the given PlayerStore,
+	 * creating the file if it does not exist. Anything left in the
+	 * journal is replayed into the PlayerStore.
+	 * @param file the file to keep the journal in
+	 * @param mainStore the PlayerStore that the journal is compacted
+	 * into
+	 * @param compactSize the size in bytes the journal can grow to
+	 * before it is compacted
+	 * @throws IOException if the file cannot be opened, is not a
+	 * journal, or cannot be replayed
+	 */
+	JournaledPlayerStore(File file, PlayerStore mainStore, long compactSize) throws IOException
+	{
+		this.file = file;
+		this.mainStore = mainStore;
+		this.compactSize = compactSize;
+		this.uncompacted = new HashMap<UUID, PlayerInfo>();
+		
+		if(file.getParentFile() != null)
+		{
+			file.getParentFile().mkdirs();
+		}
+		
+		randomAccessFile = new RandomAccessFile(file, "rw");
+		channel = randomAccessFile.getChannel();
+		
+		try
+		{
+			if(channel.size() < HEADER_SIZE)
+			{
+				this.writeHeader();
+			}
+			else
+			{
+				this.replay();
+			}
+		}
+		catch(IOException e)
+		{
+			randomAccessFile.close();
+			throw e;
+		}
+	}
+	
+	@Override
+	public synchronized PlayerInfo load(UUID playerID) throws IOException
+	{
+		PlayerInfo playerInfo;
+		
+		PlayerInfo journaled = uncompacted.get(playerID);
+		if(journaled != null)
+		{
+			// A snapshot is marked as saved, and what is in the
+			// journal is on disk.
+			playerInfo = journaled.snapshot();
+		}
+		else
+		{
+			playerInfo = mainStore.load(playerID);
+		}
+		
+		return playerInfo;
+	}
+	
+	@Override
+	public void save(PlayerInfo snapshot) throws IOException
+	{
+		this.saveBatch(Collections.singletonList(snapshot));
+	}
+	
+	@Override
+	public synchronized void saveBatch(Collection<PlayerInfo> snapshots) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream records = new DataOutputStream(bytes);
+		
+		for(PlayerInfo snapshot: snapshots)
+		{
+			this.writeChanges(records, uncompacted.get(snapshot.getPlayerID()), snapshot);
+		}
+		records.flush();
+		
+		if(bytes.size() > 0)
+		{
+			this.appendFrame(bytes.toByteArray());
+		}
+		
+		// Only remember the snapshots once they are on disk.
+		for(PlayerInfo snapshot: snapshots)
+		{
+			uncompacted.put(snapshot.getPlayerID(), snapshot);
+		}
+		
+		if(channel.size() > compactSize)
+		{
+			this.compact();
+		}
+	}
+	
+	@Override
+	public synchronized boolean exists(UUID playerID) throws IOException
+	{
+		return uncompacted.containsKey(playerID) || mainStore.exists(playerID);
+	}
+	
+	/**
+	 * Compacts the journal and closes it, then closes the PlayerStore
+	 * it is in front of.
+	 */
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if(randomAccessFile != null)
+		{
+			try
+			{
+				this.compact();
+			}
+			finally
+			{
+				randomAccessFile.close();
+				randomAccessFile = null;
+				channel = null;
+				
+				mainStore.close();
+			}
+		}
+	}
+	
+	/**
+	 * Writes the newest data of every player in the journal to the
+	 * PlayerStore the journal is in front of, as one batch, and then
+	 * empties the journal. If the server goes down in between, the
+	 * journal is replayed over the new data the next time it is
+	 * opened, which changes nothing, because every record sets a
+	 * value rather than changing it.
+	 * @throws IOException if the data could not be written or the
+	 * journal could not be emptied
+	 */
+	synchronized void compact() throws IOException
+	{
+		if(!uncompacted.isEmpty())
+		{
+			mainStore.saveBatch(new ArrayList<PlayerInfo>(uncompacted.values()));
+			uncompacted.clear();
+		}
+		
+		if(channel.size() > HEADER_SIZE)
+		{
+			channel.truncate(HEADER_SIZE);
+			channel.force(true);
+		}
+	}
+	
+	/**
+	 * @return the size of the journal file in bytes
+	 * @throws IOException if the size could not be read
+	 */
+	synchronized long size() throws IOException
+	{
+		return channel.size();
+	}
+	
+	private void writeHeader() throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.putShort(FORMAT_VERSION);
+		header.flip();
+		
+		channel.truncate(0);
+		channel.write(header, 0);
+		channel.force(true);
+	}
+	
+	/**
+	 * Appends a frame holding the given records and forces it to
+	 * disk.
+	 */
+	private void appendFrame(byte[] records) throws IOException
+	{
+		CRC32 crc = new CRC32();
+		crc.update(records);
+		
+		ByteBuffer frame = ByteBuffer.allocate(records.length + 12);
+		frame.putInt(records.length);
+		frame.put(records);
+		frame.putLong(crc.getValue());
+		frame.flip();
+		
+		long position = channel.size();
+		while(frame.hasRemaining())
+		{
+			position += channel.write(frame, position);
+		}
+		channel.force(false);
+	}
+	
+	/**
+	 * Reads every frame in the journal, rebuilds the players in it
+	 * and compacts them into the mainStore.
+	 */
+	private void replay() throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		channel.read(header, 0);
+		header.flip();
+		
+		if(header.getInt() != MAGIC)
+		{
+			throw new IOException(file + " is not a player data journal");
+		}
+		
+		short formatVersion = header.getShort();
+		if(formatVersion != FORMAT_VERSION)
+		{
+			throw new IOException(file + " has an unknown format version " + formatVersion);
+		}
+		
+		long position = HEADER_SIZE;
+		long end = channel.size();
+		
+		boolean intact = true;
+		while(intact && position + 12 <= end)
+		{
+			ByteBuffer length = ByteBuffer.allocate(4);
+			channel.read(length, position);
+			length.flip();
+			
+			int recordsLength = length.getInt();
+			if(recordsLength < 0 || position + 12 + recordsLength > end)
+			{
+				intact = false;
+			}
+			else
+			{
+				ByteBuffer frame = ByteBuffer.allocate(recordsLength + 8);
+				channel.read(frame, position + 4);
+				frame.flip();
+				
+				byte[] records = new byte[recordsLength];
+				frame.get(records);
+				
+				CRC32 crc = new CRC32();
+				crc.update(records);
+				
+				if(crc.getValue() != frame.getLong())
+				{
+					intact = false;
+				}
+				else
+				{
+					this.readRecords(records);
+					position += 12 + recordsLength;
+				}
+			}
+		}
+		
+		// Whatever is after the last whole frame was being written
+		// when the server went down, so it is thrown away.
+		this.compact();
+	}
+	
+	/**
+	 * Applies the records in one frame to the players in uncompacted.
+	 */
+	private void readRecords(byte[] records) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(records));
+		
+		try
+		{
+			while(true)
+			{
+				byte recordType = in.readByte();
+				UUID playerID = new UUID(in.readLong(), in.readLong());
+				
+				if(recordType == NEW_PLAYER)
+				{
+					uncompacted.put(playerID, new PlayerInfo(playerID));
+				}
+				else
+				{
+					this.readRecord(in, recordType, uncompacted.get(playerID));
+				}
+			}
+		}
+		catch(EOFException e)
+		{
+			// every record in the frame has been read
+		}
+	}
+	
+	/**
+	 * Reads the rest of one record and applies it to the given
+	 * player. If the player is null, the record is read and skipped.
+	 */
+	private void readRecord(DataInputStream in, byte recordType, PlayerInfo playerInfo) throws IOException
+	{
+		if(recordType == NAME)
+		{
+			String name = null;
+			if(in.readBoolean())
+			{
+				name = in.readUTF();
+			}
+			
+			if(playerInfo != null)
+			{
+				playerInfo.setLastKnownName(name);
+			}
+		}
+		else
+		{
+			// Records for MobTypes that no longer exist are skipped.
+			MobType mobType = MobType.getMobType(in.readUTF());
+			MobInfo mobInfo = null;
+			if(playerInfo != null && mobType != null)
+			{
+				mobInfo = playerInfo.getMobInfo(mobType);
+			}
+			
+			if(recordType == SETTING)
+			{
+				String settingName = in.readUTF();
+				if(mobInfo != null)
+				{
+					mobInfo.setSetting(Setting.getSetting(settingName));
+				}
+			}
+			else if(recordType == MAX_INCREMENT)
+			{
+				int maxIncrement = in.readInt();
+				if(mobInfo != null)
+				{
+					mobInfo.setMaxIncrement(maxIncrement);
+				}
+			}
+			else if(recordType == AUTO_LEVEL)
+			{
+				double autoPerformanceLevel = in.readDouble();
+				if(mobInfo != null)
+				{
+					// The estimated performance level should start
+					// off equal to the auto performance level.
+					mobInfo.setAutoPerformanceLevel(autoPerformanceLevel);
+					mobInfo.setEstimatedPerformanceLevel(autoPerformanceLevel);
+				}
+			}
+			else if(recordType == MANUAL_LEVEL)
+			{
+				double manualPerformanceLevel = in.readDouble();
+				if(mobInfo != null)
+				{
+					mobInfo.setManualPerformanceLevel(manualPerformanceLevel);
+				}
+			}
+			else if(recordType == SCALE_FLAGS)
+			{
+				int scaleFlags = in.readByte();
+				if(mobInfo != null)
+				{
+					this.setScaleFlags(mobInfo, scaleFlags);
+				}
+			}
+			else
+			{
+				throw new IOException(file + " has an unknown record type " + recordType);
+			}
+		}
+	}
+	
+	/**
+	 * Writes a record for every value in the snapshot that is
+	 * different in the previous snapshot. If there is no previous
+	 * snapshot, a NEW_PLAYER record is written and the snapshot is
+	 * compared against the default values instead.
+	 */
+	private void writeChanges(DataOutputStream out, PlayerInfo previous, PlayerInfo snapshot) throws IOException
+	{
+		UUID playerID = snapshot.getPlayerID();
+		
+		if(previous == null)
+		{
+			this.writeRecordStart(out, NEW_PLAYER, playerID);
+			previous = new PlayerInfo(playerID);
+		}
+		
+		String name = snapshot.getLastKnownName();
+		if(name == null ? previous.getLastKnownName() != null : !name.equals(previous.getLastKnownName()))
+		{
+			this.writeRecordStart(out, NAME, playerID);
+			out.writeBoolean(name != null);
+			if(name != null)
+			{
+				out.writeUTF(name);
+			}
+		}
+		
+		for(MobType mobType: MOB_TYPES)
+		{
+			MobInfo oldInfo = previous.getMobInfo(mobType);
+			MobInfo newInfo = snapshot.getMobInfo(mobType);
+			
+			if(oldInfo.getSetting() != newInfo.getSetting())
+			{
+				String settingName = NO_SETTING;
+				if(newInfo.getSetting() != null)
+				{
+					settingName = newInfo.getSetting().getName();
+				}
+				
+				this.writeMobRecordStart(out, SETTING, playerID, mobType);
+				out.writeUTF(settingName);
+			}
+			
+			if(oldInfo.getMaxIncrement() != newInfo.getMaxIncrement())
+			{
+				this.writeMobRecordStart(out, MAX_INCREMENT, playerID, mobType);
+				out.writeInt(newInfo.getMaxIncrement());
+			}
+			
+			if(oldInfo.getAutoPerformanceLevel() != newInfo.getAutoPerformanceLevel())
+			{
+				this.writeMobRecordStart(out, AUTO_LEVEL, playerID, mobType);
+				out.writeDouble(newInfo.getAutoPerformanceLevel());
+			}
+			
+			if(oldInfo.getManualPerformanceLevel() != newInfo.getManualPerformanceLevel())
+			{
+				this.writeMobRecordStart(out, MANUAL_LEVEL, playerID, mobType);
+				out.writeDouble(newInfo.getManualPerformanceLevel());
+			}
+			
+			int scaleFlags = this.getScaleFlags(newInfo);
+			if(this.getScaleFlags(oldInfo) != scaleFlags)
+			{
+				this.writeMobRecordStart(out, SCALE_FLAGS, playerID, mobType);
+				out.writeByte(scaleFlags);
+			}
+		}
+	}
+	
+	private void writeRecordStart(DataOutputStream out, byte recordType, UUID playerID) throws IOException
+	{
+		out.writeByte(recordType);
+		out.writeLong(playerID.getMostSignificantBits());
+		out.writeLong(playerID.getLeastSignificantBits());
+	}
+	
+	private void writeMobRecordStart(DataOutputStream out, byte recordType, UUID playerID, MobType mobType) throws IOException
+	{
+		this.writeRecordStart(out, recordType, playerID);
+		out.writeUTF(mobType.getName());
+	}
+	
+	private int getScaleFlags(MobInfo mobInfo)
+	{
+		int scaleFlags = 0;
+		
+		if(mobInfo.shouldScaleAttack())
+		{
+			scaleFlags |= SCALE_ATTACK;
+		}
+		if(mobInfo.shouldScaleDefense())
+		{
+			scaleFlags |= SCALE_DEFENSE;
+		}
+		if(mobInfo.shouldScaleSpeed())
+		{
+			scaleFlags |= SCALE_SPEED;
+		}
+		if(mobInfo.shouldScaleKnockbackResistance())
+		{
+			scaleFlags |= SCALE_KNOCKBACK_RESISTANCE;
+		}
+		if(mobInfo.shouldScaleMaxFollowDistance())
+		{
+			scaleFlags |= SCALE_MAX_FOLLOW_DISTANCE;
+		}
+		if(mobInfo.shouldScaleXP())
+		{
+			scaleFlags |= SCALE_XP;
+		}
+		if(mobInfo.shouldScaleLoot())
+		{
+			scaleFlags |= SCALE_LOOT;
+		}
+		
+		return scaleFlags;
+	}
+	
+	private void setScaleFlags(MobInfo mobInfo, int scaleFlags)
+	{
+		mobInfo.setScaleAttack((scaleFlags & SCALE_ATTACK) != 0);
+		mobInfo.setScaleDefense((scaleFlags & SCALE_DEFENSE) != 0);
+		mobInfo.setScaleSpeed((scaleFlags & SCALE_SPEED) != 0);
+		mobInfo.setScaleKnockbackResistance((scaleFlags & SCALE_KNOCKBACK_RESISTANCE) != 0);
+		mobInfo.setScaleMaxFollowDistance((scaleFlags & SCALE_MAX_FOLLOW_DISTANCE) != 0);
+		mobInfo.setScaleXP((scaleFlags & SCALE_XP) != 0);
+		mobInfo.setScaleLoot((scaleFlags & SCALE_LOOT) != 0);
+	}
+}
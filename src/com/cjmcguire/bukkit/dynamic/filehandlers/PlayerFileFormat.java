@@ -0,0 +1,555 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
+
+/**
+ * Reads and writes player yml files laid out the way this plugin
+ * writes them, one line at a time, straight into and out of a
+ * PlayerInfo. Going through a YamlConfiguration builds a tree of
+ * maps for the whole file and then looks up every value by its path,
+ * which is most of the time it takes to load a player.
+ *
+ * Only the layout of the default_player.yml is understood: top level
+ * keys, mob sections indented by two spaces, and a scaleAttributes
+ * section indented by four, holding plain words, whole numbers and
+ * true or false. Anything else, such as a value YAML would read as
+ * something other than what it looks like, a flow style section, or
+ * a key that is not part of a player file, makes read give up, so
+ * that the file can be read by a YamlConfiguration instead. A file
+ * that read does understand is read the same way a YamlConfiguration
+ * would read it.
+ * @author CJ McGuire
+ */
+final class PlayerFileFormat
+{
+	private final static String LAST_KNOWN_NAME = "lastKnownName";
+	private final static String SPARSE = "sparse";
+	private final static String SCALE_ATTRIBUTES = "scaleAttributes";
+	
+	private final static String INDENT = "  ";
+	
+	private final static MobType[] MOB_TYPES = MobType.values();
+	
+	// The MobType of every mob section, by its exact name.
+	private final static Map<String, MobType> MOB_SECTIONS = new HashMap<String, MobType>();
+	
+	static
+	{
+		for(MobType mobType: MOB_TYPES)
+		{
+			MOB_SECTIONS.put(mobType.getName(), mobType);
+		}
+	}
+	
+	private PlayerFileFormat()
+	{
+	
+	}
+	
+	/**
+	 * Reads a player file that is laid out the way this plugin writes
+	 * it. Anything that is missing from the file is taken from the
+	 * template.
+	 * @param playerID the UUID of the player
+	 * @param contents the contents of the player file
+	 * @param template the values that are read from the
+	 * default_player.yml when a player file is empty
+	 * @return the player's PlayerInfo, or null if the file is not
+	 * laid out in a way that this class understands
+	 */
+	static PlayerInfo read(UUID playerID, String contents, PlayerInfo template)
+	{
+		PlayerInfo playerInfo = new PlayerInfo(playerID);
+		
+		for(MobType mobType: MOB_TYPES)
+		{
+			copyMobInfo(template.getMobInfo(mobType), playerInfo.getMobInfo(mobType));
+		}
+		
+		try
+		{
+			readLines(contents, playerInfo);
+		}
+		catch(IllegalArgumentException e)
+		{
+			return null;
+		}
+		
+		// what was just read is what is on disk
+		playerInfo.markSaved(playerInfo.getVersion());
+		
+		return playerInfo;
+	}
+	
+	/**
+	 * Reads every line of a player file into the given PlayerInfo.
+	 * @throws IllegalArgumentException if a line is not understood
+	 */
+	private static void readLines(String contents, PlayerInfo playerInfo)
+	{
+		boolean[] seenMobs = new boolean[MOB_TYPES.length];
+		MobInfo mobInfo = null;
+		boolean seenScaleAttributes = false;
+		boolean inScaleAttributes = false;
+		
+		int length = contents.length();
+		int lineStart = 0;
+		while(lineStart < length)
+		{
+			int lineEnd = contents.indexOf('\n', lineStart);
+			if(lineEnd < 0)
+			{
+				lineEnd = length;
+			}
+			
+			int end = lineEnd;
+			if(end > lineStart && contents.charAt(end - 1) == '\r')
+			{
+				end--;
+			}
+			
+			int keyStart = lineStart;
+			while(keyStart < end && contents.charAt(keyStart) == ' ')
+			{
+				keyStart++;
+			}
+			
+			// blank lines and comments, such as the checksum, are skipped
+			if(keyStart < end && contents.charAt(keyStart) != '#')
+			{
+				int colon = contents.indexOf(':', keyStart);
+				if(colon < 0 || colon >= end)
+				{
+					throw new IllegalArgumentException("not a key");
+				}
+				
+				String key = contents.substring(keyStart, colon);
+				
+				// null for the start of a section
+				String value = null;
+				if(colon + 1 < end)
+				{
+					if(contents.charAt(colon + 1) != ' ')
+					{
+						throw new IllegalArgumentException("not a key");
+					}
+					value = contents.substring(colon + 2, end);
+				}
+				
+				int depth = keyStart - lineStart;
+				if(depth == 0)
+				{
+					mobInfo = null;
+					inScaleAttributes = false;
+					
+					if(value == null)
+					{
+						MobType mobType = MOB_SECTIONS.get(key);
+						if(mobType == null || seenMobs[mobType.ordinal()])
+						{
+							throw new IllegalArgumentException("not a mob section: " + key);
+						}
+						
+						seenMobs[mobType.ordinal()] = true;
+						mobInfo = playerInfo.getMobInfo(mobType);
+						seenScaleAttributes = false;
+					}
+					else if(key.equals(LAST_KNOWN_NAME))
+					{
+						playerInfo.setLastKnownName(parseString(value));
+					}
+					else if(key.equals(SPARSE))
+					{
+						parseBoolean(value);
+					}
+					else
+					{
+						throw new IllegalArgumentException("not a player key: " + key);
+					}
+				}
+				else if(depth == INDENT.length() && mobInfo != null)
+				{
+					inScaleAttributes = false;
+					
+					if(value == null)
+					{
+						if(!key.equals(SCALE_ATTRIBUTES) || seenScaleAttributes)
+						{
+							throw new IllegalArgumentException("not a section: " + key);
+						}
+						
+						seenScaleAttributes = true;
+						inScaleAttributes = true;
+					}
+					else
+					{
+						readMobValue(mobInfo, key, value);
+					}
+				}
+				else if(depth == 2 * INDENT.length() && inScaleAttributes && value != null)
+				{
+					readScaleAttribute(mobInfo, key, value);
+				}
+				else
+				{
+					throw new IllegalArgumentException("not indented like a player file");
+				}
+			}
+			
+			lineStart = lineEnd + 1;
+		}
+	}
+	
+	private static void readMobValue(MobInfo mobInfo, String key, String value)
+	{
+		switch(key)
+		{
+			case "setting":
+				mobInfo.setSetting(Setting.getSetting(parseString(value)));
+				break;
+			case "manualPerformanceLevel":
+				mobInfo.setManualPerformanceLevel(parseInt(value));
+				break;
+			case "autoPerformanceLevel":
+				mobInfo.setAutoPerformanceLevel(parseInt(value));
+				break;
+			case "maxIncrement":
+				mobInfo.setMaxIncrement(parseInt(value));
+				break;
+			default:
+				throw new IllegalArgumentException("not a mob key: " + key);
+		}
+	}
+	
+	private static void readScaleAttribute(MobInfo mobInfo, String key, String value)
+	{
+		boolean scale = parseBoolean(value);
+		
+		switch(key)
+		{
+			case "attack":
+				mobInfo.setScaleAttack(scale);
+				break;
+			case "defense":
+				mobInfo.setScaleDefense(scale);
+				break;
+			case "speed":
+				mobInfo.setScaleSpeed(scale);
+				break;
+			case "knockback":
+				mobInfo.setScaleKnockbackResistance(scale);
+				break;
+			case "followDistance":
+				mobInfo.setScaleMaxFollowDistance(scale);
+				break;
+			case "xp":
+				mobInfo.setScaleXP(scale);
+				break;
+			case "loot":
+				mobInfo.setScaleLoot(scale);
+				break;
+			default:
+				throw new IllegalArgumentException("not a scale attribute: " + key);
+		}
+	}
+	
+	/**
+	 * Reads a plain word or a single quoted String.
+	 * @throws IllegalArgumentException if YAML would not read the
+	 * value as that String
+	 */
+	private static String parseString(String value)
+	{
+		String string;
+		
+		if(isPlainWord(value))
+		{
+			string = value;
+		}
+		else if(value.length() >= 2 && value.charAt(0) == '\'' && value.charAt(value.length() - 1) == '\'')
+		{
+			StringBuilder quoted = new StringBuilder();
+			
+			int end = value.length() - 1;
+			for(int i = 1; i < end; i++)
+			{
+				char c = value.charAt(i);
+				if(c == '\'')
+				{
+					// a quote is written as two quotes, and a lone
+					// quote would have ended the String
+					if(i + 1 == end || value.charAt(i + 1) != '\'')
+					{
+						throw new IllegalArgumentException("not a String: " + value);
+					}
+					i++;
+				}
+				quoted.append(c);
+			}
+			
+			string = quoted.toString();
+		}
+		else
+		{
+			throw new IllegalArgumentException("not a String: " + value);
+		}
+		
+		return string;
+	}
+	
+	/**
+	 * Reads a whole number written in decimal.
+	 * @throws IllegalArgumentException if YAML would not read the
+	 * value as that int
+	 */
+	private static int parseInt(String value)
+	{
+		int digitsStart = value.startsWith("-") ? 1 : 0;
+		
+		// YAML reads numbers that start with a 0 as octal
+		if(digitsStart == value.length() || (value.charAt(digitsStart) == '0' && value.length() > digitsStart + 1))
+		{
+			throw new IllegalArgumentException("not an int: " + value);
+		}
+		
+		for(int i = digitsStart; i < value.length(); i++)
+		{
+			char c = value.charAt(i);
+			if(c < '0' || c > '9')
+			{
+				throw new IllegalArgumentException("not an int: " + value);
+			}
+		}
+		
+		// throws a NumberFormatException if the number is too large
+		return Integer.parseInt(value);
+	}
+	
+	/**
+	 * Reads true or false.
+	 * @throws IllegalArgumentException if the value is anything else
+	 */
+	private static boolean parseBoolean(String value)
+	{
+		boolean bool;
+		
+		if(value.equals("true"))
+		{
+			bool = true;
+		}
+		else if(value.equals("false"))
+		{
+			bool = false;
+		}
+		else
+		{
+			throw new IllegalArgumentException("not a boolean: " + value);
+		}
+		
+		return bool;
+	}
+	
+	/**
+	 * @return true if the given String can be written without quotes
+	 * and YAML will read it back as the same String. Only letters,
+	 * digits and underscores that do not start with a digit are
+	 * allowed, and the words that YAML reads as a boolean or null are
+	 * not.
+	 */
+	private static boolean isPlainWord(String string)
+	{
+		boolean plain = !string.isEmpty() && !Character.isDigit(string.charAt(0));
+		
+		for(int i = 0; i < string.length() && plain; i++)
+		{
+			char c = string.charAt(i);
+			plain = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+		}
+		
+		if(plain)
+		{
+			switch(string.toLowerCase())
+			{
+				case "yes":
+				case "no":
+				case "true":
+				case "false":
+				case "on":
+				case "off":
+				case "null":
+					plain = false;
+					break;
+				default:
+					break;
+			}
+		}
+		
+		return plain;
+	}
+	
+	/**
+	 * Writes a player file laid out like the default_player.yml.
+	 * @param snapshot the PlayerInfo to write
+	 * @param template the values that are read from the
+	 * default_player.yml when a player file is empty
+	 * @param sparse true to leave out every value that is the same as
+	 * in the template
+	 * @return the contents of the player file, or null if the
+	 * player's name cannot be written by this class
+	 */
+	static String write(PlayerInfo snapshot, PlayerInfo template, boolean sparse)
+	{
+		StringBuilder out = new StringBuilder(sparse ? 128 : 4096);
+		
+		if(sparse)
+		{
+			out.append(SPARSE).append(": true\n");
+		}
+		
+		String lastKnownName = snapshot.getLastKnownName();
+		if(lastKnownName != null)
+		{
+			String name = quoteString(lastKnownName);
+			if(name == null)
+			{
+				return null;
+			}
+			
+			out.append(LAST_KNOWN_NAME).append(": ").append(name).append('\n');
+		}
+		
+		for(MobType mobType: MOB_TYPES)
+		{
+			writeMobInfo(out, snapshot.getMobInfo(mobType), template.getMobInfo(mobType), sparse);
+		}
+		
+		return out.toString();
+	}
+	
+	/**
+	 * Writes a mob section. A sparse mob section that would be empty
+	 * is left out.
+	 */
+	private static void writeMobInfo(StringBuilder out, MobInfo mobInfo, MobInfo templateMobInfo, boolean sparse)
+	{
+		int sectionStart = out.length();
+		out.append(mobInfo.getMobType().getName()).append(":\n");
+		int valuesStart = out.length();
+		
+		Setting setting = mobInfo.getSetting();
+		if(!sparse || setting != templateMobInfo.getSetting())
+		{
+			writeValue(out, INDENT, "setting", setting.getName());
+		}
+		
+		int manualPerformanceLevel = (int) (mobInfo.getManualPerformanceLevel());
+		if(!sparse || manualPerformanceLevel != (int) (templateMobInfo.getManualPerformanceLevel()))
+		{
+			writeValue(out, INDENT, "manualPerformanceLevel", manualPerformanceLevel);
+		}
+		
+		int autoPerformanceLevel = (int) (mobInfo.getAutoPerformanceLevel()+.5);
+		if(!sparse || autoPerformanceLevel != (int) (templateMobInfo.getAutoPerformanceLevel()+.5))
+		{
+			writeValue(out, INDENT, "autoPerformanceLevel", autoPerformanceLevel);
+		}
+		
+		int maxIncrement = mobInfo.getMaxIncrement();
+		if(!sparse || maxIncrement != templateMobInfo.getMaxIncrement())
+		{
+			writeValue(out, INDENT, "maxIncrement", maxIncrement);
+		}
+		
+		int scaleStart = out.length();
+		out.append(INDENT).append(SCALE_ATTRIBUTES).append(":\n");
+		int scaleValuesStart = out.length();
+		
+		String scaleIndent = INDENT + INDENT;
+		writeScale(out, scaleIndent, "attack", mobInfo.shouldScaleAttack(), templateMobInfo.shouldScaleAttack(), sparse);
+		writeScale(out, scaleIndent, "defense", mobInfo.shouldScaleDefense(), templateMobInfo.shouldScaleDefense(), sparse);
+		writeScale(out, scaleIndent, "speed", mobInfo.shouldScaleSpeed(), templateMobInfo.shouldScaleSpeed(), sparse);
+		writeScale(out, scaleIndent, "knockback", mobInfo.shouldScaleKnockbackResistance(), templateMobInfo.shouldScaleKnockbackResistance(), sparse);
+		writeScale(out, scaleIndent, "followDistance", mobInfo.shouldScaleMaxFollowDistance(), templateMobInfo.shouldScaleMaxFollowDistance(), sparse);
+		writeScale(out, scaleIndent, "xp", mobInfo.shouldScaleXP(), templateMobInfo.shouldScaleXP(), sparse);
+		writeScale(out, scaleIndent, "loot", mobInfo.shouldScaleLoot(), templateMobInfo.shouldScaleLoot(), sparse);
+		
+		if(out.length() == scaleValuesStart)
+		{
+			out.setLength(scaleStart);
+		}
+		
+		if(out.length() == valuesStart)
+		{
+			out.setLength(sectionStart);
+		}
+	}
+	
+	private static void writeScale(StringBuilder out, String indent, String key, boolean scale, boolean templateScale, boolean sparse)
+	{
+		if(!sparse || scale != templateScale)
+		{
+			writeValue(out, indent, key, scale);
+		}
+	}
+	
+	private static void writeValue(StringBuilder out, String indent, String key, Object value)
+	{
+		out.append(indent).append(key).append(": ").append(value).append('\n');
+	}
+	
+	/**
+	 * @return the given String as a plain word if it can be written
+	 * as one, or else in single quotes. null if it holds a character
+	 * that cannot be written in single quotes.
+	 */
+	private static String quoteString(String string)
+	{
+		String quoted;
+		
+		if(isPlainWord(string))
+		{
+			quoted = string;
+		}
+		else
+		{
+			quoted = "'" + string.replace("'", "''") + "'";
+			
+			for(int i = 0; i < string.length() && quoted != null; i++)
+			{
+				char c = string.charAt(i);
+				if(c < ' ' || c > '~')
+				{
+					quoted = null;
+				}
+			}
+		}
+		
+		return quoted;
+	}
+	
+	/**
+	 * Copies every value that is kept in a player file from one
+	 * MobInfo to another.
+	 */
+	private static void copyMobInfo(MobInfo from, MobInfo to)
+	{
+		to.setSetting(from.getSetting());
+		to.setManualPerformanceLevel(from.getManualPerformanceLevel());
+		to.setAutoPerformanceLevel(from.getAutoPerformanceLevel());
+		to.setMaxIncrement(from.getMaxIncrement());
+		to.setScaleAttack(from.shouldScaleAttack());
+		to.setScaleDefense(from.shouldScaleDefense());
+		to.setScaleSpeed(from.shouldScaleSpeed());
+		to.setScaleKnockbackResistance(from.shouldScaleKnockbackResistance());
+		to.setScaleMaxFollowDistance(from.shouldScaleMaxFollowDistance());
+		to.setScaleXP(from.shouldScaleXP());
+		to.setScaleLoot(from.shouldScaleLoot());
+	}
+}
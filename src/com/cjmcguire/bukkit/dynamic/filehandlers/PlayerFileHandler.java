@@ -2,54 +2,398 @@ package com.cjmcguire.bukkit.dynamic.filehandlers;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 import org.bukkit.plugin.Plugin;
 
-import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
-import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
-import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
 
 /**
- * The PlayerFileHandler is responsible for handling all of the i/o 
- * that goes on with the player yml files. It handles the conversion 
- * from a "player name" and UUID to a "player file" to a "player 
- * config" to "player data".
+ * The PlayerFileHandler is responsible for deciding when player data 
+ * is loaded and saved. The loading and saving itself is done by a 
+ * PlayerStore, which is chosen in the config.yml. Player data is 
+ * loaded off the main thread as soon as a player starts logging in, 
+ * and only one load ever runs for the same player at a time. Player 
+ * data is saved by taking a snapshot of it on the main thread and 
+ * handing the snapshot to a PlayerSaveQueue, which writes it to disk 
+ * on its own thread. The player's data is only marked as saved once 
+ * the snapshot is on disk. If the journal is turned on, saves are 
+ * appended to a JournaledPlayerStore in front of the PlayerStore.
  * @author CJ McGuire
  */
 public class PlayerFileHandler extends FileHandler implements Listener
 {
 	private final static String DEFAULT_PLAYER_FILE_NAME = "default_player.yml";
 	private final static String PLAYERS_FOLDER = "players";
+	private final static String BINARY_PLAYERS_FILE_NAME = "players.dat";
+	private final static String SQL_PLAYERS_FILE_NAME = "players.db";
+	private final static String JOURNAL_FILE_NAME = "players.journal";
+	private final static String NAME_INDEX_FILE_NAME = "players.names";
+	
+	private final static String LOADER_THREAD_NAME = "DynamicDifficulty player loader";
+	
+	// How long enabling the plugin waits for the players who are 
+	// already online to be loaded.
+	private final static long RELOAD_TIMEOUT_MILLIS = 5000;
 	
 	private PlayerDataManager playerDataManager;
 	
+	// Loads that have been started but have not finished yet. Every 
+	// request for the same player shares the load in here.
+	private final ConcurrentHashMap<UUID, PlayerDataLoad> pendingLoads;
+	
+	private final PlayerSaveQueue saveQueue;
+	
+	// The PlayerInfo every snapshot that has not been written yet was 
+	// taken from, so that it can be marked as saved once the snapshot 
+	// is on disk. Snapshots that are replaced by newer ones before 
+	// they are written drop out on their own. Only used on the main 
+	// thread.
+	private final Map<PlayerInfo, PlayerInfo> savingPlayers;
+	
+	// The player yml files. New players get their values from the 
+	// default player config in here, and players who are not in the 
+	// playerStore yet are read from their yml files.
+	private final YamlPlayerStore yamlStore;
+	
+	// Where player data is loaded from and saved to.
+	private final PlayerStore playerStore;
+	
+	// True if the playerStore keeps its data in the yml files, with 
+	// or without a journal in front of them.
+	private final boolean keptInPlayerFiles;
+	
+	// Finds players who are not online by their last known names.
+	private final PlayerNameIndex nameIndex;
+	
 	/**
-	 * Initializes the PlayerFileHandler.
+	 * Initializes the PlayerFileHandler so that it keeps player data 
+	 * in yml files.
 	 * @param plugin a reference to the plugin that uses this 
 	 * PlayerFileHandler
 	 */
 	public PlayerFileHandler(Plugin plugin)
+	{
+		this(plugin, StorageType.YAML);
+	}
+	
+	/**
+	 * Initializes the PlayerFileHandler.
+	 * @param plugin a reference to the plugin that uses this 
+	 * PlayerFileHandler
+	 * @param storageType the way player data is kept on disk. If the 
+	 * PlayerStore for it cannot be opened, yml files are used.
+	 */
+	public PlayerFileHandler(Plugin plugin, StorageType storageType)
+	{
+		this(plugin, storageType, false);
+	}
+	
+	/**
+	 * Initializes the PlayerFileHandler.
+	 * @param plugin a reference to the plugin that uses this 
+	 * PlayerFileHandler
+	 * @param storageType the way player data is kept on disk. If the 
+	 * PlayerStore for it cannot be opened, yml files are used.
+	 * @param journal true to append saves to a journal in front of 
+	 * the PlayerStore. If the journal cannot be opened, saves go 
+	 * straight to the PlayerStore.
+	 */
+	public PlayerFileHandler(Plugin plugin, StorageType storageType, boolean journal)
+	{
+		this(plugin, storageType, journal, null);
+	}
+	
+	/**
+	 * Initializes the PlayerFileHandler so that it keeps player data 
+	 * in the given PlayerStore.
+	 * @param plugin a reference to the plugin that uses this 
+	 * PlayerFileHandler
+	 * @param playerStore the PlayerStore to load and save player data 
+	 * with
+	 */
+	PlayerFileHandler(Plugin plugin, PlayerStore playerStore)
+	{
+		this(plugin, null, false, playerStore);
+	}
+	
+	private PlayerFileHandler(Plugin plugin, StorageType storageType, boolean journal, PlayerStore playerStore)
 	{
 		super(plugin, DEFAULT_PLAYER_FILE_NAME);
 		
 		this.playerDataManager = PlayerDataManager.getInstance();
+		this.pendingLoads = new ConcurrentHashMap<UUID, PlayerDataLoad>();
+		this.saveQueue = new PlayerSaveQueue(this);
+		this.savingPlayers = new WeakHashMap<PlayerInfo, PlayerInfo>();
 		
 		this.createPlayersFolder();
+		this.yamlStore = new YamlPlayerStore(this.getDataFile(PLAYERS_FOLDER), config);
+		
+		boolean newStore = false;
+		if(playerStore == null)
+		{
+			File storeFile = this.getStoreFile(storageType);
+			newStore = storeFile != null && !storeFile.exists();
+			
+			playerStore = this.openPlayerStore(storageType, storeFile);
+		}
+		this.keptInPlayerFiles = playerStore == yamlStore;
+		
+		if(journal)
+		{
+			playerStore = this.openJournal(playerStore);
+		}
+		this.playerStore = playerStore;
+		
+		// A new PlayerStore starts out with every player who has a 
+		// yml file.
+		if(newStore)
+		{
+			this.importPlayerFiles();
+		}
+		
+		this.nameIndex = this.openNameIndex();
+		
 		this.reloadInfoForLoggedInPlayers();
 	}
 	
+	/**
+	 * @return the file the PlayerStore for the given StorageType keeps 
+	 * its data in, or null if it keeps its data in the yml files
+	 */
+	private File getStoreFile(StorageType storageType)
+	{
+		File storeFile = null;
+		
+		if(storageType == StorageType.BINARY)
+		{
+			storeFile = this.getDataFile(BINARY_PLAYERS_FILE_NAME);
+		}
+		else if(storageType == StorageType.SQLITE)
+		{
+			storeFile = this.getDataFile(SQL_PLAYERS_FILE_NAME);
+		}
+		
+		return storeFile;
+	}
+	
+	/**
+	 * Opens the PlayerStore for the given StorageType. If it cannot 
+	 * be opened, the player yml files are used instead.
+	 */
+	private PlayerStore openPlayerStore(StorageType storageType, File storeFile)
+	{
+		PlayerStore openedStore = yamlStore;
+		
+		try
+		{
+			if(storageType == StorageType.BINARY)
+			{
+				openedStore = new BinaryPlayerStore(storeFile);
+			}
+			else if(storageType == StorageType.SQLITE)
+			{
+				openedStore = new SqlPlayerStore(storeFile);
+			}
+		}
+		catch(IOException e)
+		{
+			if(plugin != null)
+			{
+				plugin.getLogger().info("Could not open " + storeFile + ". Player data will be kept in yml files instead.");
+			}
+			e.printStackTrace();
+		}
+		
+		return openedStore;
+	}
+	
+	/**
+	 * Opens the journal in front of the given PlayerStore, which 
+	 * replays anything that was left in it. If it cannot be opened, 
+	 * the PlayerStore is used without a journal.
+	 */
+	private PlayerStore openJournal(PlayerStore mainStore)
+	{
+		PlayerStore openedStore = mainStore;
+		
+		File journalFile = this.getDataFile(JOURNAL_FILE_NAME);
+		try
+		{
+			openedStore = new JournaledPlayerStore(journalFile, mainStore);
+		}
+		catch(IOException e)
+		{
+			if(plugin != null)
+			{
+				plugin.getLogger().info("Could not open " + journalFile + ". Player data will be saved without it.");
+			}
+			e.printStackTrace();
+		}
+		
+		return openedStore;
+	}
+	
+	/**
+	 * Opens the index of players' last known names and reads the 
+	 * index file. If there is no index file yet, the index is built 
+	 * from the player yml files on the save thread. When running 
+	 * headless, the index is only kept in memory and is built right 
+	 * away.
+	 */
+	private PlayerNameIndex openNameIndex()
+	{
+		File indexFile = null;
+		if(this.isRunningWithHead())
+		{
+			indexFile = this.getDataFile(NAME_INDEX_FILE_NAME);
+		}
+		
+		final PlayerNameIndex index = new PlayerNameIndex(indexFile);
+		
+		if(index.fileExists())
+		{
+			try
+			{
+				index.load();
+			}
+			catch(IOException e)
+			{
+				if(plugin != null)
+				{
+					plugin.getLogger().info("Could not read " + indexFile + ". Players who are not online can only be found by name once they have been saved again.");
+				}
+				e.printStackTrace();
+			}
+		}
+		else
+		{
+			Runnable buildTask = new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					buildNameIndex(index);
+				}
+			};
+			
+			if(this.isRunningWithHead())
+			{
+				saveQueue.submit(buildTask);
+			}
+			else
+			{
+				buildTask.run();
+			}
+		}
+		
+		return index;
+	}
+	
+	/**
+	 * Adds the last known name of every player who has a yml file to 
+	 * the given index. Players who are only in another PlayerStore 
+	 * are added the next time they are saved.
+	 */
+	private void buildNameIndex(PlayerNameIndex index)
+	{
+		List<PlayerInfo> players = new ArrayList<PlayerInfo>();
+		
+		for(UUID playerID: yamlStore.getStoredPlayerIDs())
+		{
+			String lastKnownName = yamlStore.readLastKnownName(playerID);
+			if(lastKnownName != null)
+			{
+				PlayerInfo playerInfo = new PlayerInfo(playerID);
+				playerInfo.setLastKnownName(lastKnownName);
+				players.add(playerInfo);
+			}
+		}
+		
+		this.indexNames(index, players);
+	}
+	
+	/**
+	 * Adds the last known names of the given players to the given 
+	 * index.
+	 */
+	private void indexNames(PlayerNameIndex index, Collection<PlayerInfo> players)
+	{
+		try
+		{
+			index.putAll(players);
+		}
+		catch(IOException e)
+		{
+			if(plugin != null)
+			{
+				plugin.getLogger().info("Could not update the index of player names");
+			}
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Finds a player who has stored data by the player's last known 
+	 * name, whether or not the player is online. The name is matched 
+	 * without regard to case.
+	 * @param playerName the last known name of the player
+	 * @return the UUID of the player, or null if no player with 
+	 * stored data had that name the last time the player was saved
+	 */
+	public UUID getStoredPlayerID(String playerName)
+	{
+		return nameIndex.getPlayerID(playerName);
+	}
+	
+	/**
+	 * @return the file or folder with the given name in the plugin's 
+	 * data folder, or in the working directory when running headless
+	 */
+	private File getDataFile(String fileName)
+	{
+		File dataFile;
+		
+		if(this.isRunningWithHead())
+		{
+			dataFile = new File(plugin.getDataFolder(), fileName);
+		}
+		else
+		{
+			dataFile = new File(fileName);
+		}
+		
+		return dataFile;
+	}
+	
 	/**
 	 * Creates the players folder if it does not exist.
 	 */
@@ -68,176 +412,576 @@ public class PlayerFileHandler extends FileHandler implements Listener
 	
 	/**
 	 * Reloads all of the PlayerInfo for players that are still 
-	 * logged in.
+	 * logged in. Enabling the plugin waits for the loads for no 
+	 * longer than RELOAD_TIMEOUT_MILLIS.
 	 */
 	private void reloadInfoForLoggedInPlayers()
 	{
 		if(this.isRunningWithHead())
 		{
-			Collection<? extends Player> players = plugin.getServer().getOnlinePlayers();
+			Map<UUID, String> players = new LinkedHashMap<UUID, String>();
+			
+			for(Player player: plugin.getServer().getOnlinePlayers())
+			{
+				players.put(player.getUniqueId(), player.getName());
+			}
+			
+			this.loadPlayerDataInParallel(players, RELOAD_TIMEOUT_MILLIS);
+		}
+	}
+	
+	/**
+	 * Loads the data of the given players on a pool of threads and 
+	 * waits for the loads for no longer than the given timeout. The 
+	 * data that was loaded in time is added to the plugin all at 
+	 * once, with no other load adding data in between. A player 
+	 * whose load did not finish in time is handed to 
+	 * loadPlayerDataInBackground() and gets the default values until 
+	 * that load finishes. A player whose stored data could not be 
+	 * read gets the player's yml file or the default values, which 
+	 * replace the stored data at the next save. See readPlayerData().
+	 * @param players the UUID and name of every player to load
+	 * @param timeoutMillis the longest time to wait for the loads, in 
+	 * milliseconds
+	 * @return the number of players whose data was added
+	 */
+	int loadPlayerDataInParallel(Map<UUID, String> players, long timeoutMillis)
+	{
+		if(players.isEmpty())
+		{
+			return 0;
+		}
+		
+		int threads = Math.min(players.size(), Math.max(2, Runtime.getRuntime().availableProcessors()));
+		ExecutorService loaders = Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, LOADER_THREAD_NAME);
+				thread.setDaemon(true);
+				
+				return thread;
+			}
+		});
+		
+		Map<UUID, Future<PlayerInfo>> loads = new LinkedHashMap<UUID, Future<PlayerInfo>>();
+		for(final Map.Entry<UUID, String> player: players.entrySet())
+		{
+			loads.put(player.getKey(), loaders.submit(new Callable<PlayerInfo>()
+			{
+				@Override
+				public PlayerInfo call() throws IOException
+				{
+					return readPlayerData(player.getKey(), player.getValue());
+				}
+			}));
+		}
+		
+		// The loads that were started are left to finish, and the 
+		// threads go away once they have.
+		loaders.shutdown();
+		
+		List<PlayerInfo> loaded = new ArrayList<PlayerInfo>(players.size());
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		for(Map.Entry<UUID, Future<PlayerInfo>> load: loads.entrySet())
+		{
+			UUID playerID = load.getKey();
 			
-			for(Player player: players)
+			try
 			{
-				UUID playerID = player.getUniqueId();
+				long remaining = Math.max(0, deadline - System.nanoTime());
+				loaded.add(load.getValue().get(remaining, TimeUnit.NANOSECONDS));
+			}
+			catch(TimeoutException e)
+			{
+				// Loads that have not started yet never will. One 
+				// that is running is not interrupted, because that 
+				// could close the PlayerStore's file, and what it 
+				// reads is thrown away.
+				load.getValue().cancel(false);
+				this.loadPlayerDataInBackground(playerID, players.get(playerID));
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
 				
-				// Load the playerData contained in the 
-				// FileConfiguration into the plugin.
-				this.loadPlayerData(playerID);
+				load.getValue().cancel(false);
+				this.loadPlayerDataInBackground(playerID, players.get(playerID));
+			}
+			catch(ExecutionException e)
+			{
+				if(plugin != null)
+				{
+					plugin.getLogger().info("Could not load player data for " + playerID);
+				}
+				e.printStackTrace();
 			}
 		}
+		
+		int added = 0;
+		synchronized(pendingLoads)
+		{
+			for(PlayerInfo playerInfo: loaded)
+			{
+				// a login may have loaded the player already
+				if(!playerDataManager.playerInfoExists(playerInfo.getPlayerID()))
+				{
+					playerDataManager.addPlayerInfo(playerInfo);
+					added++;
+				}
+			}
+		}
+		
+		return added;
 	}
 	
 	/**
-	 * This method triggers whenever a player logs onto a Minecraft 
-	 * Bukkit Server. If no player data exists for the player that 
-	 * just logged in, this method initializes player data for that 
-	 * player. If player data does exist, this method will load in 
-	 * the player data from the player's config.yml file.
+	 * This method triggers while a player is logging in, before the 
+	 * player has joined the server. It is called off of the main 
+	 * thread, so the player's data is loaded right here and is 
+	 * ready by the time the player joins.
+	 * @param event the AsyncPlayerPreLoginEvent that just occurred.
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onAsyncPlayerPreLogin(AsyncPlayerPreLoginEvent event)
+	{
+		if(event.getLoginResult() == AsyncPlayerPreLoginEvent.Result.ALLOWED)
+		{
+			UUID playerID = event.getUniqueId();
+			
+			if(!playerDataManager.playerInfoExists(playerID))
+			{
+				// If the load is already running somewhere else, this 
+				// returns right away.
+				this.getLoad(playerID, event.getName()).run();
+			}
+		}
+	}
+	
+	/**
+	 * This method triggers whenever the server decides whether or not 
+	 * a player may log in. If the player was turned away, the data 
+	 * that was loaded for the player is thrown out.
 	 * @param event the PlayerLoginEvent that just occurred.
 	 */
 	@EventHandler(priority = EventPriority.MONITOR)
+	public void onPlayerLogin(PlayerLoginEvent event)
+	{
+		if(event.getResult() != PlayerLoginEvent.Result.ALLOWED)
+		{
+			this.discardPlayerData(event.getPlayer().getUniqueId());
+		}
+	}
+	
+	/**
+	 * This method triggers whenever a player logs onto a Minecraft 
+	 * Bukkit Server. The player's data is normally already loaded by 
+	 * onAsyncPlayerPreLogin(). If it is not, a load is started in 
+	 * the background.
+	 * @param event the PlayerJoinEvent that just occurred.
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
 	public void onPlayerJoin(PlayerJoinEvent event)
 	{
 		Player player = event.getPlayer();
 		
 		UUID playerID = player.getUniqueId();
 		
-		this.loadPlayerData(playerID);
+		if(!playerDataManager.playerInfoExists(playerID))
+		{
+			this.loadPlayerDataInBackground(playerID, player.getName());
+		}
 	}
 	
 	/**
-	 * Loads the info from the <player name>.yml file to the plugin's 
-	 * player data.
+	 * Loads the info from the PlayerStore to the plugin's player 
+	 * data and waits for it. This reads from disk on the calling 
+	 * thread, unless a load for the player is already running, in 
+	 * which case that load is waited for instead, so that a player is 
+	 * never read twice at once. If the stored info cannot be read, 
+	 * the player's yml file or the default values are added instead, 
+	 * and replace the stored info at the next save. See 
+	 * readPlayerData(). Nothing is added if the player's data is 
+	 * already there.
 	 * @param playerID the UUID of the player whose player info you 
 	 * want to load into the plugin's memory
 	 */
 	public void loadPlayerData(UUID playerID)
 	{
-		// create the FileConfiguration object based on the playerFile.yml
-		FileConfiguration playerConfig = this.getPlayerConfig(playerID);
+		PlayerDataLoad load = this.getLoad(playerID, this.getPlayerName(playerID));
 		
-		// create the PlayerInfo
-		PlayerInfo playerInfo = new PlayerInfo(playerID);
+		// If the load is already running somewhere else, this returns 
+		// right away and the get() below waits for it.
+		load.run();
 		
-		// loop through each MobType
-		for(MobType mobType: MobType.values())
+		try
 		{
-			// get the MobType
-			MobInfo mobInfo = playerInfo.getMobInfo(mobType);
-			this.loadMobInfoFromConfig(mobInfo, playerConfig);
+			load.get();
+			
+			// get() can return before done() has added the data
+			load.addPlayerData();
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch(ExecutionException e)
+		{
+			// the load has already logged it
+		}
+		catch(CancellationException e)
+		{
+			// the load was thrown away and started over
 		}
-		
-		// add the playerInfo to the plugin
-		playerDataManager.addPlayerInfo(playerInfo);
 	}
 	
 	/**
-	 * If the playerName.yml file exists, then this method will load 
-	 * it from disk and return a FileConfiguration based on it. If the 
-	 * player name.yml file does not exist, then this method will 
-	 * create a default playerName.yml, save it to disk, and return a 
-	 * FileConfiguration based on it.
-	 * @param playerID the UUID of the player whose yml file you want.
-	 * @return a FileConfiguration based of the playerName.yml file.
+	 * Starts loading the info from the PlayerStore to the plugin's 
+	 * player data without waiting for it to finish. If a load for the 
+	 * player is already running, no new load is started. When running 
+	 * headless, the load happens right away on the calling thread.
+	 * @param playerID the UUID of the player whose player info you 
+	 * want to load into the plugin's memory
+	 * @param playerName the player's name, or null if it is not known
 	 */
-	protected FileConfiguration getPlayerConfig(UUID playerID)
+	public void loadPlayerDataInBackground(UUID playerID, String playerName)
 	{
-		File playerFile;
-		FileConfiguration playerConfig = null;
+		boolean alreadyLoading = pendingLoads.containsKey(playerID);
 		
-		if(this.isRunningWithHead())
+		FutureTask<PlayerInfo> load = this.getLoad(playerID, playerName);
+		
+		if(alreadyLoading)
 		{
-			playerFile = new File(plugin.getDataFolder(), PLAYERS_FOLDER + File.separator  + playerID + ".yml");
+			// the load is already running or about to run
+		}
+		else if(this.isRunningWithHead())
+		{
+			plugin.getServer().getScheduler().runTaskAsynchronously(plugin, load);
 		}
 		else
 		{
-			playerFile = new File(PLAYERS_FOLDER + File.separator  + playerID + ".yml");
+			load.run();
 		}
+	}
+	
+	/**
+	 * Gets the PlayerInfo to use for a player whose data has not been 
+	 * loaded yet. When running headless, the data is loaded right 
+	 * away. Otherwise a load is started in the background and a 
+	 * PlayerInfo with the default values is returned to use until the 
+	 * load finishes, so that the main thread never waits on the disk. 
+	 * Changes made to that PlayerInfo are not kept.
+	 * @param playerID the UUID of the player whose player info you 
+	 * want
+	 * @return the player's PlayerInfo, or a PlayerInfo with default 
+	 * values if it is still being loaded.
+	 */
+	public PlayerInfo requestPlayerData(UUID playerID)
+	{
+		this.loadPlayerDataInBackground(playerID, null);
 		
-		if(this.isRunningWithHead() && !playerFile.exists())
+		PlayerInfo playerInfo = playerDataManager.getLoadedPlayerInfo(playerID);
+		if(playerInfo == null)
+		{
+			playerInfo = new PlayerInfo(playerID);
+		}
+		
+		return playerInfo;
+	}
+	
+	/**
+	 * Stops any load for the given player from adding its data to the 
+	 * plugin and removes whatever data has already been added.
+	 * @param playerID the UUID of the player whose data should be 
+	 * thrown out
+	 */
+	public void discardPlayerData(UUID playerID)
+	{
+		synchronized(pendingLoads)
 		{
-			playerFile.getParentFile().mkdirs();
+			pendingLoads.remove(playerID);
+			playerDataManager.removePlayerInfo(playerID);
+		}
+	}
+	
+	/**
+	 * Stops every load that has not finished yet from adding its data 
+	 * to the plugin. This should be called when the plugin is 
+	 * disabled.
+	 */
+	public void cancelPendingLoads()
+	{
+		synchronized(pendingLoads)
+		{
+			pendingLoads.clear();
+		}
+	}
+	
+	/**
+	 * @param playerID the UUID of the player whose load you want
+	 * @return true if data for the given player is being loaded
+	 */
+	public boolean isLoading(UUID playerID)
+	{
+		return pendingLoads.containsKey(playerID);
+	}
+	
+	/**
+	 * Gets the load for the given player that is already running or 
+	 * creates a new one that has not been started yet.
+	 */
+	private PlayerDataLoad getLoad(UUID playerID, String playerName)
+	{
+		PlayerDataLoad load = pendingLoads.get(playerID);
+		
+		if(load == null)
+		{
+			PlayerDataLoad newLoad = new PlayerDataLoad(playerID, playerName);
 			
-			try
+			load = pendingLoads.putIfAbsent(playerID, newLoad);
+			if(load == null)
 			{
-				playerConfig = YamlConfiguration.loadConfiguration(configFile);
-				playerConfig.save(playerFile);
-	        } 
-			catch (IOException e) 
-			{
-				plugin.getLogger().info("Could not save to " + playerID + ".yml");
-	        }
+				load = newLoad;
+			}
 		}
-		else
+		
+		return load;
+	}
+	
+	/**
+	 * Reads the player's data from the PlayerStore without adding it 
+	 * to the plugin. If the player's name is given and it is not the 
+	 * name that was stored, the data is marked as changed so that the 
+	 * new name is written by the next save. The estimated performance 
+	 * levels start off equal to the auto performance levels.
+	 *
+	 * If the PlayerStore has the player but cannot read the player's 
+	 * data, this is logged and the player's yml file or the default 
+	 * values are used instead. That data is marked as changed, so 
+	 * that the next save replaces the copy that could not be read, 
+	 * and the player is not read again every time the player's data 
+	 * is asked for.
+	 */
+	private PlayerInfo readPlayerData(UUID playerID, String playerName)
+	{
+		PlayerInfo playerInfo;
+		
+		// If the player's last save has not been written yet, the 
+		// store is out of date, so start from the save instead.
+		PlayerInfo pendingSave = saveQueue.getPendingSave(playerID);
+		if(pendingSave != null)
 		{
-			playerConfig = YamlConfiguration.loadConfiguration(playerFile);
+			playerInfo = pendingSave.snapshot();
 		}
-		
-		// We set the defaults to the defaultPlayerConfig so that if
-		// the playerConfig contains garbage data, we can still load 
-		// the MobInfo.
-		playerConfig.setDefaults(config);
-		if(this.isRunningWithHead())
+		else
 		{
-			playerConfig.set("lastKnownName", this.plugin.getServer().getPlayer(playerID).getName());
-			try 
+			boolean unreadable = false;
+			try
 			{
-				playerConfig.save(playerFile);
+				playerInfo = playerStore.load(playerID);
+				
+				// a store that has the player but returns nothing 
+				// could not read the player's data
+				if(playerInfo == null && playerStore.exists(playerID))
+				{
+					unreadable = true;
+					this.logUnreadable(playerID, null);
+				}
 			}
-			catch (IOException e)
+			catch(IOException e)
 			{
-				plugin.getLogger().info("Could not save player data to " + PLAYERS_FOLDER + playerFile);
-				e.printStackTrace();
+				playerInfo = null;
+				unreadable = true;
+				this.logUnreadable(playerID, e);
+			}
+			catch(RuntimeException e)
+			{
+				playerInfo = null;
+				unreadable = true;
+				this.logUnreadable(playerID, e);
+			}
+			
+			// Players who are not in the playerStore yet are read 
+			// from their yml files, so no one's data is lost when a 
+			// server switches to another StorageType.
+			if(playerInfo == null && !keptInPlayerFiles)
+			{
+				try
+				{
+					playerInfo = yamlStore.load(playerID);
+				}
+				catch(IOException e)
+				{
+					this.logUnreadable(playerID, e);
+				}
+			}
+			
+			if(playerInfo == null)
+			{
+				playerInfo = yamlStore.loadDefaults(playerID);
+			}
+			
+			playerInfo.resetEstimatedPerformanceLevels();
+			
+			if(unreadable)
+			{
+				playerInfo.markUnsaved();
 			}
 		}
-
-		return playerConfig;
+		
+		if(playerName != null)
+		{
+			playerInfo.setLastKnownName(playerName);
+		}
+		
+		return playerInfo;
 	}
 	
-	private void loadMobInfoFromConfig(MobInfo mobInfo, FileConfiguration playerConfig)
+	/**
+	 * Logs that the given player's stored data could not be read, 
+	 * along with the given exception if there is one.
+	 */
+	private void logUnreadable(UUID playerID, Exception e)
 	{
-		String mobName = mobInfo.getMobType().getName();
-		
-		// Set the setting in mobInfo.
-		String settingName = playerConfig.getString(mobName + ".setting", MobInfo.DEFAULT_SETTING);
-		Setting setting = Setting.getSetting(settingName);
-		mobInfo.setSetting(setting);
+		if(plugin != null)
+		{
+			plugin.getLogger().info("Could not read the stored data of " + playerID + 
+					". It will be replaced the next time the player is saved.");
+		}
 		
-		// Set the manualPerformanceLevel in the MobInfo.
-		int manualPerformanceLevel = playerConfig.getInt(mobName + ".manualPerformanceLevel", MobInfo.DEFAULT_PERFORMANCE_LEVEL);
-		mobInfo.setManualPerformanceLevel(manualPerformanceLevel);
+		if(e != null)
+		{
+			e.printStackTrace();
+		}
+	}
 	
-		// Set the currentPerformanceLevel in the MobInfo.
-		int autoPerformanceLevel = playerConfig.getInt(mobName + ".autoPerformanceLevel", MobInfo.DEFAULT_PERFORMANCE_LEVEL);
-		mobInfo.setAutoPerformanceLevel(autoPerformanceLevel);
-		
-		// The estimated performance level should start off equal to 
-		// the current performance level.
-		mobInfo.setEstimatedPerformanceLevel(autoPerformanceLevel);
-		
-		int maxIncrement = playerConfig.getInt(mobName + ".maxIncrement", MobInfo.DEFAULT_MAX_INCREMENT);
-		mobInfo.setMaxIncrement(maxIncrement);
-		
-		boolean scaleAttack = playerConfig.getBoolean(mobName + ".scaleAttributes.attack", MobInfo.DEFAULT_SCALE);
-		mobInfo.setScaleAttack(scaleAttack);
-		
-		boolean scaleDefense = playerConfig.getBoolean(mobName + ".scaleAttributes.defense", MobInfo.DEFAULT_SCALE);
-		mobInfo.setScaleDefense(scaleDefense);
+	/**
+	 * A load of one player's data. When it finishes, it adds the data 
+	 * to the plugin unless it has been discarded in the meantime or 
+	 * the data is already there.
+	 */
+	private class PlayerDataLoad extends FutureTask<PlayerInfo>
+	{
+		private final UUID playerID;
 		
-		boolean scaleSpeed = playerConfig.getBoolean(mobName + ".scaleAttributes.speed", MobInfo.DEFAULT_SCALE);
-		mobInfo.setScaleSpeed(scaleSpeed);
+		PlayerDataLoad(final UUID playerID, final String playerName)
+		{
+			super(new Callable<PlayerInfo>()
+			{
+				@Override
+				public PlayerInfo call() throws IOException
+				{
+					return readPlayerData(playerID, playerName);
+				}
+			});
+			
+			this.playerID = playerID;
+		}
 		
-		boolean scaleKnockBackResistance = playerConfig.getBoolean(mobName + ".scaleAttributes.knockback", MobInfo.DEFAULT_SCALE);
-		mobInfo.setScaleKnockbackResistance(scaleKnockBackResistance);
+		@Override
+		protected void done()
+		{
+			this.addPlayerData();
+		}
 		
-		boolean scaleMaxFollowDistance = playerConfig.getBoolean(mobName + ".scaleAttributes.followDistance", MobInfo.DEFAULT_SCALE);
-		mobInfo.setScaleMaxFollowDistance(scaleMaxFollowDistance);
+		/**
+		 * Adds the loaded data to the plugin, unless it has been 
+		 * discarded or added already. This must only be called once 
+		 * the load is done.
+		 */
+		void addPlayerData()
+		{
+			synchronized(pendingLoads)
+			{
+				if(pendingLoads.get(playerID) == this)
+				{
+					try
+					{
+						if(!playerDataManager.playerInfoExists(playerID))
+						{
+							playerDataManager.addPlayerInfo(this.get());
+						}
+					}
+					catch(Exception e)
+					{
+						if(plugin != null)
+						{
+							plugin.getLogger().info("Could not load player data for " + playerID);
+						}
+						e.printStackTrace();
+					}
+					
+					pendingLoads.remove(playerID);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * If the player's yml file exists, then this method will load it 
+	 * from disk and return a FileConfiguration based on it. If the 
+	 * player's yml file does not exist, then this method will return 
+	 * a copy of the default player config. The player's yml file is 
+	 * read no matter which StorageType is being used.
+	 * @param playerID the UUID of the player whose yml file you want.
+	 * @return a FileConfiguration based of the player's yml file.
+	 */
+	protected FileConfiguration getPlayerConfig(UUID playerID)
+	{
+		return yamlStore.getPlayerConfig(playerID);
+	}
+	
+	/**
+	 * Sets whether a checksum is written at the end of every player 
+	 * yml file, so that a player file that was damaged on disk is 
+	 * noticed and the last good copy of it is read instead.
+	 * @param writeChecksums true to write checksums
+	 */
+	public void setWriteChecksums(boolean writeChecksums)
+	{
+		yamlStore.setWriteChecksums(writeChecksums);
+	}
+	
+	/**
+	 * Sets whether player yml files are written with only the values 
+	 * that differ from the default_player.yml. Missing values are 
+	 * always read from the default_player.yml, so player files of 
+	 * either kind can be read.
+	 * @param sparse true to write sparse player files
+	 */
+	public void setSparsePlayerFiles(boolean sparse)
+	{
+		yamlStore.setSparse(sparse);
+	}
+	
+	/**
+	 * @return the PlayerStore that player data is loaded from and 
+	 * saved to
+	 */
+	PlayerStore getPlayerStore()
+	{
+		return playerStore;
+	}
+	
+	/**
+	 * @return the name of the player with the given UUID if the player 
+	 * is online, or null. This must be called on the main thread.
+	 */
+	private String getPlayerName(UUID playerID)
+	{
+		String playerName = null;
 		
-		boolean scaleXP = playerConfig.getBoolean(mobName + ".scaleAttributes.xp", MobInfo.DEFAULT_SCALE);
-		mobInfo.setScaleXP(scaleXP);
+		if(this.isRunningWithHead())
+		{
+			Player player = plugin.getServer().getPlayer(playerID);
+			if(player != null)
+			{
+				playerName = player.getName();
+			}
+		}
 		
-		boolean scaleLoot = playerConfig.getBoolean(mobName + ".scaleAttributes.loot", MobInfo.DEFAULT_SCALE);
-		mobInfo.setScaleLoot(scaleLoot);
+		return playerName;
 	}
 	
 	/**
@@ -256,92 +1000,288 @@ public class PlayerFileHandler extends FileHandler implements Listener
 		// Save key variables from PlayerInfo to the player.yml file.
 		this.savePlayerData(playerID);
 
-		// Remove the PlayerInfo from the plugin.
-		playerDataManager.removePlayerInfo(playerID);
+		// Remove the PlayerInfo from the plugin, along with any load 
+		// that has not finished yet.
+		this.discardPlayerData(playerID);
 	}
 	
 	/**
-	 * Saves the info from the plugin's PlayerData to the player yml
-	 * file. It does not delete it from the plugin's PlayerData.
+	 * Saves the info from the plugin's PlayerData to the PlayerStore. 
+	 * It does not delete it from the plugin's PlayerData. If the 
+	 * player's data has not been loaded yet, nothing is saved so that 
+	 * the player's stored data is not overwritten with defaults. If 
+	 * nothing has changed since the last save, nothing is saved 
+	 * either. The data is copied right away but written to disk on 
+	 * the save thread, and it is only marked as saved once it has 
+	 * been written. If the write fails, the save thread tries again 
+	 * later. When running headless, it is written right away instead.
 	 * @param playerID the UUID of the player whose player data you 
 	 * want to save to disk
 	 */
 	public void savePlayerData(UUID playerID)
 	{
-		// create the FileConfiguration object based on the playerFile.yml
-		FileConfiguration playerConfig = this.getPlayerConfig(playerID);
-		
-		// get the PlayerInfo
-		PlayerInfo playerInfo = playerDataManager.getPlayerInfo(playerID);
-		
-		// loop through each MobType
-		MobType [] mobTypes = MobType.values();
-		for(MobType mobType: mobTypes)
+		PlayerInfo snapshot = this.takeSaveSnapshot(playerID);
+		if(snapshot == null)
 		{
-			MobInfo mobInfo = playerInfo.getMobInfo(mobType);
-			this.saveMobInfoToConfig(mobInfo, playerConfig);
+			return;
 		}
 		
-		File playerFile;
 		if(this.isRunningWithHead())
 		{
-			playerFile = new File(plugin.getDataFolder(), PLAYERS_FOLDER + File.separator + playerID + ".yml");
+			saveQueue.enqueue(snapshot);
 		}
-		else
+		else if(this.writePlayerData(snapshot))
 		{
-			playerFile = new File(PLAYERS_FOLDER + File.separator + playerID + ".yml");
+			this.markSaved(Collections.singletonList(snapshot));
 		}
-			
-		try 
+	}
+	
+	/**
+	 * Saves the info of every given player the same way as 
+	 * savePlayerData(UUID), but writes all of them with one call to 
+	 * PlayerStore.saveBatch(). With an SQLite PlayerStore, that is a 
+	 * single transaction instead of one for every player.
+	 * @param playerIDs the UUIDs of the players whose player data you 
+	 * want to save to disk
+	 */
+	public void savePlayerData(Collection<UUID> playerIDs)
+	{
+		List<PlayerInfo> snapshots = new ArrayList<PlayerInfo>(playerIDs.size());
+		
+		for(UUID playerID: playerIDs)
 		{
-			playerConfig.save(playerFile);
+			PlayerInfo snapshot = this.takeSaveSnapshot(playerID);
+			if(snapshot != null)
+			{
+				snapshots.add(snapshot);
+			}
 		}
-		catch (IOException e)
+		
+		if(snapshots.isEmpty())
 		{
-			plugin.getLogger().info("Could not save player data to " + PLAYERS_FOLDER + playerFile);
-			e.printStackTrace();
+			// nothing to save
+		}
+		else if(this.isRunningWithHead())
+		{
+			saveQueue.enqueueBatch(snapshots);
+		}
+		else if(this.writePlayerData(snapshots))
+		{
+			this.markSaved(snapshots);
 		}
 	}
 	
-	private void saveMobInfoToConfig(MobInfo mobInfo, FileConfiguration playerConfig)
+	/**
+	 * Takes a snapshot of the player's data to save. The data stays 
+	 * marked as changed until markSaved() is called with the 
+	 * snapshot.
+	 * @return the snapshot, or null if the player's data has not 
+	 * been loaded or has not changed since it was last saved
+	 */
+	private PlayerInfo takeSaveSnapshot(UUID playerID)
 	{
-		String mobName = mobInfo.getMobType().getName();
-		
-		// save the setting for the MobType in the player.yml file
-		Setting setting = mobInfo.getSetting();
-		String settingName = setting.getName();
-		playerConfig.set(mobName + ".setting", settingName);
+		PlayerInfo snapshot = null;
 		
-		// save the manualPerformanceLevel for the MobType in the player.yml file
-		int manualPerformanceLevel = (int) (mobInfo.getManualPerformanceLevel());
-		playerConfig.set(mobName + ".manualPerformanceLevel", manualPerformanceLevel);
-
-		// save the autoPerformanceLevel for the MobType in the player.yml file
-		int autoPerformanceLevel = (int) (mobInfo.getAutoPerformanceLevel()+.5);
-		playerConfig.set(mobName + ".autoPerformanceLevel", autoPerformanceLevel);
+		// get the PlayerInfo
+		PlayerInfo playerInfo = playerDataManager.getLoadedPlayerInfo(playerID);
+		if(playerInfo != null && playerInfo.isDirty())
+		{
+			snapshot = playerInfo.snapshot();
+			savingPlayers.put(snapshot, playerInfo);
+		}
 		
-		int maxIncrement = mobInfo.getMaxIncrement();
-		playerConfig.set(mobName + ".maxIncrement", maxIncrement);
+		return snapshot;
+	}
+	
+	/**
+	 * Marks the data that each of the given snapshots was taken from 
+	 * as saved, up to the version of the snapshot. Changes made after 
+	 * the snapshot was taken still need to be saved. This must be 
+	 * called on the main thread.
+	 * @param snapshots snapshots that are on disk
+	 */
+	private void markSaved(Collection<PlayerInfo> snapshots)
+	{
+		for(PlayerInfo snapshot: snapshots)
+		{
+			PlayerInfo playerInfo = savingPlayers.remove(snapshot);
+			
+			if(playerInfo != null)
+			{
+				playerInfo.markSaved(snapshot.getVersion());
+			}
+		}
+	}
+	
+	/**
+	 * Called on the save thread once the given snapshots are on disk. 
+	 * The data they were taken from is marked as saved on the main 
+	 * thread.
+	 * @param snapshots snapshots that were written by 
+	 * writePlayerData()
+	 */
+	void playerDataWritten(final Collection<PlayerInfo> snapshots)
+	{
+		if(plugin != null && plugin.isEnabled())
+		{
+			plugin.getServer().getScheduler().runTask(plugin, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					markSaved(snapshots);
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Copies every player yml file whose player is not in the 
+	 * PlayerStore yet into the PlayerStore. This happens on the save 
+	 * thread, so that no save can be overwritten by an import, and 
+	 * this method returns right away. When running headless, it 
+	 * happens right away instead. Nothing is done if the PlayerStore 
+	 * keeps its data in the yml files.
+	 */
+	public void importPlayerFiles()
+	{
+		if(keptInPlayerFiles)
+		{
+			return;
+		}
 		
-		boolean scaleAttack = mobInfo.shouldScaleAttack();
-		playerConfig.set(mobName + ".scaleAttributes.attack", scaleAttack);
+		Runnable importTask = new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					int imported = new PlayerFileImporter(yamlStore, playerStore).importPlayerFiles();
+					
+					if(plugin != null && imported > 0)
+					{
+						plugin.getLogger().info("Imported " + imported + " player files");
+					}
+				}
+				catch(IOException e)
+				{
+					if(plugin != null)
+					{
+						plugin.getLogger().info("Could not import the player files");
+					}
+					e.printStackTrace();
+				}
+			}
+		};
 		
-		boolean scaleDefense = mobInfo.shouldScaleDefense();
-		playerConfig.set(mobName + ".scaleAttributes.defense", scaleDefense);
+		if(this.isRunningWithHead())
+		{
+			saveQueue.submit(importTask);
+		}
+		else
+		{
+			importTask.run();
+		}
+	}
+	
+	/**
+	 * Waits until every save that has been started has been written 
+	 * to disk, or has failed and is waiting to be tried again.
+	 */
+	public void flushSaves()
+	{
+		saveQueue.flush();
+	}
+	
+	/**
+	 * Writes every save that has been started to disk and stops the 
+	 * save thread. This should be called when the plugin is disabled, 
+	 * after the last players have been saved. If the save thread is 
+	 * still writing when the time runs out, the PlayerStore is left 
+	 * open underneath it.
+	 */
+	public void shutdown()
+	{
+		if(!saveQueue.shutdown())
+		{
+			if(plugin != null)
+			{
+				plugin.getLogger().info("The save thread is still writing, so the player data store was not closed");
+			}
+			return;
+		}
 		
-		boolean scaleSpeed = mobInfo.shouldScaleSpeed();
-		playerConfig.set(mobName + ".scaleAttributes.speed", scaleSpeed);
+		try
+		{
+			playerStore.close();
+		}
+		catch(IOException e)
+		{
+			if(plugin != null)
+			{
+				plugin.getLogger().info("Could not close the player data store");
+			}
+			e.printStackTrace();
+		}
+	}
+	
+	/**
+	 * Writes the given snapshots to the PlayerStore as one batch. 
+	 * This is called on the save thread, so it must not use the 
+	 * server.
+	 * @param snapshots snapshots made with PlayerInfo.snapshot()
+	 * @return true if the snapshots were written
+	 */
+	boolean writePlayerData(Collection<PlayerInfo> snapshots)
+	{
+		boolean written = false;
 		
-		boolean scaleKnockBackResistance = mobInfo.shouldScaleKnockbackResistance();
-		playerConfig.set(mobName + ".scaleAttributes.knockback", scaleKnockBackResistance);
+		try
+		{
+			playerStore.saveBatch(snapshots);
+			written = true;
+			
+			this.indexNames(nameIndex, snapshots);
+		}
+		catch(IOException e)
+		{
+			if(plugin != null)
+			{
+				plugin.getLogger().info("Could not save player data for " + snapshots.size() + " players");
+			}
+			e.printStackTrace();
+		}
 		
-		boolean scaleMaxFollowDistance = mobInfo.shouldScaleMaxFollowDistance();
-		playerConfig.set(mobName + ".scaleAttributes.followDistance", scaleMaxFollowDistance);
+		return written;
+	}
+	
+	/**
+	 * Writes the given snapshot to the PlayerStore. This is called on 
+	 * the save thread, so it must not use the server.
+	 * @param snapshot a snapshot made with PlayerInfo.snapshot()
+	 * @return true if the snapshot was written
+	 */
+	boolean writePlayerData(PlayerInfo snapshot)
+	{
+		boolean written = false;
 		
-		boolean scaleXP = mobInfo.shouldScaleXP();
-		playerConfig.set(mobName + ".scaleAttributes.xp", scaleXP);
+		try
+		{
+			playerStore.save(snapshot);
+			written = true;
+			
+			this.indexNames(nameIndex, Collections.singletonList(snapshot));
+		}
+		catch(IOException e)
+		{
+			if(plugin != null)
+			{
+				plugin.getLogger().info("Could not save player data for " + snapshot.getPlayerID());
+			}
+			e.printStackTrace();
+		}
 		
-		boolean scaleLoot = mobInfo.shouldScaleLoot();
-		playerConfig.set(mobName + ".scaleAttributes.loot", scaleLoot);
+		return written;
 	}
-}
+}
\ No newline at end of file
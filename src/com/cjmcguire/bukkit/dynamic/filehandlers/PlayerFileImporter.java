@@ -0,0 +1,80 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * Copies the player yml files into another PlayerStore, so that a
+ * server that switches away from yml files has every player it has
+ * ever seen in the new PlayerStore, not just the players who have
+ * logged in since. Players who are already in the other PlayerStore
+ * are left alone, so importing more than once is safe and never
+ * overwrites newer data. Players are written in batches, so that a
+ * PlayerStore that writes a batch in one transaction does not start
+ * one for every player.
+ * @author CJ McGuire
+ */
+class PlayerFileImporter
+{
+	private final static int BATCH_SIZE = 500;
+	
+	private final YamlPlayerStore yamlStore;
+	private final PlayerStore playerStore;
+	
+	/**
+	 * Initializes the PlayerFileImporter.
+	 * @param yamlStore the player yml files to import
+	 * @param playerStore the PlayerStore to import them into
+	 */
+	PlayerFileImporter(YamlPlayerStore yamlStore, PlayerStore playerStore)
+	{
+		this.yamlStore = yamlStore;
+		this.playerStore = playerStore;
+	}
+	
+	/**
+	 * Imports every player yml file whose player is not in the
+	 * PlayerStore yet.
+	 * @return the number of players that were imported
+	 * @throws IOException if the PlayerStore fails. Every batch that
+	 * was written before the failure stays imported.
+	 */
+	int importPlayerFiles() throws IOException
+	{
+		int imported = 0;
+		
+		List<PlayerInfo> batch = new ArrayList<PlayerInfo>(BATCH_SIZE);
+		for(UUID playerID: yamlStore.getStoredPlayerIDs())
+		{
+			if(!playerStore.exists(playerID))
+			{
+				PlayerInfo playerInfo = yamlStore.load(playerID);
+				
+				// the file may have been deleted since it was listed
+				if(playerInfo != null)
+				{
+					batch.add(playerInfo);
+				}
+			}
+			
+			if(batch.size() == BATCH_SIZE)
+			{
+				playerStore.saveBatch(batch);
+				imported += batch.size();
+				batch.clear();
+			}
+		}
+		
+		if(!batch.isEmpty())
+		{
+			playerStore.saveBatch(batch);
+			imported += batch.size();
+		}
+		
+		return imported;
+	}
+}
@@ -0,0 +1,259 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * Finds the UUID of a player who has stored data from the player's 
+ * last known name, without the player being online and without 
+ * reading any player's data. Names are matched without regard to 
+ * case, the same way the server matches them.
+ *
+ * The index is kept in memory and in an index file, which holds one 
+ * "<player UUID> <name>" line for every time a player was added or 
+ * changed names. Changes are appended to the end of the file, and 
+ * the last line for a player is the one that counts. Once most of 
+ * the lines are out of date, the file is written again with only 
+ * the current names. An index with no file is only kept in memory.
+ * @author CJ McGuire
+ */
+class PlayerNameIndex
+{
+	private final static Charset CHARSET = Charset.forName("UTF-8");
+	private final static String TEMP_EXTENSION = ".tmp";
+	
+	// The file is written again once it has this many more lines 
+	// than there are players in it.
+	private final static int COMPACT_SLACK = 1000;
+	
+	private final File indexFile;
+	
+	private final Map<String, UUID> playerIDs;
+	private final Map<UUID, String> playerNames;
+	
+	private int lines;
+	
+	/**
+	 * Initializes an empty PlayerNameIndex.
+	 * @param indexFile the file the index is kept in, or null to only 
+	 * keep the index in memory
+	 */
+	PlayerNameIndex(File indexFile)
+	{
+		this.indexFile = indexFile;
+		this.playerIDs = new HashMap<String, UUID>();
+		this.playerNames = new HashMap<UUID, String>();
+		this.lines = 0;
+	}
+	
+	/**
+	 * @return true if the index is kept in a file and the file exists
+	 */
+	boolean fileExists()
+	{
+		return indexFile != null && indexFile.exists();
+	}
+	
+	/**
+	 * @param playerName the name of a player
+	 * @return the UUID of the player whose last known name is the 
+	 * given name, or null if no such player is in the index
+	 */
+	synchronized UUID getPlayerID(String playerName)
+	{
+		return playerIDs.get(playerName.toLowerCase(Locale.ENGLISH));
+	}
+	
+	/**
+	 * @return the number of players in the index
+	 */
+	synchronized int size()
+	{
+		return playerNames.size();
+	}
+	
+	/**
+	 * Adds the last known name of every given player who has one to 
+	 * the index. Only the players who are new or whose name changed 
+	 * are written to the index file.
+	 * @param playerInfos the players to add
+	 * @throws IOException if the index file cannot be written. The 
+	 * index in memory is up to date either way.
+	 */
+	synchronized void putAll(Collection<PlayerInfo> playerInfos) throws IOException
+	{
+		StringBuilder changes = new StringBuilder();
+		
+		for(PlayerInfo playerInfo: playerInfos)
+		{
+			UUID playerID = playerInfo.getPlayerID();
+			String playerName = playerInfo.getLastKnownName();
+			
+			if(this.isIndexable(playerName) && this.put(playerID, playerName))
+			{
+				changes.append(playerID).append(' ').append(playerName).append('\n');
+			}
+		}
+		
+		if(indexFile != null && changes.length() > 0)
+		{
+			if(lines > 2 * playerNames.size() + COMPACT_SLACK)
+			{
+				this.compact();
+			}
+			else
+			{
+				this.append(changes.toString());
+			}
+		}
+	}
+	
+	/**
+	 * @return true if the given name can be kept on one line of the 
+	 * index file
+	 */
+	private boolean isIndexable(String playerName)
+	{
+		return playerName != null && !playerName.isEmpty() && playerName.indexOf('\n') < 0 && playerName.indexOf('\r') < 0;
+	}
+	
+	/**
+	 * Puts the given name in the index for the given player. The 
+	 * player's old name no longer finds the player, unless someone 
+	 * else has taken it in the meantime.
+	 * @return true if the player is new or the name changed
+	 */
+	private boolean put(UUID playerID, String playerName)
+	{
+		String oldName = playerNames.put(playerID, playerName);
+		
+		if(playerName.equals(oldName))
+		{
+			return false;
+		}
+		
+		if(oldName != null)
+		{
+			String oldKey = oldName.toLowerCase(Locale.ENGLISH);
+			if(playerID.equals(playerIDs.get(oldKey)))
+			{
+				playerIDs.remove(oldKey);
+			}
+		}
+		
+		playerIDs.put(playerName.toLowerCase(Locale.ENGLISH), playerID);
+		
+		return true;
+	}
+	
+	/**
+	 * Reads every line of the index file into the index. A line that 
+	 * cannot be read, such as the last line after the server went 
+	 * down while it was being written, is skipped.
+	 * @throws IOException if the index file cannot be read
+	 */
+	synchronized void load() throws IOException
+	{
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), CHARSET));
+		try
+		{
+			String line;
+			while((line = reader.readLine()) != null)
+			{
+				lines++;
+				
+				int space = line.indexOf(' ');
+				if(space > 0 && space < line.length() - 1)
+				{
+					try
+					{
+						this.put(UUID.fromString(line.substring(0, space)), line.substring(space + 1));
+					}
+					catch(IllegalArgumentException e)
+					{
+						// not a line of the index
+					}
+				}
+			}
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Appends the given lines to the index file. 
+	 */
+	private void append(String changes) throws IOException
+	{
+		Writer writer = new OutputStreamWriter(new FileOutputStream(indexFile, true), CHARSET);
+		try
+		{
+			writer.write(changes);
+		}
+		finally
+		{
+			writer.close();
+		}
+		
+		for(int i = 0; i < changes.length(); i++)
+		{
+			if(changes.charAt(i) == '\n')
+			{
+				lines++;
+			}
+		}
+	}
+	
+	/**
+	 * Writes the index file again with one line for every player, 
+	 * and renames it into place so that the old file is kept until 
+	 * the new one is complete.
+	 */
+	private void compact() throws IOException
+	{
+		File tempFile = new File(indexFile.getPath() + TEMP_EXTENSION);
+		
+		Writer writer = new OutputStreamWriter(new FileOutputStream(tempFile), CHARSET);
+		try
+		{
+			for(Map.Entry<UUID, String> entry: playerNames.entrySet())
+			{
+				writer.write(entry.getKey() + " " + entry.getValue() + "\n");
+			}
+		}
+		finally
+		{
+			writer.close();
+		}
+		
+		try
+		{
+			Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(AtomicMoveNotSupportedException e)
+		{
+			Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		
+		lines = playerNames.size();
+	}
+}
@@ -0,0 +1,554 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * Writes snapshots of player data to the player yml files on a
+ * background thread so that the main server thread never waits on
+ * the disk. Snapshots are written one at a time in the order they
+ * were first queued. If a player is queued again before the player's
+ * last snapshot has been written, only the newest snapshot is
+ * written. Snapshots that are queued together as a batch are written 
+ * together with one call to PlayerStore.saveBatch(). A snapshot that 
+ * could not be written stays queued and is tried again a little 
+ * later, so that nothing is lost because the disk was briefly 
+ * unavailable.
+ * @author CJ McGuire
+ */
+class PlayerSaveQueue
+{
+	private final static String THREAD_NAME = "DynamicDifficulty Saver";
+	
+	// How long to wait for the last writes when shutting down.
+	private final static long SHUTDOWN_SECONDS = 30;
+	
+	// How long to wait before trying a failed write again.
+	private final static long RETRY_MILLIS = 10000;
+	
+	private final PlayerFileHandler playerFileHandler;
+	
+	private final long retryMillis;
+	
+	// The newest snapshot for each player that has not been written
+	// yet. A snapshot stays in here until it is on disk.
+	private final ConcurrentHashMap<UUID, PlayerInfo> pendingSaves;
+	
+	// Numbers every write that is tried, so that flush() can tell the 
+	// writes that failed after it was called from older failures.
+	private final AtomicLong writeAttempts;
+	
+	// The number of the last failed write for each player whose last 
+	// write failed.
+	private final ConcurrentHashMap<UUID, Long> failedWrites;
+	
+	// Notified each time the writer thread finishes with a player.
+	private final Object writeDone;
+	
+	private ScheduledExecutorService writer;
+	
+	/**
+	 * Initializes the PlayerSaveQueue. The writer thread is not
+	 * started until the first snapshot is queued.
+	 * @param playerFileHandler the PlayerFileHandler that writes the
+	 * snapshots to disk
+	 */
+	PlayerSaveQueue(PlayerFileHandler playerFileHandler)
+	{
+		this(playerFileHandler, RETRY_MILLIS);
+	}
+	
+	/**
+	 * Initializes the PlayerSaveQueue.
+	 * @param playerFileHandler the PlayerFileHandler that writes the
+	 * snapshots to disk
+	 * @param retryMillis how long to wait before trying a failed 
+	 * write again
+	 */
+	PlayerSaveQueue(PlayerFileHandler playerFileHandler, long retryMillis)
+	{
+		this.playerFileHandler = playerFileHandler;
+		this.retryMillis = retryMillis;
+		this.pendingSaves = new ConcurrentHashMap<UUID, PlayerInfo>();
+		this.writeAttempts = new AtomicLong();
+		this.failedWrites = new ConcurrentHashMap<UUID, Long>();
+		this.writeDone = new Object();
+		this.writer = null;
+	}
+	
+	/**
+	 * Queues the given snapshot to be written to disk.
+	 * @param snapshot a snapshot of a player's data made with
+	 * PlayerInfo.snapshot(). It must not be changed afterwards.
+	 */
+	void enqueue(PlayerInfo snapshot)
+	{
+		final UUID playerID = snapshot.getPlayerID();
+		
+		// If a snapshot was already waiting, the task that was started
+		// for it will write this one instead.
+		if(pendingSaves.put(playerID, snapshot) == null)
+		{
+			this.getWriter().execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					writePendingSave(playerID);
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Queues the given snapshots to be written to disk together.
+	 * @param snapshots snapshots of players' data made with 
+	 * PlayerInfo.snapshot(). They must not be changed afterwards.
+	 */
+	void enqueueBatch(Collection<PlayerInfo> snapshots)
+	{
+		final List<UUID> playerIDs = new ArrayList<UUID>(snapshots.size());
+		
+		for(PlayerInfo snapshot: snapshots)
+		{
+			// Players who were already waiting are written by the 
+			// task that was started for them.
+			if(pendingSaves.put(snapshot.getPlayerID(), snapshot) == null)
+			{
+				playerIDs.add(snapshot.getPlayerID());
+			}
+		}
+		
+		if(!playerIDs.isEmpty())
+		{
+			this.getWriter().execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					writePendingSaves(playerIDs);
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Runs the given task on the writer thread once every snapshot 
+	 * that was queued before it has been tried. Snapshots that are 
+	 * queued while it runs, and failed writes that are tried again, 
+	 * are written after it.
+	 * @param task the task to run
+	 */
+	void submit(Runnable task)
+	{
+		this.getWriter().execute(task);
+	}
+	
+	/**
+	 * @param playerID the UUID of a player
+	 * @return the newest snapshot of the player's data that has not
+	 * been written to disk yet, or null if there is none
+	 */
+	PlayerInfo getPendingSave(UUID playerID)
+	{
+		return pendingSaves.get(playerID);
+	}
+	
+	/**
+	 * @return the number of players whose data is waiting to be
+	 * written
+	 */
+	int size()
+	{
+		return pendingSaves.size();
+	}
+	
+	/**
+	 * Waits until every player who was queued before this method was 
+	 * called has been written to disk, or until a write of that player 
+	 * tried after this method was called has failed. This does not 
+	 * wait for a store that keeps failing to start working again. 
+	 * Tasks that were submitted before this method was called have 
+	 * run by the time it returns.
+	 */
+	void flush()
+	{
+		ScheduledExecutorService currentWriter = this.getCurrentWriter();
+		
+		if(currentWriter != null)
+		{
+			long firstAttempt = writeAttempts.get() + 1;
+			List<UUID> playerIDs = new ArrayList<UUID>(pendingSaves.keySet());
+			
+			Future<?> barrier = currentWriter.submit(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					// Tasks run in order, so once this runs every task 
+					// and first try before it has run.
+				}
+			});
+			
+			try
+			{
+				barrier.get();
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch(ExecutionException e)
+			{
+				e.printStackTrace();
+			}
+			
+			// failed writes are tried again later than the barrier
+			synchronized(writeDone)
+			{
+				while(!this.isFlushed(playerIDs, firstAttempt) && this.getCurrentWriter() == currentWriter)
+				{
+					try
+					{
+						writeDone.wait();
+					}
+					catch(InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return true if each of the given players has either been 
+	 * written or has had a write fail since the write with the given 
+	 * number was tried
+	 */
+	private boolean isFlushed(List<UUID> playerIDs, long firstAttempt)
+	{
+		for(UUID playerID: playerIDs)
+		{
+			Long failedAttempt = failedWrites.get(playerID);
+			boolean failedSince = failedAttempt != null && failedAttempt >= firstAttempt;
+			
+			if(pendingSaves.containsKey(playerID) && !failedSince)
+			{
+				return false;
+			}
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Writes everything that is still queued and stops the writer
+	 * thread. Writes that failed are tried one last time, and are 
+	 * given up on if they fail again. A snapshot that is queued 
+	 * afterwards starts a new writer thread.
+	 * @return true if the writer thread stopped, false if it was 
+	 * still writing after SHUTDOWN_SECONDS
+	 */
+	boolean shutdown()
+	{
+		return this.shutdown(SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+	}
+	
+	/**
+	 * Writes everything that is still queued and stops the writer 
+	 * thread, waiting at most the given time for it. The failed 
+	 * writes are only tried again on this thread once the writer 
+	 * thread has stopped, so that the two never write the same player 
+	 * at once. If it has not stopped in time, they are left on the 
+	 * queue.
+	 * @param timeout how long to wait for the writer thread
+	 * @param unit the unit of the timeout
+	 * @return true if the writer thread stopped, false if it was 
+	 * still writing when the time ran out
+	 */
+	boolean shutdown(long timeout, TimeUnit unit)
+	{
+		ScheduledExecutorService oldWriter;
+		synchronized(this)
+		{
+			oldWriter = writer;
+			writer = null;
+		}
+		this.notifyWriteDone();
+		
+		if(oldWriter != null)
+		{
+			oldWriter.shutdown();
+			
+			boolean terminated;
+			try
+			{
+				terminated = oldWriter.awaitTermination(timeout, unit);
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+				terminated = oldWriter.isTerminated();
+			}
+			
+			if(!terminated)
+			{
+				return false;
+			}
+		}
+		
+		// the failed writes that were still waiting to be tried again
+		for(PlayerInfo snapshot: new ArrayList<PlayerInfo>(pendingSaves.values()))
+		{
+			this.write(snapshot);
+			pendingSaves.remove(snapshot.getPlayerID(), snapshot);
+		}
+		this.notifyWriteDone();
+		
+		return true;
+	}
+	
+	/**
+	 * Writes the newest snapshot for the given player. If a newer
+	 * snapshot is queued while the write is happening, that one is
+	 * written too before the player is taken off the queue. If a 
+	 * write fails, the player stays on the queue and is tried again 
+	 * later.
+	 */
+	private void writePendingSave(final UUID playerID)
+	{
+		PlayerInfo snapshot = pendingSaves.get(playerID);
+		
+		while(snapshot != null)
+		{
+			if(!this.write(snapshot))
+			{
+				this.retry(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						writePendingSave(playerID);
+					}
+				});
+				snapshot = null;
+			}
+			else if(pendingSaves.remove(playerID, snapshot))
+			{
+				snapshot = null;
+			}
+			else
+			{
+				snapshot = pendingSaves.get(playerID);
+			}
+		}
+		
+		this.notifyWriteDone();
+	}
+	
+	/**
+	 * Writes the newest snapshots for the given players as one batch. 
+	 * Players who are queued again while the batch is being written 
+	 * are written again in another batch. If a batch fails, its 
+	 * players stay on the queue and are tried again later.
+	 */
+	private void writePendingSaves(List<UUID> playerIDs)
+	{
+		List<UUID> remaining = playerIDs;
+		
+		while(!remaining.isEmpty())
+		{
+			List<PlayerInfo> snapshots = new ArrayList<PlayerInfo>(remaining.size());
+			for(UUID playerID: remaining)
+			{
+				PlayerInfo snapshot = pendingSaves.get(playerID);
+				if(snapshot != null)
+				{
+					snapshots.add(snapshot);
+				}
+			}
+			
+			if(!snapshots.isEmpty() && !this.writeBatch(snapshots))
+			{
+				final List<UUID> failed = remaining;
+				this.retry(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						writePendingSaves(failed);
+					}
+				});
+				break;
+			}
+			
+			remaining = new ArrayList<UUID>();
+			for(PlayerInfo snapshot: snapshots)
+			{
+				if(!pendingSaves.remove(snapshot.getPlayerID(), snapshot))
+				{
+					remaining.add(snapshot.getPlayerID());
+				}
+			}
+		}
+		
+		this.notifyWriteDone();
+	}
+	
+	/**
+	 * Writes the given snapshot and lets the PlayerFileHandler know 
+	 * once it is on disk.
+	 * @return true if it was written, false if the write failed or 
+	 * threw
+	 */
+	private boolean write(PlayerInfo snapshot)
+	{
+		long attempt = writeAttempts.incrementAndGet();
+		boolean written;
+		try
+		{
+			written = playerFileHandler.writePlayerData(snapshot);
+		}
+		catch(RuntimeException e)
+		{
+			// a bug in the store must not leave the player stuck on 
+			// the queue, so it is treated as a failed write
+			e.printStackTrace();
+			written = false;
+		}
+		
+		if(written)
+		{
+			failedWrites.remove(snapshot.getPlayerID());
+			playerFileHandler.playerDataWritten(Collections.singletonList(snapshot));
+		}
+		else
+		{
+			failedWrites.put(snapshot.getPlayerID(), attempt);
+		}
+		
+		return written;
+	}
+	
+	/**
+	 * Writes the given snapshots as one batch and lets the 
+	 * PlayerFileHandler know once they are on disk.
+	 * @return true if they were written, false if the write failed or 
+	 * threw
+	 */
+	private boolean writeBatch(List<PlayerInfo> snapshots)
+	{
+		long attempt = writeAttempts.incrementAndGet();
+		boolean written;
+		try
+		{
+			written = playerFileHandler.writePlayerData(snapshots);
+		}
+		catch(RuntimeException e)
+		{
+			// a bug in the store must not leave the player stuck on 
+			// the queue, so it is treated as a failed write
+			e.printStackTrace();
+			written = false;
+		}
+		
+		for(PlayerInfo snapshot: snapshots)
+		{
+			if(written)
+			{
+				failedWrites.remove(snapshot.getPlayerID());
+			}
+			else
+			{
+				failedWrites.put(snapshot.getPlayerID(), attempt);
+			}
+		}
+		
+		if(written)
+		{
+			playerFileHandler.playerDataWritten(snapshots);
+		}
+		
+		return written;
+	}
+	
+	/**
+	 * Runs the given task on the writer thread once the retry delay 
+	 * has passed. If the writer is being shut down, shutdown() tries 
+	 * the write one last time instead.
+	 */
+	private void retry(Runnable task)
+	{
+		ScheduledExecutorService currentWriter = this.getCurrentWriter();
+		
+		if(currentWriter != null)
+		{
+			try
+			{
+				currentWriter.schedule(task, retryMillis, TimeUnit.MILLISECONDS);
+			}
+			catch(RejectedExecutionException e)
+			{
+				// shutting down
+			}
+		}
+	}
+	
+	/**
+	 * Wakes up any flush() that is waiting so that it can check the 
+	 * queue again.
+	 */
+	private void notifyWriteDone()
+	{
+		synchronized(writeDone)
+		{
+			writeDone.notifyAll();
+		}
+	}
+	
+	private synchronized ScheduledExecutorService getCurrentWriter()
+	{
+		return writer;
+	}
+	
+	private synchronized ScheduledExecutorService getWriter()
+	{
+		if(writer == null)
+		{
+			ScheduledThreadPoolExecutor newWriter = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable runnable)
+				{
+					Thread thread = new Thread(runnable, THREAD_NAME);
+					thread.setDaemon(true);
+					
+					return thread;
+				}
+			});
+			
+			// retries that are still waiting are tried by shutdown()
+			newWriter.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+			writer = newWriter;
+		}
+		
+		return writer;
+	}
+}
@@ -0,0 +1,70 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.UUID;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * A PlayerStore is a place where player data is kept between server
+ * restarts. The PlayerFileHandler decides when players are loaded
+ * and saved, and a PlayerStore decides how they are kept on disk.
+ * The PlayerStore to use is chosen per server in the config.yml with
+ * a StorageType.
+ *
+ * The PlayerFileHandler only ever calls a PlayerStore off of the
+ * main server thread, from the thread a player logs in on, a
+ * background load or the save thread, so a PlayerStore may block on
+ * the disk. It may be called from more than one of those threads at
+ * a time, so every PlayerStore must be thread safe.
+ * @author CJ McGuire
+ */
+public interface PlayerStore
+{
+	/**
+	 * Reads a player's data. The PlayerInfo that is returned must be
+	 * marked as saved, because what was just read is what is on
+	 * disk.
+	 * @param playerID the UUID of the player whose data you want
+	 * @return the player's data, or null if this PlayerStore has no
+	 * data for the player
+	 * @throws IOException if the player's data could not be read
+	 */
+	public PlayerInfo load(UUID playerID) throws IOException;
+	
+	/**
+	 * Writes a player's data, replacing whatever was kept for the
+	 * player before.
+	 * @param snapshot a snapshot of the player's data made with
+	 * PlayerInfo.snapshot()
+	 * @throws IOException if the player's data could not be written
+	 */
+	public void save(PlayerInfo snapshot) throws IOException;
+	
+	/**
+	 * Writes the data of several players at once. A PlayerStore
+	 * should write them together if it can do that faster than
+	 * writing them one at a time.
+	 * @param snapshots snapshots of the players' data made with
+	 * PlayerInfo.snapshot()
+	 * @throws IOException if any of the players' data could not be
+	 * written
+	 */
+	public void saveBatch(Collection<PlayerInfo> snapshots) throws IOException;
+	
+	/**
+	 * @param playerID the UUID of a player
+	 * @return true if this PlayerStore has data for the player
+	 * @throws IOException if this PlayerStore could not be checked
+	 */
+	public boolean exists(UUID playerID) throws IOException;
+	
+	/**
+	 * Makes sure everything that has been saved is on disk and lets
+	 * go of any files or connections. The PlayerStore cannot be used
+	 * afterwards.
+	 * @throws IOException if the PlayerStore could not be closed
+	 */
+	public void close() throws IOException;
+}
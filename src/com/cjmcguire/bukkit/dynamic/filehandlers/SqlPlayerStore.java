@@ -0,0 +1,327 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.UUID;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
+
+/**
+ * Keeps the data of every player in an SQLite database file. The
+ * SQLite driver comes with CraftBukkit, so nothing else needs to be
+ * installed, and the database is only ever opened by this plugin.
+ *
+ * The database has a players table with one row per player, and a
+ * player_mobs table with one row for each player and MobType, keyed
+ * by (uuid, mob_type). Each column of player_mobs holds one of the
+ * values that are kept in a player's yml file, so the data can be
+ * looked at and backed up with any SQLite tool. A player is read
+ * with two primary key lookups, and every save is a single
+ * transaction. saveBatch() writes all of the players it is given in
+ * one transaction.
+ *
+ * All of the methods are synchronized, so an SqlPlayerStore can be
+ * used from any thread.
+ * @author CJ McGuire
+ */
+class SqlPlayerStore implements PlayerStore
+{
+	private final static String DRIVER = "org.sqlite.JDBC";
+	private final static String URL_PREFIX = "jdbc:sqlite:";
+	
+	private final static String CREATE_PLAYERS_TABLE =
+			"CREATE TABLE IF NOT EXISTS players (" +
+			"uuid CHAR(36) NOT NULL PRIMARY KEY, " +
+			"last_known_name VARCHAR(16))";
+	
+	private final static String CREATE_PLAYER_MOBS_TABLE =
+			"CREATE TABLE IF NOT EXISTS player_mobs (" +
+			"uuid CHAR(36) NOT NULL, " +
+			"mob_type VARCHAR(16) NOT NULL, " +
+			"setting VARCHAR(8), " +
+			"manual_performance_level DOUBLE NOT NULL, " +
+			"auto_performance_level DOUBLE NOT NULL, " +
+			"max_increment INTEGER NOT NULL, " +
+			"scale_attack BOOLEAN NOT NULL, " +
+			"scale_defense BOOLEAN NOT NULL, " +
+			"scale_speed BOOLEAN NOT NULL, " +
+			"scale_knockback BOOLEAN NOT NULL, " +
+			"scale_follow_distance BOOLEAN NOT NULL, " +
+			"scale_xp BOOLEAN NOT NULL, " +
+			"scale_loot BOOLEAN NOT NULL, " +
+			"PRIMARY KEY (uuid, mob_type))";
+	
+	private final static String SELECT_PLAYER =
+			"SELECT last_known_name FROM players WHERE uuid = ?";
+	
+	private final static String SELECT_PLAYER_MOBS =
+			"SELECT mob_type, setting, manual_performance_level, auto_performance_level, max_increment, " +
+			"scale_attack, scale_defense, scale_speed, scale_knockback, scale_follow_distance, scale_xp, scale_loot " +
+			"FROM player_mobs WHERE uuid = ?";
+	
+	private final static String UPSERT_PLAYER =
+			"INSERT OR REPLACE INTO players (uuid, last_known_name) VALUES (?, ?)";
+	
+	private final static String UPSERT_PLAYER_MOB =
+			"INSERT OR REPLACE INTO player_mobs (uuid, mob_type, setting, manual_performance_level, " +
+			"auto_performance_level, max_increment, scale_attack, scale_defense, scale_speed, " +
+			"scale_knockback, scale_follow_distance, scale_xp, scale_loot) " +
+			"VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+	
+	private final File file;
+	
+	private Connection connection;
+	
+	private PreparedStatement selectPlayer;
+	private PreparedStatement selectPlayerMobs;
+	private PreparedStatement upsertPlayer;
+	private PreparedStatement upsertPlayerMob;
+	
+	/**
+	 * Opens the given database file, creating it and its tables if
+	 * they do not exist.
+	 * @param file the file to keep the player data in
+	 * @throws IOException if the SQLite driver is missing or the
+	 * database cannot be opened
+	 */
+	SqlPlayerStore(File file) throws IOException
+	{
+		this.file = file;
+		
+		try
+		{
+			Class.forName(DRIVER);
+		}
+		catch(ClassNotFoundException e)
+		{
+			throw new IOException("The SQLite driver " + DRIVER + " could not be found", e);
+		}
+		
+		if(file.getParentFile() != null)
+		{
+			file.getParentFile().mkdirs();
+		}
+		
+		try
+		{
+			connection = DriverManager.getConnection(URL_PREFIX + file.getPath());
+			
+			Statement statement = connection.createStatement();
+			statement.executeUpdate(CREATE_PLAYERS_TABLE);
+			statement.executeUpdate(CREATE_PLAYER_MOBS_TABLE);
+			statement.close();
+			
+			connection.setAutoCommit(false);
+			
+			selectPlayer = connection.prepareStatement(SELECT_PLAYER);
+			selectPlayerMobs = connection.prepareStatement(SELECT_PLAYER_MOBS);
+			upsertPlayer = connection.prepareStatement(UPSERT_PLAYER);
+			upsertPlayerMob = connection.prepareStatement(UPSERT_PLAYER_MOB);
+		}
+		catch(SQLException e)
+		{
+			this.close();
+			throw new IOException("Could not open " + file, e);
+		}
+	}
+	
+	@Override
+	public synchronized PlayerInfo load(UUID playerID) throws IOException
+	{
+		PlayerInfo playerInfo = null;
+		
+		try
+		{
+			selectPlayer.setString(1, playerID.toString());
+			ResultSet playerRow = selectPlayer.executeQuery();
+			
+			if(playerRow.next())
+			{
+				playerInfo = new PlayerInfo(playerID);
+				playerInfo.setLastKnownName(playerRow.getString("last_known_name"));
+			}
+			playerRow.close();
+			
+			if(playerInfo != null)
+			{
+				selectPlayerMobs.setString(1, playerID.toString());
+				ResultSet mobRows = selectPlayerMobs.executeQuery();
+				
+				while(mobRows.next())
+				{
+					// Rows for MobTypes that no longer exist are
+					// skipped, and MobTypes that have no row yet keep
+					// their default values.
+					MobType mobType = MobType.getMobType(mobRows.getString("mob_type"));
+					if(mobType != null)
+					{
+						this.readMobInfo(playerInfo.getMobInfo(mobType), mobRows);
+					}
+				}
+				mobRows.close();
+				
+				// what was just read is what is on disk
+				playerInfo.markSaved(playerInfo.getVersion());
+			}
+			
+			// Reads start a transaction too, so end it.
+			connection.commit();
+		}
+		catch(SQLException e)
+		{
+			throw new IOException("Could not load player data for " + playerID + " from " + file, e);
+		}
+		
+		return playerInfo;
+	}
+	
+	@Override
+	public void save(PlayerInfo snapshot) throws IOException
+	{
+		this.saveBatch(Collections.singletonList(snapshot));
+	}
+	
+	@Override
+	public synchronized void saveBatch(Collection<PlayerInfo> snapshots) throws IOException
+	{
+		try
+		{
+			for(PlayerInfo snapshot: snapshots)
+			{
+				String playerID = snapshot.getPlayerID().toString();
+				
+				upsertPlayer.setString(1, playerID);
+				upsertPlayer.setString(2, snapshot.getLastKnownName());
+				upsertPlayer.addBatch();
+				
+				for(MobType mobType: MobType.values())
+				{
+					this.addMobInfo(playerID, snapshot.getMobInfo(mobType));
+				}
+			}
+			
+			upsertPlayer.executeBatch();
+			upsertPlayerMob.executeBatch();
+			connection.commit();
+		}
+		catch(SQLException e)
+		{
+			this.rollback();
+			throw new IOException("Could not save player data to " + file, e);
+		}
+	}
+	
+	@Override
+	public synchronized boolean exists(UUID playerID) throws IOException
+	{
+		boolean exists;
+		
+		try
+		{
+			selectPlayer.setString(1, playerID.toString());
+			ResultSet playerRow = selectPlayer.executeQuery();
+			exists = playerRow.next();
+			playerRow.close();
+			
+			connection.commit();
+		}
+		catch(SQLException e)
+		{
+			throw new IOException("Could not look for " + playerID + " in " + file, e);
+		}
+		
+		return exists;
+	}
+	
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if(connection != null)
+		{
+			try
+			{
+				// Closing the connection closes the statements too.
+				connection.close();
+			}
+			catch(SQLException e)
+			{
+				throw new IOException("Could not close " + file, e);
+			}
+			finally
+			{
+				connection = null;
+			}
+		}
+	}
+	
+	private void readMobInfo(MobInfo mobInfo, ResultSet mobRow) throws SQLException
+	{
+		mobInfo.setSetting(Setting.getSetting(mobRow.getString("setting")));
+		mobInfo.setManualPerformanceLevel(mobRow.getDouble("manual_performance_level"));
+		
+		mobInfo.setAutoPerformanceLevel(mobRow.getDouble("auto_performance_level"));
+		
+		mobInfo.setMaxIncrement(mobRow.getInt("max_increment"));
+		
+		mobInfo.setScaleAttack(mobRow.getBoolean("scale_attack"));
+		mobInfo.setScaleDefense(mobRow.getBoolean("scale_defense"));
+		mobInfo.setScaleSpeed(mobRow.getBoolean("scale_speed"));
+		mobInfo.setScaleKnockbackResistance(mobRow.getBoolean("scale_knockback"));
+		mobInfo.setScaleMaxFollowDistance(mobRow.getBoolean("scale_follow_distance"));
+		mobInfo.setScaleXP(mobRow.getBoolean("scale_xp"));
+		mobInfo.setScaleLoot(mobRow.getBoolean("scale_loot"));
+	}
+	
+	private void addMobInfo(String playerID, MobInfo mobInfo) throws SQLException
+	{
+		String settingName = null;
+		if(mobInfo.getSetting() != null)
+		{
+			settingName = mobInfo.getSetting().getName();
+		}
+		
+		upsertPlayerMob.setString(1, playerID);
+		upsertPlayerMob.setString(2, mobInfo.getMobType().getName());
+		upsertPlayerMob.setString(3, settingName);
+		upsertPlayerMob.setDouble(4, mobInfo.getManualPerformanceLevel());
+		upsertPlayerMob.setDouble(5, mobInfo.getAutoPerformanceLevel());
+		upsertPlayerMob.setInt(6, mobInfo.getMaxIncrement());
+		upsertPlayerMob.setBoolean(7, mobInfo.shouldScaleAttack());
+		upsertPlayerMob.setBoolean(8, mobInfo.shouldScaleDefense());
+		upsertPlayerMob.setBoolean(9, mobInfo.shouldScaleSpeed());
+		upsertPlayerMob.setBoolean(10, mobInfo.shouldScaleKnockbackResistance());
+		upsertPlayerMob.setBoolean(11, mobInfo.shouldScaleMaxFollowDistance());
+		upsertPlayerMob.setBoolean(12, mobInfo.shouldScaleXP());
+		upsertPlayerMob.setBoolean(13, mobInfo.shouldScaleLoot());
+		upsertPlayerMob.addBatch();
+	}
+	
+	/**
+	 * Undoes whatever part of a save was written, so that a player's
+	 * rows are never left half written.
+	 */
+	private void rollback()
+	{
+		try
+		{
+			upsertPlayer.clearBatch();
+			upsertPlayerMob.clearBatch();
+			connection.rollback();
+		}
+		catch(SQLException e)
+		{
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+/**
+ * The StorageType Enum is used to represent the ways that player data
+ * can be kept on disk. It is chosen per server in the config.yml.
+ * @author CJ McGuire
+ */
+public enum StorageType
+{
+	/**
+	 * Every player has a <player UUID>.yml file in the players folder.
+	 */
+	YAML("yaml"),
+	
+	/**
+	 * Every player has a fixed size record in a single memory-mapped
+	 * players.dat file.
+	 */
+	BINARY("binary"),
+	
+	/**
+	 * Every player has a row in an SQLite players.db file, plus a row 
+	 * for each MobType.
+	 */
+	SQLITE("sqlite");
+	
+	
+	private String name;
+	
+	
+	StorageType(String name)
+	{
+		this.name = name;
+	}
+	
+	/**
+	 * @return a String representation of the StorageType
+	 */
+	public String getName()
+	{
+		return name;
+	}
+	
+	/**
+	 * Gets the StorageType for the given storageName.
+	 * @param storageName the name of the StorageType you want. Not
+	 * case sensitive.
+	 * @return the StorageType with the given storageName or null if no
+	 * StorageType has the given storageName
+	 */
+	public static StorageType getStorageType(String storageName)
+	{
+		StorageType storageType = null;
+		
+		for(StorageType tempStorageType: StorageType.values())
+		{
+			if(tempStorageType.getName().equalsIgnoreCase(storageName))
+			{
+				storageType = tempStorageType;
+			}
+		}
+		
+		return storageType;
+	}
+}
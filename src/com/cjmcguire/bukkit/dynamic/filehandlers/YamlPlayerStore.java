@@ -0,0 +1,952 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
+
+/**
+ * Keeps the data of every player in a <player UUID>.yml file in the
+ * players folder. This is the way player data has always been kept,
+ * and the files can be read and changed by hand. A player file is
+ * laid out the same way as the default_player.yml, plus the player's
+ * last known name.
+ *
+ * A player file is never written in place. It is written to a
+ * <player UUID>.yml.tmp file and forced to disk, the old player file
+ * is kept as <player UUID>.yml.bak, and the new file is renamed into
+ * place, so a player file is never left half written. When a batch
+ * is saved, every file in it is written before any of them are
+ * forced, and the players folder is only forced once at the end.
+ *
+ * If checksums are turned on, a CRC32 of the file is written as a
+ * comment on its last line. A player file that cannot be read, does
+ * not parse, is empty or does not match its checksum is corrupt, and
+ * the .bak copy is read instead.
+ *
+ * If sparse player files are turned on, a player file only holds the
+ * player's name and the values that differ from the
+ * default_player.yml, and is marked with "sparse: true". Anything
+ * missing from a player file, sparse or not, is read from the
+ * default_player.yml. Most players never change their settings, so
+ * a sparse file is a few lines long instead of a few hundred. A
+ * player who is left on a default value follows the
+ * default_player.yml if it is changed later.
+ *
+ * Player files are read and written by a PlayerFileFormat, which
+ * skips building a YamlConfiguration. A file that the
+ * PlayerFileFormat does not understand, such as one that was changed
+ * by hand, is read through a YamlConfiguration instead.
+ *
+ * The first time a player is looked for, the players folder is 
+ * listed once to fill a BloomFilter with every player who has a 
+ * file, and every player who is saved after that is added to it. 
+ * Most players who are not in the filter, such as new players, are 
+ * turned away without asking the disk whether their files exist. A 
+ * player file that is copied into the players folder by hand is 
+ * only seen once the plugin is enabled again.
+ * @author CJ McGuire
+ */
+class YamlPlayerStore implements PlayerStore
+{
+	private final static String LAST_KNOWN_NAME = "lastKnownName";
+	private final static String SPARSE = "sparse";
+	private final static String YML_EXTENSION = ".yml";
+	private final static String TEMP_EXTENSION = ".tmp";
+	private final static String BACKUP_EXTENSION = ".bak";
+	private final static String CORRUPT_EXTENSION = ".corrupt";
+	
+	private final static String CHECKSUM_PREFIX = "# crc32: ";
+	
+	private final static int MIN_FILTER_CAPACITY = 1024;
+	
+	private final static Charset CHARSET = Charset.forName("UTF-8");
+	
+	private final File playersFolder;
+	
+	// The default player config. It is never changed.
+	private final FileConfiguration defaultPlayerConfig;
+	
+	// The PlayerInfo of a player whose file is empty.
+	private final PlayerInfo template;
+	
+	private volatile boolean writeChecksums;
+	private volatile boolean sparse;
+	
+	// Every player who has a file, and a few who do not. It is made 
+	// the first time it is needed.
+	private BloomFilter storedPlayers;
+	private int storedPlayerCount;
+	
+	/**
+	 * Initializes the YamlPlayerStore.
+	 * @param playersFolder the folder that holds the player files
+	 * @param defaultPlayerConfig the config read from the
+	 * default_player.yml. It is used to fill in anything that is
+	 * missing from a player file and must not be changed afterwards.
+	 */
+	YamlPlayerStore(File playersFolder, FileConfiguration defaultPlayerConfig)
+	{
+		this.playersFolder = playersFolder;
+		this.defaultPlayerConfig = defaultPlayerConfig;
+		this.template = this.readPlayerInfo(new UUID(0, 0), new YamlConfiguration());
+		this.writeChecksums = false;
+		this.sparse = false;
+	}
+	
+	/**
+	 * Sets whether a checksum is written at the end of every player 
+	 * file. Checksums that are already in player files are checked 
+	 * either way.
+	 * @param writeChecksums true to write checksums
+	 */
+	void setWriteChecksums(boolean writeChecksums)
+	{
+		this.writeChecksums = writeChecksums;
+	}
+	
+	/**
+	 * Sets whether player files are written with only the values that 
+	 * differ from the default_player.yml. Player files are read the 
+	 * same way either way, so this can be changed at any time. A 
+	 * player file only changes to the new layout when it is saved 
+	 * again.
+	 * @param sparse true to write sparse player files
+	 */
+	void setSparse(boolean sparse)
+	{
+		this.sparse = sparse;
+	}
+	
+	/**
+	 * Reads a player's data from the player's file, or from the last 
+	 * good copy of it if the player file is corrupt or missing. If 
+	 * there is no good copy either, the corrupt player file and its 
+	 * copy are renamed to <player UUID>.yml.corrupt and 
+	 * <player UUID>.yml.bak.corrupt, so that they can be looked at by 
+	 * hand, and an IOException is thrown. Neither is ever deleted. The 
+	 * next load of the player then starts over from the default 
+	 * values.
+	 * @throws IOException if the player's data is corrupt and there 
+	 * is no good copy of it
+	 */
+	@Override
+	public PlayerInfo load(UUID playerID) throws IOException
+	{
+		PlayerInfo playerInfo = null;
+		
+		if(this.exists(playerID))
+		{
+			playerInfo = this.readGoodCopy(playerID);
+			
+			if(playerInfo == null)
+			{
+				File playerFile = this.getPlayerFile(playerID);
+				moveOutOfTheWay(playerFile);
+				moveOutOfTheWay(this.getBackupFile(playerFile));
+				
+				throw new IOException(playerFile + " is corrupt and there is no good copy of it");
+			}
+		}
+		
+		return playerInfo;
+	}
+	
+	/**
+	 * Renames the given corrupt file by adding .corrupt to its name, 
+	 * and a number after that if a file by that name is already 
+	 * there, so that no earlier corrupt file is replaced.
+	 */
+	private static void moveOutOfTheWay(File corruptFile)
+	{
+		if(corruptFile.exists())
+		{
+			File movedFile = new File(corruptFile.getPath() + CORRUPT_EXTENSION);
+			for(int number = 1; movedFile.exists(); number++)
+			{
+				movedFile = new File(corruptFile.getPath() + CORRUPT_EXTENSION + "." + number);
+			}
+			
+			corruptFile.renameTo(movedFile);
+		}
+	}
+	
+	/**
+	 * Reads the player's last known name from the player's file, or 
+	 * from the last good copy of it, without changing either file.
+	 * @param playerID the UUID of the player
+	 * @return the player's last known name, or null if the player has 
+	 * no name or no good file
+	 */
+	String readLastKnownName(UUID playerID)
+	{
+		String lastKnownName = null;
+		
+		PlayerInfo playerInfo = this.readGoodCopy(playerID);
+		if(playerInfo != null)
+		{
+			lastKnownName = playerInfo.getLastKnownName();
+		}
+		
+		return lastKnownName;
+	}
+	
+	/**
+	 * Makes the PlayerInfo for a player who has no data yet from the
+	 * default player config, without reading the disk.
+	 * @param playerID the UUID of the player
+	 * @return a PlayerInfo holding the default player values
+	 */
+	PlayerInfo loadDefaults(UUID playerID)
+	{
+		FileConfiguration playerConfig = this.copyDefaultPlayerConfig();
+		playerConfig.setDefaults(defaultPlayerConfig);
+		
+		return this.readPlayerInfo(playerID, playerConfig);
+	}
+	
+	@Override
+	public void save(PlayerInfo snapshot) throws IOException
+	{
+		this.saveBatch(Collections.singletonList(snapshot));
+	}
+	
+	/**
+	 * Writes every player's temp file, forces all of them to disk, 
+	 * and then renames all of them into place. Forcing the files 
+	 * together lets the disk write them together, and the players 
+	 * folder only has to be forced once for the whole batch instead 
+	 * of once for every player.
+	 */
+	@Override
+	public void saveBatch(Collection<PlayerInfo> snapshots) throws IOException
+	{
+		List<File> tempFiles = new ArrayList<File>(snapshots.size());
+		
+		try
+		{
+			for(PlayerInfo snapshot: snapshots)
+			{
+				File tempFile = this.getTempFile(this.getPlayerFile(snapshot.getPlayerID()));
+				tempFiles.add(tempFile);
+				
+				this.writePlayerFile(this.makePlayerFile(snapshot), tempFile);
+			}
+			
+			for(File tempFile: tempFiles)
+			{
+				this.force(tempFile);
+			}
+			
+			for(PlayerInfo snapshot: snapshots)
+			{
+				this.replacePlayerFile(this.getPlayerFile(snapshot.getPlayerID()));
+				this.addStoredPlayer(snapshot.getPlayerID());
+			}
+			
+			this.forcePlayersFolder();
+		}
+		finally
+		{
+			// Only left over if the batch failed part way through.
+			for(File tempFile: tempFiles)
+			{
+				tempFile.delete();
+			}
+		}
+	}
+	
+	/**
+	 * @return true if the player has a player file or a copy of one
+	 */
+	@Override
+	public boolean exists(UUID playerID)
+	{
+		boolean exists = false;
+		
+		if(this.mightBeStored(playerID))
+		{
+			File playerFile = this.getPlayerFile(playerID);
+			
+			exists = playerFile.exists() || this.getBackupFile(playerFile).exists();
+		}
+		
+		return exists;
+	}
+	
+	/**
+	 * @return false if the player has no player file or copy of one, 
+	 * or true if the player might have one
+	 */
+	private synchronized boolean mightBeStored(UUID playerID)
+	{
+		return this.getStoredPlayers().mightContain(playerID);
+	}
+	
+	/**
+	 * Adds a player who was just saved to the BloomFilter. If the 
+	 * BloomFilter is full, it is made again from the players folder 
+	 * with room for more players the next time it is needed.
+	 */
+	private synchronized void addStoredPlayer(UUID playerID)
+	{
+		BloomFilter filter = this.getStoredPlayers();
+		
+		if(!filter.mightContain(playerID))
+		{
+			filter.add(playerID);
+			storedPlayerCount++;
+			
+			if(storedPlayerCount > filter.getCapacity())
+			{
+				storedPlayers = null;
+			}
+		}
+	}
+	
+	/**
+	 * @return the BloomFilter of every player who has a file, after 
+	 * listing the players folder to make it if it has not been made
+	 */
+	private synchronized BloomFilter getStoredPlayers()
+	{
+		if(storedPlayers == null)
+		{
+			List<UUID> playerIDs = this.listPlayerIDs(YML_EXTENSION);
+			playerIDs.addAll(this.listPlayerIDs(YML_EXTENSION + BACKUP_EXTENSION));
+			
+			storedPlayers = new BloomFilter(Math.max(MIN_FILTER_CAPACITY, 2 * playerIDs.size()));
+			for(UUID playerID: playerIDs)
+			{
+				storedPlayers.add(playerID);
+			}
+			storedPlayerCount = playerIDs.size();
+		}
+		
+		return storedPlayers;
+	}
+	
+	/**
+	 * @return the UUID of every player who has a yml file. Files in 
+	 * the players folder that are not named after a UUID are 
+	 * skipped.
+	 */
+	List<UUID> getStoredPlayerIDs()
+	{
+		return this.listPlayerIDs(YML_EXTENSION);
+	}
+	
+	/**
+	 * @return the UUID of every player who has a file in the players 
+	 * folder whose name ends with the given extension
+	 */
+	private List<UUID> listPlayerIDs(String extension)
+	{
+		List<UUID> playerIDs = new ArrayList<UUID>();
+		
+		File[] playerFiles = playersFolder.listFiles();
+		if(playerFiles != null)
+		{
+			for(File playerFile: playerFiles)
+			{
+				String fileName = playerFile.getName();
+				
+				if(fileName.endsWith(extension))
+				{
+					try
+					{
+						playerIDs.add(UUID.fromString(fileName.substring(0, fileName.length() - extension.length())));
+					}
+					catch(IllegalArgumentException e)
+					{
+						// not a player file
+					}
+				}
+			}
+		}
+		
+		return playerIDs;
+	}
+	
+	/**
+	 * Does nothing. Every player file is closed as soon as it has
+	 * been written.
+	 */
+	@Override
+	public void close()
+	{
+	
+	}
+	
+	/**
+	 * If the player's yml file exists, then this method will load it
+	 * from disk and return a FileConfiguration based on it. If the
+	 * player's yml file is corrupt or missing, the last good copy of 
+	 * it is read instead. If there is no good copy either, then this 
+	 * method will return a copy of the default player config. The 
+	 * disk is never written to.
+	 * @param playerID the UUID of the player whose yml file you want.
+	 * @return a FileConfiguration based of the player's yml file.
+	 */
+	FileConfiguration getPlayerConfig(UUID playerID)
+	{
+		FileConfiguration playerConfig = this.readGoodConfig(playerID);
+		
+		if(playerConfig == null)
+		{
+			playerConfig = this.copyDefaultPlayerConfig();
+		}
+		
+		// We set the defaults to the defaultPlayerConfig so that if
+		// the playerConfig contains garbage data, we can still load
+		// the MobInfo.
+		playerConfig.setDefaults(defaultPlayerConfig);
+		
+		return playerConfig;
+	}
+	
+	/**
+	 * Reads the player's file, or the last good copy of it if the 
+	 * player file is corrupt or missing.
+	 * @return the PlayerInfo that was read, or null if neither file 
+	 * exists or both are corrupt
+	 */
+	private PlayerInfo readGoodCopy(UUID playerID)
+	{
+		PlayerInfo playerInfo = null;
+		
+		File playerFile = this.getPlayerFile(playerID);
+		if(playerFile.exists())
+		{
+			playerInfo = this.parsePlayerInfo(playerID, this.readPlayerFile(playerFile));
+		}
+		
+		File backupFile = this.getBackupFile(playerFile);
+		if(playerInfo == null && backupFile.exists())
+		{
+			playerInfo = this.parsePlayerInfo(playerID, this.readPlayerFile(backupFile));
+		}
+		
+		return playerInfo;
+	}
+	
+	/**
+	 * Reads the player's file, or the last good copy of it, the same 
+	 * way as readGoodCopy, into a FileConfiguration.
+	 * @return the FileConfiguration that was read, or null if neither 
+	 * file exists or both are corrupt
+	 */
+	private FileConfiguration readGoodConfig(UUID playerID)
+	{
+		FileConfiguration playerConfig = null;
+		
+		File playerFile = this.getPlayerFile(playerID);
+		if(this.mightBeStored(playerID) && playerFile.exists())
+		{
+			playerConfig = this.parsePlayerConfig(this.readPlayerFile(playerFile));
+		}
+		
+		File backupFile = this.getBackupFile(playerFile);
+		if(playerConfig == null && this.mightBeStored(playerID) && backupFile.exists())
+		{
+			playerConfig = this.parsePlayerConfig(this.readPlayerFile(backupFile));
+		}
+		
+		return playerConfig;
+	}
+	
+	/**
+	 * Reads the given player file from disk. Every read of a player
+	 * file goes through here.
+	 * @param playerFile the file to read
+	 * @return the contents of the file, or null if the file cannot be 
+	 * read, is empty or does not match its checksum
+	 */
+	protected String readPlayerFile(File playerFile)
+	{
+		String contents = null;
+		
+		try
+		{
+			contents = new String(Files.readAllBytes(playerFile.toPath()), CHARSET);
+			
+			if(!this.checksumMatches(contents) || contents.trim().isEmpty())
+			{
+				contents = null;
+			}
+		}
+		catch(IOException e)
+		{
+			contents = null;
+		}
+		
+		return contents;
+	}
+	
+	/**
+	 * Makes a PlayerInfo out of the contents of a player file. The 
+	 * PlayerFileFormat is tried first, and a YamlConfiguration is 
+	 * used if it does not understand the file.
+	 * @param contents the contents of the player file, or null if it 
+	 * could not be read
+	 * @return the PlayerInfo, or null if the file is corrupt
+	 */
+	private PlayerInfo parsePlayerInfo(UUID playerID, String contents)
+	{
+		PlayerInfo playerInfo = null;
+		
+		if(contents != null)
+		{
+			playerInfo = PlayerFileFormat.read(playerID, contents, template);
+			
+			if(playerInfo == null)
+			{
+				FileConfiguration playerConfig = this.parsePlayerConfig(contents);
+				
+				if(playerConfig != null)
+				{
+					playerConfig.setDefaults(defaultPlayerConfig);
+					playerInfo = this.readPlayerInfo(playerID, playerConfig);
+				}
+			}
+		}
+		
+		return playerInfo;
+	}
+	
+	/**
+	 * Makes a FileConfiguration out of the contents of a player file.
+	 * @param contents the contents of the player file, or null if it 
+	 * could not be read
+	 * @return the FileConfiguration, or null if the file is corrupt
+	 */
+	private FileConfiguration parsePlayerConfig(String contents)
+	{
+		FileConfiguration playerConfig = null;
+		
+		if(contents != null)
+		{
+			try
+			{
+				playerConfig = new YamlConfiguration();
+				playerConfig.loadFromString(contents);
+			}
+			catch(InvalidConfigurationException e)
+			{
+				playerConfig = null;
+			}
+		}
+		
+		return playerConfig;
+	}
+	
+	/**
+	 * Writes the given contents to the given file, followed by a 
+	 * checksum if checksums are turned on. The file is not forced to 
+	 * disk. Every write of a player file goes through here.
+	 * @param contents the contents of the player file
+	 * @param playerFile the file to write to
+	 * @throws IOException if the file could not be written
+	 */
+	protected void writePlayerFile(String contents, File playerFile) throws IOException
+	{
+		if(writeChecksums)
+		{
+			contents = contents + CHECKSUM_PREFIX + this.getChecksum(contents) + "\n";
+		}
+		
+		playersFolder.mkdirs();
+		
+		OutputStream out = new FileOutputStream(playerFile);
+		try
+		{
+			out.write(contents.getBytes(CHARSET));
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+	
+	/**
+	 * @return true if the contents of a player file end with a 
+	 * checksum that matches the rest of the contents, or do not end 
+	 * with a checksum at all
+	 */
+	private boolean checksumMatches(String contents)
+	{
+		boolean matches = true;
+		
+		int checksumStart = contents.lastIndexOf(CHECKSUM_PREFIX);
+		if(checksumStart == 0 || (checksumStart > 0 && contents.charAt(checksumStart - 1) == '\n'))
+		{
+			String checksum = contents.substring(checksumStart + CHECKSUM_PREFIX.length()).trim();
+			
+			matches = checksum.equals(this.getChecksum(contents.substring(0, checksumStart)));
+		}
+		
+		return matches;
+	}
+	
+	private String getChecksum(String contents)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(contents.getBytes(CHARSET));
+		
+		return Long.toHexString(crc.getValue());
+	}
+	
+	/**
+	 * Forces the given file to disk.
+	 */
+	private void force(File file) throws IOException
+	{
+		FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE);
+		try
+		{
+			channel.force(true);
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Forces the players folder to disk, so that the renames of the 
+	 * player files are kept. Not every system can do this, and the 
+	 * renames will still reach the disk on their own on those that 
+	 * cannot.
+	 */
+	private void forcePlayersFolder()
+	{
+		try
+		{
+			FileChannel channel = FileChannel.open(playersFolder.toPath(), StandardOpenOption.READ);
+			try
+			{
+				channel.force(true);
+			}
+			finally
+			{
+				channel.close();
+			}
+		}
+		catch(IOException e)
+		{
+			// folders cannot be forced here
+		}
+	}
+	
+	/**
+	 * Keeps the player's current file as the last good copy and 
+	 * renames the player's temp file into its place. If the server 
+	 * goes down in between, the last good copy is read instead.
+	 */
+	private void replacePlayerFile(File playerFile) throws IOException
+	{
+		if(playerFile.exists())
+		{
+			Files.move(playerFile.toPath(), this.getBackupFile(playerFile).toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		
+		Path tempPath = this.getTempFile(playerFile).toPath();
+		try
+		{
+			Files.move(tempPath, playerFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch(AtomicMoveNotSupportedException e)
+		{
+			Files.move(tempPath, playerFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
+	/**
+	 * @return the yml file for the player with the given UUID
+	 */
+	File getPlayerFile(UUID playerID)
+	{
+		return new File(playersFolder, playerID + YML_EXTENSION);
+	}
+	
+	/**
+	 * @return the last good copy of the given player file
+	 */
+	File getBackupFile(File playerFile)
+	{
+		return new File(playersFolder, playerFile.getName() + BACKUP_EXTENSION);
+	}
+	
+	private File getTempFile(File playerFile)
+	{
+		return new File(playersFolder, playerFile.getName() + TEMP_EXTENSION);
+	}
+	
+	/**
+	 * Makes the contents of a player's file.
+	 */
+	private String makePlayerFile(PlayerInfo snapshot)
+	{
+		boolean sparse = this.sparse;
+		
+		String contents = PlayerFileFormat.write(snapshot, template, sparse);
+		
+		// a name that the PlayerFileFormat cannot write
+		if(contents == null)
+		{
+			contents = this.makePlayerConfig(snapshot, sparse).saveToString();
+		}
+		
+		return contents;
+	}
+	
+	/**
+	 * Makes the FileConfiguration to write to a player's file.
+	 */
+	private FileConfiguration makePlayerConfig(PlayerInfo snapshot, boolean sparse)
+	{
+		FileConfiguration playerConfig;
+		if(sparse)
+		{
+			// The marker also keeps the file of a player with no name
+			// and only default values from being empty, which would
+			// read as corrupt.
+			playerConfig = new YamlConfiguration();
+			playerConfig.set(SPARSE, true);
+		}
+		else
+		{
+			// Every value in the file is about to be set, so start from
+			// the defaults instead of reading the file first.
+			playerConfig = this.copyDefaultPlayerConfig();
+		}
+		
+		playerConfig.set(LAST_KNOWN_NAME, snapshot.getLastKnownName());
+		
+		// loop through each MobType
+		MobType [] mobTypes = MobType.values();
+		for(MobType mobType: mobTypes)
+		{
+			MobInfo mobInfo = snapshot.getMobInfo(mobType);
+			this.saveMobInfoToConfig(mobInfo, playerConfig, sparse);
+		}
+		
+		return playerConfig;
+	}
+	
+	/**
+	 * Makes a copy of the default player config without reading the
+	 * default player file again. The default player config is never
+	 * changed, so it can be copied for as long as the plugin is
+	 * running. Every value in it is a String, number or boolean, so
+	 * copying the values makes a deep copy. The name in the default
+	 * player config is not anyone's name, so it is not copied.
+	 * @return a new FileConfiguration holding the default player
+	 * values
+	 */
+	private FileConfiguration copyDefaultPlayerConfig()
+	{
+		FileConfiguration playerConfig = new YamlConfiguration();
+		
+		for(String path: defaultPlayerConfig.getKeys(true))
+		{
+			if(!defaultPlayerConfig.isConfigurationSection(path) && !path.equals(LAST_KNOWN_NAME))
+			{
+				playerConfig.set(path, defaultPlayerConfig.get(path));
+			}
+		}
+		
+		return playerConfig;
+	}
+	
+	/**
+	 * Makes a PlayerInfo out of the given player config.
+	 */
+	private PlayerInfo readPlayerInfo(UUID playerID, FileConfiguration playerConfig)
+	{
+		// create the PlayerInfo
+		PlayerInfo playerInfo = new PlayerInfo(playerID);
+		playerInfo.setLastKnownName(playerConfig.getString(LAST_KNOWN_NAME, null));
+		
+		// loop through each MobType
+		for(MobType mobType: MobType.values())
+		{
+			// get the MobType
+			MobInfo mobInfo = playerInfo.getMobInfo(mobType);
+			this.loadMobInfoFromConfig(mobInfo, playerConfig);
+		}
+		
+		// what was just read is what is on disk
+		playerInfo.markSaved(playerInfo.getVersion());
+		
+		return playerInfo;
+	}
+	
+	private void loadMobInfoFromConfig(MobInfo mobInfo, FileConfiguration playerConfig)
+	{
+		String mobName = mobInfo.getMobType().getName();
+		
+		// Set the setting in mobInfo.
+		String settingName = this.getString(playerConfig, mobName + ".setting", MobInfo.DEFAULT_SETTING);
+		Setting setting = Setting.getSetting(settingName);
+		mobInfo.setSetting(setting);
+		
+		// Set the manualPerformanceLevel in the MobInfo.
+		int manualPerformanceLevel = this.getInt(playerConfig, mobName + ".manualPerformanceLevel", MobInfo.DEFAULT_PERFORMANCE_LEVEL);
+		mobInfo.setManualPerformanceLevel(manualPerformanceLevel);
+		
+		// Set the currentPerformanceLevel in the MobInfo.
+		int autoPerformanceLevel = this.getInt(playerConfig, mobName + ".autoPerformanceLevel", MobInfo.DEFAULT_PERFORMANCE_LEVEL);
+		mobInfo.setAutoPerformanceLevel(autoPerformanceLevel);
+		
+		int maxIncrement = this.getInt(playerConfig, mobName + ".maxIncrement", MobInfo.DEFAULT_MAX_INCREMENT);
+		mobInfo.setMaxIncrement(maxIncrement);
+		
+		boolean scaleAttack = this.getBoolean(playerConfig, mobName + ".scaleAttributes.attack", MobInfo.DEFAULT_SCALE);
+		mobInfo.setScaleAttack(scaleAttack);
+		
+		boolean scaleDefense = this.getBoolean(playerConfig, mobName + ".scaleAttributes.defense", MobInfo.DEFAULT_SCALE);
+		mobInfo.setScaleDefense(scaleDefense);
+		
+		boolean scaleSpeed = this.getBoolean(playerConfig, mobName + ".scaleAttributes.speed", MobInfo.DEFAULT_SCALE);
+		mobInfo.setScaleSpeed(scaleSpeed);
+		
+		boolean scaleKnockBackResistance = this.getBoolean(playerConfig, mobName + ".scaleAttributes.knockback", MobInfo.DEFAULT_SCALE);
+		mobInfo.setScaleKnockbackResistance(scaleKnockBackResistance);
+		
+		boolean scaleMaxFollowDistance = this.getBoolean(playerConfig, mobName + ".scaleAttributes.followDistance", MobInfo.DEFAULT_SCALE);
+		mobInfo.setScaleMaxFollowDistance(scaleMaxFollowDistance);
+		
+		boolean scaleXP = this.getBoolean(playerConfig, mobName + ".scaleAttributes.xp", MobInfo.DEFAULT_SCALE);
+		mobInfo.setScaleXP(scaleXP);
+		
+		boolean scaleLoot = this.getBoolean(playerConfig, mobName + ".scaleAttributes.loot", MobInfo.DEFAULT_SCALE);
+		mobInfo.setScaleLoot(scaleLoot);
+	}
+	
+	private void saveMobInfoToConfig(MobInfo mobInfo, FileConfiguration playerConfig, boolean sparse)
+	{
+		String mobName = mobInfo.getMobType().getName();
+		
+		// save the setting for the MobType in the player.yml file
+		Setting setting = mobInfo.getSetting();
+		String settingName = setting.getName();
+		this.setString(playerConfig, mobName + ".setting", settingName, MobInfo.DEFAULT_SETTING, sparse);
+		
+		// save the manualPerformanceLevel for the MobType in the player.yml file
+		int manualPerformanceLevel = (int) (mobInfo.getManualPerformanceLevel());
+		this.setInt(playerConfig, mobName + ".manualPerformanceLevel", manualPerformanceLevel, MobInfo.DEFAULT_PERFORMANCE_LEVEL, sparse);
+		
+		// save the autoPerformanceLevel for the MobType in the player.yml file
+		int autoPerformanceLevel = (int) (mobInfo.getAutoPerformanceLevel()+.5);
+		this.setInt(playerConfig, mobName + ".autoPerformanceLevel", autoPerformanceLevel, MobInfo.DEFAULT_PERFORMANCE_LEVEL, sparse);
+		
+		int maxIncrement = mobInfo.getMaxIncrement();
+		this.setInt(playerConfig, mobName + ".maxIncrement", maxIncrement, MobInfo.DEFAULT_MAX_INCREMENT, sparse);
+		
+		boolean scaleAttack = mobInfo.shouldScaleAttack();
+		this.setBoolean(playerConfig, mobName + ".scaleAttributes.attack", scaleAttack, MobInfo.DEFAULT_SCALE, sparse);
+		
+		boolean scaleDefense = mobInfo.shouldScaleDefense();
+		this.setBoolean(playerConfig, mobName + ".scaleAttributes.defense", scaleDefense, MobInfo.DEFAULT_SCALE, sparse);
+		
+		boolean scaleSpeed = mobInfo.shouldScaleSpeed();
+		this.setBoolean(playerConfig, mobName + ".scaleAttributes.speed", scaleSpeed, MobInfo.DEFAULT_SCALE, sparse);
+		
+		boolean scaleKnockBackResistance = mobInfo.shouldScaleKnockbackResistance();
+		this.setBoolean(playerConfig, mobName + ".scaleAttributes.knockback", scaleKnockBackResistance, MobInfo.DEFAULT_SCALE, sparse);
+		
+		boolean scaleMaxFollowDistance = mobInfo.shouldScaleMaxFollowDistance();
+		this.setBoolean(playerConfig, mobName + ".scaleAttributes.followDistance", scaleMaxFollowDistance, MobInfo.DEFAULT_SCALE, sparse);
+		
+		boolean scaleXP = mobInfo.shouldScaleXP();
+		this.setBoolean(playerConfig, mobName + ".scaleAttributes.xp", scaleXP, MobInfo.DEFAULT_SCALE, sparse);
+		
+		boolean scaleLoot = mobInfo.shouldScaleLoot();
+		this.setBoolean(playerConfig, mobName + ".scaleAttributes.loot", scaleLoot, MobInfo.DEFAULT_SCALE, sparse);
+	}
+	
+	/**
+	 * Reads a String from the given player config. If the player 
+	 * config does not have it, it is read from the default player 
+	 * config, and if that does not have it either, the given default 
+	 * value is returned.
+	 */
+	private String getString(FileConfiguration playerConfig, String path, String defaultValue)
+	{
+		return playerConfig.getString(path, defaultPlayerConfig.getString(path, defaultValue));
+	}
+	
+	/**
+	 * Reads an int the same way getString reads a String.
+	 */
+	private int getInt(FileConfiguration playerConfig, String path, int defaultValue)
+	{
+		return playerConfig.getInt(path, defaultPlayerConfig.getInt(path, defaultValue));
+	}
+	
+	/**
+	 * Reads a boolean the same way getString reads a String.
+	 */
+	private boolean getBoolean(FileConfiguration playerConfig, String path, boolean defaultValue)
+	{
+		return playerConfig.getBoolean(path, defaultPlayerConfig.getBoolean(path, defaultValue));
+	}
+	
+	/**
+	 * Sets a String in the given player config. If the player config 
+	 * is sparse and the value is the one that would be read from the 
+	 * default player config anyway, it is left out.
+	 */
+	private void setString(FileConfiguration playerConfig, String path, String value, String defaultValue, boolean sparse)
+	{
+		if(!sparse || !value.equals(defaultPlayerConfig.getString(path, defaultValue)))
+		{
+			playerConfig.set(path, value);
+		}
+	}
+	
+	/**
+	 * Sets an int the same way setString sets a String.
+	 */
+	private void setInt(FileConfiguration playerConfig, String path, int value, int defaultValue, boolean sparse)
+	{
+		if(!sparse || value != defaultPlayerConfig.getInt(path, defaultValue))
+		{
+			playerConfig.set(path, value);
+		}
+	}
+	
+	/**
+	 * Sets a boolean the same way setString sets a String.
+	 */
+	private void setBoolean(FileConfiguration playerConfig, String path, boolean value, boolean defaultValue, boolean sparse)
+	{
+		if(!sparse || value != defaultPlayerConfig.getBoolean(path, defaultValue))
+		{
+			playerConfig.set(path, value);
+		}
+	}
+}
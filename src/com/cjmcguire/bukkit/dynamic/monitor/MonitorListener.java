@@ -17,6 +17,8 @@ import org.bukkit.event.entity.PotionSplashEvent;
 import org.bukkit.projectiles.ProjectileSource;
 
 import com.cjmcguire.bukkit.dynamic.AbstractEntityDamageListener;
+import com.cjmcguire.bukkit.dynamic.analyzer.EstimatorMode;
+import com.cjmcguire.bukkit.dynamic.analyzer.EstimatorSelection;
 import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
 import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
@@ -32,13 +34,38 @@ import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
 public class MonitorListener extends AbstractEntityDamageListener
 {
 	private final PlayerDataManager playerDataManager;
+	
+	private final EstimatorSelection estimators;
 
 	/**
-	 * Initializes the MonitorListener.
+	 * Initializes the MonitorListener using EstimatorMode.WINDOW.
 	 */
 	public MonitorListener()
+	{
+		this(EstimatorMode.WINDOW);
+	}
+	
+	/**
+	 * Initializes the MonitorListener.
+	 * @param estimatorMode the way players' estimated performance 
+	 * levels are worked out. If it is EstimatorMode.EWMA, the 
+	 * estimated performance level is updated every time damage is 
+	 * recorded.
+	 */
+	public MonitorListener(EstimatorMode estimatorMode)
+	{
+		this(new EstimatorSelection(estimatorMode));
+	}
+	
+	/**
+	 * Initializes the MonitorListener.
+	 * @param estimators the Estimator of every MobType. Each one is 
+	 * told every time damage is recorded against its MobType.
+	 */
+	public MonitorListener(EstimatorSelection estimators)
 	{
 		this.playerDataManager = PlayerDataManager.getInstance();
+		this.estimators = estimators;
 	}
 	
 	/**
@@ -101,7 +128,8 @@ public class MonitorListener extends AbstractEntityDamageListener
 	 */
 	protected void updateDamagePlayerReceived(UUID playerID, Entity damager, int damage)
 	{
-		MobType mobType = MobType.getEntitysMobType(damager);
+		int entityID = damager.getEntityId();
+		MobType mobType = mobTypeCache.getMobType(entityID, damager);
 
 		if(mobType != null)
 		{
@@ -111,8 +139,11 @@ public class MonitorListener extends AbstractEntityDamageListener
 			// if the player's setting is set to AUTO (OFF and MANUAL will not update anything)
 			if(mobInfo.getSetting() == Setting.AUTO)
 			{
-				mobInfo.addIDToInteractedWithIDs(damager.getEntityId());
+				mobInfo.addIDToInteractedWithIDs(entityID);
 				mobInfo.addToDamagePlayerReceived(damage);
+				mobInfo.recordCombatEvent();
+				
+				estimators.getEstimator(mobType).recordHit(mobInfo);
 			}
 		}
 	}
@@ -129,7 +160,8 @@ public class MonitorListener extends AbstractEntityDamageListener
 	 */
 	protected void updateDamagePlayerGave(Entity damaged, UUID playerID, int damage)
 	{
-		MobType mobType = MobType.getEntitysMobType(damaged);
+		int entityID = damaged.getEntityId();
+		MobType mobType = mobTypeCache.getMobType(entityID, damaged);
 		
 		if(mobType != null)
 		{
@@ -139,8 +171,11 @@ public class MonitorListener extends AbstractEntityDamageListener
 			// if the player's setting is set to AUTO (OFF and MANUAL will not update anything)
 			if(mobInfo.getSetting() == Setting.AUTO)
 			{
-				mobInfo.addIDToInteractedWithIDs(damaged.getEntityId());
+				mobInfo.addIDToInteractedWithIDs(entityID);
 				mobInfo.addToDamagePlayerGave(damage);
+				mobInfo.recordCombatEvent();
+				
+				estimators.getEstimator(mobType).recordHit(mobInfo);
 			}
 		}
 	}
@@ -0,0 +1,220 @@
+package com.cjmcguire.bukkit.dynamic.playerdata;
+
+/**
+ * Remembers the damage a player gave to and received from the last
+ * few mobs of one MobType. Each mob gets one slot in a ring buffer;
+ * once the buffer is full the oldest mob is dropped to make room for
+ * the next one, and its damage is taken back out of the running
+ * totals. This keeps the memory used per MobInfo the same no matter
+ * how long a player stays online, and keeps the estimated
+ * performance level following how the player is doing now rather
+ * than over the whole session.
+ * 
+ * It also keeps exponentially weighted sums of the same damage, in 
+ * which every mob counts for (1 - weight) times as much as the mob 
+ * after it, so that a moving average can be read at any time without 
+ * looking at the individual mobs.
+ * @author CJ McGuire
+ */
+class EncounterWindow
+{
+	private static final int NO_ENCOUNTER = -1;
+	
+	private final int[] mobIDs;
+	private final int[] damageGave;
+	private final int[] damageReceived;
+	
+	// The ids that are currently in the window, for quick lookups.
+	private final IntHashSet mobIDSet;
+	
+	private int oldest;
+	private int count;
+	private int current;
+	
+	private int totalDamageGave;
+	private int totalDamageReceived;
+	
+	// Damage received before the first mob was added. It is given to
+	// the next mob that is added.
+	private int pendingDamageReceived;
+	
+	// The exponentially weighted sums.
+	private final double weight;
+	private double weightedDamageGave;
+	private double weightedDamageReceived;
+	private double weightedMobs;
+	
+	/**
+	 * Initializes an empty EncounterWindow.
+	 * @param size the number of mobs to remember
+	 * @param weight how much each new mob counts toward the weighted 
+	 * sums, between 0 and 1
+	 */
+	EncounterWindow(int size, double weight)
+	{
+		mobIDs = new int[size];
+		damageGave = new int[size];
+		damageReceived = new int[size];
+		mobIDSet = new IntHashSet(size);
+		
+		oldest = 0;
+		count = 0;
+		current = NO_ENCOUNTER;
+		
+		totalDamageGave = 0;
+		totalDamageReceived = 0;
+		pendingDamageReceived = 0;
+		
+		this.weight = weight;
+		weightedDamageGave = 0;
+		weightedDamageReceived = 0;
+		weightedMobs = 0;
+	}
+	
+	/**
+	 * @return the number of mobs currently in the window
+	 */
+	int size()
+	{
+		return count;
+	}
+	
+	/**
+	 * @return the damage given to every mob in the window
+	 */
+	int getDamageGave()
+	{
+		return totalDamageGave;
+	}
+	
+	/**
+	 * @return the damage received from every mob in the window
+	 */
+	int getDamageReceived()
+	{
+		return totalDamageReceived;
+	}
+	
+	/**
+	 * @return the exponentially weighted sum of the damage given
+	 */
+	double getWeightedDamageGave()
+	{
+		return weightedDamageGave;
+	}
+	
+	/**
+	 * @return the exponentially weighted sum of the damage received
+	 */
+	double getWeightedDamageReceived()
+	{
+		return weightedDamageReceived;
+	}
+	
+	/**
+	 * @return the exponentially weighted number of mobs
+	 */
+	double getWeightedMobs()
+	{
+		return weightedMobs;
+	}
+	
+	/**
+	 * Makes the mob with the given id the one that the next damage
+	 * is recorded against, adding it to the window if it is not
+	 * already there. If the window is full, the oldest mob is
+	 * dropped.
+	 * @param mobID the id of the mob
+	 * @return true if the mob was added. false if it was already in
+	 * the window.
+	 */
+	boolean addMob(int mobID)
+	{
+		boolean wasAdded = false;
+		
+		if(mobIDSet.contains(mobID))
+		{
+			current = this.findSlot(mobID);
+		}
+		else
+		{
+			int slot;
+			if(count < mobIDs.length)
+			{
+				slot = (oldest + count) % mobIDs.length;
+				count++;
+			}
+			else
+			{
+				slot = oldest;
+				oldest = (oldest + 1) % mobIDs.length;
+				
+				mobIDSet.remove(mobIDs[slot]);
+				totalDamageGave -= damageGave[slot];
+				totalDamageReceived -= damageReceived[slot];
+			}
+			
+			mobIDs[slot] = mobID;
+			damageGave[slot] = 0;
+			damageReceived[slot] = pendingDamageReceived;
+			pendingDamageReceived = 0;
+			
+			mobIDSet.add(mobID);
+			current = slot;
+			wasAdded = true;
+			
+			weightedDamageGave *= 1 - weight;
+			weightedDamageReceived *= 1 - weight;
+			weightedMobs = weightedMobs * (1 - weight) + 1;
+		}
+		
+		return wasAdded;
+	}
+	
+	/**
+	 * Records damage given to the current mob.
+	 * @param amount the amount of damage
+	 * @param maxTotal the most damage that the window may hold in
+	 * total. Any damage past it is ignored.
+	 */
+	void addDamageGave(int amount, int maxTotal)
+	{
+		int added = Math.min(amount, maxTotal - totalDamageGave);
+		
+		totalDamageGave += added;
+		weightedDamageGave += added;
+		if(current != NO_ENCOUNTER)
+		{
+			damageGave[current] += added;
+		}
+	}
+	
+	/**
+	 * Records damage received from the current mob.
+	 * @param amount the amount of damage
+	 */
+	void addDamageReceived(int amount)
+	{
+		totalDamageReceived += amount;
+		weightedDamageReceived += amount;
+		if(current != NO_ENCOUNTER)
+		{
+			damageReceived[current] += amount;
+		}
+		else
+		{
+			pendingDamageReceived += amount;
+		}
+	}
+	
+	private int findSlot(int mobID)
+	{
+		int slot = oldest;
+		while(mobIDs[slot] != mobID)
+		{
+			slot = (slot + 1) % mobIDs.length;
+		}
+		
+		return slot;
+	}
+}
@@ -0,0 +1,247 @@
+package com.cjmcguire.bukkit.dynamic.playerdata;
+
+/**
+ * A set of ints that stores its values in a plain int array instead
+ * of boxing them into Integers. Values are placed with open
+ * addressing and linear probing, so adding and looking up a value
+ * takes constant time on average no matter how many values are in
+ * the set. The table doubles in size whenever it becomes more than
+ * half full.
+ * @author CJ McGuire
+ */
+public class IntHashSet
+{
+	private final static int DEFAULT_CAPACITY = 16;
+	
+	// 0 marks an empty slot in the table, so whether or not 0 is in
+	// the set is tracked on its own.
+	private final static int EMPTY = 0;
+	
+	private int[] table;
+	private int mask;
+	private int size;
+	private boolean containsZero;
+	
+	/**
+	 * Initializes an empty IntHashSet.
+	 */
+	public IntHashSet()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+	
+	/**
+	 * Initializes an empty IntHashSet that can hold the given number
+	 * of values before it needs to grow.
+	 * @param expectedSize the number of values the set is expected
+	 * to hold
+	 */
+	public IntHashSet(int expectedSize)
+	{
+		int capacity = DEFAULT_CAPACITY;
+		while(capacity < expectedSize * 2)
+		{
+			capacity <<= 1;
+		}
+		
+		this.table = new int[capacity];
+		this.mask = capacity - 1;
+		this.size = 0;
+		this.containsZero = false;
+	}
+	
+	/**
+	 * @return the number of values in this set
+	 */
+	public int size()
+	{
+		return size;
+	}
+	
+	/**
+	 * @return true if this set holds no values
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+	
+	/**
+	 * @param value the value to look for
+	 * @return true if the value is in this set
+	 */
+	public boolean contains(int value)
+	{
+		boolean found = false;
+		
+		if(value == EMPTY)
+		{
+			found = containsZero;
+		}
+		else
+		{
+			int slot = this.hash(value);
+			while(table[slot] != EMPTY && !found)
+			{
+				found = table[slot] == value;
+				slot = (slot + 1) & mask;
+			}
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Adds the given value to this set.
+	 * @param value the value to add
+	 * @return true if the value was added. false if it was already
+	 * in the set.
+	 */
+	public boolean add(int value)
+	{
+		boolean wasAdded = false;
+		
+		if(value == EMPTY)
+		{
+			if(!containsZero)
+			{
+				containsZero = true;
+				size++;
+				wasAdded = true;
+			}
+		}
+		else
+		{
+			int slot = this.hash(value);
+			while(table[slot] != EMPTY && table[slot] != value)
+			{
+				slot = (slot + 1) & mask;
+			}
+			
+			if(table[slot] == EMPTY)
+			{
+				table[slot] = value;
+				size++;
+				wasAdded = true;
+				
+				if(size * 2 > table.length)
+				{
+					this.resize(table.length * 2);
+				}
+			}
+		}
+		
+		return wasAdded;
+	}
+	
+	/**
+	 * Removes the given value from this set.
+	 * @param value the value to remove
+	 * @return true if the value was removed. false if it was not in
+	 * the set.
+	 */
+	public boolean remove(int value)
+	{
+		boolean wasRemoved = false;
+		
+		if(value == EMPTY)
+		{
+			if(containsZero)
+			{
+				containsZero = false;
+				size--;
+				wasRemoved = true;
+			}
+		}
+		else
+		{
+			int slot = this.hash(value);
+			while(table[slot] != EMPTY && table[slot] != value)
+			{
+				slot = (slot + 1) & mask;
+			}
+			
+			if(table[slot] == value)
+			{
+				this.closeGap(slot);
+				size--;
+				wasRemoved = true;
+			}
+		}
+		
+		return wasRemoved;
+	}
+	
+	/**
+	 * Removes every value from this set.
+	 */
+	public void clear()
+	{
+		for(int slot = 0; slot < table.length; slot++)
+		{
+			table[slot] = EMPTY;
+		}
+		
+		size = 0;
+		containsZero = false;
+	}
+	
+	/**
+	 * Empties the given slot and moves any values after it that
+	 * would no longer be reachable back into the gap, so that
+	 * lookups never stop early at a hole left by a removal.
+	 */
+	private void closeGap(int gap)
+	{
+		int slot = (gap + 1) & mask;
+		while(table[slot] != EMPTY)
+		{
+			int home = this.hash(table[slot]);
+			
+			// the value can fill the gap if its home slot is not
+			// cyclically between the gap and where it is now
+			if(((slot - home) & mask) >= ((slot - gap) & mask))
+			{
+				table[gap] = table[slot];
+				gap = slot;
+			}
+			
+			slot = (slot + 1) & mask;
+		}
+		
+		table[gap] = EMPTY;
+	}
+	
+	private void resize(int capacity)
+	{
+		int[] oldTable = table;
+		
+		table = new int[capacity];
+		mask = capacity - 1;
+		
+		for(int value: oldTable)
+		{
+			if(value != EMPTY)
+			{
+				int slot = this.hash(value);
+				while(table[slot] != EMPTY)
+				{
+					slot = (slot + 1) & mask;
+				}
+				table[slot] = value;
+			}
+		}
+	}
+	
+	/**
+	 * Spreads the bits of the value so that sequential entity ids do
+	 * not all land next to each other in the table.
+	 */
+	private int hash(int value)
+	{
+		int hash = value * 0x9E3779B9;
+		hash ^= hash >>> 16;
+		
+		return hash & mask;
+	}
+}
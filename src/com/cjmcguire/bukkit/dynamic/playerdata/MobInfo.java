@@ -1,11 +1,11 @@
 package com.cjmcguire.bukkit.dynamic.playerdata;
 
-import java.util.ArrayList;
-
 /**
  * Holds all of the dynamic difficulty information for a given mob 
  * such as the setting, auto performance level, manual performance 
- * level.
+ * level. A MobInfo is a view onto one row of a MobInfoTable, so 
+ * every MobInfo that a PlayerInfo hands out shares that PlayerInfo's 
+ * arrays.
  * @author CJ McGuire
  */
 public class MobInfo 
@@ -42,31 +42,39 @@ public class MobInfo
 	private final static double MAX_PLAYER_HEALTH = 20.0;
 	private final static int MINIMUM_MAX_INCREMENT = 1;
 	
-	private final static int MINIMUM_MOBS_TO_INTERACT_WITH = 3;
+	/**
+	 * The number of recent mobs of a type that a player must have 
+	 * interacted with before the player's estimated performance level 
+	 * is worked out.
+	 */
+	public final static int MINIMUM_MOBS_TO_INTERACT_WITH = 3;
 	
-	// Key variables.
-	private final MobType mobType;
+	/**
+	 * The number of most recent mobs of a type whose damage is used 
+	 * to estimate a player's performance level.
+	 */
+	public final static int ENCOUNTER_WINDOW_SIZE = 50;
+	
+	/**
+	 * How much each new mob counts toward the moving average used by 
+	 * updateAveragePerformanceLevel(). Every older mob counts for 
+	 * (1 - AVERAGE_WEIGHT) times as much as the mob after it.
+	 */
+	public final static double AVERAGE_WEIGHT = 0.1;
 	
-	// Setting control variables.
-	private Setting setting;
-	private int maxIncrement;
-	private double estimatedPerformanceLevel;
-	private double autoPerformanceLevel;
-	private double manualPerformanceLevel;
+	/**
+	 * The number of numbers every MobInfo keeps for the Estimator 
+	 * that is in use. See Estimator.
+	 */
+	public final static int ESTIMATOR_STATE_SIZE = 2;
 	
-	// Scale variables.
-	private boolean scaleAttack;
-	private boolean scaleDefense;
-	private boolean scaleSpeed;
-	private boolean scaleKnockBackResistance;
-	private boolean scaleMaxFollowDistance;
-	private boolean scaleXP;
-	private boolean scaleLoot;
+	// Key variables.
+	private final MobType mobType;
 	
-	// Variables used to calculate performance level.
-	private int damagePlayerGave;
-	private int damagePlayerReceived;
-	private ArrayList<Integer> interactedWithIDs;
+	// The table that holds this MobInfo's values and the row they 
+	// are in.
+	private final MobInfoTable table;
+	private final int row;
 	
 	/**
 	 * Initializes this MobInfo with the given MobType. By default, 
@@ -75,27 +83,22 @@ public class MobInfo
 	 * @param mobType the type of mob for this MobInfo
 	 */
 	public MobInfo(MobType mobType)
+	{
+		this(mobType, new MobInfoTable(1), 0);
+	}
+	
+	/**
+	 * Initializes this MobInfo as a view onto the given row of the 
+	 * given table.
+	 * @param mobType the type of mob for this MobInfo
+	 * @param table the table that holds this MobInfo's values
+	 * @param row the row of the table that belongs to this MobInfo
+	 */
+	MobInfo(MobType mobType, MobInfoTable table, int row)
 	{
 		this.mobType = mobType;
-		
-		this.setting = Setting.AUTO;
-		this.maxIncrement = 10;
-		
-		estimatedPerformanceLevel = 100;
-		autoPerformanceLevel = 100;
-		manualPerformanceLevel = 100;
-		
-		this.scaleAttack = true;
-		this.scaleDefense = true;
-		this.scaleSpeed = true;
-		this.scaleKnockBackResistance = true;
-		this.scaleMaxFollowDistance = true;
-		this.scaleXP = true;
-		this.scaleLoot = true;
-		
-		damagePlayerGave = 0;
-		damagePlayerReceived = 0;
-		interactedWithIDs = new ArrayList<Integer>();
+		this.table = table;
+		this.row = row;
 	}
 	
 	/**
@@ -111,7 +114,7 @@ public class MobInfo
 	 */
 	public Setting getSetting()
 	{
-		return setting;
+		return table.getSetting(row);
 	}
 
 	/**
@@ -120,7 +123,7 @@ public class MobInfo
 	 */
 	public void setSetting(Setting setting) 
 	{
-		this.setting = setting;
+		table.setSetting(row, setting);
 	}
 	
 	/**
@@ -129,7 +132,7 @@ public class MobInfo
 	 */
 	public int getMaxIncrement() 
 	{
-		return maxIncrement;
+		return table.maxIncrements[row];
 	}
 
 	/**
@@ -143,11 +146,11 @@ public class MobInfo
 	{
 		if(maxIncrement < MINIMUM_MAX_INCREMENT)
 		{
-			this.maxIncrement = MINIMUM_MAX_INCREMENT;
+			table.setMaxIncrement(row, MINIMUM_MAX_INCREMENT);
 		}
 		else
 		{
-			this.maxIncrement = maxIncrement;
+			table.setMaxIncrement(row, maxIncrement);
 		}
 	}
 	
@@ -157,7 +160,7 @@ public class MobInfo
 	 */
 	public boolean shouldScaleAttack() 
 	{
-		return scaleAttack;
+		return table.isScaleFlagSet(row, MobInfoTable.SCALE_ATTACK);
 	}
 
 	/**
@@ -166,7 +169,7 @@ public class MobInfo
 	 */
 	public void setScaleAttack(boolean scaleAttack) 
 	{
-		this.scaleAttack = scaleAttack;
+		table.setScaleFlag(row, MobInfoTable.SCALE_ATTACK, scaleAttack);
 	}
 
 	/**
@@ -175,7 +178,7 @@ public class MobInfo
 	 */
 	public boolean shouldScaleDefense() 
 	{
-		return scaleDefense;
+		return table.isScaleFlagSet(row, MobInfoTable.SCALE_DEFENSE);
 	}
 
 	/**
@@ -185,7 +188,7 @@ public class MobInfo
 	 */
 	public void setScaleDefense(boolean scaleDefense) 
 	{
-		this.scaleDefense = scaleDefense;
+		table.setScaleFlag(row, MobInfoTable.SCALE_DEFENSE, scaleDefense);
 	}
 
 	/**
@@ -194,7 +197,7 @@ public class MobInfo
 	 */
 	public boolean shouldScaleSpeed() 
 	{
-		return scaleSpeed;
+		return table.isScaleFlagSet(row, MobInfoTable.SCALE_SPEED);
 	}
 
 	/**
@@ -203,7 +206,7 @@ public class MobInfo
 	 */
 	public void setScaleSpeed(boolean scaleSpeed) 
 	{
-		this.scaleSpeed = scaleSpeed;
+		table.setScaleFlag(row, MobInfoTable.SCALE_SPEED, scaleSpeed);
 	}
 
 	/**
@@ -212,7 +215,7 @@ public class MobInfo
 	 */
 	public boolean shouldScaleKnockbackResistance() 
 	{
-		return scaleKnockBackResistance;
+		return table.isScaleFlagSet(row, MobInfoTable.SCALE_KNOCKBACK_RESISTANCE);
 	}
 
 	/**
@@ -223,7 +226,7 @@ public class MobInfo
 	 */
 	public void setScaleKnockbackResistance(boolean scaleKnockBackResistance) 
 	{
-		this.scaleKnockBackResistance = scaleKnockBackResistance;
+		table.setScaleFlag(row, MobInfoTable.SCALE_KNOCKBACK_RESISTANCE, scaleKnockBackResistance);
 	}
 
 	/**
@@ -232,7 +235,7 @@ public class MobInfo
 	 */
 	public boolean shouldScaleMaxFollowDistance() 
 	{
-		return scaleMaxFollowDistance;
+		return table.isScaleFlagSet(row, MobInfoTable.SCALE_MAX_FOLLOW_DISTANCE);
 	}
 
 	/**
@@ -243,7 +246,7 @@ public class MobInfo
 	 */
 	public void setScaleMaxFollowDistance(boolean scaleMaxFollowDistance) 
 	{
-		this.scaleMaxFollowDistance = scaleMaxFollowDistance;
+		table.setScaleFlag(row, MobInfoTable.SCALE_MAX_FOLLOW_DISTANCE, scaleMaxFollowDistance);
 	}
 	
 	/**
@@ -252,7 +255,7 @@ public class MobInfo
 	 */
 	public boolean shouldScaleXP() 
 	{
-		return scaleXP;
+		return table.isScaleFlagSet(row, MobInfoTable.SCALE_XP);
 	}
 
 	/**
@@ -261,7 +264,7 @@ public class MobInfo
 	 */
 	public void setScaleXP(boolean scaleXP) 
 	{
-		this.scaleXP = scaleXP;
+		table.setScaleFlag(row, MobInfoTable.SCALE_XP, scaleXP);
 	}
 	
 	/**
@@ -270,7 +273,7 @@ public class MobInfo
 	 */
 	public boolean shouldScaleLoot() 
 	{
-		return scaleLoot;
+		return table.isScaleFlagSet(row, MobInfoTable.SCALE_LOOT);
 	}
 
 	/**
@@ -279,7 +282,7 @@ public class MobInfo
 	 */
 	public void setScaleLoot(boolean scaleLoot) 
 	{
-		this.scaleLoot = scaleLoot;
+		table.setScaleFlag(row, MobInfoTable.SCALE_LOOT, scaleLoot);
 	}
 
 	/**
@@ -287,7 +290,7 @@ public class MobInfo
 	 */
 	public double getEstimatedPerformanceLevel() 
 	{
-		return estimatedPerformanceLevel;
+		return table.estimatedPerformanceLevels[row];
 	}
 
 	/**
@@ -297,17 +300,17 @@ public class MobInfo
 	 */
 	public void setEstimatedPerformanceLevel(double estimatedPerformanceLevel)
 	{
-		this.estimatedPerformanceLevel = estimatedPerformanceLevel;
-		
-		if(this.estimatedPerformanceLevel < MIN_PERFORMANCE_LEVEL)
+		if(estimatedPerformanceLevel < MIN_PERFORMANCE_LEVEL)
 		{
-			this.estimatedPerformanceLevel = MIN_PERFORMANCE_LEVEL;
+			estimatedPerformanceLevel = MIN_PERFORMANCE_LEVEL;
 		}
 		
-		if(this.estimatedPerformanceLevel > MAX_PERFORMANCE_LEVEL)
+		if(estimatedPerformanceLevel > MAX_PERFORMANCE_LEVEL)
 		{
-			this.estimatedPerformanceLevel = MAX_PERFORMANCE_LEVEL;
+			estimatedPerformanceLevel = MAX_PERFORMANCE_LEVEL;
 		}
+		
+		table.estimatedPerformanceLevels[row] = estimatedPerformanceLevel;
 	}
 	
 	/**
@@ -315,13 +318,14 @@ public class MobInfo
 	 * following algorithm:
 	 * Let ESL = the players estimated performance level for a given 
 	 * mob type.
-	 * Let G = the total damage given to all mobs of a given mob type. 
+	 * Let G = the total damage given to the most recent mobs of a 
+	 * given mob type. 
 	 * Let MH = the max hp for the mob. 
-	 * Let R = the total damage received from all mobs of a given mob 
-	 * type. 
+	 * Let R = the total damage received from the most recent mobs of 
+	 * a given mob type. 
 	 * Let PH = the player's max hp. 
-	 * Let N = number of mobs of a given type that a player has 
-	 * interacted with. 
+	 * Let N = number of recent mobs of a given type that a player has 
+	 * interacted with (at most ENCOUNTER_WINDOW_SIZE). 
 	 * ESL = 100 + ((G/MH  R/PH) / N) * 100
 	 * Note that ESL must be between MIN_PERFORMANCE_LEVEL and 
 	 * MAX_PERFORMANCE_LEVEL.
@@ -330,14 +334,10 @@ public class MobInfo
 	 */
 	public double updateEstimatedPerformanceLevel()
 	{
-		if(interactedWithIDs.size() >= MINIMUM_MOBS_TO_INTERACT_WITH)
+		if(this.getNumberInteractedWith() >= MINIMUM_MOBS_TO_INTERACT_WITH)
 		{			
-			double interactedWith = interactedWithIDs.size();
-			double damageGiven = this.getDamagePlayerGave();
-			double damageReceived = this.getDamagePlayerReceived();
-			double maxMobHealth = mobType.getMaxHealth();
-			
-			double performalLevel = 100.0 + ((damageGiven/maxMobHealth - damageReceived/MAX_PLAYER_HEALTH) / interactedWith) * 100;
+			double performalLevel = estimatePerformanceLevel(mobType, this.getNumberInteractedWith(), 
+					this.getDamagePlayerGave(), this.getDamagePlayerReceived());
 			
 			this.setEstimatedPerformanceLevel(performalLevel);
 			
@@ -346,13 +346,64 @@ public class MobInfo
 		
 		return 100;
 	}
+	
+	/**
+	 * Works out a performance level with the algorithm described in 
+	 * updateEstimatedPerformanceLevel() without looking at or 
+	 * changing any MobInfo, so it can be called from any thread.
+	 * @param mobType the type of mob
+	 * @param interactedWith N, the number of recent mobs
+	 * @param damageGiven G, the damage given to the recent mobs
+	 * @param damageReceived R, the damage received from the recent 
+	 * mobs
+	 * @return the performance level. It has not been kept between 
+	 * MIN_PERFORMANCE_LEVEL and MAX_PERFORMANCE_LEVEL yet.
+	 */
+	public static double estimatePerformanceLevel(MobType mobType, double interactedWith, double damageGiven, double damageReceived)
+	{
+		double maxMobHealth = mobType.getMaxHealth();
+		
+		return 100.0 + ((damageGiven/maxMobHealth - damageReceived/MAX_PLAYER_HEALTH) / interactedWith) * 100;
+	}
 
+	/**
+	 * Updates the estimated performance level for this Mob using the 
+	 * same algorithm as updateEstimatedPerformanceLevel(), except that 
+	 * G, R and N are exponentially weighted over every mob of this 
+	 * type that the player has fought, where each mob counts for 
+	 * (1 - AVERAGE_WEIGHT) times as much as the mob after it. This 
+	 * takes the same small amount of time no matter how many mobs 
+	 * there have been, so it can be called every time damage is 
+	 * recorded.
+	 * Note that ESL will not be updated if N < 3.
+	 * @return the estimated performance level
+	 */
+	public double updateAveragePerformanceLevel()
+	{
+		if(this.getNumberInteractedWith() >= MINIMUM_MOBS_TO_INTERACT_WITH)
+		{
+			EncounterWindow encounters = table.getEncounters(row);
+			
+			double interactedWith = encounters.getWeightedMobs();
+			double damageGiven = encounters.getWeightedDamageGave();
+			double damageReceived = encounters.getWeightedDamageReceived();
+			
+			double performanceLevel = estimatePerformanceLevel(mobType, interactedWith, damageGiven, damageReceived);
+			
+			this.setEstimatedPerformanceLevel(performanceLevel);
+			
+			return performanceLevel;
+		}
+		
+		return 100;
+	}
+	
 	/**
 	 * @return the auto performance level for this Mob
 	 */
 	public double getAutoPerformanceLevel() 
 	{
-		return autoPerformanceLevel;
+		return table.autoPerformanceLevels[row];
 	}
 	
 	/**
@@ -361,17 +412,17 @@ public class MobInfo
 	 */
 	public void setAutoPerformanceLevel(double autoPerformanceLevel)
 	{
-		this.autoPerformanceLevel = autoPerformanceLevel;
-		
-		if(this.autoPerformanceLevel < MIN_PERFORMANCE_LEVEL)
+		if(autoPerformanceLevel < MIN_PERFORMANCE_LEVEL)
 		{
-			this.autoPerformanceLevel = MIN_PERFORMANCE_LEVEL;
+			autoPerformanceLevel = MIN_PERFORMANCE_LEVEL;
 		}
 		
-		if(this.autoPerformanceLevel > MAX_PERFORMANCE_LEVEL)
+		if(autoPerformanceLevel > MAX_PERFORMANCE_LEVEL)
 		{
-			this.autoPerformanceLevel = MAX_PERFORMANCE_LEVEL;
+			autoPerformanceLevel = MAX_PERFORMANCE_LEVEL;
 		}
+		
+		table.setAutoPerformanceLevel(row, autoPerformanceLevel);
 	}
 	
 	/**
@@ -381,22 +432,42 @@ public class MobInfo
 	 */
 	public void updateAutoPerformanceLevel()
 	{
+		this.setAutoPerformanceLevel(stepAutoPerformanceLevel(this.getEstimatedPerformanceLevel(), 
+				this.getAutoPerformanceLevel(), this.getMaxIncrement()));
+	}
+	
+	/**
+	 * Works out the auto performance level that 
+	 * updateAutoPerformanceLevel() moves to without looking at or 
+	 * changing any MobInfo, so it can be called from any thread.
+	 * @param estimatedPerformanceLevel the estimated performance level
+	 * @param autoPerformanceLevel the current auto performance level
+	 * @param maxIncrement the most the auto performance level can 
+	 * change by
+	 * @return the new auto performance level
+	 */
+	public static double stepAutoPerformanceLevel(double estimatedPerformanceLevel, double autoPerformanceLevel, int maxIncrement)
+	{
+		double newPerformanceLevel = autoPerformanceLevel;
+		
 		//estimated vastly greater than auto
 		if(estimatedPerformanceLevel > autoPerformanceLevel + maxIncrement)
 		{
-			this.setAutoPerformanceLevel(autoPerformanceLevel + maxIncrement);
+			newPerformanceLevel = autoPerformanceLevel + maxIncrement;
 		}
 		//estimated close to auto
 		else if(estimatedPerformanceLevel <= autoPerformanceLevel + maxIncrement && 
 				estimatedPerformanceLevel >= autoPerformanceLevel - maxIncrement)
 		{
-			this.setAutoPerformanceLevel(estimatedPerformanceLevel);
+			newPerformanceLevel = estimatedPerformanceLevel;
 		}
 		//estimated vastly less than auto
 		else if(estimatedPerformanceLevel < autoPerformanceLevel - maxIncrement)
 		{
-			this.setAutoPerformanceLevel(autoPerformanceLevel - maxIncrement);
+			newPerformanceLevel = autoPerformanceLevel - maxIncrement;
 		}
+		
+		return newPerformanceLevel;
 	}
 
 	/**
@@ -404,7 +475,7 @@ public class MobInfo
 	 */
 	public double getManualPerformanceLevel()
 	{
-		return manualPerformanceLevel;
+		return table.manualPerformanceLevels[row];
 	}
 
 	/**
@@ -413,17 +484,17 @@ public class MobInfo
 	 */
 	public void setManualPerformanceLevel(double manualPerformanceLevel) 
 	{
-		this.manualPerformanceLevel = manualPerformanceLevel;
-		
-		if(this.manualPerformanceLevel < MIN_PERFORMANCE_LEVEL)
+		if(manualPerformanceLevel < MIN_PERFORMANCE_LEVEL)
 		{
-			this.manualPerformanceLevel = MIN_PERFORMANCE_LEVEL;
+			manualPerformanceLevel = MIN_PERFORMANCE_LEVEL;
 		}
 		
-		if(this.manualPerformanceLevel > MAX_PERFORMANCE_LEVEL)
+		if(manualPerformanceLevel > MAX_PERFORMANCE_LEVEL)
 		{
-			this.manualPerformanceLevel = MAX_PERFORMANCE_LEVEL;
+			manualPerformanceLevel = MAX_PERFORMANCE_LEVEL;
 		}
+		
+		table.setManualPerformanceLevel(row, manualPerformanceLevel);
 	}
 	
 	/**
@@ -437,6 +508,7 @@ public class MobInfo
 	public double getPerformanceLevelInUse()
 	{
 		double performanceLevel = 100;
+		Setting setting = this.getSetting();
 		
 		if(setting == Setting.AUTO)
 		{
@@ -452,73 +524,153 @@ public class MobInfo
 
 	/**
 	 * @return the total amount of damage that a player has given to 
-	 * all mobs of this type
+	 * the most recent ENCOUNTER_WINDOW_SIZE mobs of this type
 	 */
 	public int getDamagePlayerGave()
 	{
+		int damagePlayerGave = 0;
+		EncounterWindow encounters = table.getEncounters(row);
+		
+		if(encounters != null)
+		{
+			damagePlayerGave = encounters.getDamageGave();
+		}
+		
 		return damagePlayerGave;
 	}
 	
 	/**
 	 * Adds the given amount to the total amount of damage that a 
-	 * player has given to all mobs of a certain type. Note that the 
-	 * total amount of damage a player has given cannot be greater 
-	 * than the total number of mobs interacted with * the mob's health.
+	 * player has given to mobs of a certain type. The damage counts 
+	 * against the mob whose ID was most recently passed to 
+	 * addIDToInteractedWithIDs(). Note that the total amount of damage 
+	 * a player has given cannot be greater than the total number of 
+	 * mobs interacted with * the mob's health.
 	 * @param amount the amount of damage to add
 	 */
 	public void addToDamagePlayerGave(int amount)
 	{
-		damagePlayerGave += amount;
-		if(damagePlayerGave > this.getNumberInteractedWith() * mobType.getMaxHealth())
-		{
-			damagePlayerGave = this.getNumberInteractedWith() * mobType.getMaxHealth();
-		}
+		int maxDamagePlayerGave = this.getNumberInteractedWith() * mobType.getMaxHealth();
+		
+		this.getEncounters().addDamageGave(amount, maxDamagePlayerGave);
+		this.markForAnalysis();
 	}
 	
 	/**
 	 * @return the total amount of damage that a player has received 
-	 * from all mobs of this type
+	 * from the most recent ENCOUNTER_WINDOW_SIZE mobs of this type
 	 */
 	public int getDamagePlayerReceived() 
 	{
+		int damagePlayerReceived = 0;
+		EncounterWindow encounters = table.getEncounters(row);
+		
+		if(encounters != null)
+		{
+			damagePlayerReceived = encounters.getDamageReceived();
+		}
+		
 		return damagePlayerReceived;
 	}
 	
 	/**
 	 * Adds the given amount to the total amount of damage that a 
-	 * player has received from all mobs of this type
+	 * player has received from mobs of this type. The damage counts 
+	 * against the mob whose ID was most recently passed to 
+	 * addIDToInteractedWithIDs().
 	 * @param amount the amount of damage to add
 	 */
 	public void addToDamagePlayerReceived(int amount)
 	{
-		damagePlayerReceived += amount;
+		this.getEncounters().addDamageReceived(amount);
+		this.markForAnalysis();
 	}
 	
 	/**
-	 * @return the mobs that the player has interacted with.
+	 * @return the number of recent mobs that the player has 
+	 * interacted with. This is never more than ENCOUNTER_WINDOW_SIZE.
 	 */
 	public int getNumberInteractedWith()
 	{
-		return interactedWithIDs.size();
+		int numberInteractedWith = 0;
+		EncounterWindow encounters = table.getEncounters(row);
+		
+		if(encounters != null)
+		{
+			numberInteractedWith = encounters.size();
+		}
+		
+		return numberInteractedWith;
 	}
 	
 	/**
 	 * Adds the given mob ID to the IDs of mobs the player has
-	 * interacted with 
+	 * interacted with and makes it the mob that the next damage is 
+	 * recorded against. Only the most recent ENCOUNTER_WINDOW_SIZE 
+	 * mobs are kept; adding one more drops the oldest mob along with 
+	 * the damage that was recorded against it.
 	 * @param id the ID of the mob that this Player interacted with
 	 * @return true if the id was added to the list of IDs. False if 
 	 * it was not added due to it already being in the list.
 	 */
 	public boolean addIDToInteractedWithIDs(int id)
 	{
-		boolean wasAdded = false;
+		boolean wasAdded = this.getEncounters().addMob(id);
 		
-		if(!interactedWithIDs.contains(id))
+		if(wasAdded)
 		{
-			interactedWithIDs.add(id);
-			wasAdded = true;
+			this.markForAnalysis();
 		}
 		
 		return wasAdded;
 	}
+	
+	/**
+	 * Marks this MobInfo so that the Analyzer looks at it the next 
+	 * time it runs. Recording damage and changing the setting or the 
+	 * max increment all do this, so the Analyzer can skip the mobs a 
+	 * player has not been fighting.
+	 */
+	public void markForAnalysis()
+	{
+		table.markForAnalysis(row);
+	}
+	
+	/**
+	 * Counts one hit between the player and a mob of this type toward 
+	 * how much the player is fighting. See 
+	 * PlayerInfo.takeCombatEvents().
+	 */
+	public void recordCombatEvent()
+	{
+		table.recordCombatEvent();
+	}
+	
+	/**
+	 * @param index which of the Estimator's numbers to get, from 0 up 
+	 * to but not including ESTIMATOR_STATE_SIZE
+	 * @return the number the Estimator in use keeps for this Mob, 
+	 * which is 0 until it is set
+	 */
+	public double getEstimatorState(int index)
+	{
+		return table.getEstimatorState(row, index);
+	}
+	
+	/**
+	 * Sets one of the numbers the Estimator in use keeps for this 
+	 * Mob. They are not saved.
+	 * @param index which of the Estimator's numbers to set, from 0 up 
+	 * to but not including ESTIMATOR_STATE_SIZE
+	 * @param state the new value
+	 */
+	public void setEstimatorState(int index, double state)
+	{
+		table.setEstimatorState(row, index, state);
+	}
+	
+	private EncounterWindow getEncounters()
+	{
+		return table.getOrCreateEncounters(row);
+	}
 }
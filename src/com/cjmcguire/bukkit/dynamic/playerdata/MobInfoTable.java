@@ -0,0 +1,372 @@
+package com.cjmcguire.bukkit.dynamic.playerdata;
+
+/**
+ * Holds the dynamic difficulty information for a number of mobs in
+ * parallel arrays, one row per mob. A PlayerInfo keeps all of its
+ * mobs in a single MobInfoTable indexed by MobType ordinal, which
+ * uses far fewer objects than keeping a separate MobInfo object with
+ * its own fields for every mob. MobInfo is a view onto one row of a
+ * MobInfoTable.
+ * 
+ * The table also keeps a version number that goes up every time a 
+ * value that is saved to a player's file changes, so that a player 
+ * whose values have not changed since the last save does not have 
+ * to be saved again. In the same way, it keeps one bit for every row 
+ * whose analysis inputs changed, so that the Analyzer only has to 
+ * look at the mobs the player has been fighting.
+ * @author CJ McGuire
+ */
+class MobInfoTable
+{
+	// Bits used in the scaleFlags array.
+	static final short SCALE_ATTACK = 1;
+	static final short SCALE_DEFENSE = 2;
+	static final short SCALE_SPEED = 4;
+	static final short SCALE_KNOCKBACK_RESISTANCE = 8;
+	static final short SCALE_MAX_FOLLOW_DISTANCE = 16;
+	static final short SCALE_XP = 32;
+	static final short SCALE_LOOT = 64;
+	
+	static final short SCALE_ALL = SCALE_ATTACK | SCALE_DEFENSE | SCALE_SPEED |
+			SCALE_KNOCKBACK_RESISTANCE | SCALE_MAX_FOLLOW_DISTANCE | SCALE_XP | SCALE_LOOT;
+	
+	private static final Setting[] SETTINGS = Setting.values();
+	
+	// Stored in place of an ordinal when the Setting is null.
+	private static final byte NO_SETTING = -1;
+	
+	// The Setting's ordinal.
+	private final byte[] settings;
+	
+	// Only read these directly. The ones that get saved must be 
+	// changed through the setters below so that the version goes up.
+	final int[] maxIncrements;
+	final double[] estimatedPerformanceLevels;
+	final double[] autoPerformanceLevels;
+	final double[] manualPerformanceLevels;
+	final short[] scaleFlags;
+	
+	// Created the first time any mob in the table is fought.
+	private EncounterWindow[] encounters;
+	
+	private long version;
+	
+	// One bit for every row, by row number, that the Analyzer needs 
+	// to look at the next time it runs.
+	private long analysisMask;
+	
+	// The number of hits between the player and the mobs in this 
+	// table that the Monitor has recorded since the Analyzer last 
+	// looked.
+	private int combatEvents;
+	
+	// MobInfo.ESTIMATOR_STATE_SIZE numbers for every row that the 
+	// Estimator in use keeps between runs of the Analyzer. They are 
+	// not saved. Created the first time one of them is not 0.
+	private double[] estimatorStates;
+	
+	/**
+	 * Initializes a MobInfoTable with the given number of rows. Every
+	 * row starts with the setting set to auto, all performance levels
+	 * set to 100 and all scale values set to true.
+	 * @param size the number of rows
+	 */
+	MobInfoTable(int size)
+	{
+		settings = new byte[size];
+		maxIncrements = new int[size];
+		estimatedPerformanceLevels = new double[size];
+		autoPerformanceLevels = new double[size];
+		manualPerformanceLevels = new double[size];
+		scaleFlags = new short[size];
+		encounters = null;
+		version = 0;
+		analysisMask = 0;
+		combatEvents = 0;
+		estimatorStates = null;
+		
+		for(int row = 0; row < size; row++)
+		{
+			settings[row] = (byte) Setting.AUTO.ordinal();
+			maxIncrements[row] = MobInfo.DEFAULT_MAX_INCREMENT;
+			estimatedPerformanceLevels[row] = MobInfo.DEFAULT_PERFORMANCE_LEVEL;
+			autoPerformanceLevels[row] = MobInfo.DEFAULT_PERFORMANCE_LEVEL;
+			manualPerformanceLevels[row] = MobInfo.DEFAULT_PERFORMANCE_LEVEL;
+			scaleFlags[row] = SCALE_ALL;
+		}
+	}
+	
+	/**
+	 * Initializes a MobInfoTable that holds a copy of the values in 
+	 * the given table that get saved to a player's file, along with 
+	 * its version. Encounters and Estimator state are not copied.
+	 * @param other the table to copy
+	 */
+	MobInfoTable(MobInfoTable other)
+	{
+		settings = other.settings.clone();
+		maxIncrements = other.maxIncrements.clone();
+		estimatedPerformanceLevels = other.estimatedPerformanceLevels.clone();
+		autoPerformanceLevels = other.autoPerformanceLevels.clone();
+		manualPerformanceLevels = other.manualPerformanceLevels.clone();
+		scaleFlags = other.scaleFlags.clone();
+		encounters = null;
+		version = other.version;
+		analysisMask = 0;
+		combatEvents = 0;
+		estimatorStates = null;
+	}
+	
+	/**
+	 * @param row the row to look at
+	 * @return the Setting in the given row. This may be null.
+	 */
+	Setting getSetting(int row)
+	{
+		Setting setting = null;
+		
+		if(settings[row] != NO_SETTING)
+		{
+			setting = SETTINGS[settings[row]];
+		}
+		
+		return setting;
+	}
+	
+	/**
+	 * Sets the Setting in the given row.
+	 * @param row the row to change
+	 * @param setting the new Setting. This may be null.
+	 */
+	void setSetting(int row, Setting setting)
+	{
+		byte value;
+		if(setting != null)
+		{
+			value = (byte) setting.ordinal();
+		}
+		else
+		{
+			value = NO_SETTING;
+		}
+		
+		if(settings[row] != value)
+		{
+			settings[row] = value;
+			version++;
+			this.markForAnalysis(row);
+		}
+	}
+	
+	/**
+	 * Sets the max increment in the given row.
+	 * @param row the row to change
+	 * @param maxIncrement the new max increment
+	 */
+	void setMaxIncrement(int row, int maxIncrement)
+	{
+		if(maxIncrements[row] != maxIncrement)
+		{
+			maxIncrements[row] = maxIncrement;
+			version++;
+			this.markForAnalysis(row);
+		}
+	}
+	
+	/**
+	 * Sets the auto performance level in the given row.
+	 * @param row the row to change
+	 * @param autoPerformanceLevel the new auto performance level
+	 */
+	void setAutoPerformanceLevel(int row, double autoPerformanceLevel)
+	{
+		if(autoPerformanceLevels[row] != autoPerformanceLevel)
+		{
+			autoPerformanceLevels[row] = autoPerformanceLevel;
+			version++;
+		}
+	}
+	
+	/**
+	 * Sets the manual performance level in the given row.
+	 * @param row the row to change
+	 * @param manualPerformanceLevel the new manual performance level
+	 */
+	void setManualPerformanceLevel(int row, double manualPerformanceLevel)
+	{
+		if(manualPerformanceLevels[row] != manualPerformanceLevel)
+		{
+			manualPerformanceLevels[row] = manualPerformanceLevel;
+			version++;
+		}
+	}
+	
+	/**
+	 * @param row the row to look at
+	 * @param flag one of the SCALE_ bits
+	 * @return true if the given scale flag is set in the given row
+	 */
+	boolean isScaleFlagSet(int row, short flag)
+	{
+		return (scaleFlags[row] & flag) != 0;
+	}
+	
+	/**
+	 * Sets or clears a scale flag in the given row.
+	 * @param row the row to change
+	 * @param flag one of the SCALE_ bits
+	 * @param value true to set the flag, false to clear it
+	 */
+	void setScaleFlag(int row, short flag, boolean value)
+	{
+		short flags;
+		if(value)
+		{
+			flags = (short) (scaleFlags[row] | flag);
+		}
+		else
+		{
+			flags = (short) (scaleFlags[row] & ~flag);
+		}
+		
+		if(scaleFlags[row] != flags)
+		{
+			scaleFlags[row] = flags;
+			version++;
+		}
+	}
+	
+	/**
+	 * @return a number that goes up every time a value that is saved 
+	 * to a player's file changes in any row
+	 */
+	long getVersion()
+	{
+		return version;
+	}
+	
+	/**
+	 * Marks the given row so that the Analyzer looks at it the next 
+	 * time it runs.
+	 * @param row the row to mark
+	 */
+	void markForAnalysis(int row)
+	{
+		analysisMask |= 1L << row;
+	}
+	
+	/**
+	 * Marks every row whose bit is set in the given mask.
+	 * @param mask one bit for every row, by row number
+	 */
+	void markForAnalysis(long mask)
+	{
+		analysisMask |= mask;
+	}
+	
+	/**
+	 * Gets the rows that have been marked for analysis and unmarks 
+	 * them.
+	 * @return one bit for every marked row, by row number
+	 */
+	long takeAnalysisMask()
+	{
+		long mask = analysisMask;
+		analysisMask = 0;
+		return mask;
+	}
+	
+	/**
+	 * Counts one hit between the player and a mob in this table.
+	 */
+	void recordCombatEvent()
+	{
+		combatEvents++;
+	}
+	
+	/**
+	 * Gets the number of hits recorded since the last time this was 
+	 * called, and starts counting again from zero.
+	 * @return the number of hits
+	 */
+	int takeCombatEvents()
+	{
+		int events = combatEvents;
+		combatEvents = 0;
+		return events;
+	}
+	
+	/**
+	 * @param row the row to look at
+	 * @param index which of the row's Estimator numbers to get
+	 * @return the Estimator number, which is 0 until it is set
+	 */
+	double getEstimatorState(int row, int index)
+	{
+		double state = 0;
+		
+		if(estimatorStates != null)
+		{
+			state = estimatorStates[row * MobInfo.ESTIMATOR_STATE_SIZE + index];
+		}
+		
+		return state;
+	}
+	
+	/**
+	 * Sets one of the Estimator numbers of the given row. This does 
+	 * not change the version, since they are not saved.
+	 * @param row the row to change
+	 * @param index which of the row's Estimator numbers to set
+	 * @param state the new value
+	 */
+	void setEstimatorState(int row, int index, double state)
+	{
+		if(estimatorStates == null && state != 0)
+		{
+			estimatorStates = new double[settings.length * MobInfo.ESTIMATOR_STATE_SIZE];
+		}
+		
+		if(estimatorStates != null)
+		{
+			estimatorStates[row * MobInfo.ESTIMATOR_STATE_SIZE + index] = state;
+		}
+	}
+	
+	/**
+	 * @param row the row to look at
+	 * @return the EncounterWindow for the given row, or null if the
+	 * player has not fought that mob yet
+	 */
+	EncounterWindow getEncounters(int row)
+	{
+		EncounterWindow encounterWindow = null;
+		
+		if(encounters != null)
+		{
+			encounterWindow = encounters[row];
+		}
+		
+		return encounterWindow;
+	}
+	
+	/**
+	 * @param row the row to look at
+	 * @return the EncounterWindow for the given row. It is created if
+	 * it does not exist yet.
+	 */
+	EncounterWindow getOrCreateEncounters(int row)
+	{
+		if(encounters == null)
+		{
+			encounters = new EncounterWindow[settings.length];
+		}
+		
+		if(encounters[row] == null)
+		{
+			encounters[row] = new EncounterWindow(MobInfo.ENCOUNTER_WINDOW_SIZE, MobInfo.AVERAGE_WEIGHT);
+		}
+		
+		return encounters[row];
+	}
+}
@@ -1,5 +1,8 @@
 package com.cjmcguire.bukkit.dynamic.playerdata;
 
+import java.util.EnumMap;
+import java.util.EnumSet;
+
 import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
 import org.bukkit.entity.Guardian;
@@ -122,6 +125,40 @@ public enum MobType
 	private int maxHealth;
 	private int defaultFollowDistance;
 	
+	// Maps each EntityType to the MobType it is classified as when it 
+	// is not one of the variant EntityTypes below.
+	private static final EnumMap<EntityType, MobType> ENTITY_MOB_TYPES = new EnumMap<EntityType, MobType>(EntityType.class);
+	
+	// EntityTypes that need to look at the entity itself before they 
+	// can be classified (skeletons, guardians and rabbits).
+	private static final EnumSet<EntityType> VARIANT_ENTITY_TYPES = EnumSet.of(EntityType.SKELETON, EntityType.GUARDIAN, EntityType.RABBIT);
+	
+	// Every EntityType that can possibly have a MobType. Anything not
+	// in this set is rejected before any further work is done.
+	private static final EnumSet<EntityType> HOSTILE_ENTITY_TYPES = EnumSet.copyOf(VARIANT_ENTITY_TYPES);
+	
+	static
+	{
+		// Build the table from the same class names that the MobType 
+		// names are built from so that the lookup gives exactly the 
+		// same answer as matching on the entity's class name.
+		for(EntityType entityType: EntityType.values())
+		{
+			Class<? extends Entity> entityClass = entityType.getEntityClass();
+			
+			if(entityClass != null)
+			{
+				MobType mobType = getMobType(entityClass.getSimpleName());
+				
+				if(mobType != null)
+				{
+					ENTITY_MOB_TYPES.put(entityType, mobType);
+					HOSTILE_ENTITY_TYPES.add(entityType);
+				}
+			}
+		}
+	}
+	
 	
 	MobType(String name, int maxHealth, int defaultFollowDistance)
 	{
@@ -186,18 +223,49 @@ public enum MobType
 	{
 		// get the entity type
 		EntityType entityType = mob.getType();
-		// get the mob name
-		String mobName = entityType.getEntityClass().getSimpleName().toLowerCase();
-
-		// special case for distinguishing between a skeleton and a wither skeleton
-		// because bukkit does not have separate EntityTypes for it yet.
+		
+		MobType mobType = null;
+		
+		if(HOSTILE_ENTITY_TYPES.contains(entityType))
+		{
+			if(VARIANT_ENTITY_TYPES.contains(entityType))
+			{
+				mobType = getVariantMobType(mob, entityType);
+			}
+			else
+			{
+				mobType = ENTITY_MOB_TYPES.get(entityType);
+			}
+		}
+		
+		return mobType;
+	}
+	
+	/**
+	 * Gets the MobType of an entity whose EntityType is shared by 
+	 * more than one kind of mob. This is needed because bukkit does 
+	 * not have separate EntityTypes for wither skeletons, elder 
+	 * guardians and killer rabbits yet.
+	 * @param mob the mob whose MobType you want to get
+	 * @param entityType the EntityType of the mob
+	 * @return the Entity's MobType or null if the Entity has no
+	 * associated MobType.
+	 */
+	private static MobType getVariantMobType(Entity mob, EntityType entityType)
+	{
+		MobType mobType = null;
+		
 		if(entityType == EntityType.SKELETON)
 		{
 			Skeleton skeleton = (Skeleton) mob;
 			
 			if(skeleton.getSkeletonType() == SkeletonType.WITHER)
 			{
-				mobName = "wither" + mobName;
+				mobType = WITHER_SKELETON;
+			}
+			else
+			{
+				mobType = SKELETON;
 			}
 		}
 		else if(entityType == EntityType.GUARDIAN)
@@ -206,20 +274,25 @@ public enum MobType
 			
 			if(guardian.isElder())
 			{
-				mobName = "elder" + mobName;
+				mobType = ELDER_GUARDIAN;
+			}
+			else
+			{
+				mobType = GUARDIAN;
 			}
 		}
 		else if(entityType == EntityType.RABBIT)
 		{
 			Rabbit rabbit = (Rabbit) mob;
 			
+			// Regular rabbits do not have a MobType.
 			if(rabbit.getRabbitType() == Rabbit.Type.THE_KILLER_BUNNY)
 			{
-				mobName = "killer" + mobName;
+				mobType = KILLER_RABBIT;
 			}
 		}
 		
-		return getMobType(mobName);
+		return mobType;
 	}
 	
 	/**
@@ -0,0 +1,300 @@
+package com.cjmcguire.bukkit.dynamic.playerdata;
+
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Rabbit;
+import org.bukkit.entity.Wolf;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityDamageByEntityEvent;
+import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.entity.EntityTargetEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+/**
+ * A singleton class that remembers the MobType and hostility of the
+ * entities that the plugin has already classified so that the same
+ * mob does not have to be classified again on every hit, retarget
+ * and death. Entries are keyed by entity id and are evicted when the
+ * entity dies, when its chunk unloads, and when its hostility may
+ * have changed. The cache is a fixed size table where each entity id
+ * has exactly one slot, so it can never hold more than
+ * CACHE_SIZE entries no matter how many entities pass through it.
+ * This class should only be used from the main server thread.
+ * @author CJ McGuire
+ */
+public class MobTypeCache implements Listener
+{
+	/**
+	 * The maximum number of entities that can be cached at once.
+	 * Must be a power of two.
+	 */
+	public final static int CACHE_SIZE = 4096;
+	
+	private final static int MASK = CACHE_SIZE - 1;
+	
+	// Bits used in the flags array.
+	private final static byte OCCUPIED = 1;
+	private final static byte MOB_TYPE_KNOWN = 2;
+	private final static byte HOSTILITY_KNOWN = 4;
+	private final static byte HOSTILE = 8;
+	
+	private final static MobType[] MOB_TYPES = MobType.values();
+	
+	private static MobTypeCache singleton = new MobTypeCache();
+	
+	private final int[] entityIDs;
+	
+	// The MobType's ordinal + 1 so that 0 can mean "no MobType".
+	private final byte[] mobTypes;
+	
+	private final byte[] flags;
+	
+	private MobTypeCache()
+	{
+		entityIDs = new int[CACHE_SIZE];
+		mobTypes = new byte[CACHE_SIZE];
+		flags = new byte[CACHE_SIZE];
+	}
+	
+	/**
+	 * @return the singleton instance of this MobTypeCache.
+	 */
+	public static MobTypeCache getInstance()
+	{
+		return singleton;
+	}
+	
+	/**
+	 * Gets the MobType of the given Entity. The first time an entity
+	 * is seen its MobType is worked out with
+	 * MobType.getEntitysMobType() and remembered.
+	 * @param mob the mob whose MobType you want to get
+	 * @return the Entity's MobType or null if the Entity has no
+	 * associated MobType.
+	 */
+	public MobType getMobType(Entity mob)
+	{
+		return this.getMobType(mob.getEntityId(), mob);
+	}
+	
+	/**
+	 * Gets the MobType of the given Entity when the caller already
+	 * knows the entity's id.
+	 * @param entityID the id of the mob
+	 * @param mob the mob whose MobType you want to get
+	 * @return the Entity's MobType or null if the Entity has no
+	 * associated MobType.
+	 */
+	public MobType getMobType(int entityID, Entity mob)
+	{
+		int slot = this.getSlot(entityID);
+		
+		MobType mobType;
+		
+		if((flags[slot] & MOB_TYPE_KNOWN) != 0)
+		{
+			mobType = this.toMobType(mobTypes[slot]);
+		}
+		else
+		{
+			mobType = MobType.getEntitysMobType(mob);
+			
+			mobTypes[slot] = this.toByte(mobType);
+			flags[slot] |= MOB_TYPE_KNOWN;
+		}
+		
+		return mobType;
+	}
+	
+	/**
+	 * Checks if the LivingEntity is potentially hostile. The first
+	 * time an entity is seen its hostility is worked out with
+	 * MobType.potentiallyHostile() and remembered.
+	 * @param mob the mob to check.
+	 * @return true if the mob is hostile
+	 */
+	public boolean potentiallyHostile(LivingEntity mob)
+	{
+		int entityID = mob.getEntityId();
+		int slot = this.getSlot(entityID);
+		
+		boolean potentiallyHostile;
+		
+		if((flags[slot] & HOSTILITY_KNOWN) != 0)
+		{
+			potentiallyHostile = (flags[slot] & HOSTILE) != 0;
+		}
+		else
+		{
+			potentiallyHostile = MobType.potentiallyHostile(mob);
+			
+			flags[slot] |= HOSTILITY_KNOWN;
+			if(potentiallyHostile)
+			{
+				flags[slot] |= HOSTILE;
+			}
+		}
+		
+		return potentiallyHostile;
+	}
+	
+	/**
+	 * Forgets everything that is cached about the entity with the
+	 * given id.
+	 * @param entityID the id of the entity to forget
+	 */
+	public void evict(int entityID)
+	{
+		int slot = entityID & MASK;
+		
+		if(flags[slot] != 0 && entityIDs[slot] == entityID)
+		{
+			flags[slot] = 0;
+			mobTypes[slot] = 0;
+		}
+	}
+	
+	/**
+	 * Forgets whether or not the entity with the given id is hostile,
+	 * but keeps its MobType.
+	 * @param entityID the id of the entity whose hostility may have
+	 * changed
+	 */
+	public void invalidateHostility(int entityID)
+	{
+		int slot = entityID & MASK;
+		
+		if(flags[slot] != 0 && entityIDs[slot] == entityID)
+		{
+			flags[slot] &= ~(HOSTILITY_KNOWN | HOSTILE);
+		}
+	}
+	
+	/**
+	 * @param entityID the id of an entity
+	 * @return true if anything is cached for the entity with the
+	 * given id
+	 */
+	public boolean isCached(int entityID)
+	{
+		int slot = entityID & MASK;
+		
+		return flags[slot] != 0 && entityIDs[slot] == entityID;
+	}
+	
+	/**
+	 * Removes everything from the cache.
+	 */
+	public void clear()
+	{
+		for(int slot = 0; slot < CACHE_SIZE; slot++)
+		{
+			flags[slot] = 0;
+			mobTypes[slot] = 0;
+		}
+	}
+	
+	/**
+	 * Gets the slot for the given entity id. If the slot is held by
+	 * a different entity, that entity is evicted to make room.
+	 */
+	private int getSlot(int entityID)
+	{
+		int slot = entityID & MASK;
+		
+		if(flags[slot] == 0 || entityIDs[slot] != entityID)
+		{
+			entityIDs[slot] = entityID;
+			mobTypes[slot] = 0;
+			flags[slot] = OCCUPIED;
+		}
+		
+		return slot;
+	}
+	
+	private byte toByte(MobType mobType)
+	{
+		byte value = 0;
+		
+		if(mobType != null)
+		{
+			value = (byte) (mobType.ordinal() + 1);
+		}
+		
+		return value;
+	}
+	
+	private MobType toMobType(byte value)
+	{
+		MobType mobType = null;
+		
+		if(value != 0)
+		{
+			mobType = MOB_TYPES[value - 1];
+		}
+		
+		return mobType;
+	}
+	
+	/**
+	 * This method triggers whenever a creature dies. The creature is
+	 * removed from the cache.
+	 * @param event the EntityDeathEvent that just occurred
+	 */
+	@EventHandler(priority = EventPriority.MONITOR)
+	public void onEntityDeathEvent(EntityDeathEvent event)
+	{
+		this.evict(event.getEntity().getEntityId());
+	}
+	
+	/**
+	 * This method triggers whenever a chunk unloads. Every entity in
+	 * the chunk is removed from the cache.
+	 * @param event the ChunkUnloadEvent that just occurred
+	 */
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onChunkUnloadEvent(ChunkUnloadEvent event)
+	{
+		for(Entity entity: event.getChunk().getEntities())
+		{
+			this.evict(entity.getEntityId());
+		}
+	}
+	
+	/**
+	 * This method triggers whenever a mob targets something. Wolves
+	 * and rabbits can change whether or not they are hostile, so
+	 * their hostility is forgotten before anything else looks at the
+	 * event.
+	 * @param event the EntityTargetEvent that just occurred
+	 */
+	@EventHandler(priority = EventPriority.LOWEST)
+	public void onEntityTargetEvent(EntityTargetEvent event)
+	{
+		Entity targeter = event.getEntity();
+		
+		if(targeter instanceof Wolf || targeter instanceof Rabbit)
+		{
+			this.invalidateHostility(targeter.getEntityId());
+		}
+	}
+	
+	/**
+	 * This method triggers whenever a creature takes damage. A wolf
+	 * that gets hit may turn angry, so its hostility is forgotten
+	 * once everything else has seen the event.
+	 * @param event the EntityDamageByEntityEvent that just occurred
+	 */
+	@EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+	public void onEntityDamageByEntityEvent(EntityDamageByEntityEvent event)
+	{
+		Entity damaged = event.getEntity();
+		
+		if(damaged instanceof Wolf)
+		{
+			this.invalidateHostility(damaged.getEntityId());
+		}
+	}
+}
@@ -80,19 +80,36 @@ public class PlayerDataManager
 	
 	/**
 	 * Gets a player's PlayerInfo. If no PlayerInfo currently exists 
-	 * for the player when this method is called, then it will 
-	 * generate new PlayerInfo for the player before returning it.
+	 * for the player when this method is called, then the 
+	 * PlayerFileHandler is asked for it. The PlayerFileHandler loads 
+	 * it in the background and hands back a PlayerInfo with default 
+	 * values until the load finishes, so this never waits on the 
+	 * disk.
 	 * @param playerID the UUID of the player whose PlayerInfo you 
 	 * want to get
 	 * @return the PlayerInfo of the player with the given UUID.
 	 */
 	public PlayerInfo getPlayerInfo(UUID playerID) 
 	{
-		if(!playerData.containsKey(playerID) && playerFileHandler != null)
+		PlayerInfo playerInfo = playerData.get(playerID);
+		
+		if(playerInfo == null && playerFileHandler != null)
 		{
-			playerFileHandler.loadPlayerData(playerID);
+			playerInfo = playerFileHandler.requestPlayerData(playerID);
 		}
 		
+		return playerInfo;
+	}
+	
+	/**
+	 * Gets a player's PlayerInfo only if it has already been loaded.
+	 * @param playerID the UUID of the player whose PlayerInfo you 
+	 * want to get
+	 * @return the PlayerInfo of the player with the given UUID, or 
+	 * null if it has not been loaded.
+	 */
+	public PlayerInfo getLoadedPlayerInfo(UUID playerID)
+	{
 		return playerData.get(playerID);
 	}
 	
@@ -131,29 +148,82 @@ public class PlayerDataManager
 		return mobInfo;
 	}
 	
+	/**
+	 * Finds a player who has stored data by the player's last known 
+	 * name. The player does not have to be online.
+	 * @param playerName the last known name of the player
+	 * @return the UUID of the player, or null if no player with 
+	 * stored data has that name
+	 */
+	public UUID getStoredPlayerID(String playerName)
+	{
+		UUID playerID = null;
+		
+		if(playerFileHandler != null)
+		{
+			playerID = playerFileHandler.getStoredPlayerID(playerName);
+		}
+		
+		return playerID;
+	}
+	
+	/**
+	 * Loads the stored PlayerInfo of a player who is not online, so 
+	 * that it can be looked at or changed. This reads from disk on 
+	 * the calling thread, or waits for the load that is already 
+	 * reading the player. Nothing is loaded if the player's 
+	 * PlayerInfo already exists.
+	 * @param playerID the UUID of the player whose PlayerInfo you 
+	 * want to load
+	 * @return true if the PlayerInfo was loaded by this call
+	 */
+	public boolean loadStoredPlayerInfo(UUID playerID)
+	{
+		boolean loaded = false;
+		
+		if(playerFileHandler != null && !this.playerInfoExists(playerID))
+		{
+			playerFileHandler.loadPlayerData(playerID);
+			loaded = this.playerInfoExists(playerID);
+		}
+		
+		return loaded;
+	}
+	
+	/**
+	 * Saves the PlayerInfo of a player who is not online and then 
+	 * removes it. This undoes loadStoredPlayerInfo().
+	 * @param playerID the UUID of the player whose PlayerInfo you 
+	 * want to save and remove
+	 */
+	public void unloadStoredPlayerInfo(UUID playerID)
+	{
+		if(playerFileHandler != null)
+		{
+			playerFileHandler.savePlayerData(playerID);
+			playerFileHandler.discardPlayerData(playerID);
+		}
+		else
+		{
+			this.removePlayerInfo(playerID);
+		}
+	}
+	
 	/**
 	 * Saves all of the PlayerData contained in the DynamicDifficulty 
 	 * plugin to the <player name>.yml files in the players/ folder. 
 	 * This method is safe to use even if the plugin is running 
 	 * headless in which case it will save them to the files in the 
 	 * src/ folder. It does not delete any PlayerInfo from the 
-	 * DynamicDifficulty plugin.
+	 * DynamicDifficulty plugin. Players whose data has not changed 
+	 * since it was last saved are skipped. Everyone else is written 
+	 * as one batch.
 	 */
 	public void saveAllPlayerData()
 	{
 		if(playerFileHandler != null)
 		{
-			// translate playerData into a Collection because you can't loop through a HashMap
-			Collection<PlayerInfo> playerCollection = playerData.values();
-			
-			// For each playerInfo
-			for(PlayerInfo playerInfo: playerCollection)
-			{
-				UUID playerID = playerInfo.getPlayerID();
-				
-				// Save key variables from PlayerInfo to the player yml file
-				playerFileHandler.savePlayerData(playerID);
-			}
+			playerFileHandler.savePlayerData(playerData.keySet());
 		}
 	}
 }
@@ -1,18 +1,34 @@
 package com.cjmcguire.bukkit.dynamic.playerdata;
 
-import java.util.HashMap;
 import java.util.UUID;
 
 /**
  * The PlayerInfo class holds the name of a player and the player's 
- * MobInfo for each type of hostile mob in the game.
+ * MobInfo for each type of hostile mob in the game. The values for 
+ * every MobType are kept together in one MobInfoTable indexed by the 
+ * MobType's ordinal, and the MobInfo for a MobType is only created 
+ * the first time it is asked for. A PlayerInfo also remembers which 
+ * version of its values was last saved, so that it can tell whether 
+ * it needs to be saved again.
  * @author CJ McGuire
  */
 public class PlayerInfo 
 {
+	private static final MobType[] MOB_TYPES = MobType.values();
+	
 	private final UUID playerID;
 	
-	private final HashMap<MobType, MobInfo> mobData;
+	private final MobInfoTable mobTable;
+	
+	private final MobInfo[] mobData;
+	
+	private String lastKnownName;
+	
+	// The number of times lastKnownName has changed. It counts toward 
+	// the version along with the changes in mobTable.
+	private long nameChanges;
+	
+	private long savedVersion;
 	
 	/**
 	 * Initializes this PlayerInfo
@@ -23,13 +39,21 @@ public class PlayerInfo
 	{
 		this.playerID = playerID;
 		
-		mobData = new HashMap<MobType, MobInfo>();
-		
-		MobType[] mobTypes = MobType.values();
-		for(MobType mobType: mobTypes)
-		{
-			mobData.put(mobType, new MobInfo(mobType));
-		}
+		mobTable = new MobInfoTable(MOB_TYPES.length);
+		mobData = new MobInfo[MOB_TYPES.length];
+		lastKnownName = null;
+		nameChanges = 0;
+		savedVersion = this.getVersion();
+	}
+	
+	private PlayerInfo(PlayerInfo other)
+	{
+		playerID = other.playerID;
+		mobTable = new MobInfoTable(other.mobTable);
+		mobData = new MobInfo[MOB_TYPES.length];
+		lastKnownName = other.lastKnownName;
+		nameChanges = other.nameChanges;
+		savedVersion = this.getVersion();
 	}
 
 	/**
@@ -40,12 +64,165 @@ public class PlayerInfo
 		return playerID;
 	}
 	
+	/**
+	 * @return the name the player had the last time the player logged 
+	 * in, or null if it is not known
+	 */
+	public String getLastKnownName()
+	{
+		return lastKnownName;
+	}
+	
+	/**
+	 * Sets the name the player had the last time the player logged 
+	 * in. The PlayerInfo only becomes dirty if the name is different.
+	 * @param lastKnownName the player's name
+	 */
+	public void setLastKnownName(String lastKnownName)
+	{
+		boolean changed;
+		if(this.lastKnownName == null)
+		{
+			changed = lastKnownName != null;
+		}
+		else
+		{
+			changed = !this.lastKnownName.equals(lastKnownName);
+		}
+		
+		if(changed)
+		{
+			this.lastKnownName = lastKnownName;
+			nameChanges++;
+		}
+	}
+	
 	/**
 	 * @param mobType the MobType that you want to get
 	 * @return the player's MobInfo for the given MobType
 	 */
 	public MobInfo getMobInfo(MobType mobType)
 	{
-		return mobData.get(mobType);
+		int ordinal = mobType.ordinal();
+		
+		MobInfo mobInfo = mobData[ordinal];
+		if(mobInfo == null)
+		{
+			mobInfo = new MobInfo(mobType, mobTable, ordinal);
+			mobData[ordinal] = mobInfo;
+		}
+		
+		return mobInfo;
+	}
+	
+	/**
+	 * @return a number that goes up every time one of this player's 
+	 * saved values changes
+	 */
+	public long getVersion()
+	{
+		return mobTable.getVersion() + nameChanges;
+	}
+	
+	/**
+	 * @return the version that was last saved to disk
+	 */
+	public long getSavedVersion()
+	{
+		return savedVersion;
+	}
+	
+	/**
+	 * @return true if any of this player's saved values have changed 
+	 * since the last time it was saved
+	 */
+	public boolean isDirty()
+	{
+		return this.getVersion() != savedVersion;
+	}
+	
+	/**
+	 * Records that the given version of this PlayerInfo has been 
+	 * saved to disk. Pass in the version from before the save 
+	 * started, so that changes made during the save are not lost.
+	 * @param version the version that was saved
+	 */
+	public void markSaved(long version)
+	{
+		savedVersion = version;
+	}
+	
+	/**
+	 * Marks this PlayerInfo as not saved, so that the next save writes 
+	 * it even if none of its values change.
+	 */
+	public void markUnsaved()
+	{
+		savedVersion = this.getVersion() - 1;
+	}
+	
+	/**
+	 * Sets the estimated performance level of every MobType to its 
+	 * auto performance level. The estimated performance level is not 
+	 * saved, so it should start off equal to the auto performance 
+	 * level whenever a player's data is loaded.
+	 */
+	public void resetEstimatedPerformanceLevels()
+	{
+		for(MobType mobType: MOB_TYPES)
+		{
+			MobInfo mobInfo = this.getMobInfo(mobType);
+			mobInfo.setEstimatedPerformanceLevel(mobInfo.getAutoPerformanceLevel());
+		}
+	}
+	
+	/**
+	 * Gets the MobTypes that have been marked for analysis since the 
+	 * last time this was called, and unmarks them. A MobType is 
+	 * marked when damage is recorded for it or when its setting or 
+	 * max increment changes.
+	 * @return one bit for every marked MobType, by ordinal
+	 */
+	public long takeAnalysisMask()
+	{
+		return mobTable.takeAnalysisMask();
+	}
+	
+	/**
+	 * Marks the given MobTypes for analysis, such as when the Analyzer 
+	 * has not finished with them.
+	 * @param mask one bit for every MobType to mark, by ordinal
+	 */
+	public void markForAnalysis(long mask)
+	{
+		mobTable.markForAnalysis(mask);
+	}
+	
+	/**
+	 * Gets the number of hits between this player and any mob that 
+	 * the Monitor has recorded since the last time this was called, 
+	 * and starts counting again from zero. The Analyzer uses this to 
+	 * tell how much the player is fighting.
+	 * @return the number of hits
+	 */
+	public int takeCombatEvents()
+	{
+		return mobTable.takeCombatEvents();
+	}
+	
+	/**
+	 * Makes a copy of the values in this PlayerInfo that get saved to 
+	 * the player's file, including the last known name. The copy 
+	 * shares nothing with this PlayerInfo, so it can be handed to 
+	 * another thread to be saved while this PlayerInfo keeps 
+	 * changing. It has the same version as this PlayerInfo, and it is 
+	 * not meant to be changed.
+	 * @return a copy of this PlayerInfo's saved values
+	 */
+	public PlayerInfo snapshot()
+	{
+		PlayerInfo snapshot = new PlayerInfo(this);
+		
+		return snapshot;
 	}
-}
\ No newline at end of file
+}
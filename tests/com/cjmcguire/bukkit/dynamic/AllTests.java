@@ -3,13 +3,31 @@ package com.cjmcguire.bukkit.dynamic;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import com.cjmcguire.bukkit.dynamic.analyzer.TestAnalyzerPass;
+import com.cjmcguire.bukkit.dynamic.analyzer.TestAnalyzerSchedule;
 import com.cjmcguire.bukkit.dynamic.analyzer.TestAnalyzerTask;
+import com.cjmcguire.bukkit.dynamic.analyzer.TestBayesianEstimator;
+import com.cjmcguire.bukkit.dynamic.analyzer.TestEstimatorConvergence;
+import com.cjmcguire.bukkit.dynamic.analyzer.TestEstimatorMode;
+import com.cjmcguire.bukkit.dynamic.analyzer.TestEstimatorSelection;
+import com.cjmcguire.bukkit.dynamic.analyzer.TestPidEstimator;
 import com.cjmcguire.bukkit.dynamic.commands.*;
 import com.cjmcguire.bukkit.dynamic.commands.core.*;
 import com.cjmcguire.bukkit.dynamic.commands.scale.*;
 import com.cjmcguire.bukkit.dynamic.controller.TestLootControllerListener;
 import com.cjmcguire.bukkit.dynamic.controller.TestMobControllerListener;
+import com.cjmcguire.bukkit.dynamic.filehandlers.TestBinaryPlayerStore;
+import com.cjmcguire.bukkit.dynamic.filehandlers.TestBloomFilter;
+import com.cjmcguire.bukkit.dynamic.filehandlers.TestConfigFileHandler;
+import com.cjmcguire.bukkit.dynamic.filehandlers.TestJournaledPlayerStore;
+import com.cjmcguire.bukkit.dynamic.filehandlers.TestPlayerFileFormat;
 import com.cjmcguire.bukkit.dynamic.filehandlers.TestPlayerFileHandler;
+import com.cjmcguire.bukkit.dynamic.filehandlers.TestPlayerFileImporter;
+import com.cjmcguire.bukkit.dynamic.filehandlers.TestPlayerNameIndex;
+import com.cjmcguire.bukkit.dynamic.filehandlers.TestPlayerSaveQueue;
+import com.cjmcguire.bukkit.dynamic.filehandlers.TestSqlPlayerStore;
+import com.cjmcguire.bukkit.dynamic.filehandlers.TestStorageType;
+import com.cjmcguire.bukkit.dynamic.filehandlers.TestYamlPlayerStore;
 import com.cjmcguire.bukkit.dynamic.monitor.TestMonitorListener;
 import com.cjmcguire.bukkit.dynamic.playerdata.*;
 
@@ -23,7 +41,14 @@ import com.cjmcguire.bukkit.dynamic.playerdata.*;
 	// com.cjmcguire.bukkit.dynamic
 	
 	// com.cjmcguire.bukkit.dynamic.analyzer
+	TestAnalyzerPass.class,
+	TestAnalyzerSchedule.class,
 	TestAnalyzerTask.class,
+	TestBayesianEstimator.class,
+	TestEstimatorConvergence.class,
+	TestEstimatorMode.class,
+	TestEstimatorSelection.class,
+	TestPidEstimator.class,
 
 	// com.cjmcguire.bukkit.dynamic.commands
 	TestPlayerTargetableCommand.class,
@@ -51,15 +76,27 @@ import com.cjmcguire.bukkit.dynamic.playerdata.*;
 	TestMobControllerListener.class,
 
 	// com.cjmcguire.bukkit.dynamic.filehandlers
-//	TestConfigFileHandler.class,
+	TestBinaryPlayerStore.class,
+	TestBloomFilter.class,
+	TestConfigFileHandler.class,
+	TestJournaledPlayerStore.class,
+	TestPlayerFileFormat.class,
 	TestPlayerFileHandler.class,
+	TestPlayerFileImporter.class,
+	TestPlayerNameIndex.class,
+	TestPlayerSaveQueue.class,
+	TestSqlPlayerStore.class,
+	TestStorageType.class,
+	TestYamlPlayerStore.class,
 	
 	// com.cjmcguire.bukkit.dynamic.monitor
 	TestMonitorListener.class,
 	
 	// com.cjmcguire.bukkit.dynmaic.playerdata
+	TestIntHashSet.class,
 	TestMobInfo.class,
 	TestMobType.class,
+	TestMobTypeCache.class,
 	TestPlayerDataManager.class,
 	TestPlayerInfo.class,
 	TestSetting.class})
@@ -0,0 +1,60 @@
+package com.cjmcguire.bukkit.dynamic;
+
+/**
+ * A tiny timing harness for the Benchmark* classes. It is not part 
+ * of the test suite; each benchmark is run on its own through its 
+ * main method.
+ * @author CJ McGuire
+ */
+public final class Benchmark
+{
+	private static final int WARM_UP_ROUNDS = 5;
+	private static final int MEASURED_ROUNDS = 5;
+	
+	/**
+	 * Results are written here so that the JIT can not throw away 
+	 * the work being measured.
+	 */
+	public static volatile Object sink;
+	
+	private Benchmark()
+	{
+		
+	}
+	
+	/**
+	 * Runs the given action a number of times and prints the average 
+	 * time that each operation took.
+	 * @param name the name to print next to the result
+	 * @param operations the number of operations that one call to 
+	 * action performs
+	 * @param action the code being measured
+	 * @return the average number of nanoseconds per operation over 
+	 * the measured rounds
+	 */
+	public static double measure(String name, long operations, Runnable action)
+	{
+		for(int round = 0; round < WARM_UP_ROUNDS; round++)
+		{
+			action.run();
+		}
+		
+		long best = Long.MAX_VALUE;
+		long total = 0;
+		for(int round = 0; round < MEASURED_ROUNDS; round++)
+		{
+			long start = System.nanoTime();
+			action.run();
+			long elapsed = System.nanoTime() - start;
+			
+			total += elapsed;
+			best = Math.min(best, elapsed);
+		}
+		
+		double average = (double) total / MEASURED_ROUNDS / operations;
+		System.out.println(String.format("%-50s %12.1f ns/op (best %.1f)", 
+				name, average, (double) best / operations));
+		
+		return average;
+	}
+}
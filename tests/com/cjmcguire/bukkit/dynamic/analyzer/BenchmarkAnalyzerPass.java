@@ -0,0 +1,105 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import com.cjmcguire.bukkit.dynamic.Benchmark;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * Compares a whole AnalyzerPass worked out on one thread with one 
+ * split over a ForkJoinPool with a thread for every processor, at a 
+ * number of player counts. Every MobInfo of every player is analyzed 
+ * on every run. Run it through its main method.
+ * @author CJ McGuire
+ */
+public class BenchmarkAnalyzerPass
+{
+	private static final int[] PLAYER_COUNTS = {100, 1000, 10000};
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args not used
+	 */
+	public static void main(String[] args)
+	{
+		final PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		final ForkJoinPool pool = new ForkJoinPool();
+		
+		System.out.println("Parallelism: " + pool.getParallelism());
+		
+		for(int playerCount: PLAYER_COUNTS)
+		{
+			playerDataManager.clearPlayerData();
+			addPlayers(playerDataManager, playerCount);
+			
+			Benchmark.measure(playerCount + " players, sequential", playerCount, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					runPass(playerDataManager, null);
+				}
+			});
+			
+			Benchmark.measure(playerCount + " players, parallel", playerCount, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					runPass(playerDataManager, pool);
+				}
+			});
+		}
+		
+		pool.shutdown();
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Marks every MobInfo of every player and runs a whole pass over 
+	 * them.
+	 */
+	private static void runPass(PlayerDataManager playerDataManager, ForkJoinPool pool)
+	{
+		for(PlayerInfo playerInfo: playerDataManager.getPlayerData())
+		{
+			playerInfo.markForAnalysis(-1L);
+		}
+		
+		AnalyzerPass pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), EstimatorMode.WINDOW);
+		pass.compute(pool);
+		Benchmark.sink = pass.commit(playerDataManager);
+	}
+	
+	/**
+	 * Adds the given number of players who have fought every type of 
+	 * mob.
+	 */
+	private static void addPlayers(PlayerDataManager playerDataManager, int playerCount)
+	{
+		Random random = new Random(playerCount);
+		
+		for(int i = 0; i < playerCount; i++)
+		{
+			PlayerInfo playerInfo = new PlayerInfo(new UUID(0, i));
+			
+			for(MobType mobType: MobType.values())
+			{
+				MobInfo mobInfo = playerInfo.getMobInfo(mobType);
+				for(int id = 0; id < 10; id++)
+				{
+					mobInfo.addIDToInteractedWithIDs(id);
+				}
+				mobInfo.addToDamagePlayerGave(random.nextInt(200));
+				mobInfo.addToDamagePlayerReceived(random.nextInt(100));
+			}
+			
+			playerDataManager.addPlayerInfo(playerInfo);
+		}
+	}
+}
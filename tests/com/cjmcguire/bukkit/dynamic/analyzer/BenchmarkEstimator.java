@@ -0,0 +1,98 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import java.util.Random;
+
+import com.cjmcguire.bukkit.dynamic.Benchmark;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+
+/**
+ * Measures what one update costs with every Estimator that comes with 
+ * the plugin. For each one, that is one estimate() and one step() as 
+ * the Analyzer calls them for a MobInfo, plus one recordHit() as the 
+ * Monitor calls it for every hit. Run it through its main method.
+ * @author CJ McGuire
+ */
+public class BenchmarkEstimator
+{
+	private static final int UPDATES = 1000000;
+	
+	private static final int HITS = 100000;
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args not used
+	 */
+	public static void main(String[] args)
+	{
+		Random random = new Random(UPDATES);
+		
+		final int[] interactedWith = new int[UPDATES];
+		final int[] damageGave = new int[UPDATES];
+		final int[] damageReceived = new int[UPDATES];
+		final double[] autoPerformanceLevels = new double[UPDATES];
+		
+		for(int i = 0; i < UPDATES; i++)
+		{
+			interactedWith[i] = MobInfo.MINIMUM_MOBS_TO_INTERACT_WITH + 
+					random.nextInt(MobInfo.ENCOUNTER_WINDOW_SIZE - MobInfo.MINIMUM_MOBS_TO_INTERACT_WITH);
+			damageGave[i] = random.nextInt(20 * interactedWith[i] + 1);
+			damageReceived[i] = random.nextInt(20 * interactedWith[i] + 1);
+			autoPerformanceLevels[i] = MobInfo.MIN_PERFORMANCE_LEVEL + 
+					random.nextInt(MobInfo.MAX_PERFORMANCE_LEVEL - MobInfo.MIN_PERFORMANCE_LEVEL);
+		}
+		
+		for(EstimatorMode estimatorMode: EstimatorMode.values())
+		{
+			final Estimator estimator = estimatorMode.getEstimator();
+			final double[] state = new double[UPDATES * Estimator.STATE_SIZE];
+			
+			Benchmark.measure(estimator.getName() + ", estimate and step", UPDATES, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					double sum = 0;
+					
+					for(int i = 0; i < UPDATES; i++)
+					{
+						int offset = i * Estimator.STATE_SIZE;
+						double estimated = 100;
+						
+						if(!estimator.isEstimatedByMonitor())
+						{
+							estimated = estimator.estimate(MobType.ZOMBIE, estimated, interactedWith[i], 
+									damageGave[i], damageReceived[i], state, offset);
+						}
+						sum += estimator.step(estimated, autoPerformanceLevels[i], 
+								MobInfo.DEFAULT_MAX_INCREMENT, state, offset);
+					}
+					
+					Benchmark.sink = sum;
+				}
+			});
+			
+			final MobInfo mobInfo = new MobInfo(MobType.ZOMBIE);
+			for(int id = 0; id < MobInfo.ENCOUNTER_WINDOW_SIZE; id++)
+			{
+				mobInfo.addIDToInteractedWithIDs(id);
+				mobInfo.addToDamagePlayerGave(random.nextInt(21));
+				mobInfo.addToDamagePlayerReceived(random.nextInt(21));
+			}
+			
+			Benchmark.measure(estimator.getName() + ", recordHit", HITS, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					for(int i = 0; i < HITS; i++)
+					{
+						estimator.recordHit(mobInfo);
+					}
+					
+					Benchmark.sink = mobInfo.getEstimatedPerformanceLevel();
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,377 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
+
+/**
+ * Tests the AnalyzerPass class.
+ * @author CJ McGuire
+ */
+public class TestAnalyzerPass
+{
+	private static final UUID PLAYER_1_ID = UUID.fromString("12345678-1234-1234-1234-123456789001");
+	private static final UUID PLAYER_2_ID = UUID.fromString("12345678-1234-1234-1234-123456789002");
+	
+	/**
+	 * Tests that nothing changes until the pass is committed, and 
+	 * that the committed levels are the ones the MobInfo would have 
+	 * worked out itself.
+	 */
+	@Test
+	public void testSnapshotComputeCommit()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerInfo playerInfo = makeFighter(PLAYER_1_ID);
+		playerDataManager.addPlayerInfo(playerInfo);
+		MobInfo blazeInfo = playerInfo.getMobInfo(MobType.BLAZE);
+		
+		AnalyzerPass pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), EstimatorMode.WINDOW);
+		assertEquals(1, pass.getEntries());
+		
+		// not computed yet
+		assertEquals(0, pass.commit(playerDataManager));
+		
+		pass.compute();
+		assertEquals(100, blazeInfo.getAutoPerformanceLevel(), .0001);
+		
+		assertEquals(1, pass.commit(playerDataManager));
+		
+		PlayerInfo expected = makeFighter(PLAYER_1_ID);
+		MobInfo expectedInfo = expected.getMobInfo(MobType.BLAZE);
+		expectedInfo.updateEstimatedPerformanceLevel();
+		expectedInfo.updateAutoPerformanceLevel();
+		
+		assertEquals(expectedInfo.getEstimatedPerformanceLevel(), blazeInfo.getEstimatedPerformanceLevel(), .0001);
+		assertEquals(expectedInfo.getAutoPerformanceLevel(), blazeInfo.getAutoPerformanceLevel(), .0001);
+		
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that a player who logged out between the snapshot and the 
+	 * commit is skipped, even after logging back in.
+	 */
+	@Test
+	public void testCommitSkipsLoggedOutPlayer()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerInfo playerInfo = makeFighter(PLAYER_1_ID);
+		playerDataManager.addPlayerInfo(playerInfo);
+		playerDataManager.addPlayerInfo(makeFighter(PLAYER_2_ID));
+		
+		AnalyzerPass pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), EstimatorMode.WINDOW);
+		pass.compute();
+		
+		playerDataManager.removePlayerInfo(PLAYER_1_ID);
+		PlayerInfo reloaded = makeFighter(PLAYER_1_ID);
+		playerDataManager.addPlayerInfo(reloaded);
+		
+		assertEquals(1, pass.commit(playerDataManager));
+		
+		assertEquals(100, playerInfo.getMobInfo(MobType.BLAZE).getAutoPerformanceLevel(), .0001);
+		assertEquals(100, reloaded.getMobInfo(MobType.BLAZE).getAutoPerformanceLevel(), .0001);
+		assertEquals(110, playerDataManager.getLoadedPlayerInfo(PLAYER_2_ID).getMobInfo(MobType.BLAZE).getAutoPerformanceLevel(), .0001);
+		
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that a player whose setting changed between the snapshot 
+	 * and the commit is skipped.
+	 */
+	@Test
+	public void testCommitSkipsChangedPlayer()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerInfo playerInfo = makeFighter(PLAYER_1_ID);
+		playerDataManager.addPlayerInfo(playerInfo);
+		MobInfo blazeInfo = playerInfo.getMobInfo(MobType.BLAZE);
+		
+		AnalyzerPass pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), EstimatorMode.WINDOW);
+		pass.compute();
+		
+		blazeInfo.setSetting(Setting.MANUAL);
+		
+		assertEquals(0, pass.commit(playerDataManager));
+		assertEquals(100, blazeInfo.getAutoPerformanceLevel(), .0001);
+		assertEquals(100, blazeInfo.getEstimatedPerformanceLevel(), .0001);
+		
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that only AUTO MobInfos that were marked are in the 
+	 * snapshot, and that the estimated performance levels are left 
+	 * alone with EstimatorMode.EWMA.
+	 */
+	@Test
+	public void testEWMA()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerInfo playerInfo = makeFighter(PLAYER_1_ID);
+		playerInfo.getMobInfo(MobType.ZOMBIE).setSetting(Setting.DISABLED);
+		playerDataManager.addPlayerInfo(playerInfo);
+		MobInfo blazeInfo = playerInfo.getMobInfo(MobType.BLAZE);
+		blazeInfo.setEstimatedPerformanceLevel(150);
+		
+		AnalyzerPass pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), EstimatorMode.EWMA);
+		assertEquals(1, pass.getEntries());
+		pass.compute();
+		
+		// the MonitorListener updates the estimate in the meantime
+		blazeInfo.setEstimatedPerformanceLevel(160);
+		
+		assertEquals(1, pass.commit(playerDataManager));
+		assertEquals(160, blazeInfo.getEstimatedPerformanceLevel(), .0001);
+		assertEquals(110, blazeInfo.getAutoPerformanceLevel(), .0001);
+		
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that players who have not fought since the last run are 
+	 * left out of the snapshot, and that a MobInfo whose auto 
+	 * performance level has not caught up with its estimated 
+	 * performance level is analyzed again until it has.
+	 */
+	@Test
+	public void testOnlyMarkedMobInfos()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerInfo playerInfo = makeFighter(PLAYER_1_ID);
+		playerDataManager.addPlayerInfo(playerInfo);
+		playerDataManager.addPlayerInfo(new PlayerInfo(PLAYER_2_ID));
+		MobInfo blazeInfo = playerInfo.getMobInfo(MobType.BLAZE);
+		
+		// 100 -> 200 takes ten runs of 10
+		for(int run = 1; run <= 10; run++)
+		{
+			AnalyzerPass pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), EstimatorMode.WINDOW);
+			assertEquals(1, pass.getPlayers());
+			assertEquals(1, pass.getEntries());
+			
+			pass.compute();
+			pass.commit(playerDataManager);
+			
+			assertEquals(100 + 10 * run, blazeInfo.getAutoPerformanceLevel(), .0001);
+		}
+		
+		AnalyzerPass pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), EstimatorMode.WINDOW);
+		assertEquals(0, pass.getPlayers());
+		
+		// fighting again marks it
+		blazeInfo.addToDamagePlayerReceived(5);
+		pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), EstimatorMode.WINDOW);
+		assertEquals(1, pass.getEntries());
+		
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that a player who was skipped by the commit is analyzed 
+	 * again on the next run.
+	 */
+	@Test
+	public void testSkippedPlayerIsMarkedAgain()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerInfo playerInfo = makeFighter(PLAYER_1_ID);
+		playerDataManager.addPlayerInfo(playerInfo);
+		
+		AnalyzerPass pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), EstimatorMode.WINDOW);
+		pass.compute();
+		
+		// changes the version without marking anything
+		playerInfo.getMobInfo(MobType.BLAZE).setScaleLoot(false);
+		assertEquals(0, pass.commit(playerDataManager));
+		
+		pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), EstimatorMode.WINDOW);
+		pass.compute();
+		assertEquals(1, pass.commit(playerDataManager));
+		assertEquals(110, playerInfo.getMobInfo(MobType.BLAZE).getAutoPerformanceLevel(), .0001);
+		
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that every MobInfo is worked out with the Estimator of its 
+	 * MobType, and that the Estimator's numbers are written back.
+	 */
+	@Test
+	public void testEstimatorPerMobType()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerInfo playerInfo = makeFighter(PLAYER_1_ID);
+		playerDataManager.addPlayerInfo(playerInfo);
+		MobInfo blazeInfo = playerInfo.getMobInfo(MobType.BLAZE);
+		MobInfo zombieInfo = playerInfo.getMobInfo(MobType.ZOMBIE);
+		zombieInfo.addIDToInteractedWithIDs(4);
+		zombieInfo.addIDToInteractedWithIDs(5);
+		zombieInfo.addIDToInteractedWithIDs(6);
+		zombieInfo.addToDamagePlayerGave(60);
+		
+		EstimatorSelection estimators = new EstimatorSelection(EstimatorMode.WINDOW);
+		estimators.setEstimator(MobType.BLAZE, EstimatorMode.PID.getEstimator());
+		
+		AnalyzerPass pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), estimators);
+		assertEquals(2, pass.getEntries());
+		pass.compute();
+		assertEquals(1, pass.commit(playerDataManager));
+		
+		assertEquals(200, blazeInfo.getEstimatedPerformanceLevel(), .0001);
+		assertEquals(110, blazeInfo.getAutoPerformanceLevel(), .0001);
+		assertEquals(0, blazeInfo.getEstimatorState(0), 0);
+		assertEquals(100, blazeInfo.getEstimatorState(1), .0001);
+		
+		assertEquals(200, zombieInfo.getEstimatedPerformanceLevel(), .0001);
+		assertEquals(110, zombieInfo.getAutoPerformanceLevel(), .0001);
+		assertEquals(0, zombieInfo.getEstimatorState(1), 0);
+		
+		// the controller carries on from the numbers it left
+		pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), estimators);
+		pass.compute();
+		pass.commit(playerDataManager);
+		assertEquals(90, blazeInfo.getEstimatorState(1), .0001);
+		
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that splitting a large pass over a ForkJoinPool works out 
+	 * the same performance levels and Estimator numbers as doing it 
+	 * on one thread.
+	 */
+	@Test
+	public void testParallelComputeMatchesSequential()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		List<PlayerInfo> sequentialPlayers = makeFighters(2000, new Random(7));
+		List<PlayerInfo> parallelPlayers = makeFighters(2000, new Random(7));
+		
+		EstimatorSelection estimators = new EstimatorSelection(EstimatorMode.WINDOW);
+		estimators.setEstimator(MobType.ZOMBIE, EstimatorMode.PID.getEstimator());
+		estimators.setEstimator(MobType.BLAZE, EstimatorMode.BAYESIAN.getEstimator());
+		
+		for(PlayerInfo playerInfo: sequentialPlayers)
+		{
+			playerDataManager.addPlayerInfo(playerInfo);
+		}
+		AnalyzerPass pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), estimators);
+		pass.compute();
+		assertEquals(2000, pass.commit(playerDataManager));
+		playerDataManager.clearPlayerData();
+		
+		for(PlayerInfo playerInfo: parallelPlayers)
+		{
+			playerDataManager.addPlayerInfo(playerInfo);
+		}
+		pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), estimators);
+		assertTrue(pass.getEntries() >= 2 * AnalyzerPass.MIN_PARTITION_SIZE);
+		
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try
+		{
+			pass.compute(pool);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		assertEquals(2000, pass.commit(playerDataManager));
+		playerDataManager.clearPlayerData();
+		
+		for(int i = 0; i < sequentialPlayers.size(); i++)
+		{
+			for(MobType mobType: MobType.values())
+			{
+				MobInfo expected = sequentialPlayers.get(i).getMobInfo(mobType);
+				MobInfo actual = parallelPlayers.get(i).getMobInfo(mobType);
+				
+				assertEquals(expected.getEstimatedPerformanceLevel(), actual.getEstimatedPerformanceLevel(), 0);
+				assertEquals(expected.getAutoPerformanceLevel(), actual.getAutoPerformanceLevel(), 0);
+				for(int index = 0; index < Estimator.STATE_SIZE; index++)
+				{
+					assertEquals(expected.getEstimatorState(index), actual.getEstimatorState(index), 0);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Makes the given number of players who have each fought three 
+	 * types of mobs, with damage picked by the given Random.
+	 */
+	private static List<PlayerInfo> makeFighters(int count, Random random)
+	{
+		MobType[] mobTypes = MobType.values();
+		List<PlayerInfo> playerList = new ArrayList<PlayerInfo>(count);
+		
+		for(int i = 0; i < count; i++)
+		{
+			PlayerInfo playerInfo = new PlayerInfo(new UUID(random.nextLong(), i));
+			
+			for(int fight = 0; fight < 3; fight++)
+			{
+				MobInfo mobInfo = playerInfo.getMobInfo(mobTypes[(i + fight * 7) % mobTypes.length]);
+				mobInfo.setAutoPerformanceLevel(50 + random.nextInt(100));
+				
+				int mobs = 3 + random.nextInt(10);
+				for(int id = 0; id < mobs; id++)
+				{
+					mobInfo.addIDToInteractedWithIDs(id);
+				}
+				mobInfo.addToDamagePlayerGave(random.nextInt(200));
+				mobInfo.addToDamagePlayerReceived(random.nextInt(100));
+			}
+			
+			playerList.add(playerInfo);
+		}
+		
+		return playerList;
+	}
+	
+	/**
+	 * Makes a player who has beaten three blazes without being hurt.
+	 */
+	private static PlayerInfo makeFighter(UUID playerID)
+	{
+		PlayerInfo playerInfo = new PlayerInfo(playerID);
+		
+		MobInfo blazeInfo = playerInfo.getMobInfo(MobType.BLAZE);
+		blazeInfo.addIDToInteractedWithIDs(1);
+		blazeInfo.addIDToInteractedWithIDs(2);
+		blazeInfo.addIDToInteractedWithIDs(3);
+		blazeInfo.addToDamagePlayerGave(100);
+		
+		return playerInfo;
+	}
+}
@@ -0,0 +1,231 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * Tests the AnalyzerSchedule class.
+ * @author CJ McGuire
+ */
+public class TestAnalyzerSchedule
+{
+	private static final int MIN_INTERVAL_TICKS = 20;
+	private static final int NORMAL_INTERVAL_TICKS = 100;
+	private static final int MAX_INTERVAL_TICKS = 400;
+	
+	private final Random random = new Random(42);
+	
+	/**
+	 * Tests that new players are each handed out once during the 
+	 * first minimum interval, on the tick of their phase.
+	 */
+	@Test
+	public void testNewPlayersAreSpread()
+	{
+		List<PlayerInfo> playerList = makePlayers(100);
+		AnalyzerSchedule schedule = makeSchedule();
+		
+		Set<UUID> handedOut = new HashSet<UUID>();
+		for(int tick = 0; tick < MIN_INTERVAL_TICKS; tick++)
+		{
+			schedule.nextTick(playerList);
+			
+			PlayerInfo playerInfo;
+			while((playerInfo = schedule.nextDuePlayer()) != null)
+			{
+				assertEquals(tick, AnalyzerSchedule.getPhase(playerInfo.getPlayerID(), MIN_INTERVAL_TICKS));
+				assertTrue(handedOut.add(playerInfo.getPlayerID()));
+				schedule.schedule(playerInfo, 0, 1);
+			}
+		}
+		
+		assertEquals(playerList.size(), handedOut.size());
+		assertEquals(playerList.size(), schedule.getPlayers());
+	}
+	
+	/**
+	 * Tests that the players are spread over the ticks of the 
+	 * interval.
+	 */
+	@Test
+	public void testPhasesAreSpread()
+	{
+		int[] playersPerTick = new int[MIN_INTERVAL_TICKS];
+		
+		for(PlayerInfo playerInfo: makePlayers(1000))
+		{
+			playersPerTick[AnalyzerSchedule.getPhase(playerInfo.getPlayerID(), MIN_INTERVAL_TICKS)]++;
+		}
+		
+		for(int tick = 0; tick < MIN_INTERVAL_TICKS; tick++)
+		{
+			assertTrue(playersPerTick[tick] > 0);
+			assertTrue(playersPerTick[tick] < 1000 / 4);
+		}
+	}
+	
+	/**
+	 * Tests that a player in combat is analyzed every minimum 
+	 * interval, a player who fights now and then every normal 
+	 * interval, and that an idle player backs off up to the maximum 
+	 * interval.
+	 */
+	@Test
+	public void testIntervalFollowsCombat()
+	{
+		List<PlayerInfo> playerList = makePlayers(1);
+		PlayerInfo playerInfo = playerList.get(0);
+		AnalyzerSchedule schedule = makeSchedule();
+		
+		waitUntilDue(schedule, playerList);
+		
+		// 10 hits in 5 seconds
+		assertEquals(MIN_INTERVAL_TICKS, schedule.schedule(playerInfo, 10, 1));
+		assertEquals(MIN_INTERVAL_TICKS, waitUntilDue(schedule, playerList));
+		
+		// 1 hit in 1 second is still combat
+		assertEquals(MIN_INTERVAL_TICKS, schedule.schedule(playerInfo, 1, 1));
+		waitUntilDue(schedule, playerList);
+		
+		// once the fight is over, back to the normal interval
+		assertEquals(NORMAL_INTERVAL_TICKS, schedule.schedule(playerInfo, 0, 1));
+		assertEquals(NORMAL_INTERVAL_TICKS, waitUntilDue(schedule, playerList));
+		
+		// 1 hit in 5 seconds is not combat
+		assertEquals(NORMAL_INTERVAL_TICKS, schedule.schedule(playerInfo, 1, 1));
+		assertEquals(NORMAL_INTERVAL_TICKS, waitUntilDue(schedule, playerList));
+		
+		assertEquals(2 * NORMAL_INTERVAL_TICKS, schedule.schedule(playerInfo, 0, 1));
+		assertEquals(2 * NORMAL_INTERVAL_TICKS, waitUntilDue(schedule, playerList));
+		
+		assertEquals(MAX_INTERVAL_TICKS, schedule.schedule(playerInfo, 0, 1));
+		assertEquals(MAX_INTERVAL_TICKS, waitUntilDue(schedule, playerList));
+		
+		assertEquals(MAX_INTERVAL_TICKS, schedule.schedule(playerInfo, 0, 1));
+		assertEquals(MAX_INTERVAL_TICKS, waitUntilDue(schedule, playerList));
+		
+		// straight back to the minimum when a fight starts
+		assertEquals(MIN_INTERVAL_TICKS, schedule.schedule(playerInfo, 200, 1));
+	}
+	
+	/**
+	 * Tests the getLoadFactor() method and that the load factor 
+	 * stretches the intervals within the bounds.
+	 */
+	@Test
+	public void testLoadFactor()
+	{
+		assertEquals(1, AnalyzerSchedule.getLoadFactor(50), .0001);
+		assertEquals(1, AnalyzerSchedule.getLoadFactor(52.5), .0001);
+		assertEquals(2, AnalyzerSchedule.getLoadFactor(55), .0001);
+		assertEquals(4, AnalyzerSchedule.getLoadFactor(60), .0001);
+		
+		List<PlayerInfo> playerList = makePlayers(1);
+		PlayerInfo playerInfo = playerList.get(0);
+		AnalyzerSchedule schedule = makeSchedule();
+		waitUntilDue(schedule, playerList);
+		
+		assertEquals(2 * MIN_INTERVAL_TICKS, schedule.schedule(playerInfo, 100, 2));
+		waitUntilDue(schedule, playerList);
+		assertEquals(MAX_INTERVAL_TICKS, schedule.schedule(playerInfo, 0, 10));
+	}
+	
+	/**
+	 * Tests that the players who were not taken on a tick are handed 
+	 * out first on the next tick.
+	 */
+	@Test
+	public void testResumesWhereItLeftOff()
+	{
+		List<PlayerInfo> playerList = makePlayers(10);
+		AnalyzerSchedule schedule = new AnalyzerSchedule(1, NORMAL_INTERVAL_TICKS, MAX_INTERVAL_TICKS);
+		
+		// everyone is due on the first tick, take one player a tick
+		List<PlayerInfo> handedOut = new ArrayList<PlayerInfo>();
+		for(int tick = 0; tick < playerList.size(); tick++)
+		{
+			schedule.nextTick(playerList);
+			assertEquals(playerList.size() - tick, schedule.getRemainingPlayers());
+			
+			PlayerInfo playerInfo = schedule.nextDuePlayer();
+			schedule.schedule(playerInfo, 0, 1);
+			handedOut.add(playerInfo);
+		}
+		
+		assertEquals(0, schedule.getRemainingPlayers());
+		assertEquals(new HashSet<PlayerInfo>(playerList), new HashSet<PlayerInfo>(handedOut));
+	}
+	
+	/**
+	 * Tests that a player who was removed is not handed out again 
+	 * until the player is picked up as a new player.
+	 */
+	@Test
+	public void testRemove()
+	{
+		List<PlayerInfo> playerList = makePlayers(1);
+		AnalyzerSchedule schedule = makeSchedule();
+		
+		waitUntilDue(schedule, playerList);
+		schedule.remove(playerList.get(0));
+		assertEquals(0, schedule.getPlayers());
+		
+		schedule.nextTick(Collections.<PlayerInfo>emptyList());
+		assertTrue(waitUntilDue(schedule, playerList) <= MIN_INTERVAL_TICKS * 2);
+		assertEquals(1, schedule.getPlayers());
+	}
+	
+	private static AnalyzerSchedule makeSchedule()
+	{
+		return new AnalyzerSchedule(MIN_INTERVAL_TICKS, NORMAL_INTERVAL_TICKS, MAX_INTERVAL_TICKS);
+	}
+	
+	/**
+	 * Moves the given schedule on until the player in the given list 
+	 * is handed out.
+	 * @return the number of ticks it took
+	 */
+	private static int waitUntilDue(AnalyzerSchedule schedule, List<PlayerInfo> playerList)
+	{
+		int ticks = 0;
+		PlayerInfo playerInfo = null;
+		
+		while(playerInfo == null)
+		{
+			assertTrue(ticks <= MAX_INTERVAL_TICKS);
+			
+			schedule.nextTick(playerList);
+			ticks++;
+			playerInfo = schedule.nextDuePlayer();
+		}
+		
+		assertSame(playerList.get(0), playerInfo);
+		return ticks;
+	}
+	
+	/**
+	 * Makes the given number of players with random UUIDs.
+	 */
+	private List<PlayerInfo> makePlayers(int count)
+	{
+		List<PlayerInfo> playerList = new ArrayList<PlayerInfo>();
+		
+		for(int i = 0; i < count; i++)
+		{
+			playerList.add(new PlayerInfo(new UUID(random.nextLong(), random.nextLong())));
+		}
+		
+		return playerList;
+	}
+}
@@ -70,4 +70,33 @@ public class TestAnalyzerTask
 		assertEquals(100, blazeInfo.getEstimatedPerformanceLevel(), .0001);
 		assertEquals(100, blazeInfo.getAutoPerformanceLevel(), .0001);
 	}
+	
+	/**
+	 * Tests the updatePlayerData() method when the EstimatorMode is 
+	 * EWMA. The estimated performance level is left alone and only 
+	 * the auto performance level moves toward it.
+	 */
+	@Test
+	public void testUpdatePlayerDataWhenEWMA()
+	{
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		
+		MobInfo blazeInfo = playerInfo.getMobInfo(MobType.BLAZE);
+		blazeInfo.addIDToInteractedWithIDs(1);
+		blazeInfo.addIDToInteractedWithIDs(2);
+		blazeInfo.addIDToInteractedWithIDs(3);
+		blazeInfo.addToDamagePlayerGave(100);
+		blazeInfo.setEstimatedPerformanceLevel(150);
+		
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		playerDataManager.addPlayerInfo(playerInfo);
+		
+		AnalyzerTask analyzer = new AnalyzerTask(EstimatorMode.EWMA);
+
+		analyzer.run();
+		
+		assertEquals(150, blazeInfo.getEstimatedPerformanceLevel(), .0001);
+		assertEquals(100 + blazeInfo.getMaxIncrement(), blazeInfo.getAutoPerformanceLevel(), .0001);
+	}
 }
@@ -0,0 +1,108 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+
+/**
+ * Tests the BayesianEstimator class.
+ * @author CJ McGuire
+ */
+public class TestBayesianEstimator
+{
+	private final Estimator estimator = EstimatorMode.BAYESIAN.getEstimator();
+	
+	/**
+	 * Tests that the first estimate moves most of the way to the 
+	 * measured level, since nothing is known about the player yet.
+	 */
+	@Test
+	public void testFirstEstimate()
+	{
+		double[] state = new double[Estimator.STATE_SIZE];
+		
+		// 10 zombies, all killed, no damage taken: measured at 200
+		double estimated = estimator.estimate(MobType.ZOMBIE, 100, 10, 200, 0, state, 0);
+		
+		assertTrue(estimated > 150);
+		assertTrue(estimated < 200);
+		assertTrue(state[0] > 0);
+		assertTrue(state[0] < BayesianEstimator.PRIOR_VARIANCE);
+	}
+	
+	/**
+	 * Tests that the same measurement moves the rating less once the 
+	 * estimator is sure of it.
+	 */
+	@Test
+	public void testSettles()
+	{
+		double[] state = new double[Estimator.STATE_SIZE];
+		
+		// a new window every run, always measured at 50
+		double estimated = 100;
+		for(int run = 0; run < 20; run++)
+		{
+			estimated = estimator.estimate(MobType.ZOMBIE, estimated, 10, run, 100 + run, state, 0);
+		}
+		assertEquals(50, estimated, .5);
+		
+		double settledVariance = state[0];
+		double moved = estimator.estimate(MobType.ZOMBIE, estimated, 10, 200, 0, state, 0) - estimated;
+		
+		double[] freshState = new double[Estimator.STATE_SIZE];
+		double freshMoved = estimator.estimate(MobType.ZOMBIE, estimated, 10, 200, 0, freshState, 0) - estimated;
+		
+		assertTrue(settledVariance < BayesianEstimator.PRIOR_VARIANCE);
+		assertTrue(moved > 0);
+		assertTrue(moved < freshMoved);
+	}
+	
+	/**
+	 * Tests that the same window is only counted once, so that a 
+	 * MobInfo that is analyzed again without new fights keeps its 
+	 * rating and variance.
+	 */
+	@Test
+	public void testSameWindowCountedOnce()
+	{
+		double[] state = new double[Estimator.STATE_SIZE];
+		
+		double estimated = estimator.estimate(MobType.ZOMBIE, 100, 10, 200, 0, state, 0);
+		double variance = state[0];
+		
+		assertEquals(estimated, estimator.estimate(MobType.ZOMBIE, estimated, 10, 200, 0, state, 0), 0);
+		assertEquals(variance, state[0], 0);
+		
+		// a new hit changes the window
+		assertTrue(estimator.estimate(MobType.ZOMBIE, estimated, 10, 201, 0, state, 0) > estimated);
+		assertTrue(state[0] != variance);
+	}
+	
+	/**
+	 * Tests that a measurement from more mobs is trusted more.
+	 */
+	@Test
+	public void testMoreMobsCountMore()
+	{
+		double fewMobs = estimator.estimate(MobType.ZOMBIE, 100, 3, 60, 0, new double[2], 0);
+		double manyMobs = estimator.estimate(MobType.ZOMBIE, 100, 50, 1000, 0, new double[2], 0);
+		
+		assertTrue(fewMobs < manyMobs);
+		assertTrue(manyMobs <= MobInfo.MAX_PERFORMANCE_LEVEL);
+	}
+	
+	/**
+	 * Tests that the auto performance level is moved the same way as 
+	 * the window Estimator moves it.
+	 */
+	@Test
+	public void testStep()
+	{
+		assertEquals(110, estimator.step(150, 100, 10, new double[2], 0), .0001);
+		assertEquals(105, estimator.step(105, 100, 10, new double[2], 0), .0001);
+	}
+}
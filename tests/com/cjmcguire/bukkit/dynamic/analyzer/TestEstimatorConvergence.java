@@ -0,0 +1,297 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * Compares how well the Estimators that come with the plugin follow a 
+ * player whose real level is known. The fights are made up by the 
+ * test: a player fights zombies, killing each one, and takes about 
+ * half of a zombie's health in damage per zombie for the first 150, 
+ * which is a level of 150, and about 6/5 of it for the last 100, 
+ * which is a level of 80. Each Estimator is judged on how closely it 
+ * follows the drop and on where it settles, against the others and 
+ * against the level the fight was made with rather than against its 
+ * own estimated performance level. The hits are fed through each 
+ * Estimator the same way the Monitor and the Analyzer would, for a 
+ * number of differently seeded fights.
+ * @author CJ McGuire
+ */
+public class TestEstimatorConvergence
+{
+	private static final UUID PLAYER_ID = UUID.fromString("12345678-1234-1234-1234-123456789001");
+	
+	private static final int FIGHTS = 20;
+	
+	private static final int ZOMBIES_BEFORE_DROP = 150;
+	private static final int ZOMBIES_AFTER_DROP = 100;
+	
+	// A zombie has 20 health, and the player deals at least that to 
+	// every zombie, so the level is 200 - 5 * the damage taken.
+	private static final int DAMAGE_TAKEN_BEFORE_DROP = 10;
+	private static final int DAMAGE_TAKEN_AFTER_DROP = 24;
+	private static final double LEVEL_AFTER_DROP = 80;
+	
+	// The Analyzer runs once every this many hits, which is about 
+	// every five seconds for a player in combat.
+	private static final int HITS_PER_RUN = 10;
+	
+	// The number of runs after the last hit, which is enough for any 
+	// auto performance level to catch up.
+	private static final int RUNS_AFTER_FIGHT = 20;
+	
+	// How far from the real level every Estimator must end up, on 
+	// average over the fights. Each zombie's damage is drawn with a 
+	// spread of 4, which is 20 levels, so a level worked out from 
+	// the last 50 zombies is off by about 3.
+	private static final double SETTLED_TOLERANCE = 5;
+	
+	private static Map<EstimatorMode, Accuracy> results;
+	
+	/**
+	 * Plays the same fights through every EstimatorMode.
+	 */
+	@BeforeClass
+	public static void playFights()
+	{
+		results = new EnumMap<EstimatorMode, Accuracy>(EstimatorMode.class);
+		
+		for(EstimatorMode estimatorMode: EstimatorMode.values())
+		{
+			Accuracy accuracy = new Accuracy();
+			for(int seed = 0; seed < FIGHTS; seed++)
+			{
+				playFight(estimatorMode, makeFight(new Random(seed)), accuracy);
+			}
+			results.put(estimatorMode, accuracy);
+		}
+	}
+	
+	/**
+	 * Tests that every Estimator ends up at the player's real level 
+	 * once the player has fought long enough at it.
+	 */
+	@Test
+	public void testEveryEstimatorSettles()
+	{
+		for(EstimatorMode estimatorMode: EstimatorMode.values())
+		{
+			double settledError = results.get(estimatorMode).getSettledError();
+			
+			assertTrue(estimatorMode.getName() + " ended up " + settledError + " away",
+					settledError < SETTLED_TOLERANCE);
+		}
+	}
+	
+	/**
+	 * Tests that the EWMA Estimator follows the drop faster than the 
+	 * window Estimator, which has to wait for the zombies from before 
+	 * the drop to leave the window, but ends up less steady, since it 
+	 * gives most of its weight to the last few zombies.
+	 */
+	@Test
+	public void testEwmaFollowsFasterButIsNoisier()
+	{
+		Accuracy window = results.get(EstimatorMode.WINDOW);
+		Accuracy ewma = results.get(EstimatorMode.EWMA);
+		
+		assertTrue(ewma.getTrackingError() < window.getTrackingError());
+		assertTrue(ewma.getSettledError() > window.getSettledError());
+	}
+	
+	/**
+	 * Tests that the Bayesian Estimator, which weighs the window 
+	 * against what it saw before, follows the drop a little more 
+	 * slowly than the window Estimator, but not much.
+	 */
+	@Test
+	public void testBayesianFollowsSlightlySlower()
+	{
+		Accuracy window = results.get(EstimatorMode.WINDOW);
+		Accuracy bayesian = results.get(EstimatorMode.BAYESIAN);
+		
+		assertTrue(bayesian.getTrackingError() >= window.getTrackingError());
+		assertTrue(bayesian.getTrackingError() < window.getTrackingError() * 1.25);
+	}
+	
+	/**
+	 * Tests that the PID Estimator, which takes smaller steps as it 
+	 * gets close, follows the drop about as well as the window 
+	 * Estimator's fixed steps and settles at the same level.
+	 */
+	@Test
+	public void testPidMatchesWindow()
+	{
+		Accuracy window = results.get(EstimatorMode.WINDOW);
+		Accuracy pid = results.get(EstimatorMode.PID);
+		
+		assertEquals(window.getTrackingError(), pid.getTrackingError(), 1);
+		assertEquals(window.getSettledError(), pid.getSettledError(), .5);
+	}
+	
+	/**
+	 * Makes up the hits of one fight. Every hit is its zombie's 
+	 * entity id, 1 if the player gave the damage or 0 if the player 
+	 * received it, the damage, and 1 if the zombie was fought after 
+	 * the drop.
+	 */
+	private static List<int[]> makeFight(Random random)
+	{
+		List<int[]> fight = new ArrayList<int[]>();
+		
+		int entityID = 4000;
+		for(int zombie = 0; zombie < ZOMBIES_BEFORE_DROP + ZOMBIES_AFTER_DROP; zombie++)
+		{
+			entityID += 1 + random.nextInt(9);
+			
+			int afterDrop = 0;
+			int damageTaken = DAMAGE_TAKEN_BEFORE_DROP;
+			if(zombie >= ZOMBIES_BEFORE_DROP)
+			{
+				afterDrop = 1;
+				damageTaken = DAMAGE_TAKEN_AFTER_DROP;
+			}
+			int toTake = Math.max(0, (int) Math.round(damageTaken + random.nextGaussian() * 4));
+			
+			// hits of 3 to 7 until the zombie is dead, each answered 
+			// most of the time by a hit of 2 to 5 from the zombie
+			int gave = 0;
+			int received = 0;
+			while(gave < 20 || received < toTake)
+			{
+				if(gave < 20)
+				{
+					int damage = 3 + random.nextInt(5);
+					gave += damage;
+					fight.add(new int[] {entityID, 1, damage, afterDrop});
+				}
+				
+				if(received < toTake && (gave >= 20 || random.nextDouble() < 0.8))
+				{
+					int damage = Math.min(2 + random.nextInt(4), toTake - received);
+					received += damage;
+					fight.add(new int[] {entityID, 0, damage, afterDrop});
+				}
+			}
+		}
+		
+		return fight;
+	}
+	
+	/**
+	 * Plays the given fight with the given EstimatorMode, and adds how 
+	 * far the auto performance level was from the player's level after 
+	 * the drop to the given Accuracy.
+	 */
+	private static void playFight(EstimatorMode estimatorMode, List<int[]> fight, Accuracy accuracy)
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_ID);
+		playerDataManager.addPlayerInfo(playerInfo);
+		
+		EstimatorSelection estimators = new EstimatorSelection(estimatorMode);
+		Estimator estimator = estimators.getEstimator(MobType.ZOMBIE);
+		MobInfo mobInfo = playerInfo.getMobInfo(MobType.ZOMBIE);
+		
+		int hits = 0;
+		for(int[] damage: fight)
+		{
+			mobInfo.addIDToInteractedWithIDs(damage[0]);
+			if(damage[1] == 1)
+			{
+				mobInfo.addToDamagePlayerGave(damage[2]);
+			}
+			else
+			{
+				mobInfo.addToDamagePlayerReceived(damage[2]);
+			}
+			mobInfo.recordCombatEvent();
+			estimator.recordHit(mobInfo);
+			
+			hits++;
+			if(hits % HITS_PER_RUN == 0)
+			{
+				runAnalyzer(playerDataManager, estimators);
+				
+				if(damage[3] == 1)
+				{
+					accuracy.addTracking(Math.abs(mobInfo.getAutoPerformanceLevel() - LEVEL_AFTER_DROP));
+				}
+			}
+		}
+		
+		for(int run = 0; run < RUNS_AFTER_FIGHT; run++)
+		{
+			runAnalyzer(playerDataManager, estimators);
+		}
+		accuracy.addSettled(Math.abs(mobInfo.getAutoPerformanceLevel() - LEVEL_AFTER_DROP));
+		
+		playerDataManager.clearPlayerData();
+	}
+	
+	private static void runAnalyzer(PlayerDataManager playerDataManager, EstimatorSelection estimators)
+	{
+		AnalyzerPass pass = AnalyzerPass.snapshot(playerDataManager.getPlayerData(), estimators);
+		pass.compute();
+		pass.commit(playerDataManager);
+	}
+	
+	/**
+	 * How far one EstimatorMode was from the real level, over all of 
+	 * the fights.
+	 */
+	private static class Accuracy
+	{
+		private double trackingError = 0;
+		private int trackingRuns = 0;
+		
+		private double settledError = 0;
+		private int fights = 0;
+		
+		void addTracking(double error)
+		{
+			trackingError += error;
+			trackingRuns++;
+		}
+		
+		void addSettled(double error)
+		{
+			settledError += error;
+			fights++;
+		}
+		
+		/**
+		 * @return the average distance from the real level over every 
+		 * run of the Analyzer from the drop to the end of the fights
+		 */
+		double getTrackingError()
+		{
+			return trackingError / trackingRuns;
+		}
+		
+		/**
+		 * @return the average distance from the real level once the 
+		 * fights were over and the auto performance level caught up
+		 */
+		double getSettledError()
+		{
+			return settledError / fights;
+		}
+	}
+}
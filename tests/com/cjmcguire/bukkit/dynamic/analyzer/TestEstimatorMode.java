@@ -0,0 +1,67 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests the EstimatorMode enum.
+ * @author CJ McGuire
+ */
+public class TestEstimatorMode
+{
+	/**
+	 * This test is here mostly to boost code coverage.
+	 */
+	@Test
+	public void boostCoverage()
+	{
+		EstimatorMode[] estimatorModes = EstimatorMode.values();
+		for(int looper = 0; looper < estimatorModes.length; looper++)
+		{
+			assertEquals(looper, estimatorModes[looper].ordinal());
+		}
+		
+		assertEquals(EstimatorMode.WINDOW, EstimatorMode.valueOf("WINDOW"));
+	}
+	
+	/**
+	 * Tests the getName() method
+	 */
+	@Test
+	public void testGetName()
+	{
+		assertEquals("window", EstimatorMode.WINDOW.getName());
+		assertEquals("ewma", EstimatorMode.EWMA.getName());
+		assertEquals("bayesian", EstimatorMode.BAYESIAN.getName());
+		assertEquals("pid", EstimatorMode.PID.getName());
+	}
+	
+	/**
+	 * Tests the getEstimator() method
+	 */
+	@Test
+	public void testGetEstimator()
+	{
+		for(EstimatorMode estimatorMode: EstimatorMode.values())
+		{
+			assertEquals(estimatorMode.getName(), estimatorMode.getEstimator().getName());
+		}
+		
+		assertTrue(EstimatorMode.EWMA.getEstimator().isEstimatedByMonitor());
+		assertFalse(EstimatorMode.WINDOW.getEstimator().isEstimatedByMonitor());
+	}
+	
+	/**
+	 * Tests the getEstimatorMode() method
+	 */
+	@Test
+	public void testGetEstimatorMode()
+	{
+		assertEquals(EstimatorMode.WINDOW, EstimatorMode.getEstimatorMode("window"));
+		assertEquals(EstimatorMode.EWMA, EstimatorMode.getEstimatorMode("EWMA"));
+		assertEquals(EstimatorMode.BAYESIAN, EstimatorMode.getEstimatorMode("Bayesian"));
+		assertEquals(EstimatorMode.PID, EstimatorMode.getEstimatorMode("pid"));
+		assertNull(EstimatorMode.getEstimatorMode("not estimator"));
+	}
+}
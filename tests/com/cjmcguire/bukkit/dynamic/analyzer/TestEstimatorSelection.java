@@ -0,0 +1,34 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+
+/**
+ * Tests the EstimatorSelection class.
+ * @author CJ McGuire
+ */
+public class TestEstimatorSelection
+{
+	/**
+	 * Tests that every MobType uses the server's Estimator until 
+	 * another one is set for it.
+	 */
+	@Test
+	public void testGetAndSetEstimator()
+	{
+		EstimatorSelection estimators = new EstimatorSelection(EstimatorMode.EWMA);
+		
+		for(MobType mobType: MobType.values())
+		{
+			assertSame(EstimatorMode.EWMA.getEstimator(), estimators.getEstimator(mobType));
+		}
+		
+		estimators.setEstimator(MobType.ZOMBIE, EstimatorMode.PID.getEstimator());
+		
+		assertSame(EstimatorMode.PID.getEstimator(), estimators.getEstimator(MobType.ZOMBIE));
+		assertSame(EstimatorMode.EWMA.getEstimator(), estimators.getEstimator(MobType.SKELETON));
+	}
+}
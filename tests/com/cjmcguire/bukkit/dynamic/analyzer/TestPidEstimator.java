@@ -0,0 +1,146 @@
+package com.cjmcguire.bukkit.dynamic.analyzer;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+
+/**
+ * Tests the PidEstimator class.
+ * @author CJ McGuire
+ */
+public class TestPidEstimator
+{
+	private final Estimator estimator = EstimatorMode.PID.getEstimator();
+	
+	/**
+	 * Tests that the auto performance level never moves by more than 
+	 * the max increment and reaches the estimated performance level 
+	 * without overshooting it.
+	 */
+	@Test
+	public void testClimb()
+	{
+		double[] state = new double[Estimator.STATE_SIZE];
+		
+		double auto = 100;
+		int runs = 0;
+		while(auto != 160 && runs < 50)
+		{
+			double next = estimator.step(160, auto, 10, state, 0);
+			
+			assertTrue(next - auto <= 10);
+			assertTrue(next > auto);
+			assertTrue(next <= 160);
+			
+			auto = next;
+			runs++;
+		}
+		
+		assertEquals(160, auto, 0);
+		assertTrue(runs < 20);
+		
+		// settled, so the controller starts over
+		assertEquals(0, state[0], 0);
+		assertEquals(0, state[1], 0);
+	}
+	
+	/**
+	 * Tests that a small error is closed in smaller steps than the 
+	 * window Estimator takes, instead of in one jump.
+	 */
+	@Test
+	public void testSmallError()
+	{
+		double[] state = new double[Estimator.STATE_SIZE];
+		
+		double auto = estimator.step(105, 100, 10, state, 0);
+		
+		assertTrue(auto > 100);
+		assertTrue(auto < 105);
+		assertEquals(5, state[1], .0001);
+	}
+	
+	/**
+	 * Tests that the auto performance level comes down as well as up.
+	 */
+	@Test
+	public void testDescent()
+	{
+		double[] state = new double[Estimator.STATE_SIZE];
+		
+		double auto = 150;
+		for(int run = 0; run < 30; run++)
+		{
+			auto = estimator.step(80, auto, 10, state, 0);
+			assertTrue(auto >= 80);
+		}
+		
+		assertEquals(80, auto, 0);
+	}
+	
+	/**
+	 * Tests that the auto performance level does not move away from 
+	 * the estimated performance level when the error has just dropped 
+	 * a lot, such as after a clamped step. An error of 2 after an 
+	 * error of 12 would otherwise give an output of 1.2 - 2 = -0.8.
+	 */
+	@Test
+	public void testNeverMovesAway()
+	{
+		double[] state = new double[Estimator.STATE_SIZE];
+		state[1] = 12;
+		
+		double auto = estimator.step(102, 100, 10, state, 0);
+		assertTrue(auto >= 100);
+		assertTrue(auto <= 102);
+		
+		state = new double[Estimator.STATE_SIZE];
+		state[1] = -12;
+		
+		auto = estimator.step(98, 100, 10, state, 0);
+		assertTrue(auto <= 100);
+		assertTrue(auto >= 98);
+	}
+	
+	/**
+	 * Tests that the auto performance level never moves away from the 
+	 * estimated performance level while it follows one that keeps 
+	 * jumping around.
+	 */
+	@Test
+	public void testFollowsJumps()
+	{
+		double[] state = new double[Estimator.STATE_SIZE];
+		double[] targets = {160, 40, 170, 95, 101, 30, 200, 150};
+		
+		double auto = 100;
+		for(double target: targets)
+		{
+			for(int run = 0; run < 8; run++)
+			{
+				double next = estimator.step(target, auto, 10, state, 0);
+				
+				assertTrue((next - auto) * (target - auto) >= 0);
+				assertTrue(Math.abs(next - auto) <= 10);
+				
+				auto = next;
+			}
+		}
+	}
+	
+	/**
+	 * Tests that the estimated performance level is worked out the 
+	 * same way as the window Estimator works it out.
+	 */
+	@Test
+	public void testEstimate()
+	{
+		Estimator window = EstimatorMode.WINDOW.getEstimator();
+		double[] state = new double[Estimator.STATE_SIZE];
+		
+		assertEquals(window.estimate(MobType.BLAZE, 100, 10, 150, 30, state, 0), 
+				estimator.estimate(MobType.BLAZE, 100, 10, 150, 30, state, 0), 0);
+	}
+}
@@ -2,6 +2,7 @@ package com.cjmcguire.bukkit.dynamic.commands;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
 import java.util.UUID;
 
 import org.bukkit.command.ConsoleCommandSender;
@@ -11,9 +12,13 @@ import org.junit.Test;
 
 import com.cjmcguire.bukkit.dynamic.MockPlayer;
 import com.cjmcguire.bukkit.dynamic.MockServer;
+import com.cjmcguire.bukkit.dynamic.commands.core.ChangeSettingCommand;
 import com.cjmcguire.bukkit.dynamic.commands.core.InfoCommand;
+import com.cjmcguire.bukkit.dynamic.filehandlers.PlayerFileHandler;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
 
 /**
  * Tests the PlayerTargetableCommand class.
@@ -500,4 +505,60 @@ public class TestPlayerTargetableCommand
 		EasyMock.verify(mockSender);
 		EasyMock.verify(mockServer);
 	}
+	
+	/**
+	 * Tests the executeCommand() method under the following 
+	 * conditions:
+	 *   1. The sender is the Console.
+	 *   2. The sender is asking for another player.
+	 *   3. The other player is not logged in but has stored data.
+	 */
+	@Test
+	public void testWhenConsoleAsksForOfflinePlayer()
+	{
+		UUID offlinePlayerID = UUID.fromString("12345678-1234-1234-1234-123456789999");
+		File playerFile = new File("players" + File.separator + offlinePlayerID + ".yml");
+		
+		// Save the offline player's data.
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null);
+		playerDataManager.setPlayerFileHandler(fileHandler);
+		
+		PlayerInfo playerInfo = new PlayerInfo(offlinePlayerID);
+		playerInfo.setLastKnownName(PLAYER_2_NAME);
+		playerDataManager.addPlayerInfo(playerInfo);
+		fileHandler.savePlayerData(offlinePlayerID);
+		playerDataManager.clearPlayerData();
+		
+		// Create the mock server.
+		MockServer mockServer = EasyMock.createNiceMock(MockServer.class);
+		EasyMock.expect(mockServer.getPlayerExact(PLAYER_2_NAME)).andReturn(null);
+		EasyMock.replay(mockServer);
+		
+		// Create the mock sender.
+		ConsoleCommandSender mockSender = EasyMock.createNiceMock(ConsoleCommandSender.class);
+		EasyMock.replay(mockSender);
+		
+		// Perform the command.
+		ChangeSettingCommand changeSettingCommand = new ChangeSettingCommand(mockServer);
+		String [] args = {"changesetting", "zombie", "manual", PLAYER_2_NAME};
+		boolean valid = changeSettingCommand.executeCommand(mockSender, args);
+		
+		assertTrue(valid);
+		
+		// The data was saved and let go of.
+		assertFalse(playerDataManager.playerInfoExists(offlinePlayerID));
+		assertTrue(playerDataManager.loadStoredPlayerInfo(offlinePlayerID));
+		assertEquals(Setting.MANUAL, playerDataManager.getPlayersMobInfo(offlinePlayerID, MobType.ZOMBIE).getSetting());
+		playerDataManager.clearPlayerData();
+		
+		// Verify mocks.
+		EasyMock.verify(mockServer);
+		
+		playerFile.delete();
+		new File(playerFile.getPath() + ".bak").delete();
+		playerDataManager.setPlayerFileHandler(null);
+	}
 }
\ No newline at end of file
@@ -20,6 +20,7 @@ import com.cjmcguire.bukkit.dynamic.MockLivingEntity;
 import com.cjmcguire.bukkit.dynamic.MockPlayer;
 import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
 import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobTypeCache;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
 
@@ -40,6 +41,7 @@ public class TestLootControllerListener
 	{
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		
@@ -64,6 +66,7 @@ public class TestLootControllerListener
 	{
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		
@@ -88,6 +91,7 @@ public class TestLootControllerListener
 	{
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		
@@ -114,6 +118,7 @@ public class TestLootControllerListener
 	{
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		
@@ -145,6 +150,7 @@ public class TestLootControllerListener
 	{
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		
@@ -176,6 +182,7 @@ public class TestLootControllerListener
 	{
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		
@@ -211,12 +218,14 @@ public class TestLootControllerListener
         EasyMock.replay(mockPlayer);
         
         LivingEntity mockKilledEntity = EasyMock.createMockBuilder(MockLivingEntity.class).createMock();
+		EasyMock.expect(mockKilledEntity.getEntityId()).andReturn(1).times(2);
 		EasyMock.expect(mockKilledEntity.getType()).andReturn(EntityType.ZOMBIE);
 		EasyMock.expect(mockKilledEntity.getKiller()).andReturn(mockPlayer);
 		EasyMock.replay(mockKilledEntity);
 		
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		MobInfo zombieInfo = playerInfo.getMobInfo(MobType.ZOMBIE);
@@ -252,12 +261,14 @@ public class TestLootControllerListener
         EasyMock.replay(mockPlayer);
         
         LivingEntity mockKilledEntity = EasyMock.createMockBuilder(MockLivingEntity.class).createMock();
+		EasyMock.expect(mockKilledEntity.getEntityId()).andReturn(1);
 		EasyMock.expect(mockKilledEntity.getType()).andReturn(EntityType.ZOMBIE);
 		EasyMock.expect(mockKilledEntity.getKiller()).andReturn(mockPlayer);
 		EasyMock.replay(mockKilledEntity);
 		
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		MobInfo zombieInfo = playerInfo.getMobInfo(MobType.ZOMBIE);
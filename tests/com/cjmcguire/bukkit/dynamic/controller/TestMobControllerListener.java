@@ -12,6 +12,7 @@ import org.junit.Test;
 
 import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
 import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobTypeCache;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
 import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
@@ -40,6 +41,7 @@ public class TestMobControllerListener
 		
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		playerDataManager.addPlayerInfo(playerInfo);
 		
 		MobControllerListener controller = new MobControllerListener();
@@ -65,6 +67,7 @@ public class TestMobControllerListener
 		
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		playerDataManager.addPlayerInfo(playerInfo);
 		
 		MobControllerListener controller = new MobControllerListener();
@@ -90,6 +93,7 @@ public class TestMobControllerListener
 		
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		playerDataManager.addPlayerInfo(playerInfo);
 		
 		MobControllerListener controller = new MobControllerListener();
@@ -116,6 +120,7 @@ public class TestMobControllerListener
 		
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		playerDataManager.addPlayerInfo(playerInfo);
 		
 		MobControllerListener controller = new MobControllerListener();
@@ -140,6 +145,7 @@ public class TestMobControllerListener
 		
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		playerDataManager.addPlayerInfo(playerInfo);
 		
 		MobControllerListener controller = new MobControllerListener();
@@ -165,6 +171,7 @@ public class TestMobControllerListener
 		
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		playerDataManager.addPlayerInfo(playerInfo);
 		
 		MobControllerListener controller = new MobControllerListener();
@@ -190,6 +197,7 @@ public class TestMobControllerListener
 		
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		playerDataManager.addPlayerInfo(playerInfo);
 		
 		MobControllerListener controller = new MobControllerListener();
@@ -216,6 +224,7 @@ public class TestMobControllerListener
 		
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		playerDataManager.addPlayerInfo(playerInfo);
 		
 		MobControllerListener controller = new MobControllerListener();
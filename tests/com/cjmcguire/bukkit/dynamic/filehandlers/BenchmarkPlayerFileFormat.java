@@ -0,0 +1,103 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.cjmcguire.bukkit.dynamic.Benchmark;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * Compares how fast a YamlPlayerStore loads 10,000 player files 
+ * through the PlayerFileFormat and through a YamlConfiguration. The 
+ * second set of files starts with a key that the PlayerFileFormat 
+ * does not know, so that every one of them is read by a 
+ * YamlConfiguration instead, the way every player file was read 
+ * before. Run it from the plugin's root folder, so that the 
+ * default_player.yml can be found, through its main method.
+ * @author CJ McGuire
+ */
+public class BenchmarkPlayerFileFormat
+{
+	private static final int PLAYERS = 10000;
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args not used
+	 * @throws IOException if a player file cannot be written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		File folder = new File("benchmark_player_files");
+		deleteFolder(folder);
+		
+		List<PlayerInfo> snapshots = new ArrayList<PlayerInfo>();
+		for(int i = 0; i < PLAYERS; i++)
+		{
+			PlayerInfo playerInfo = new PlayerInfo(new UUID(0, i));
+			playerInfo.setLastKnownName("player" + i);
+			playerInfo.getMobInfo(MobType.ZOMBIE).setAutoPerformanceLevel(50 + i % 100);
+			snapshots.add(playerInfo.snapshot());
+		}
+		
+		YamlPlayerStore formatStore = new YamlPlayerStore(new File(folder, "format"), YamlConfiguration.loadConfiguration(new File("default_player.yml")));
+		formatStore.saveBatch(snapshots);
+		
+		File yamlFolder = new File(folder, "yaml");
+		YamlPlayerStore yamlStore = new YamlPlayerStore(yamlFolder, YamlConfiguration.loadConfiguration(new File("default_player.yml")));
+		yamlStore.saveBatch(snapshots);
+		for(File playerFile: yamlFolder.listFiles())
+		{
+			byte[] contents = Files.readAllBytes(playerFile.toPath());
+			Files.write(playerFile.toPath(), ("benchmark: true\n" + new String(contents, "UTF-8")).getBytes("UTF-8"));
+		}
+		
+		measureLoad("YamlPlayerStore load (YamlConfiguration)", yamlStore);
+		measureLoad("YamlPlayerStore load (PlayerFileFormat)", formatStore);
+		
+		deleteFolder(folder);
+	}
+	
+	private static void measureLoad(String name, final YamlPlayerStore store)
+	{
+		Benchmark.measure(name, PLAYERS, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					PlayerInfo playerInfo = null;
+					for(int i = 0; i < PLAYERS; i++)
+					{
+						playerInfo = store.load(new UUID(0, i));
+					}
+					Benchmark.sink = playerInfo;
+				}
+				catch(IOException e)
+				{
+					throw new IllegalStateException(e);
+				}
+			}
+		});
+	}
+	
+	private static void deleteFolder(File folder)
+	{
+		File[] files = folder.listFiles();
+		if(files != null)
+		{
+			for(File file: files)
+			{
+				deleteFolder(file);
+			}
+		}
+		folder.delete();
+	}
+}
@@ -0,0 +1,169 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import com.cjmcguire.bukkit.dynamic.Benchmark;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * Compares how fast each PlayerStore saves players one at a time,
+ * saves them in one batch, and loads them, and how large the player
+ * yml files are with and without sparse player files. Every PlayerStore keeps
+ * its data in a scratch folder that is deleted afterwards. Run it
+ * from the plugin's root folder, so that the default_player.yml can
+ * be found, through its main method.
+ * @author CJ McGuire
+ */
+public class BenchmarkPlayerStore
+{
+	private static final int PLAYERS = 1000;
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args not used
+	 * @throws IOException if a PlayerStore fails
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		File folder = new File("benchmark_players");
+		deleteFolder(folder);
+		folder.mkdirs();
+		
+		final List<PlayerInfo> snapshots = new ArrayList<PlayerInfo>();
+		for(int i = 0; i < PLAYERS; i++)
+		{
+			PlayerInfo playerInfo = new PlayerInfo(new UUID(0, i));
+			playerInfo.setLastKnownName("player" + i);
+			playerInfo.getMobInfo(MobType.ZOMBIE).setAutoPerformanceLevel(50 + i % 100);
+			snapshots.add(playerInfo.snapshot());
+		}
+		
+		YamlPlayerStore sparseStore = new YamlPlayerStore(new File(folder, "sparse_yaml"), YamlConfiguration.loadConfiguration(new File("default_player.yml")));
+		sparseStore.setSparse(true);
+		
+		PlayerStore[] stores = {
+			new YamlPlayerStore(new File(folder, "yaml"), YamlConfiguration.loadConfiguration(new File("default_player.yml"))),
+			sparseStore,
+			new BinaryPlayerStore(new File(folder, "players.dat")),
+			new SqlPlayerStore(new File(folder, "players.db")),
+			new JournaledPlayerStore(new File(folder, "players.journal"), new BinaryPlayerStore(new File(folder, "journaled_players.dat"))),
+		};
+		
+		String[] names = {
+			"YamlPlayerStore",
+			"YamlPlayerStore (sparse)",
+			"BinaryPlayerStore",
+			"SqlPlayerStore",
+			"JournaledPlayerStore",
+		};
+		
+		for(int i = 0; i < stores.length; i++)
+		{
+			final PlayerStore store = stores[i];
+			String name = names[i];
+			
+			Benchmark.measure(name + " save", PLAYERS, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						for(PlayerInfo snapshot: snapshots)
+						{
+							store.save(snapshot);
+						}
+					}
+					catch(IOException e)
+					{
+						throw new IllegalStateException(e);
+					}
+				}
+			});
+			
+			Benchmark.measure(name + " saveBatch", PLAYERS, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						store.saveBatch(snapshots);
+					}
+					catch(IOException e)
+					{
+						throw new IllegalStateException(e);
+					}
+				}
+			});
+			
+			Benchmark.measure(name + " load", PLAYERS, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						PlayerInfo playerInfo = null;
+						for(int i = 0; i < PLAYERS; i++)
+						{
+							playerInfo = store.load(new UUID(0, i));
+						}
+						Benchmark.sink = playerInfo;
+					}
+					catch(IOException e)
+					{
+						throw new IllegalStateException(e);
+					}
+				}
+			});
+			
+			store.close();
+		}
+		
+		printFileSize("YamlPlayerStore", new File(folder, "yaml"));
+		printFileSize("YamlPlayerStore (sparse)", new File(folder, "sparse_yaml"));
+		
+		deleteFolder(folder);
+	}
+	
+	/**
+	 * Prints the average size of the player yml files in the given 
+	 * folder.
+	 */
+	private static void printFileSize(String name, File playersFolder)
+	{
+		long bytes = 0;
+		int files = 0;
+		for(File playerFile: playersFolder.listFiles())
+		{
+			if(playerFile.getName().endsWith(".yml"))
+			{
+				bytes += playerFile.length();
+				files++;
+			}
+		}
+		
+		System.out.println(String.format("%-50s %12d bytes/file", name, bytes / files));
+	}
+	
+	private static void deleteFolder(File folder)
+	{
+		File[] files = folder.listFiles();
+		if(files != null)
+		{
+			for(File file: files)
+			{
+				deleteFolder(file);
+			}
+		}
+		folder.delete();
+	}
+}
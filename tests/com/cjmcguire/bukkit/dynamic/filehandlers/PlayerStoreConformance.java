@@ -0,0 +1,301 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
+
+/**
+ * The tests that every PlayerStore has to pass. The test class for
+ * each PlayerStore extends this class and tells it how to open and
+ * delete that PlayerStore. Every value that is saved is a whole
+ * number, because the yml files only keep whole numbers.
+ * @author CJ McGuire
+ */
+public abstract class PlayerStoreConformance
+{
+	protected static final UUID PLAYER_1_ID = UUID.fromString("12345678-1234-1234-1234-123456789001");
+	protected static final UUID PLAYER_2_ID = UUID.fromString("12345678-1234-1234-1234-123456789002");
+	
+	private static final int BATCH_SIZE = 100;
+	private static final int THREADS = 4;
+	
+	protected PlayerStore store;
+	
+	/**
+	 * Opens the PlayerStore being tested. It has to keep its data in
+	 * the same place every time it is opened.
+	 * @return the PlayerStore
+	 * @throws IOException if the PlayerStore cannot be opened
+	 */
+	protected abstract PlayerStore openStore() throws IOException;
+	
+	/**
+	 * Deletes everything the PlayerStore being tested has kept.
+	 */
+	protected abstract void deleteStore();
+	
+	/**
+	 * Starts every test with a new, empty PlayerStore.
+	 * @throws IOException if the PlayerStore cannot be opened
+	 */
+	@Before
+	public void openEmptyStore() throws IOException
+	{
+		this.deleteStore();
+		store = this.openStore();
+	}
+	
+	/**
+	 * Closes and deletes the PlayerStore.
+	 * @throws IOException if the PlayerStore cannot be closed
+	 */
+	@After
+	public void closeAndDeleteStore() throws IOException
+	{
+		store.close();
+		this.deleteStore();
+	}
+	
+	/**
+	 * Tests that a saved player is loaded back with the same values.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testLoadSaved() throws IOException
+	{
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 0));
+		
+		assertTrue(store.exists(PLAYER_1_ID));
+		assertConformancePlayerInfo(PLAYER_1_ID, 0, store.load(PLAYER_1_ID));
+	}
+	
+	/**
+	 * Tests loading a player the PlayerStore has no data for.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testLoadMissing() throws IOException
+	{
+		assertFalse(store.exists(PLAYER_1_ID));
+		assertNull(store.load(PLAYER_1_ID));
+	}
+	
+	/**
+	 * Tests that a loaded player does not need to be saved.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testLoadedIsClean() throws IOException
+	{
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 0));
+		
+		assertFalse(store.load(PLAYER_1_ID).isDirty());
+	}
+	
+	/**
+	 * Tests that saving a player again replaces what was saved for the
+	 * player and leaves other players alone.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testSaveReplaces() throws IOException
+	{
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 0));
+		store.save(makeConformancePlayerInfo(PLAYER_2_ID, 1));
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 5));
+		
+		assertConformancePlayerInfo(PLAYER_1_ID, 5, store.load(PLAYER_1_ID));
+		assertConformancePlayerInfo(PLAYER_2_ID, 1, store.load(PLAYER_2_ID));
+	}
+	
+	/**
+	 * Tests that a player saved without a last known name is loaded
+	 * back without one.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testNoLastKnownName() throws IOException
+	{
+		store.save(new PlayerInfo(PLAYER_1_ID));
+		
+		PlayerInfo playerInfo = store.load(PLAYER_1_ID);
+		assertNull(playerInfo.getLastKnownName());
+		assertEquals(Setting.AUTO, playerInfo.getMobInfo(MobType.ZOMBIE).getSetting());
+		assertEquals(100, playerInfo.getMobInfo(MobType.ZOMBIE).getManualPerformanceLevel(), .0001);
+	}
+	
+	/**
+	 * Tests that every player in a batch is saved.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testSaveBatch() throws IOException
+	{
+		List<PlayerInfo> snapshots = new ArrayList<PlayerInfo>();
+		for(int i = 0; i < BATCH_SIZE; i++)
+		{
+			snapshots.add(makeConformancePlayerInfo(new UUID(0, i), i));
+		}
+		
+		store.saveBatch(snapshots);
+		
+		for(int i = 0; i < BATCH_SIZE; i++)
+		{
+			assertConformancePlayerInfo(new UUID(0, i), i, store.load(new UUID(0, i)));
+		}
+	}
+	
+	/**
+	 * Tests that saved players are still there after the PlayerStore
+	 * is closed and opened again.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testSavedAfterReopen() throws IOException
+	{
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 0));
+		store.saveBatch(Collections.singletonList(makeConformancePlayerInfo(PLAYER_2_ID, 1)));
+		store.close();
+		
+		store = this.openStore();
+		
+		assertTrue(store.exists(PLAYER_1_ID));
+		assertConformancePlayerInfo(PLAYER_1_ID, 0, store.load(PLAYER_1_ID));
+		assertConformancePlayerInfo(PLAYER_2_ID, 1, store.load(PLAYER_2_ID));
+	}
+	
+	/**
+	 * Tests that players can be saved and loaded from several threads
+	 * at once.
+	 * @throws InterruptedException if the test is interrupted
+	 */
+	@Test
+	public void testSavesFromManyThreads() throws InterruptedException
+	{
+		final List<Throwable> failures = new ArrayList<Throwable>();
+		
+		List<Thread> threads = new ArrayList<Thread>();
+		for(int t = 0; t < THREADS; t++)
+		{
+			final int firstPlayer = t * BATCH_SIZE;
+			
+			Thread thread = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						for(int i = firstPlayer; i < firstPlayer + BATCH_SIZE; i++)
+						{
+							store.save(makeConformancePlayerInfo(new UUID(0, i), i));
+							assertConformancePlayerInfo(new UUID(0, i), i, store.load(new UUID(0, i)));
+						}
+					}
+					catch(Throwable e)
+					{
+						synchronized(failures)
+						{
+							failures.add(e);
+						}
+					}
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+		
+		for(Thread thread: threads)
+		{
+			thread.join();
+		}
+		
+		if(!failures.isEmpty())
+		{
+			throw new AssertionError(failures.get(0));
+		}
+		
+		for(int i = 0; i < THREADS * BATCH_SIZE; i++)
+		{
+			try
+			{
+				assertTrue(store.exists(new UUID(0, i)));
+			}
+			catch(IOException e)
+			{
+				throw new AssertionError(e);
+			}
+		}
+	}
+	
+	/**
+	 * Makes a PlayerInfo whose values depend on the given seed, so
+	 * that different players can be told apart.
+	 * @param playerID the UUID of the player
+	 * @param seed a number from 0 to 999
+	 * @return the PlayerInfo
+	 */
+	protected static PlayerInfo makeConformancePlayerInfo(UUID playerID, int seed)
+	{
+		PlayerInfo playerInfo = new PlayerInfo(playerID);
+		playerInfo.setLastKnownName("player" + seed);
+		
+		MobInfo blazeInfo = playerInfo.getMobInfo(MobType.BLAZE);
+		blazeInfo.setSetting(Setting.MANUAL);
+		blazeInfo.setManualPerformanceLevel(100 + seed % 100);
+		
+		MobInfo creeperInfo = playerInfo.getMobInfo(MobType.CREEPER);
+		creeperInfo.setAutoPerformanceLevel(50 + seed % 100);
+		creeperInfo.setMaxIncrement(1 + seed % 10);
+		
+		MobInfo spiderInfo = playerInfo.getMobInfo(MobType.SPIDER);
+		spiderInfo.setSetting(Setting.DISABLED);
+		spiderInfo.setScaleAttack(seed % 2 == 0);
+		spiderInfo.setScaleLoot(false);
+		
+		return playerInfo;
+	}
+	
+	/**
+	 * Checks that the given PlayerInfo has the values that
+	 * makeConformancePlayerInfo() gave it.
+	 * @param playerID the UUID of the player
+	 * @param seed the seed the PlayerInfo was made with
+	 * @param playerInfo the PlayerInfo that was loaded
+	 */
+	protected static void assertConformancePlayerInfo(UUID playerID, int seed, PlayerInfo playerInfo)
+	{
+		assertEquals(playerID, playerInfo.getPlayerID());
+		assertEquals("player" + seed, playerInfo.getLastKnownName());
+		
+		MobInfo blazeInfo = playerInfo.getMobInfo(MobType.BLAZE);
+		assertEquals(Setting.MANUAL, blazeInfo.getSetting());
+		assertEquals(100 + seed % 100, blazeInfo.getManualPerformanceLevel(), .0001);
+		assertEquals(100, blazeInfo.getAutoPerformanceLevel(), .0001);
+		
+		MobInfo creeperInfo = playerInfo.getMobInfo(MobType.CREEPER);
+		assertEquals(Setting.AUTO, creeperInfo.getSetting());
+		assertEquals(50 + seed % 100, creeperInfo.getAutoPerformanceLevel(), .0001);
+		assertEquals(1 + seed % 10, creeperInfo.getMaxIncrement());
+		
+		MobInfo spiderInfo = playerInfo.getMobInfo(MobType.SPIDER);
+		assertEquals(Setting.DISABLED, spiderInfo.getSetting());
+		assertEquals(seed % 2 == 0, spiderInfo.shouldScaleAttack());
+		assertTrue(spiderInfo.shouldScaleDefense());
+		assertTrue(spiderInfo.shouldScaleXP());
+		assertFalse(spiderInfo.shouldScaleLoot());
+	}
+}
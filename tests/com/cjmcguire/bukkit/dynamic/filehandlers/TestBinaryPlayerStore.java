@@ -0,0 +1,357 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
+
+/**
+ * Tests the BinaryPlayerStore class.
+ * @author CJ McGuire
+ */
+public class TestBinaryPlayerStore extends PlayerStoreConformance
+{
+	private static final File STORE_FILE = new File("players" + File.separator + "test_players.dat");
+	
+	@Override
+	protected PlayerStore openStore() throws IOException
+	{
+		return new BinaryPlayerStore(STORE_FILE);
+	}
+	
+	@Override
+	protected void deleteStore()
+	{
+		STORE_FILE.delete();
+	}
+	
+	/**
+	 * Tests that a saved player is loaded back with the same values.
+	 * @throws IOException if the file cannot be written
+	 */
+	@Test
+	public void testSaveAndLoad() throws IOException
+	{
+		store.save(this.makePlayerInfo(PLAYER_1_ID));
+		
+		assertTrue(store.exists(PLAYER_1_ID));
+		assertEquals(1, this.getBinaryStore().size());
+		
+		this.assertPlayerInfo(store.load(PLAYER_1_ID));
+	}
+	
+	/**
+	 * Tests that saving a player again changes the player's record
+	 * instead of adding another one.
+	 * @throws IOException if the file cannot be written
+	 */
+	@Test
+	public void testSaveInPlace() throws IOException
+	{
+		PlayerInfo playerInfo = this.makePlayerInfo(PLAYER_1_ID);
+		store.save(playerInfo);
+		store.save(new PlayerInfo(PLAYER_2_ID));
+		
+		playerInfo.getMobInfo(MobType.ZOMBIE).setManualPerformanceLevel(60);
+		playerInfo.setLastKnownName("renamed");
+		store.save(playerInfo);
+		
+		assertEquals(2, this.getBinaryStore().size());
+		
+		PlayerInfo loaded = store.load(PLAYER_1_ID);
+		assertEquals(60, loaded.getMobInfo(MobType.ZOMBIE).getManualPerformanceLevel(), .0001);
+		assertEquals("renamed", loaded.getLastKnownName());
+		
+		assertEquals(100, store.load(PLAYER_2_ID).getMobInfo(MobType.ZOMBIE).getManualPerformanceLevel(), .0001);
+	}
+	
+	/**
+	 * Tests that players are still there after the file is closed and
+	 * opened again.
+	 * @throws IOException if the file cannot be written
+	 */
+	@Test
+	public void testReopen() throws IOException
+	{
+		store.save(this.makePlayerInfo(PLAYER_1_ID));
+		store.save(new PlayerInfo(PLAYER_2_ID));
+		store.close();
+		
+		store = this.openStore();
+		
+		assertEquals(2, this.getBinaryStore().size());
+		this.assertPlayerInfo(store.load(PLAYER_1_ID));
+		assertNull(store.load(PLAYER_2_ID).getLastKnownName());
+	}
+	
+	/**
+	 * Tests that the file grows to fit more players than it first has
+	 * room for.
+	 * @throws IOException if the file cannot be written
+	 */
+	@Test
+	public void testGrow() throws IOException
+	{
+		int players = 1000;
+		
+		for(int i = 0; i < players; i++)
+		{
+			PlayerInfo playerInfo = new PlayerInfo(new UUID(0, i));
+			playerInfo.getMobInfo(MobType.SKELETON).setAutoPerformanceLevel(50 + i % 100);
+			store.save(playerInfo);
+		}
+		store.close();
+		
+		store = this.openStore();
+		assertEquals(players, this.getBinaryStore().size());
+		
+		for(int i = 0; i < players; i++)
+		{
+			PlayerInfo playerInfo = store.load(new UUID(0, i));
+			assertEquals(50 + i % 100, playerInfo.getMobInfo(MobType.SKELETON).getAutoPerformanceLevel(), .0001);
+		}
+	}
+	
+	/**
+	 * Tests that a mob with no Setting is loaded back with no Setting.
+	 * @throws IOException if the file cannot be written
+	 */
+	@Test
+	public void testNullSetting() throws IOException
+	{
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		playerInfo.getMobInfo(MobType.WITCH).setSetting(null);
+		store.save(playerInfo);
+		
+		assertNull(store.load(PLAYER_1_ID).getMobInfo(MobType.WITCH).getSetting());
+	}
+	
+	/**
+	 * Tests that a file from before a MobType was added is rewritten
+	 * with a slot for every MobType and keeps its players.
+	 * @throws IOException if the file cannot be written
+	 */
+	@Test
+	public void testRewriteWithNewMobTypes() throws IOException
+	{
+		store.close();
+		STORE_FILE.delete();
+		
+		MobType lastMobType = MobType.values()[MobType.values().length - 1];
+		
+		BinaryPlayerStore oldStore = new BinaryPlayerStore(STORE_FILE, MobType.values().length - 1);
+		PlayerInfo playerInfo = this.makePlayerInfo(PLAYER_1_ID);
+		playerInfo.getMobInfo(lastMobType).setManualPerformanceLevel(70);
+		oldStore.save(playerInfo);
+		oldStore.close();
+		
+		store = this.openStore();
+		
+		assertEquals(1, this.getBinaryStore().size());
+		assertFalse(new File(STORE_FILE.getPath() + ".new").exists());
+		
+		PlayerInfo loaded = store.load(PLAYER_1_ID);
+		this.assertPlayerInfo(loaded);
+		assertEquals(100, loaded.getMobInfo(lastMobType).getManualPerformanceLevel(), .0001);
+		
+		loaded.getMobInfo(lastMobType).setManualPerformanceLevel(70);
+		store.save(loaded);
+		assertEquals(70, store.load(PLAYER_1_ID).getMobInfo(lastMobType).getManualPerformanceLevel(), .0001);
+	}
+	
+	/**
+	 * Tests that a record that was only partly written is read as 
+	 * missing, though the player is still in the file, without 
+	 * keeping the other players from loading, and that saving the 
+	 * player again mends it.
+	 * @throws IOException if the file cannot be written
+	 */
+	@Test
+	public void testDamagedRecord() throws IOException
+	{
+		store.save(this.makePlayerInfo(PLAYER_1_ID));
+		store.save(new PlayerInfo(PLAYER_2_ID));
+		store.close();
+		
+		// change a letter of the first player's name without its CRC
+		RandomAccessFile file = new RandomAccessFile(STORE_FILE, "rw");
+		file.seek(16 + 17);
+		file.write('T');
+		file.close();
+		
+		store = this.openStore();
+		
+		assertNotNull(store.load(PLAYER_2_ID));
+		
+		assertNull(store.load(PLAYER_1_ID));
+		assertTrue(store.exists(PLAYER_1_ID));
+		
+		store.save(this.makePlayerInfo(PLAYER_1_ID));
+		this.assertPlayerInfo(store.load(PLAYER_1_ID));
+		assertEquals(2, this.getBinaryStore().size());
+	}
+	
+	/**
+	 * Tests that a damaged record is kept as a damaged record when the 
+	 * file is rewritten for a new number of MobTypes, instead of the 
+	 * player being dropped from the file.
+	 * @throws IOException if the file cannot be written
+	 */
+	@Test
+	public void testRewriteKeepsDamagedRecord() throws IOException
+	{
+		store.close();
+		STORE_FILE.delete();
+		
+		BinaryPlayerStore oldStore = new BinaryPlayerStore(STORE_FILE, MobType.values().length - 1);
+		oldStore.save(this.makePlayerInfo(PLAYER_1_ID));
+		oldStore.save(new PlayerInfo(PLAYER_2_ID));
+		oldStore.close();
+		
+		RandomAccessFile file = new RandomAccessFile(STORE_FILE, "rw");
+		file.seek(16 + 17);
+		file.write('T');
+		file.close();
+		
+		store = this.openStore();
+		
+		assertEquals(2, this.getBinaryStore().size());
+		assertNull(store.load(PLAYER_1_ID));
+		assertTrue(store.exists(PLAYER_1_ID));
+		assertNotNull(store.load(PLAYER_2_ID));
+		
+		store.save(this.makePlayerInfo(PLAYER_1_ID));
+		this.assertPlayerInfo(store.load(PLAYER_1_ID));
+	}
+	
+	/**
+	 * Tests that a file in the first format, whose records have no 
+	 * CRC, is rewritten in the current format and keeps its players.
+	 * @throws IOException if the file cannot be written
+	 */
+	@Test
+	public void testOpenFirstFormat() throws IOException
+	{
+		store.close();
+		
+		int mobSlots = MobType.values().length;
+		int recordSize = 33 + mobSlots * 22;
+		
+		ByteBuffer contents = ByteBuffer.allocate(16 + recordSize);
+		contents.putInt(0x44445053);
+		contents.putShort((short) 1);
+		contents.putShort((short) mobSlots);
+		contents.putInt(1);
+		contents.putInt(0);
+		
+		contents.putLong(PLAYER_1_ID.getMostSignificantBits());
+		contents.putLong(PLAYER_1_ID.getLeastSignificantBits());
+		contents.put((byte) 4);
+		contents.put("test".getBytes("UTF-8"));
+		contents.position(contents.position() + 12);
+		for(MobType mobType: MobType.values())
+		{
+			contents.put((byte) Setting.AUTO.ordinal());
+			contents.put((byte) 127);
+			contents.putInt(10);
+			contents.putDouble(100);
+			contents.putDouble(mobType == MobType.ZOMBIE ? 60 : 100);
+		}
+		
+		FileOutputStream out = new FileOutputStream(STORE_FILE);
+		out.write(contents.array());
+		out.close();
+		
+		store = this.openStore();
+		
+		assertEquals(1, this.getBinaryStore().size());
+		
+		PlayerInfo loaded = store.load(PLAYER_1_ID);
+		assertEquals("test", loaded.getLastKnownName());
+		assertEquals(60, loaded.getMobInfo(MobType.ZOMBIE).getAutoPerformanceLevel(), .0001);
+		assertEquals(100, loaded.getMobInfo(MobType.SKELETON).getAutoPerformanceLevel(), .0001);
+		
+		store.close();
+		store = this.openStore();
+		assertEquals(60, store.load(PLAYER_1_ID).getMobInfo(MobType.ZOMBIE).getAutoPerformanceLevel(), .0001);
+	}
+	
+	/**
+	 * Tests that a file that is not a player data file is not opened.
+	 * @throws IOException if the file cannot be written
+	 */
+	@Test(expected = IOException.class)
+	public void testNotAPlayerDataFile() throws IOException
+	{
+		store.close();
+		
+		FileOutputStream out = new FileOutputStream(STORE_FILE);
+		out.write("blaze:\n  setting: auto\n".getBytes("UTF-8"));
+		out.close();
+		
+		store = this.openStore();
+	}
+	
+	private BinaryPlayerStore getBinaryStore()
+	{
+		return (BinaryPlayerStore) store;
+	}
+	
+	private PlayerInfo makePlayerInfo(UUID playerID)
+	{
+		PlayerInfo playerInfo = new PlayerInfo(playerID);
+		playerInfo.setLastKnownName("testPlayer");
+		
+		MobInfo blazeInfo = playerInfo.getMobInfo(MobType.BLAZE);
+		blazeInfo.setSetting(Setting.MANUAL);
+		blazeInfo.setManualPerformanceLevel(130);
+		
+		MobInfo creeperInfo = playerInfo.getMobInfo(MobType.CREEPER);
+		creeperInfo.setAutoPerformanceLevel(72.5);
+		creeperInfo.setMaxIncrement(4);
+		
+		MobInfo spiderInfo = playerInfo.getMobInfo(MobType.SPIDER);
+		spiderInfo.setSetting(Setting.DISABLED);
+		spiderInfo.setScaleAttack(false);
+		spiderInfo.setScaleLoot(false);
+		
+		return playerInfo;
+	}
+	
+	private void assertPlayerInfo(PlayerInfo playerInfo)
+	{
+		assertEquals(PLAYER_1_ID, playerInfo.getPlayerID());
+		assertEquals("testPlayer", playerInfo.getLastKnownName());
+		
+		MobInfo blazeInfo = playerInfo.getMobInfo(MobType.BLAZE);
+		assertEquals(Setting.MANUAL, blazeInfo.getSetting());
+		assertEquals(130, blazeInfo.getManualPerformanceLevel(), .0001);
+		assertEquals(100, blazeInfo.getAutoPerformanceLevel(), .0001);
+		
+		MobInfo creeperInfo = playerInfo.getMobInfo(MobType.CREEPER);
+		assertEquals(Setting.AUTO, creeperInfo.getSetting());
+		assertEquals(72.5, creeperInfo.getAutoPerformanceLevel(), .0001);
+		assertEquals(4, creeperInfo.getMaxIncrement());
+		
+		MobInfo spiderInfo = playerInfo.getMobInfo(MobType.SPIDER);
+		assertEquals(Setting.DISABLED, spiderInfo.getSetting());
+		assertFalse(spiderInfo.shouldScaleAttack());
+		assertTrue(spiderInfo.shouldScaleDefense());
+		assertTrue(spiderInfo.shouldScaleSpeed());
+		assertTrue(spiderInfo.shouldScaleKnockbackResistance());
+		assertTrue(spiderInfo.shouldScaleMaxFollowDistance());
+		assertTrue(spiderInfo.shouldScaleXP());
+		assertFalse(spiderInfo.shouldScaleLoot());
+	}
+}
@@ -0,0 +1,88 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.UUID;
+
+import org.junit.Test;
+
+/**
+ * Tests the BloomFilter class.
+ * @author CJ McGuire
+ */
+public class TestBloomFilter
+{
+	private static final int CAPACITY = 10000;
+	
+	/**
+	 * Tests that every UUID that was added is found.
+	 */
+	@Test
+	public void testNoFalseNegatives()
+	{
+		BloomFilter filter = new BloomFilter(CAPACITY);
+		
+		Random random = new Random(1);
+		UUID[] playerIDs = new UUID[CAPACITY];
+		for(int i = 0; i < CAPACITY; i++)
+		{
+			playerIDs[i] = new UUID(random.nextLong(), random.nextLong());
+			filter.add(playerIDs[i]);
+		}
+		
+		for(UUID playerID: playerIDs)
+		{
+			assertTrue(filter.mightContain(playerID));
+		}
+	}
+	
+	/**
+	 * Tests that few of the UUIDs that were not added are found when 
+	 * the filter is full, including UUIDs that only differ a little 
+	 * from the ones that were added.
+	 */
+	@Test
+	public void testFalsePositiveRate()
+	{
+		BloomFilter filter = new BloomFilter(CAPACITY);
+		
+		for(int i = 0; i < CAPACITY; i++)
+		{
+			filter.add(new UUID(0, i));
+		}
+		
+		int found = 0;
+		for(int i = CAPACITY; i < 2 * CAPACITY; i++)
+		{
+			if(filter.mightContain(new UUID(0, i)))
+			{
+				found++;
+			}
+		}
+		
+		Random random = new Random(2);
+		for(int i = 0; i < CAPACITY; i++)
+		{
+			if(filter.mightContain(UUID.randomUUID()) || filter.mightContain(new UUID(random.nextLong(), random.nextLong())))
+			{
+				found++;
+			}
+		}
+		
+		assertTrue("found " + found, found < 2 * CAPACITY * 3 / 100);
+	}
+	
+	/**
+	 * Tests that an empty filter finds nothing.
+	 */
+	@Test
+	public void testEmpty()
+	{
+		BloomFilter filter = new BloomFilter(0);
+		
+		assertEquals(1, filter.getCapacity());
+		assertFalse(filter.mightContain(new UUID(0, 0)));
+		assertFalse(filter.mightContain(UUID.randomUUID()));
+	}
+}
@@ -1,98 +1,196 @@
 package com.cjmcguire.bukkit.dynamic.filehandlers;
 
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.analyzer.EstimatorMode;
+import com.cjmcguire.bukkit.dynamic.analyzer.EstimatorSelection;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+
 /**
  * Tests the ConfigFileHandler class.
  * @author CJ McGuire
  */
 public class TestConfigFileHandler 
 {
-/*	
 	private ConfigFileHandler config;
 	
 	/**
 	 * Initializes the ConfigFileHandler for use in the other
 	 * test methods.
-	 *
+	 */
 	@Before
 	public void initialize()
 	{
-		DynamicDifficulty plugin = new DynamicDifficulty();
-		plugin.setRunningWithHead(false);
-		plugin.onEnable();
+		config = new ConfigFileHandler(null);
+	}
+	
+	/**
+	 * Tests the getSecondsBetweenUpdates() method.
+	 */
+	@Test
+	public void testGetSecondsBetweenUpdates()
+	{
+		assertEquals(30, config.getSecondsBetweenUpdates());
+	}
+	
+	/**
+	 * Tests the getSecondsBetweenUpdates() method when the value in 
+	 * the config.yml is not a positive number.
+	 */
+	@Test
+	public void testGetSecondsBetweenUpdatesWhenInvalid()
+	{
+		config.getFileConfig().set("secondsBetweenUpdates", 0);
+		assertEquals(30, config.getSecondsBetweenUpdates());
+	}
+	
+	/**
+	 * Tests the getMinSecondsBetweenUpdates() and 
+	 * getMaxSecondsBetweenUpdates() methods.
+	 */
+	@Test
+	public void testGetMinAndMaxSecondsBetweenUpdates()
+	{
+		assertEquals(5, config.getMinSecondsBetweenUpdates());
+		assertEquals(120, config.getMaxSecondsBetweenUpdates());
 		
-		config = plugin.getConfigFileHandler();
+		config.getFileConfig().set("minSecondsBetweenUpdates", -1);
+		config.getFileConfig().set("maxSecondsBetweenUpdates", 0);
+		assertEquals(5, config.getMinSecondsBetweenUpdates());
+		assertEquals(120, config.getMaxSecondsBetweenUpdates());
 	}
 	
 	/**
-	 * Tests the getMaxIncrement() method.
-	 *
+	 * Tests the getAnalyzerTickBudget() method.
+	 */
 	@Test
-	public void testGetMaxIncrement()
+	public void testGetAnalyzerTickBudget()
 	{
-		assertEquals(10, config.getMaxIncrement());
+		assertEquals(500, config.getAnalyzerTickBudget());
+		
+		config.getFileConfig().set("analyzerTickBudget", 0);
+		assertEquals(500, config.getAnalyzerTickBudget());
 	}
 	
 	/**
-	 * Tests the getMaxPerformanceLevel() method.
-	 *
+	 * Tests the getAnalyzerThreads() method.
+	 */
 	@Test
-	public void testGetMaxPerformanceLevel()
+	public void testGetAnalyzerThreads()
 	{
-		assertEquals(200, config.getMaxPerformanceLevel());
+		assertEquals(1, config.getAnalyzerThreads());
+		
+		config.getFileConfig().set("analyzerThreads", 4);
+		assertEquals(4, config.getAnalyzerThreads());
+		
+		config.getFileConfig().set("analyzerThreads", 0);
+		assertEquals(1, config.getAnalyzerThreads());
 	}
 	
 	/**
-	 * Tests the getMinPerformanceLevel() method.
-	 *
+	 * Tests the getEstimatorMode() method.
+	 */
 	@Test
-	public void testGetMinPerformanceLevel()
+	public void testGetEstimatorMode()
 	{
-		assertEquals(50, config.getMinPerformanceLevel());
+		assertEquals(EstimatorMode.WINDOW, config.getEstimatorMode());
+		
+		config.getFileConfig().set("estimator", "EWMA");
+		assertEquals(EstimatorMode.EWMA, config.getEstimatorMode());
 	}
 	
 	/**
-	 * Tests the getSecondsBetweenUpdates() method.
-	 *
+	 * Tests the getEstimatorMode() method when the value in the 
+	 * config.yml is not the name of an EstimatorMode.
+	 */
 	@Test
-	public void testGetSecondsBetweenUpdates()
+	public void testGetEstimatorModeWhenInvalid()
 	{
-		assertEquals(30, config.getSecondsBetweenUpdates());
+		config.getFileConfig().set("estimator", "not an estimator");
+		assertEquals(EstimatorMode.WINDOW, config.getEstimatorMode());
+	}
+	
+	/**
+	 * Tests the getEstimators() method.
+	 */
+	@Test
+	public void testGetEstimators()
+	{
+		EstimatorSelection estimators = config.getEstimators();
+		assertSame(EstimatorMode.WINDOW.getEstimator(), estimators.getEstimator(MobType.ZOMBIE));
+		
+		config.getFileConfig().set("estimator", "ewma");
+		config.getFileConfig().set("mobEstimators.zombie", "PID");
+		config.getFileConfig().set("mobEstimators.creeper", "bayesian");
+		config.getFileConfig().set("mobEstimators.notamob", "pid");
+		config.getFileConfig().set("mobEstimators.skeleton", "not an estimator");
+		
+		estimators = config.getEstimators();
+		assertSame(EstimatorMode.PID.getEstimator(), estimators.getEstimator(MobType.ZOMBIE));
+		assertSame(EstimatorMode.BAYESIAN.getEstimator(), estimators.getEstimator(MobType.CREEPER));
+		assertSame(EstimatorMode.EWMA.getEstimator(), estimators.getEstimator(MobType.SKELETON));
+		assertSame(EstimatorMode.EWMA.getEstimator(), estimators.getEstimator(MobType.BLAZE));
 	}
 	
 	/**
-	 * Tests the shouldScaleAttackDamage() method.
-	 *
+	 * Tests the getStorageType() method.
+	 */
 	@Test
-	public void testShouldScaleAttackDamage()
+	public void testGetStorageType()
 	{
-		assertTrue(config.shouldScaleAttackDamage());
+		assertEquals(StorageType.YAML, config.getStorageType());
+		
+		config.getFileConfig().set("storage", "Binary");
+		assertEquals(StorageType.BINARY, config.getStorageType());
 	}
 	
 	/**
-	 * Tests the shouldScaleKnockbackResistance() method.
-	 *
+	 * Tests the getStorageType() method when the value in the 
+	 * config.yml is not the name of a StorageType.
+	 */
 	@Test
-	public void testShouldScaleKnockbackResistance()
+	public void testGetStorageTypeWhenInvalid()
 	{
-		assertTrue(config.shouldScaleKnockbackResistance());
+		config.getFileConfig().set("storage", "not a storage type");
+		assertEquals(StorageType.YAML, config.getStorageType());
 	}
 	
 	/**
-	 * Tests the shouldScaleMaxFollowDistance() method.
-	 *
+	 * Tests the isJournalEnabled() method.
+	 */
 	@Test
-	public void testShouldScaleMaxFollowDistance()
+	public void testIsJournalEnabled()
 	{
-		assertTrue(config.shouldScaleMaxFollowDistance());
+		assertFalse(config.isJournalEnabled());
+		
+		config.getFileConfig().set("journal", true);
+		assertTrue(config.isJournalEnabled());
 	}
 	
 	/**
-	 * Tests the shouldScaleSpeed() method.
-	 *
+	 * Tests the isChecksumEnabled() method.
+	 */
 	@Test
-	public void testShouldScaleSpeed()
+	public void testIsChecksumEnabled()
 	{
-		assertTrue(config.shouldScaleSpeed());
+		assertFalse(config.isChecksumEnabled());
+		
+		config.getFileConfig().set("playerFileChecksums", true);
+		assertTrue(config.isChecksumEnabled());
+	}
+	
+	/**
+	 * Tests the isSparseEnabled() method.
+	 */
+	@Test
+	public void testIsSparseEnabled()
+	{
+		assertFalse(config.isSparseEnabled());
+		
+		config.getFileConfig().set("sparsePlayerFiles", true);
+		assertTrue(config.isSparseEnabled());
 	}
-*/	
-}
\ No newline at end of file
+}
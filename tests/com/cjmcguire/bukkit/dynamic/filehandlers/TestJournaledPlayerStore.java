@@ -0,0 +1,196 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
+
+/**
+ * Tests the JournaledPlayerStore class.
+ * @author CJ McGuire
+ */
+public class TestJournaledPlayerStore extends PlayerStoreConformance
+{
+	private static final File PLAYERS_FOLDER = new File("test_journal_players");
+	private static final File JOURNAL_FILE = new File(PLAYERS_FOLDER, "players.journal");
+	
+	private static final long HEADER_SIZE = 6;
+	
+	@Override
+	protected PlayerStore openStore() throws IOException
+	{
+		return new JournaledPlayerStore(JOURNAL_FILE, this.openMainStore());
+	}
+	
+	@Override
+	protected void deleteStore()
+	{
+		File[] files = PLAYERS_FOLDER.listFiles();
+		if(files != null)
+		{
+			for(File file: files)
+			{
+				file.delete();
+			}
+		}
+		PLAYERS_FOLDER.delete();
+	}
+	
+	/**
+	 * Tests that a save is only appended to the journal until the
+	 * journal is compacted.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testSaveGoesToJournal() throws IOException
+	{
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 0));
+		
+		assertTrue(this.getJournal().size() > HEADER_SIZE);
+		assertFalse(this.openMainStore().exists(PLAYER_1_ID));
+		assertTrue(store.exists(PLAYER_1_ID));
+		
+		this.getJournal().compact();
+		
+		assertEquals(HEADER_SIZE, this.getJournal().size());
+		assertConformancePlayerInfo(PLAYER_1_ID, 0, this.openMainStore().load(PLAYER_1_ID));
+		assertConformancePlayerInfo(PLAYER_1_ID, 0, store.load(PLAYER_1_ID));
+	}
+	
+	/**
+	 * Tests that saving a player again only appends the values that
+	 * changed, and that saving a player who has not changed appends
+	 * nothing.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testOnlyChangesAreAppended() throws IOException
+	{
+		PlayerInfo playerInfo = makeConformancePlayerInfo(PLAYER_1_ID, 0);
+		store.save(playerInfo.snapshot());
+		long firstSave = this.getJournal().size();
+		
+		playerInfo.getMobInfo(MobType.ZOMBIE).setAutoPerformanceLevel(123);
+		store.save(playerInfo.snapshot());
+		long secondSave = this.getJournal().size();
+		
+		// one frame with one record in it
+		assertTrue(secondSave - firstSave < 64);
+		
+		store.save(playerInfo.snapshot());
+		assertEquals(secondSave, this.getJournal().size());
+		
+		assertEquals(123, store.load(PLAYER_1_ID).getMobInfo(MobType.ZOMBIE).getAutoPerformanceLevel(), .0001);
+	}
+	
+	/**
+	 * Tests that a journal that was never compacted, because the
+	 * server went down, is replayed into the main PlayerStore when it
+	 * is opened again.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testReplayAfterCrash() throws IOException
+	{
+		PlayerInfo playerInfo = makeConformancePlayerInfo(PLAYER_1_ID, 0);
+		store.save(playerInfo.snapshot());
+		
+		playerInfo.getMobInfo(MobType.SPIDER).setSetting(Setting.DISABLED);
+		playerInfo.setLastKnownName("renamed");
+		store.save(playerInfo.snapshot());
+		store.save(makeConformancePlayerInfo(PLAYER_2_ID, 1));
+		
+		// open the journal again without closing it
+		PlayerStore reopened = this.openStore();
+		
+		PlayerStore mainStore = this.openMainStore();
+		PlayerInfo replayed = mainStore.load(PLAYER_1_ID);
+		assertEquals("renamed", replayed.getLastKnownName());
+		assertEquals(Setting.DISABLED, replayed.getMobInfo(MobType.SPIDER).getSetting());
+		assertEquals(100, replayed.getMobInfo(MobType.BLAZE).getManualPerformanceLevel(), .0001);
+		assertConformancePlayerInfo(PLAYER_2_ID, 1, mainStore.load(PLAYER_2_ID));
+		
+		assertEquals(HEADER_SIZE, ((JournaledPlayerStore) reopened).size());
+		
+		reopened.close();
+	}
+	
+	/**
+	 * Tests that a frame that was only partly written when the server
+	 * went down is thrown away and every frame before it is kept.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testPartialFrameIsIgnored() throws IOException
+	{
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 0));
+		long firstFrameEnd = this.getJournal().size();
+		
+		store.save(makeConformancePlayerInfo(PLAYER_2_ID, 1));
+		
+		RandomAccessFile journalFile = new RandomAccessFile(JOURNAL_FILE, "rw");
+		journalFile.setLength(firstFrameEnd + 20);
+		journalFile.close();
+		
+		PlayerStore reopened = this.openStore();
+		
+		PlayerStore mainStore = this.openMainStore();
+		assertConformancePlayerInfo(PLAYER_1_ID, 0, mainStore.load(PLAYER_1_ID));
+		assertFalse(mainStore.exists(PLAYER_2_ID));
+		
+		reopened.close();
+	}
+	
+	/**
+	 * Tests that the journal is compacted once it grows past its
+	 * compact size.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testCompactsWhenLarge() throws IOException
+	{
+		store.close();
+		store = new JournaledPlayerStore(JOURNAL_FILE, this.openMainStore(), 200);
+		
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 0));
+		
+		assertEquals(HEADER_SIZE, this.getJournal().size());
+		assertConformancePlayerInfo(PLAYER_1_ID, 0, this.openMainStore().load(PLAYER_1_ID));
+	}
+	
+	/**
+	 * Tests that a file that is not a journal is not opened.
+	 * @throws IOException if the file cannot be written
+	 */
+	@Test(expected = IOException.class)
+	public void testNotAJournal() throws IOException
+	{
+		store.close();
+		
+		RandomAccessFile journalFile = new RandomAccessFile(JOURNAL_FILE, "rw");
+		journalFile.setLength(0);
+		journalFile.writeInt(0x12345678);
+		journalFile.writeShort(1);
+		journalFile.close();
+		
+		store = this.openStore();
+	}
+	
+	private PlayerStore openMainStore()
+	{
+		return new YamlPlayerStore(PLAYERS_FOLDER, YamlConfiguration.loadConfiguration(new File("default_player.yml")));
+	}
+	
+	private JournaledPlayerStore getJournal()
+	{
+		return (JournaledPlayerStore) store;
+	}
+}
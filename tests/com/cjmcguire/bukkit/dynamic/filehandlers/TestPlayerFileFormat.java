@@ -0,0 +1,198 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.UUID;
+
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
+
+/**
+ * Tests the PlayerFileFormat class.
+ * @author CJ McGuire
+ */
+public class TestPlayerFileFormat
+{
+	private static final UUID PLAYER_ID = UUID.fromString("12345678-1234-1234-1234-123456789001");
+	
+	private static final PlayerInfo TEMPLATE = new PlayerInfo(new UUID(0, 0));
+	
+	/**
+	 * Tests that a written player file is read back with the same
+	 * values.
+	 */
+	@Test
+	public void testWriteAndRead()
+	{
+		String contents = PlayerFileFormat.write(PlayerStoreConformance.makeConformancePlayerInfo(PLAYER_ID, 3), TEMPLATE, false);
+		
+		PlayerInfo playerInfo = PlayerFileFormat.read(PLAYER_ID, contents, TEMPLATE);
+		
+		PlayerStoreConformance.assertConformancePlayerInfo(PLAYER_ID, 3, playerInfo);
+		assertFalse(playerInfo.isDirty());
+	}
+	
+	/**
+	 * Tests that a written player file is laid out like the
+	 * default_player.yml and holds the same values when it is read by
+	 * a YamlConfiguration.
+	 * @throws InvalidConfigurationException if the file is not valid yml
+	 * @throws IOException if the default_player.yml cannot be read
+	 */
+	@Test
+	public void testWriteIsReadByYamlConfiguration() throws InvalidConfigurationException, IOException
+	{
+		PlayerInfo playerInfo = PlayerStoreConformance.makeConformancePlayerInfo(PLAYER_ID, 3);
+		
+		FileConfiguration playerConfig = new YamlConfiguration();
+		playerConfig.loadFromString(PlayerFileFormat.write(playerInfo, TEMPLATE, false));
+		
+		FileConfiguration defaultPlayerConfig = YamlConfiguration.loadConfiguration(Paths.get("default_player.yml").toFile());
+		assertEquals(defaultPlayerConfig.getKeys(true), playerConfig.getKeys(true));
+		
+		this.assertSameValues(playerConfig, playerInfo);
+	}
+	
+	/**
+	 * Tests that the default_player.yml is understood and read the
+	 * same way a YamlConfiguration reads it.
+	 * @throws IOException if the default_player.yml cannot be read
+	 * @throws InvalidConfigurationException if the file is not valid yml
+	 */
+	@Test
+	public void testReadDefaultPlayerFile() throws IOException, InvalidConfigurationException
+	{
+		String contents = new String(Files.readAllBytes(Paths.get("default_player.yml")), "UTF-8");
+		
+		PlayerInfo playerInfo = PlayerFileFormat.read(PLAYER_ID, contents, TEMPLATE);
+		assertNotNull(playerInfo);
+		assertEquals("default_name", playerInfo.getLastKnownName());
+		
+		FileConfiguration playerConfig = new YamlConfiguration();
+		playerConfig.loadFromString(contents);
+		this.assertSameValues(playerConfig, playerInfo);
+	}
+	
+	/**
+	 * Tests that a sparse player file only holds the values that
+	 * differ from the template, and that the rest are read from the
+	 * template.
+	 */
+	@Test
+	public void testSparse()
+	{
+		PlayerInfo template = new PlayerInfo(new UUID(0, 0));
+		template.getMobInfo(MobType.ZOMBIE).setMaxIncrement(25);
+		
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_ID);
+		playerInfo.getMobInfo(MobType.ZOMBIE).setMaxIncrement(25);
+		playerInfo.getMobInfo(MobType.SKELETON).setScaleXP(false);
+		
+		String contents = PlayerFileFormat.write(playerInfo, template, true);
+		assertEquals("sparse: true\nskeleton:\n  scaleAttributes:\n    xp: false\n", contents);
+		
+		PlayerInfo read = PlayerFileFormat.read(PLAYER_ID, contents, template);
+		assertNull(read.getLastKnownName());
+		assertEquals(25, read.getMobInfo(MobType.ZOMBIE).getMaxIncrement());
+		assertFalse(read.getMobInfo(MobType.SKELETON).shouldScaleXP());
+		assertTrue(read.getMobInfo(MobType.SKELETON).shouldScaleLoot());
+	}
+	
+	/**
+	 * Tests that names are quoted when YAML would not read them back
+	 * as the same String, and that a name which cannot be written
+	 * is left to a YamlConfiguration.
+	 * @throws InvalidConfigurationException if the file is not valid yml
+	 */
+	@Test
+	public void testNames() throws InvalidConfigurationException
+	{
+		String[] names = {"Steve", "123", "true", "No", "it's", "two words"};
+		
+		for(String name: names)
+		{
+			PlayerInfo playerInfo = new PlayerInfo(PLAYER_ID);
+			playerInfo.setLastKnownName(name);
+			
+			String contents = PlayerFileFormat.write(playerInfo, TEMPLATE, true);
+			assertEquals(name, PlayerFileFormat.read(PLAYER_ID, contents, TEMPLATE).getLastKnownName());
+			
+			FileConfiguration playerConfig = new YamlConfiguration();
+			playerConfig.loadFromString(contents);
+			assertEquals(name, playerConfig.getString("lastKnownName"));
+		}
+		
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_ID);
+		playerInfo.setLastKnownName("two\nlines");
+		assertNull(PlayerFileFormat.write(playerInfo, TEMPLATE, false));
+	}
+	
+	/**
+	 * Tests that files that are not laid out the way this plugin
+	 * writes them, or that hold values YAML would read differently
+	 * than they look, are not read.
+	 */
+	@Test
+	public void testUnrecognizedFiles()
+	{
+		String[] files = {
+			"blaze: {setting: manual}\n",
+			"blaze:\n  setting: manual # changed by hand\n",
+			"blaze:\n  setting: yes\n",
+			"blaze:\n  maxIncrement: 010\n",
+			"blaze:\n  maxIncrement: 1.5\n",
+			"blaze:\n  maxIncrement: 99999999999\n",
+			"blaze:\n  scaleAttributes:\n    attack: on\n",
+			"blaze:\n    setting: manual\n",
+			"blaze:\n\tsetting: manual\n",
+			"blaze:\n  setting: manual\nblaze:\n  maxIncrement: 5\n",
+			"blaze:\n  color: red\n",
+			"dragon:\n  setting: manual\n",
+			"lastKnownName: \"Steve\"\n",
+			"lastKnownName: 'it's'\n",
+			"lastKnownName: null\n",
+			"lastKnownName:Steve\n",
+			"---\nlastKnownName: Steve\n",
+		};
+		
+		for(String contents: files)
+		{
+			assertNull(contents, PlayerFileFormat.read(PLAYER_ID, contents, TEMPLATE));
+		}
+	}
+	
+	/**
+	 * Checks that the given PlayerInfo holds the values that a
+	 * YamlConfiguration read from the same player file.
+	 */
+	private void assertSameValues(FileConfiguration playerConfig, PlayerInfo playerInfo)
+	{
+		for(MobType mobType: MobType.values())
+		{
+			String mobName = mobType.getName();
+			MobInfo mobInfo = playerInfo.getMobInfo(mobType);
+			
+			assertEquals(Setting.getSetting(playerConfig.getString(mobName + ".setting")), mobInfo.getSetting());
+			assertEquals(playerConfig.getInt(mobName + ".manualPerformanceLevel"), mobInfo.getManualPerformanceLevel(), .0001);
+			assertEquals(playerConfig.getInt(mobName + ".autoPerformanceLevel"), mobInfo.getAutoPerformanceLevel(), .0001);
+			assertEquals(playerConfig.getInt(mobName + ".maxIncrement"), mobInfo.getMaxIncrement());
+			assertEquals(playerConfig.getBoolean(mobName + ".scaleAttributes.attack"), mobInfo.shouldScaleAttack());
+			assertEquals(playerConfig.getBoolean(mobName + ".scaleAttributes.defense"), mobInfo.shouldScaleDefense());
+			assertEquals(playerConfig.getBoolean(mobName + ".scaleAttributes.speed"), mobInfo.shouldScaleSpeed());
+			assertEquals(playerConfig.getBoolean(mobName + ".scaleAttributes.knockback"), mobInfo.shouldScaleKnockbackResistance());
+			assertEquals(playerConfig.getBoolean(mobName + ".scaleAttributes.followDistance"), mobInfo.shouldScaleMaxFollowDistance());
+			assertEquals(playerConfig.getBoolean(mobName + ".scaleAttributes.xp"), mobInfo.shouldScaleXP());
+			assertEquals(playerConfig.getBoolean(mobName + ".scaleAttributes.loot"), mobInfo.shouldScaleLoot());
+		}
+	}
+}
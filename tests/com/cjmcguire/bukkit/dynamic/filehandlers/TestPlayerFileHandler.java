@@ -2,11 +2,25 @@ package com.cjmcguire.bukkit.dynamic.filehandlers;
 
 import static org.junit.Assert.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
+import org.bukkit.event.player.AsyncPlayerPreLoginEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerLoginEvent;
 import org.easymock.EasyMock;
 import org.junit.Test;
 
@@ -27,6 +41,7 @@ public class TestPlayerFileHandler
 	private static final UUID PLAYER_1_ID = UUID.fromString("12345678-1234-1234-1234-123456789001");
 	private static final UUID PLAYER_2_ID = UUID.fromString("12345678-1234-1234-1234-123456789002");
 	private static final UUID PLAYER_4_ID = UUID.fromString("12345678-1234-1234-1234-123456789004");
+	private static final UUID UNSAVED_PLAYER_ID = UUID.fromString("12345678-1234-1234-1234-123456789999");
 
 	/**
 	 * Tests that the defaultPlayerConfiguration gets loaded in correctly.
@@ -111,6 +126,7 @@ public class TestPlayerFileHandler
 		assertEquals(Setting.AUTO, enderManInfo.getSetting());
 		assertEquals(100, enderManInfo.getManualPerformanceLevel(), .001);
 		assertEquals(145, enderManInfo.getAutoPerformanceLevel(), .001);
+		assertEquals(145, enderManInfo.getEstimatedPerformanceLevel(), .001);
 
 		MobInfo ghastInfo = playerInfo.getMobInfo(MobType.GHAST);
 		assertEquals(Setting.AUTO, ghastInfo.getSetting());
@@ -187,6 +203,9 @@ public class TestPlayerFileHandler
 
 		creeperInfo = playerInfo.getMobInfo(MobType.CREEPER);
 		assertEquals(70, creeperInfo.getAutoPerformanceLevel(), .0001);
+		
+		// the player file itself is part of the test data
+		new File("players" + File.separator + PLAYER_2_ID + ".yml.bak").delete();
 	}
 	
 	/**
@@ -277,6 +296,7 @@ public class TestPlayerFileHandler
 	{
 		Player mockPlayer = EasyMock.createMockBuilder(MockPlayer.class).createMock();
 		EasyMock.expect(mockPlayer.getUniqueId()).andReturn(PLAYER_1_ID);
+		EasyMock.expect(mockPlayer.getName()).andReturn("testPlayer1");
         EasyMock.replay(mockPlayer);
         
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
@@ -290,4 +310,847 @@ public class TestPlayerFileHandler
 		assertEquals(PLAYER_1_ID, playerDataManager.getPlayerInfo(PLAYER_1_ID).getPlayerID());
 		EasyMock.verify(mockPlayer);
 	}
+	
+	/**
+	 * Tests that onAsyncPlayerPreLogin() loads the player's data 
+	 * before the player joins.
+	 */
+	@Test
+	public void testOnAsyncPlayerPreLogin()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null);
+		
+		AsyncPlayerPreLoginEvent event = new AsyncPlayerPreLoginEvent("testPlayer1", null, PLAYER_1_ID);
+		fileHandler.onAsyncPlayerPreLogin(event);
+		
+		assertTrue(playerDataManager.playerInfoExists(PLAYER_1_ID));
+		assertFalse(fileHandler.isLoading(PLAYER_1_ID));
+		
+		MobInfo creeperInfo = playerDataManager.getPlayersMobInfo(PLAYER_1_ID, MobType.CREEPER);
+		assertEquals(Setting.MANUAL, creeperInfo.getSetting());
+		assertEquals(200, creeperInfo.getManualPerformanceLevel(), .0001);
+	}
+	
+	/**
+	 * Tests that onAsyncPlayerPreLogin() does not load anything for a 
+	 * player who is not allowed to log in.
+	 */
+	@Test
+	public void testOnAsyncPlayerPreLoginNotAllowed()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null);
+		
+		AsyncPlayerPreLoginEvent event = new AsyncPlayerPreLoginEvent("testPlayer1", null, PLAYER_1_ID);
+		event.setLoginResult(AsyncPlayerPreLoginEvent.Result.KICK_BANNED);
+		fileHandler.onAsyncPlayerPreLogin(event);
+		
+		assertFalse(playerDataManager.playerInfoExists(PLAYER_1_ID));
+		assertFalse(fileHandler.isLoading(PLAYER_1_ID));
+	}
+	
+	/**
+	 * Tests that onPlayerLogin() throws out the preloaded data of a 
+	 * player who was turned away.
+	 */
+	@Test
+	public void testOnPlayerLoginDenied()
+	{
+		Player mockPlayer = EasyMock.createMockBuilder(MockPlayer.class).createMock();
+		EasyMock.expect(mockPlayer.getUniqueId()).andReturn(PLAYER_1_ID);
+		EasyMock.replay(mockPlayer);
+		
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null);
+		
+		fileHandler.onAsyncPlayerPreLogin(new AsyncPlayerPreLoginEvent("testPlayer1", null, PLAYER_1_ID));
+		assertTrue(playerDataManager.playerInfoExists(PLAYER_1_ID));
+		
+		PlayerLoginEvent event = new PlayerLoginEvent(mockPlayer, "", null);
+		event.setResult(PlayerLoginEvent.Result.KICK_FULL);
+		fileHandler.onPlayerLogin(event);
+		
+		assertFalse(playerDataManager.playerInfoExists(PLAYER_1_ID));
+		EasyMock.verify(mockPlayer);
+	}
+	
+	/**
+	 * Tests that a request for a player whose data is still being 
+	 * loaded gets default values right away and does not start a 
+	 * second load.
+	 */
+	@Test
+	public void testRequestPlayerDataWhileLoading() throws InterruptedException
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		BlockingPlayerStore playerStore = new BlockingPlayerStore();
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null, playerStore);
+		playerDataManager.setPlayerFileHandler(fileHandler);
+		
+		Thread loginThread = this.startPreLogin(fileHandler, PLAYER_1_ID);
+		playerStore.readStarted.await();
+		
+		assertTrue(fileHandler.isLoading(PLAYER_1_ID));
+		
+		// the request must not wait for the load
+		PlayerInfo playerInfo = playerDataManager.getPlayerInfo(PLAYER_1_ID);
+		assertEquals(PLAYER_1_ID, playerInfo.getPlayerID());
+		assertEquals(Setting.AUTO, playerInfo.getMobInfo(MobType.CREEPER).getSetting());
+		assertFalse(playerDataManager.playerInfoExists(PLAYER_1_ID));
+		
+		playerStore.finishRead.countDown();
+		loginThread.join();
+		
+		assertEquals(1, playerStore.reads.get());
+		assertFalse(fileHandler.isLoading(PLAYER_1_ID));
+		
+		playerInfo = playerDataManager.getPlayerInfo(PLAYER_1_ID);
+		assertEquals(Setting.MANUAL, playerInfo.getMobInfo(MobType.CREEPER).getSetting());
+		
+		playerDataManager.setPlayerFileHandler(null);
+	}
+	
+	/**
+	 * Tests that loading a player's stored data for a command while 
+	 * the player is logging in waits for the login's load instead of 
+	 * reading the player a second time.
+	 */
+	@Test
+	public void testLoadStoredPlayerInfoWhileLoading() throws InterruptedException
+	{
+		final PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		BlockingPlayerStore playerStore = new BlockingPlayerStore();
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null, playerStore);
+		playerDataManager.setPlayerFileHandler(fileHandler);
+		
+		Thread loginThread = this.startPreLogin(fileHandler, PLAYER_1_ID);
+		playerStore.readStarted.await();
+		
+		final AtomicBoolean loaded = new AtomicBoolean();
+		Thread commandThread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				loaded.set(playerDataManager.loadStoredPlayerInfo(PLAYER_1_ID));
+			}
+		});
+		commandThread.start();
+		
+		// let the command start waiting on the login's load
+		while(commandThread.getState() != Thread.State.WAITING)
+		{
+			Thread.sleep(1);
+		}
+		
+		playerStore.finishRead.countDown();
+		loginThread.join();
+		commandThread.join();
+		
+		assertEquals(1, playerStore.reads.get());
+		assertTrue(loaded.get());
+		assertFalse(fileHandler.isLoading(PLAYER_1_ID));
+		
+		PlayerInfo playerInfo = playerDataManager.getPlayerInfo(PLAYER_1_ID);
+		assertEquals(Setting.MANUAL, playerInfo.getMobInfo(MobType.CREEPER).getSetting());
+		
+		playerDataManager.setPlayerFileHandler(null);
+	}
+	
+	/**
+	 * Tests that a load that finishes after the player's data was 
+	 * thrown out does not add the data back.
+	 */
+	@Test
+	public void testDiscardPlayerDataWhileLoading() throws InterruptedException
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		BlockingPlayerStore playerStore = new BlockingPlayerStore();
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null, playerStore);
+		
+		Thread loginThread = this.startPreLogin(fileHandler, PLAYER_1_ID);
+		playerStore.readStarted.await();
+		
+		fileHandler.discardPlayerData(PLAYER_1_ID);
+		
+		playerStore.finishRead.countDown();
+		loginThread.join();
+		
+		assertFalse(playerDataManager.playerInfoExists(PLAYER_1_ID));
+		assertFalse(fileHandler.isLoading(PLAYER_1_ID));
+	}
+	
+	/**
+	 * Tests that savePlayerData() does not write a file for a player 
+	 * whose data was never loaded.
+	 */
+	@Test
+	public void testSavePlayerDataNotLoaded()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null);
+		
+		File playerFile = new File("players" + File.separator + UNSAVED_PLAYER_ID + ".yml");
+		deletePlayerFile(playerFile);
+		
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		
+		assertFalse(playerFile.exists());
+	}
+	
+	/**
+	 * Tests that savePlayerData() only writes a player's file when 
+	 * the player's data has changed since it was last saved.
+	 */
+	@Test
+	public void testSavePlayerDataOnlyWhenDirty()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null);
+		
+		File playerFile = new File("players" + File.separator + UNSAVED_PLAYER_ID + ".yml");
+		deletePlayerFile(playerFile);
+		
+		PlayerInfo playerInfo = new PlayerInfo(UNSAVED_PLAYER_ID);
+		playerDataManager.addPlayerInfo(playerInfo);
+		
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		assertFalse(playerFile.exists());
+		
+		playerInfo.getMobInfo(MobType.ZOMBIE).setManualPerformanceLevel(150);
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		assertTrue(playerFile.exists());
+		assertFalse(playerInfo.isDirty());
+		
+		deletePlayerFile(playerFile);
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		assertFalse(playerFile.exists());
+		
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that a player whose stored data cannot be read is read 
+	 * only once, gets the default values, and is written by the next 
+	 * save so that the copy that could not be read is replaced.
+	 */
+	@Test
+	public void testUnreadablePlayerIsReplaced()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		RecordingPlayerStore playerStore = new RecordingPlayerStore();
+		playerStore.unreadable = true;
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null, playerStore);
+		playerDataManager.setPlayerFileHandler(fileHandler);
+		
+		PlayerInfo playerInfo = playerDataManager.getPlayerInfo(UNSAVED_PLAYER_ID);
+		assertTrue(playerDataManager.playerInfoExists(UNSAVED_PLAYER_ID));
+		assertTrue(playerInfo.isDirty());
+		
+		assertSame(playerInfo, playerDataManager.getPlayerInfo(UNSAVED_PLAYER_ID));
+		assertEquals(1, playerStore.loads);
+		
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		assertEquals(1, playerStore.saves);
+		assertFalse(playerInfo.isDirty());
+		
+		playerDataManager.setPlayerFileHandler(null);
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that a player whose record in the PlayerStore is damaged, 
+	 * so that the store has the player but returns nothing, gets the 
+	 * default values and is written by the next save.
+	 */
+	@Test
+	public void testDamagedPlayerIsReplaced()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		RecordingPlayerStore playerStore = new RecordingPlayerStore();
+		playerStore.damaged = true;
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null, playerStore);
+		
+		fileHandler.loadPlayerData(UNSAVED_PLAYER_ID);
+		PlayerInfo playerInfo = playerDataManager.getLoadedPlayerInfo(UNSAVED_PLAYER_ID);
+		assertTrue(playerInfo.isDirty());
+		
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		assertEquals(1, playerStore.saves);
+		assertFalse(playerInfo.isDirty());
+		
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that a player whose save fails is still marked as changed, 
+	 * so that the next save writes it again.
+	 */
+	@Test
+	public void testFailedSaveStaysDirty()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		RecordingPlayerStore playerStore = new RecordingPlayerStore();
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null, playerStore);
+		
+		PlayerInfo playerInfo = new PlayerInfo(UNSAVED_PLAYER_ID);
+		playerDataManager.addPlayerInfo(playerInfo);
+		playerInfo.getMobInfo(MobType.ZOMBIE).setManualPerformanceLevel(150);
+		
+		playerStore.failing = true;
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		fileHandler.savePlayerData(Collections.singletonList(UNSAVED_PLAYER_ID));
+		assertTrue(playerInfo.isDirty());
+		
+		playerStore.failing = false;
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		assertEquals(1, playerStore.saves);
+		assertFalse(playerInfo.isDirty());
+		
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that a freshly loaded player does not need to be saved.
+	 */
+	@Test
+	public void testLoadPlayerDataIsClean()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null);
+		fileHandler.loadPlayerData(PLAYER_1_ID);
+		
+		assertFalse(playerDataManager.getPlayerInfo(PLAYER_1_ID).isDirty());
+	}
+	
+	/**
+	 * Tests that loading a player reads the player's file once and 
+	 * writes nothing, and that saving a player writes the file once 
+	 * and reads nothing. Before, a load with a player name read the 
+	 * file once and wrote it once (twice, plus a read of the default 
+	 * file, for a new player), and a save read the file once and 
+	 * wrote it twice.
+	 */
+	@Test
+	public void testPlayerFileIOCounts()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		CountingPlayerStore playerStore = new CountingPlayerStore();
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null, playerStore);
+		
+		File playerFile = new File("players" + File.separator + UNSAVED_PLAYER_ID + ".yml");
+		deletePlayerFile(playerFile);
+		
+		// load a new player, who has no file yet
+		fileHandler.onAsyncPlayerPreLogin(new AsyncPlayerPreLoginEvent("testPlayer", null, UNSAVED_PLAYER_ID));
+		assertEquals(0, playerStore.reads);
+		assertEquals(0, playerStore.writes);
+		
+		// the player's name is new, so the save writes the file
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		assertEquals(0, playerStore.reads);
+		assertEquals(1, playerStore.writes);
+		
+		// load the player from the file
+		playerDataManager.clearPlayerData();
+		fileHandler.onAsyncPlayerPreLogin(new AsyncPlayerPreLoginEvent("testPlayer", null, UNSAVED_PLAYER_ID));
+		assertEquals(1, playerStore.reads);
+		assertEquals(1, playerStore.writes);
+		
+		// the name has not changed, so there is nothing to save
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		assertEquals(1, playerStore.reads);
+		assertEquals(1, playerStore.writes);
+		
+		// save a change
+		PlayerInfo playerInfo = playerDataManager.getPlayerInfo(UNSAVED_PLAYER_ID);
+		playerInfo.getMobInfo(MobType.GHAST).setManualPerformanceLevel(91);
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		assertEquals(1, playerStore.reads);
+		assertEquals(2, playerStore.writes);
+		
+		deletePlayerFile(playerFile);
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that the last known name is written when it changes and 
+	 * read back on the next load.
+	 */
+	@Test
+	public void testLastKnownName()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null);
+		
+		File playerFile = new File("players" + File.separator + UNSAVED_PLAYER_ID + ".yml");
+		deletePlayerFile(playerFile);
+		
+		fileHandler.onAsyncPlayerPreLogin(new AsyncPlayerPreLoginEvent("oldName", null, UNSAVED_PLAYER_ID));
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		assertEquals("oldName", fileHandler.getPlayerConfig(UNSAVED_PLAYER_ID).getString("lastKnownName"));
+		
+		playerDataManager.clearPlayerData();
+		fileHandler.onAsyncPlayerPreLogin(new AsyncPlayerPreLoginEvent("newName", null, UNSAVED_PLAYER_ID));
+		
+		PlayerInfo playerInfo = playerDataManager.getPlayerInfo(UNSAVED_PLAYER_ID);
+		assertEquals("newName", playerInfo.getLastKnownName());
+		assertTrue(playerInfo.isDirty());
+		
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		assertEquals("newName", fileHandler.getPlayerConfig(UNSAVED_PLAYER_ID).getString("lastKnownName"));
+		
+		deletePlayerFile(playerFile);
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that a new player's config holds the default values and 
+	 * that changing it does not change the defaults.
+	 */
+	@Test
+	public void testNewPlayerConfigIsCopy()
+	{
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null);
+		
+		File playerFile = new File("players" + File.separator + UNSAVED_PLAYER_ID + ".yml");
+		deletePlayerFile(playerFile);
+		
+		FileConfiguration playerConfig = fileHandler.getPlayerConfig(UNSAVED_PLAYER_ID);
+		assertEquals("auto", playerConfig.getString("zombie.setting"));
+		assertEquals(100, playerConfig.getInt("zombie.manualPerformanceLevel"));
+		
+		playerConfig.set("zombie.setting", "manual");
+		playerConfig.set("zombie.scaleAttributes.loot", false);
+		
+		FileConfiguration defaultConfig = fileHandler.getFileConfig();
+		assertEquals("auto", defaultConfig.getString("zombie.setting"));
+		assertTrue(defaultConfig.getBoolean("zombie.scaleAttributes.loot"));
+		assertFalse(playerFile.exists());
+	}
+	
+	/**
+	 * Tests that a player who is not in the PlayerStore yet is read 
+	 * from the player's yml file, and is saved to the PlayerStore 
+	 * without the yml file being changed.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testOtherStorageTypeReadsYmlFiles() throws IOException
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		File storeFile = new File("players.db");
+		storeFile.delete();
+		
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null, new SqlPlayerStore(storeFile));
+		assertFalse(fileHandler.getPlayerStore().exists(PLAYER_1_ID));
+		
+		fileHandler.loadPlayerData(PLAYER_1_ID);
+		PlayerInfo playerInfo = playerDataManager.getPlayerInfo(PLAYER_1_ID);
+		assertEquals(200, playerInfo.getMobInfo(MobType.CREEPER).getManualPerformanceLevel(), .0001);
+		
+		playerInfo.getMobInfo(MobType.CREEPER).setManualPerformanceLevel(150);
+		fileHandler.savePlayerData(PLAYER_1_ID);
+		fileHandler.shutdown();
+		playerDataManager.clearPlayerData();
+		
+		fileHandler = new PlayerFileHandler(null, StorageType.SQLITE);
+		assertTrue(fileHandler.getPlayerStore() instanceof SqlPlayerStore);
+		assertTrue(fileHandler.getPlayerStore().exists(PLAYER_1_ID));
+		assertFalse(fileHandler.getPlayerStore().exists(PLAYER_2_ID));
+		
+		fileHandler.loadPlayerData(PLAYER_1_ID);
+		playerInfo = playerDataManager.getPlayerInfo(PLAYER_1_ID);
+		assertEquals(150, playerInfo.getMobInfo(MobType.CREEPER).getManualPerformanceLevel(), .0001);
+		assertEquals(200, fileHandler.getPlayerConfig(PLAYER_1_ID).getInt("creeper.manualPerformanceLevel"));
+		
+		fileHandler.shutdown();
+		storeFile.delete();
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that with the journal turned on, saves are appended to 
+	 * the journal and reach the PlayerStore when the 
+	 * PlayerFileHandler shuts down.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testJournal() throws IOException
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		File storeFile = new File("players.db");
+		File journalFile = new File("players.journal");
+		storeFile.delete();
+		journalFile.delete();
+		
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null, StorageType.SQLITE, true);
+		assertTrue(fileHandler.getPlayerStore() instanceof JournaledPlayerStore);
+		long journalSize = journalFile.length();
+		
+		fileHandler.loadPlayerData(PLAYER_1_ID);
+		PlayerInfo playerInfo = playerDataManager.getPlayerInfo(PLAYER_1_ID);
+		playerInfo.getMobInfo(MobType.CREEPER).setManualPerformanceLevel(150);
+		fileHandler.savePlayerData(PLAYER_1_ID);
+		
+		assertTrue(journalFile.length() > journalSize);
+		
+		fileHandler.shutdown();
+		playerDataManager.clearPlayerData();
+		
+		SqlPlayerStore sqlStore = new SqlPlayerStore(storeFile);
+		assertEquals(150, sqlStore.load(PLAYER_1_ID).getMobInfo(MobType.CREEPER).getManualPerformanceLevel(), .0001);
+		sqlStore.close();
+		
+		storeFile.delete();
+		journalFile.delete();
+	}
+	
+	/**
+	 * Tests that a PlayerStore that is opened for the first time 
+	 * starts out with every player who has a yml file.
+	 * @throws IOException if the PlayerStore fails
+	 */
+	@Test
+	public void testNewStoreImportsPlayerFiles() throws IOException
+	{
+		File storeFile = new File("players.db");
+		storeFile.delete();
+		
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null, StorageType.SQLITE);
+		PlayerStore playerStore = fileHandler.getPlayerStore();
+		
+		assertTrue(playerStore.exists(PLAYER_1_ID));
+		assertTrue(playerStore.exists(PLAYER_2_ID));
+		assertTrue(playerStore.exists(PLAYER_4_ID));
+		assertFalse(playerStore.exists(UNSAVED_PLAYER_ID));
+		assertEquals(200, playerStore.load(PLAYER_1_ID).getMobInfo(MobType.CREEPER).getManualPerformanceLevel(), .0001);
+		
+		fileHandler.shutdown();
+		storeFile.delete();
+	}
+	
+	/**
+	 * Tests that saveAllPlayerData() writes every player that has 
+	 * changed with one batch and skips the rest.
+	 */
+	@Test
+	public void testSaveAllPlayerDataIsOneBatch()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		RecordingPlayerStore playerStore = new RecordingPlayerStore();
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null, playerStore);
+		playerDataManager.setPlayerFileHandler(fileHandler);
+		
+		PlayerInfo changed1 = new PlayerInfo(PLAYER_1_ID);
+		changed1.getMobInfo(MobType.ZOMBIE).setManualPerformanceLevel(120);
+		playerDataManager.addPlayerInfo(changed1);
+		
+		PlayerInfo changed2 = new PlayerInfo(PLAYER_2_ID);
+		changed2.setLastKnownName("testPlayer2");
+		playerDataManager.addPlayerInfo(changed2);
+		
+		PlayerInfo unchanged = new PlayerInfo(PLAYER_4_ID);
+		unchanged.markSaved(unchanged.getVersion());
+		playerDataManager.addPlayerInfo(unchanged);
+		
+		playerDataManager.saveAllPlayerData();
+		
+		assertEquals(0, playerStore.saves);
+		assertEquals(1, playerStore.batches.size());
+		assertEquals(2, playerStore.batches.get(0).size());
+		assertFalse(changed1.isDirty());
+		assertFalse(changed2.isDirty());
+		
+		// nothing has changed since
+		playerDataManager.saveAllPlayerData();
+		assertEquals(1, playerStore.batches.size());
+		
+		playerDataManager.setPlayerFileHandler(null);
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that loadPlayerDataInParallel() adds the data of every 
+	 * player it was given, with their names, and leaves a player whose 
+	 * data was already added alone.
+	 */
+	@Test
+	public void testLoadPlayerDataInParallel()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null);
+		
+		PlayerInfo alreadyLoaded = new PlayerInfo(PLAYER_4_ID);
+		playerDataManager.addPlayerInfo(alreadyLoaded);
+		
+		Map<UUID, String> players = new LinkedHashMap<UUID, String>();
+		players.put(PLAYER_1_ID, "testPlayer1");
+		players.put(PLAYER_2_ID, "testPlayer2");
+		players.put(PLAYER_4_ID, "testPlayer4");
+		
+		assertEquals(2, fileHandler.loadPlayerDataInParallel(players, 10000));
+		
+		PlayerInfo playerInfo = playerDataManager.getLoadedPlayerInfo(PLAYER_1_ID);
+		assertEquals("testPlayer1", playerInfo.getLastKnownName());
+		assertEquals(Setting.DISABLED, playerInfo.getMobInfo(MobType.CAVE_SPIDER).getSetting());
+		assertEquals("testPlayer2", playerDataManager.getLoadedPlayerInfo(PLAYER_2_ID).getLastKnownName());
+		assertSame(alreadyLoaded, playerDataManager.getLoadedPlayerInfo(PLAYER_4_ID));
+		
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that loadPlayerDataInParallel() stops waiting for a load 
+	 * that takes too long and hands the player to a load in the 
+	 * background, which adds the player's data when it finishes.
+	 * @throws InterruptedException if the test is interrupted
+	 */
+	@Test
+	public void testLoadPlayerDataInParallelTimeout() throws InterruptedException
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		final BlockingPlayerStore playerStore = new BlockingPlayerStore();
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null, playerStore);
+		
+		// lets both loads finish once the load in the background has 
+		// started
+		Thread finishThread = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				while(playerStore.reads.get() < 2)
+				{
+					Thread.yield();
+				}
+				playerStore.finishRead.countDown();
+			}
+		};
+		finishThread.start();
+		
+		Map<UUID, String> players = new LinkedHashMap<UUID, String>();
+		players.put(PLAYER_1_ID, "testPlayer1");
+		
+		assertEquals(0, fileHandler.loadPlayerDataInParallel(players, 50));
+		finishThread.join();
+		
+		// running headless, the load in the background ran right away
+		assertFalse(fileHandler.isLoading(PLAYER_1_ID));
+		assertEquals(Setting.MANUAL, playerDataManager.getLoadedPlayerInfo(PLAYER_1_ID).getMobInfo(MobType.CREEPER).getSetting());
+		
+		playerDataManager.clearPlayerData();
+	}
+	
+	/**
+	 * Tests that a saved player is found by name after logging out, 
+	 * and that the index is built from the player yml files when a 
+	 * new PlayerFileHandler is made.
+	 */
+	@Test
+	public void testGetStoredPlayerID()
+	{
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		
+		PlayerFileHandler fileHandler = new PlayerFileHandler(null);
+		
+		File playerFile = new File("players" + File.separator + UNSAVED_PLAYER_ID + ".yml");
+		deletePlayerFile(playerFile);
+		
+		assertNull(fileHandler.getStoredPlayerID("offlinePlayer"));
+		
+		fileHandler.onAsyncPlayerPreLogin(new AsyncPlayerPreLoginEvent("offlinePlayer", null, UNSAVED_PLAYER_ID));
+		fileHandler.savePlayerData(UNSAVED_PLAYER_ID);
+		fileHandler.discardPlayerData(UNSAVED_PLAYER_ID);
+		
+		assertEquals(UNSAVED_PLAYER_ID, fileHandler.getStoredPlayerID("offlinePlayer"));
+		assertEquals(UNSAVED_PLAYER_ID, new PlayerFileHandler(null).getStoredPlayerID("OFFLINEPLAYER"));
+		
+		deletePlayerFile(playerFile);
+		playerDataManager.clearPlayerData();
+	}
+	
+	private Thread startPreLogin(final PlayerFileHandler fileHandler, final UUID playerID)
+	{
+		Thread loginThread = new Thread()
+		{
+			@Override
+			public void run()
+			{
+				fileHandler.onAsyncPlayerPreLogin(new AsyncPlayerPreLoginEvent("testPlayer", null, playerID));
+			}
+		};
+		loginThread.start();
+		
+		return loginThread;
+	}
+	
+	/**
+	 * A YamlPlayerStore that counts how many times it loads a player 
+	 * and holds each load until it is told to finish.
+	 */
+	private static class BlockingPlayerStore extends YamlPlayerStore
+	{
+		final CountDownLatch readStarted = new CountDownLatch(1);
+		final CountDownLatch finishRead = new CountDownLatch(1);
+		final AtomicInteger reads = new AtomicInteger();
+		
+		BlockingPlayerStore()
+		{
+			super(new File("players"), YamlConfiguration.loadConfiguration(new File("default_player.yml")));
+		}
+		
+		@Override
+		public PlayerInfo load(UUID playerID) throws IOException
+		{
+			reads.incrementAndGet();
+			readStarted.countDown();
+			
+			try
+			{
+				finishRead.await();
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			
+			return super.load(playerID);
+		}
+	}
+	
+	/**
+	 * Deletes a player file along with the last good copy of it.
+	 */
+	private static void deletePlayerFile(File playerFile)
+	{
+		playerFile.delete();
+		new File(playerFile.getPath() + ".bak").delete();
+	}
+	
+	/**
+	 * A PlayerStore that remembers what it was asked to save instead 
+	 * of saving it.
+	 */
+	private static class RecordingPlayerStore implements PlayerStore
+	{
+		int saves = 0;
+		int loads = 0;
+		boolean failing = false;
+		boolean unreadable = false;
+		boolean damaged = false;
+		final List<List<PlayerInfo>> batches = new ArrayList<List<PlayerInfo>>();
+		
+		@Override
+		public PlayerInfo load(UUID playerID) throws IOException
+		{
+			loads++;
+			if(unreadable)
+			{
+				throw new IOException("damaged");
+			}
+			return null;
+		}
+		
+		@Override
+		public void save(PlayerInfo snapshot) throws IOException
+		{
+			if(failing)
+			{
+				throw new IOException("disk full");
+			}
+			saves++;
+		}
+		
+		@Override
+		public void saveBatch(Collection<PlayerInfo> snapshots) throws IOException
+		{
+			if(failing)
+			{
+				throw new IOException("disk full");
+			}
+			batches.add(new ArrayList<PlayerInfo>(snapshots));
+		}
+		
+		@Override
+		public boolean exists(UUID playerID)
+		{
+			return damaged;
+		}
+		
+		@Override
+		public void close()
+		{
+			
+		}
+	}
+	
+	/**
+	 * A YamlPlayerStore that counts how many times it reads and 
+	 * writes player files.
+	 */
+	private static class CountingPlayerStore extends YamlPlayerStore
+	{
+		int reads = 0;
+		int writes = 0;
+		
+		CountingPlayerStore()
+		{
+			super(new File("players"), YamlConfiguration.loadConfiguration(new File("default_player.yml")));
+		}
+		
+		@Override
+		protected String readPlayerFile(File playerFile)
+		{
+			reads++;
+			return super.readPlayerFile(playerFile);
+		}
+		
+		@Override
+		protected void writePlayerFile(String contents, File playerFile) throws IOException
+		{
+			writes++;
+			super.writePlayerFile(contents, playerFile);
+		}
+	}
 }
@@ -0,0 +1,117 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * Tests the PlayerFileImporter class.
+ * @author CJ McGuire
+ */
+public class TestPlayerFileImporter
+{
+	private static final File PLAYERS_FOLDER = new File("test_import_players");
+	private static final File STORE_FILE = new File(PLAYERS_FOLDER, "players.db");
+	
+	private static final UUID PLAYER_1_ID = UUID.fromString("12345678-1234-1234-1234-123456789101");
+	private static final UUID PLAYER_2_ID = UUID.fromString("12345678-1234-1234-1234-123456789102");
+	private static final UUID PLAYER_3_ID = UUID.fromString("12345678-1234-1234-1234-123456789103");
+	
+	private YamlPlayerStore yamlStore;
+	private PlayerStore playerStore;
+	
+	/**
+	 * Writes a yml file for three players and opens an empty 
+	 * PlayerStore to import them into.
+	 * @throws IOException if either PlayerStore fails
+	 */
+	@Before
+	public void setUp() throws IOException
+	{
+		this.deleteFolder();
+		
+		yamlStore = new YamlPlayerStore(PLAYERS_FOLDER, YamlConfiguration.loadConfiguration(new File("default_player.yml")));
+		yamlStore.save(this.makePlayerInfo(PLAYER_1_ID, "player1", 110));
+		yamlStore.save(this.makePlayerInfo(PLAYER_2_ID, "player2", 120));
+		yamlStore.save(this.makePlayerInfo(PLAYER_3_ID, "player3", 130));
+		
+		playerStore = new SqlPlayerStore(STORE_FILE);
+	}
+	
+	/**
+	 * Closes the PlayerStore and deletes every file it and the yml 
+	 * files were kept in.
+	 * @throws IOException if the PlayerStore cannot be closed
+	 */
+	@After
+	public void tearDown() throws IOException
+	{
+		playerStore.close();
+		this.deleteFolder();
+	}
+	
+	/**
+	 * Tests that every player yml file is imported.
+	 * @throws IOException if either PlayerStore fails
+	 */
+	@Test
+	public void testImportPlayerFiles() throws IOException
+	{
+		int imported = new PlayerFileImporter(yamlStore, playerStore).importPlayerFiles();
+		
+		assertEquals(3, imported);
+		assertEquals("player1", playerStore.load(PLAYER_1_ID).getLastKnownName());
+		assertEquals(120, playerStore.load(PLAYER_2_ID).getMobInfo(MobType.ZOMBIE).getManualPerformanceLevel(), .0001);
+		assertEquals(130, playerStore.load(PLAYER_3_ID).getMobInfo(MobType.ZOMBIE).getManualPerformanceLevel(), .0001);
+	}
+	
+	/**
+	 * Tests that a player who is already in the PlayerStore keeps 
+	 * the data the PlayerStore has, and that importing a second time 
+	 * imports nothing.
+	 * @throws IOException if either PlayerStore fails
+	 */
+	@Test
+	public void testExistingPlayersAreSkipped() throws IOException
+	{
+		playerStore.save(this.makePlayerInfo(PLAYER_2_ID, "player2", 180));
+		
+		PlayerFileImporter importer = new PlayerFileImporter(yamlStore, playerStore);
+		
+		assertEquals(2, importer.importPlayerFiles());
+		assertEquals(180, playerStore.load(PLAYER_2_ID).getMobInfo(MobType.ZOMBIE).getManualPerformanceLevel(), .0001);
+		
+		assertEquals(0, importer.importPlayerFiles());
+	}
+	
+	private PlayerInfo makePlayerInfo(UUID playerID, String name, double manualPerformanceLevel)
+	{
+		PlayerInfo playerInfo = new PlayerInfo(playerID);
+		playerInfo.setLastKnownName(name);
+		playerInfo.getMobInfo(MobType.ZOMBIE).setManualPerformanceLevel(manualPerformanceLevel);
+		return playerInfo.snapshot();
+	}
+	
+	private void deleteFolder()
+	{
+		File[] files = PLAYERS_FOLDER.listFiles();
+		if(files != null)
+		{
+			for(File file: files)
+			{
+				file.delete();
+			}
+		}
+		PLAYERS_FOLDER.delete();
+	}
+}
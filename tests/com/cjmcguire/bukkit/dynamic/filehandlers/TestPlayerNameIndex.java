@@ -0,0 +1,135 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * Tests the PlayerNameIndex class.
+ * @author CJ McGuire
+ */
+public class TestPlayerNameIndex
+{
+	private static final File INDEX_FILE = new File("test_players.names");
+	
+	private static final UUID PLAYER_1_ID = UUID.fromString("12345678-1234-1234-1234-123456789001");
+	private static final UUID PLAYER_2_ID = UUID.fromString("12345678-1234-1234-1234-123456789002");
+	
+	/**
+	 * Tests that players are found by name without regard to case.
+	 * @throws IOException if the index cannot be written
+	 */
+	@Test
+	public void testGetPlayerID() throws IOException
+	{
+		PlayerNameIndex index = new PlayerNameIndex(null);
+		index.putAll(Arrays.asList(makePlayerInfo(PLAYER_1_ID, "Steve"), makePlayerInfo(PLAYER_2_ID, null)));
+		
+		assertEquals(PLAYER_1_ID, index.getPlayerID("Steve"));
+		assertEquals(PLAYER_1_ID, index.getPlayerID("sTEVE"));
+		assertNull(index.getPlayerID("Alex"));
+		assertEquals(1, index.size());
+	}
+	
+	/**
+	 * Tests that a player who changed names is only found by the new 
+	 * name, and that an old name someone else has taken finds the 
+	 * other player.
+	 * @throws IOException if the index cannot be written
+	 */
+	@Test
+	public void testRename() throws IOException
+	{
+		PlayerNameIndex index = new PlayerNameIndex(null);
+		index.putAll(Arrays.asList(makePlayerInfo(PLAYER_1_ID, "Steve")));
+		index.putAll(Arrays.asList(makePlayerInfo(PLAYER_2_ID, "Steve"), makePlayerInfo(PLAYER_1_ID, "Alex")));
+		
+		assertEquals(PLAYER_1_ID, index.getPlayerID("Alex"));
+		assertEquals(PLAYER_2_ID, index.getPlayerID("Steve"));
+		
+		index.putAll(Arrays.asList(makePlayerInfo(PLAYER_1_ID, "Herobrine")));
+		
+		assertNull(index.getPlayerID("Alex"));
+		assertEquals(PLAYER_2_ID, index.getPlayerID("Steve"));
+		assertEquals(2, index.size());
+	}
+	
+	/**
+	 * Tests that the index file is read back the same, and that a 
+	 * line that was cut short is skipped.
+	 * @throws IOException if the index file cannot be read or written
+	 */
+	@Test
+	public void testLoad() throws IOException
+	{
+		INDEX_FILE.delete();
+		
+		PlayerNameIndex index = new PlayerNameIndex(INDEX_FILE);
+		assertFalse(index.fileExists());
+		index.putAll(Arrays.asList(makePlayerInfo(PLAYER_1_ID, "Steve"), makePlayerInfo(PLAYER_2_ID, "Alex")));
+		index.putAll(Arrays.asList(makePlayerInfo(PLAYER_1_ID, "Herobrine")));
+		assertTrue(index.fileExists());
+		
+		FileOutputStream out = new FileOutputStream(INDEX_FILE, true);
+		out.write("12345678-1234-12".getBytes("UTF-8"));
+		out.close();
+		
+		PlayerNameIndex reopened = new PlayerNameIndex(INDEX_FILE);
+		reopened.load();
+		
+		assertEquals(2, reopened.size());
+		assertEquals(PLAYER_1_ID, reopened.getPlayerID("herobrine"));
+		assertEquals(PLAYER_2_ID, reopened.getPlayerID("alex"));
+		assertNull(reopened.getPlayerID("steve"));
+		
+		INDEX_FILE.delete();
+	}
+	
+	/**
+	 * Tests that the index file is written again with one line for 
+	 * every player once most of its lines are out of date.
+	 * @throws IOException if the index file cannot be read or written
+	 */
+	@Test
+	public void testCompact() throws IOException
+	{
+		INDEX_FILE.delete();
+		
+		PlayerNameIndex index = new PlayerNameIndex(INDEX_FILE);
+		for(int i = 0; i < 2000; i++)
+		{
+			index.putAll(Arrays.asList(makePlayerInfo(PLAYER_1_ID, "Steve" + i)));
+		}
+		
+		assertTrue(this.countLines(INDEX_FILE) < 1100);
+		
+		PlayerNameIndex reopened = new PlayerNameIndex(INDEX_FILE);
+		reopened.load();
+		assertEquals(1, reopened.size());
+		assertEquals(PLAYER_1_ID, reopened.getPlayerID("Steve1999"));
+		
+		INDEX_FILE.delete();
+	}
+	
+	private int countLines(File file) throws IOException
+	{
+		return Files.readAllLines(file.toPath(), Charset.forName("UTF-8")).size();
+	}
+	
+	private static PlayerInfo makePlayerInfo(UUID playerID, String lastKnownName)
+	{
+		PlayerInfo playerInfo = new PlayerInfo(playerID);
+		playerInfo.setLastKnownName(lastKnownName);
+		return playerInfo;
+	}
+}
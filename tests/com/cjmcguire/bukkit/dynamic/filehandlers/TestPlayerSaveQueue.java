@@ -0,0 +1,453 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * Tests the PlayerSaveQueue class.
+ * @author CJ McGuire
+ */
+public class TestPlayerSaveQueue
+{
+	private static final UUID PLAYER_1_ID = UUID.fromString("12345678-1234-1234-1234-123456789998");
+	private static final UUID PLAYER_2_ID = UUID.fromString("12345678-1234-1234-1234-123456789997");
+	
+	/**
+	 * Tests that a queued snapshot is on disk after flush().
+	 */
+	@Test
+	public void testEnqueueAndFlush()
+	{
+		File playerFile = new File("players" + File.separator + PLAYER_1_ID + ".yml");
+		deletePlayerFile(playerFile);
+		
+		PlayerSaveQueue saveQueue = new PlayerSaveQueue(new PlayerFileHandler(null));
+		
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		playerInfo.getMobInfo(MobType.ZOMBIE).setManualPerformanceLevel(150);
+		
+		saveQueue.enqueue(playerInfo.snapshot());
+		saveQueue.flush();
+		
+		assertEquals(0, saveQueue.size());
+		assertNull(saveQueue.getPendingSave(PLAYER_1_ID));
+		
+		FileConfiguration playerConfig = YamlConfiguration.loadConfiguration(playerFile);
+		assertEquals(150, playerConfig.getInt("zombie.manualPerformanceLevel"));
+		
+		saveQueue.shutdown();
+		deletePlayerFile(playerFile);
+	}
+	
+	/**
+	 * Tests that snapshots queued for a player while the player's last
+	 * snapshot is still being written collapse into one write of the
+	 * newest snapshot.
+	 */
+	@Test
+	public void testSavesCoalesce() throws InterruptedException
+	{
+		RecordingPlayerFileHandler fileHandler = new RecordingPlayerFileHandler();
+		PlayerSaveQueue saveQueue = new PlayerSaveQueue(fileHandler);
+		
+		PlayerInfo first = new PlayerInfo(PLAYER_1_ID).snapshot();
+		PlayerInfo second = new PlayerInfo(PLAYER_1_ID).snapshot();
+		PlayerInfo third = new PlayerInfo(PLAYER_1_ID).snapshot();
+		
+		saveQueue.enqueue(first);
+		fileHandler.writeStarted.await();
+		
+		saveQueue.enqueue(second);
+		saveQueue.enqueue(third);
+		assertSame(third, saveQueue.getPendingSave(PLAYER_1_ID));
+		
+		fileHandler.finishWrite.countDown();
+		saveQueue.flush();
+		
+		assertEquals(2, fileHandler.written.size());
+		assertSame(first, fileHandler.written.get(0));
+		assertSame(third, fileHandler.written.get(1));
+		assertEquals(0, saveQueue.size());
+		
+		saveQueue.shutdown();
+	}
+	
+	/**
+	 * Tests that every player who is queued gets written.
+	 */
+	@Test
+	public void testDifferentPlayersAreAllWritten()
+	{
+		RecordingPlayerFileHandler fileHandler = new RecordingPlayerFileHandler();
+		fileHandler.finishWrite.countDown();
+		
+		PlayerSaveQueue saveQueue = new PlayerSaveQueue(fileHandler);
+		
+		PlayerInfo player1 = new PlayerInfo(PLAYER_1_ID).snapshot();
+		PlayerInfo player2 = new PlayerInfo(PLAYER_2_ID).snapshot();
+		
+		saveQueue.enqueue(player1);
+		saveQueue.enqueue(player2);
+		saveQueue.shutdown();
+		
+		assertEquals(2, fileHandler.written.size());
+		assertTrue(fileHandler.written.contains(player1));
+		assertTrue(fileHandler.written.contains(player2));
+	}
+	
+	/**
+	 * Tests that a batch of snapshots is written with one call and 
+	 * that the players in it are no longer pending afterwards.
+	 */
+	@Test
+	public void testEnqueueBatch()
+	{
+		RecordingPlayerFileHandler fileHandler = new RecordingPlayerFileHandler();
+		fileHandler.finishWrite.countDown();
+		
+		PlayerSaveQueue saveQueue = new PlayerSaveQueue(fileHandler);
+		
+		List<PlayerInfo> batch = new ArrayList<PlayerInfo>();
+		batch.add(new PlayerInfo(PLAYER_1_ID).snapshot());
+		batch.add(new PlayerInfo(PLAYER_2_ID).snapshot());
+		
+		saveQueue.enqueueBatch(batch);
+		saveQueue.flush();
+		
+		assertEquals(1, fileHandler.batches.size());
+		assertEquals(batch, fileHandler.batches.get(0));
+		assertTrue(fileHandler.written.isEmpty());
+		assertEquals(0, saveQueue.size());
+		
+		saveQueue.shutdown();
+	}
+	
+	/**
+	 * Tests that a snapshot whose write fails stays queued, is still 
+	 * handed to loads, and is written once the writes work again.
+	 */
+	@Test
+	public void testFailedWriteIsRetried() throws InterruptedException
+	{
+		FailingPlayerFileHandler fileHandler = new FailingPlayerFileHandler(2);
+		PlayerSaveQueue saveQueue = new PlayerSaveQueue(fileHandler, 10);
+		
+		PlayerInfo snapshot = new PlayerInfo(PLAYER_1_ID).snapshot();
+		saveQueue.enqueue(snapshot);
+		waitForAttempts(fileHandler, 1);
+		
+		assertSame(snapshot, saveQueue.getPendingSave(PLAYER_1_ID));
+		
+		waitForWrites(fileHandler, 1);
+		saveQueue.flush();
+		
+		assertEquals(3, fileHandler.attempts.get());
+		assertSame(snapshot, fileHandler.written.get(0));
+		assertEquals(0, saveQueue.size());
+		
+		saveQueue.shutdown();
+	}
+	
+	/**
+	 * Tests that flush() waits for a failed write that is waiting to 
+	 * be tried again, instead of returning while it is still queued.
+	 */
+	@Test
+	public void testFlushWaitsForRetry() throws InterruptedException
+	{
+		FailingPlayerFileHandler fileHandler = new FailingPlayerFileHandler(1);
+		PlayerSaveQueue saveQueue = new PlayerSaveQueue(fileHandler, 200);
+		
+		PlayerInfo snapshot = new PlayerInfo(PLAYER_1_ID).snapshot();
+		saveQueue.enqueue(snapshot);
+		waitForAttempts(fileHandler, 1);
+		
+		assertSame(snapshot, saveQueue.getPendingSave(PLAYER_1_ID));
+		
+		saveQueue.flush();
+		
+		assertEquals(2, fileHandler.attempts.get());
+		assertSame(snapshot, fileHandler.written.get(0));
+		assertEquals(0, saveQueue.size());
+		
+		saveQueue.shutdown();
+	}
+	
+	/**
+	 * Tests that a batch whose write fails is written again, with the 
+	 * newest snapshot of a player who was queued again in the 
+	 * meantime.
+	 */
+	@Test
+	public void testFailedBatchIsRetried() throws InterruptedException
+	{
+		FailingPlayerFileHandler fileHandler = new FailingPlayerFileHandler(1);
+		PlayerSaveQueue saveQueue = new PlayerSaveQueue(fileHandler, 200);
+		
+		List<PlayerInfo> batch = new ArrayList<PlayerInfo>();
+		batch.add(new PlayerInfo(PLAYER_1_ID).snapshot());
+		batch.add(new PlayerInfo(PLAYER_2_ID).snapshot());
+		
+		saveQueue.enqueueBatch(batch);
+		waitForAttempts(fileHandler, 1);
+		
+		PlayerInfo newer = new PlayerInfo(PLAYER_1_ID).snapshot();
+		saveQueue.enqueue(newer);
+		
+		saveQueue.flush();
+		
+		assertEquals(2, fileHandler.written.size());
+		
+		assertTrue(fileHandler.written.contains(newer));
+		assertTrue(fileHandler.written.contains(batch.get(1)));
+		assertFalse(fileHandler.written.contains(batch.get(0)));
+		assertEquals(0, saveQueue.size());
+		
+		saveQueue.shutdown();
+	}
+	
+	/**
+	 * Tests that a write that throws leaves the snapshot on the queue 
+	 * to be tried again, for single players and for batches.
+	 */
+	@Test
+	public void testThrowingWriteIsRetried() throws InterruptedException
+	{
+		FailingPlayerFileHandler fileHandler = new FailingPlayerFileHandler(2);
+		fileHandler.throwing = true;
+		PlayerSaveQueue saveQueue = new PlayerSaveQueue(fileHandler, 200);
+		
+		PlayerInfo snapshot = new PlayerInfo(PLAYER_1_ID).snapshot();
+		List<PlayerInfo> batch = new ArrayList<PlayerInfo>();
+		batch.add(new PlayerInfo(PLAYER_2_ID).snapshot());
+		
+		saveQueue.enqueue(snapshot);
+		saveQueue.enqueueBatch(batch);
+		waitForAttempts(fileHandler, 2);
+		
+		assertSame(snapshot, saveQueue.getPendingSave(PLAYER_1_ID));
+		assertSame(batch.get(0), saveQueue.getPendingSave(PLAYER_2_ID));
+		
+		saveQueue.flush();
+		
+		assertEquals(2, fileHandler.written.size());
+		assertEquals(0, saveQueue.size());
+		
+		saveQueue.shutdown();
+	}
+	
+	/**
+	 * Tests that shutdown() tries a failed write one last time instead 
+	 * of waiting for the retry.
+	 */
+	@Test
+	public void testShutdownTriesFailedWrites()
+	{
+		FailingPlayerFileHandler fileHandler = new FailingPlayerFileHandler(1);
+		PlayerSaveQueue saveQueue = new PlayerSaveQueue(fileHandler, 60000);
+		
+		PlayerInfo snapshot = new PlayerInfo(PLAYER_1_ID).snapshot();
+		saveQueue.enqueue(snapshot);
+		saveQueue.shutdown();
+		
+		assertEquals(2, fileHandler.attempts.get());
+		assertSame(snapshot, fileHandler.written.get(0));
+		assertEquals(0, saveQueue.size());
+	}
+	
+	/**
+	 * Tests that shutdown() does not write anything on the calling 
+	 * thread while the writer thread is still writing, and says so.
+	 */
+	@Test
+	public void testShutdownWhileWriting() throws InterruptedException
+	{
+		RecordingPlayerFileHandler fileHandler = new RecordingPlayerFileHandler();
+		PlayerSaveQueue saveQueue = new PlayerSaveQueue(fileHandler);
+		
+		PlayerInfo snapshot = new PlayerInfo(PLAYER_1_ID).snapshot();
+		saveQueue.enqueue(snapshot);
+		fileHandler.writeStarted.await();
+		
+		assertFalse(saveQueue.shutdown(50, TimeUnit.MILLISECONDS));
+		assertSame(snapshot, saveQueue.getPendingSave(PLAYER_1_ID));
+		synchronized(fileHandler.written)
+		{
+			assertTrue(fileHandler.written.isEmpty());
+		}
+		
+		// the writer thread still finishes the write on its own
+		fileHandler.finishWrite.countDown();
+		
+		long deadline = System.currentTimeMillis() + 5000;
+		while(saveQueue.size() > 0 && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(5);
+		}
+		
+		assertEquals(0, saveQueue.size());
+		assertEquals(1, fileHandler.written.size());
+	}
+	
+	/**
+	 * Waits up to five seconds for the given number of snapshots to 
+	 * be written.
+	 */
+	private static void waitForWrites(FailingPlayerFileHandler fileHandler, int writes) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + 5000;
+		while(fileHandler.written.size() < writes && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(5);
+		}
+		
+		assertEquals(writes, fileHandler.written.size());
+	}
+	
+	/**
+	 * Waits up to five seconds for at least the given number of writes 
+	 * to be tried.
+	 */
+	private static void waitForAttempts(FailingPlayerFileHandler fileHandler, int attempts) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + 5000;
+		while(fileHandler.attempts.get() < attempts && System.currentTimeMillis() < deadline)
+		{
+			Thread.sleep(5);
+		}
+		
+		assertTrue(fileHandler.attempts.get() >= attempts);
+	}
+	
+	/**
+	 * Deletes a player file along with the last good copy of it.
+	 */
+	private static void deletePlayerFile(File playerFile)
+	{
+		playerFile.delete();
+		new File(playerFile.getPath() + ".bak").delete();
+	}
+	
+	/**
+	 * A headless PlayerFileHandler that remembers what it was asked to
+	 * write instead of writing it, and holds each write until it is
+	 * told to finish.
+	 */
+	private static class RecordingPlayerFileHandler extends PlayerFileHandler
+	{
+		final CountDownLatch writeStarted = new CountDownLatch(1);
+		final CountDownLatch finishWrite = new CountDownLatch(1);
+		final List<PlayerInfo> written = new ArrayList<PlayerInfo>();
+		final List<List<PlayerInfo>> batches = new ArrayList<List<PlayerInfo>>();
+		
+		RecordingPlayerFileHandler()
+		{
+			super(null);
+		}
+		
+		@Override
+		boolean writePlayerData(PlayerInfo snapshot)
+		{
+			writeStarted.countDown();
+			
+			try
+			{
+				finishWrite.await();
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			
+			synchronized(written)
+			{
+				written.add(snapshot);
+			}
+			
+			return true;
+		}
+		
+		@Override
+		boolean writePlayerData(Collection<PlayerInfo> snapshots)
+		{
+			synchronized(written)
+			{
+				batches.add(new ArrayList<PlayerInfo>(snapshots));
+			}
+			
+			return true;
+		}
+	}
+	
+	/**
+	 * A headless PlayerFileHandler whose writes fail a number of 
+	 * times before they start to work. The failures either return 
+	 * false or throw.
+	 */
+	private static class FailingPlayerFileHandler extends PlayerFileHandler
+	{
+		final AtomicInteger failuresLeft;
+		volatile boolean throwing = false;
+		final AtomicInteger attempts = new AtomicInteger();
+		final List<PlayerInfo> written = new CopyOnWriteArrayList<PlayerInfo>();
+		
+		FailingPlayerFileHandler(int failures)
+		{
+			super(null);
+			this.failuresLeft = new AtomicInteger(failures);
+		}
+		
+		@Override
+		boolean writePlayerData(PlayerInfo snapshot)
+		{
+			attempts.incrementAndGet();
+			
+			if(failuresLeft.getAndDecrement() > 0)
+			{
+				return this.fail();
+			}
+			
+			written.add(snapshot);
+			return true;
+		}
+		
+		@Override
+		boolean writePlayerData(Collection<PlayerInfo> snapshots)
+		{
+			attempts.incrementAndGet();
+			
+			if(failuresLeft.getAndDecrement() > 0)
+			{
+				return this.fail();
+			}
+			
+			written.addAll(snapshots);
+			return true;
+		}
+		
+		private boolean fail()
+		{
+			if(throwing)
+			{
+				throw new IllegalStateException("store is broken");
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+
+/**
+ * Tests the SqlPlayerStore class.
+ * @author CJ McGuire
+ */
+public class TestSqlPlayerStore extends PlayerStoreConformance
+{
+	private static final File STORE_FILE = new File("players" + File.separator + "test_players.db");
+	
+	@Override
+	protected PlayerStore openStore() throws IOException
+	{
+		return new SqlPlayerStore(STORE_FILE);
+	}
+	
+	@Override
+	protected void deleteStore()
+	{
+		STORE_FILE.delete();
+	}
+	
+	/**
+	 * Tests that a player is kept as one row in the players table and
+	 * one row for each MobType in the player_mobs table.
+	 * @throws Exception if the database cannot be read
+	 */
+	@Test
+	public void testOneRowPerMobType() throws Exception
+	{
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 0));
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 1));
+		
+		assertEquals(1, this.queryInt("SELECT COUNT(*) FROM players"));
+		assertEquals(MobType.values().length, this.queryInt("SELECT COUNT(*) FROM player_mobs"));
+		assertEquals(101, this.queryInt("SELECT manual_performance_level FROM player_mobs " +
+				"WHERE uuid = '" + PLAYER_1_ID + "' AND mob_type = 'blaze'"));
+	}
+	
+	/**
+	 * Tests that a MobType that has no row yet keeps its default
+	 * values and that a row for a MobType that does not exist is
+	 * skipped.
+	 * @throws Exception if the database cannot be changed
+	 */
+	@Test
+	public void testMissingAndUnknownMobRows() throws Exception
+	{
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 0));
+		
+		this.execute("DELETE FROM player_mobs WHERE mob_type = 'blaze'");
+		this.execute("UPDATE player_mobs SET mob_type = 'notamob' WHERE mob_type = 'creeper'");
+		
+		PlayerInfo playerInfo = store.load(PLAYER_1_ID);
+		assertEquals(100, playerInfo.getMobInfo(MobType.BLAZE).getManualPerformanceLevel(), .0001);
+		assertEquals(100, playerInfo.getMobInfo(MobType.CREEPER).getAutoPerformanceLevel(), .0001);
+		assertFalse(playerInfo.getMobInfo(MobType.SPIDER).shouldScaleLoot());
+	}
+	
+	private int queryInt(String query) throws SQLException
+	{
+		Connection connection = DriverManager.getConnection("jdbc:sqlite:" + STORE_FILE.getPath());
+		Statement statement = connection.createStatement();
+		ResultSet result = statement.executeQuery(query);
+		result.next();
+		int value = result.getInt(1);
+		connection.close();
+		
+		return value;
+	}
+	
+	private void execute(String update) throws SQLException
+	{
+		Connection connection = DriverManager.getConnection("jdbc:sqlite:" + STORE_FILE.getPath());
+		Statement statement = connection.createStatement();
+		statement.executeUpdate(update);
+		connection.close();
+	}
+}
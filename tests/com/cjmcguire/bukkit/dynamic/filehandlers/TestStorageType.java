@@ -0,0 +1,50 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests the StorageType enum.
+ * @author CJ McGuire
+ */
+public class TestStorageType
+{
+	/**
+	 * This test is here mostly to boost code coverage.
+	 */
+	@Test
+	public void boostCoverage()
+	{
+		StorageType[] storageTypes = StorageType.values();
+		for(int looper = 0; looper < storageTypes.length; looper++)
+		{
+			assertEquals(looper, storageTypes[looper].ordinal());
+		}
+		
+		assertEquals(StorageType.YAML, StorageType.valueOf("YAML"));
+	}
+	
+	/**
+	 * Tests the getName() method
+	 */
+	@Test
+	public void testGetName()
+	{
+		assertEquals("yaml", StorageType.YAML.getName());
+		assertEquals("binary", StorageType.BINARY.getName());
+		assertEquals("sqlite", StorageType.SQLITE.getName());
+	}
+	
+	/**
+	 * Tests the getStorageType() method
+	 */
+	@Test
+	public void testGetStorageType()
+	{
+		assertEquals(StorageType.YAML, StorageType.getStorageType("yaml"));
+		assertEquals(StorageType.BINARY, StorageType.getStorageType("BINARY"));
+		assertEquals(StorageType.SQLITE, StorageType.getStorageType("SQLite"));
+		assertNull(StorageType.getStorageType("not storage"));
+	}
+}
@@ -0,0 +1,320 @@
+package com.cjmcguire.bukkit.dynamic.filehandlers;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
+import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
+
+/**
+ * Tests the YamlPlayerStore class.
+ * @author CJ McGuire
+ */
+public class TestYamlPlayerStore extends PlayerStoreConformance
+{
+	private static final File PLAYERS_FOLDER = new File("test_players");
+	
+	@Override
+	protected PlayerStore openStore()
+	{
+		return new YamlPlayerStore(PLAYERS_FOLDER, YamlConfiguration.loadConfiguration(new File("default_player.yml")));
+	}
+	
+	@Override
+	protected void deleteStore()
+	{
+		File[] playerFiles = PLAYERS_FOLDER.listFiles();
+		if(playerFiles != null)
+		{
+			for(File playerFile: playerFiles)
+			{
+				playerFile.delete();
+			}
+		}
+		PLAYERS_FOLDER.delete();
+	}
+	
+	/**
+	 * Tests that each player is saved to a <player UUID>.yml file
+	 * laid out like the default_player.yml.
+	 * @throws IOException if the player file cannot be written
+	 */
+	@Test
+	public void testPlayerFileLayout() throws IOException
+	{
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 0));
+		
+		File playerFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml");
+		assertTrue(playerFile.exists());
+		
+		FileConfiguration playerConfig = YamlConfiguration.loadConfiguration(playerFile);
+		assertEquals("player0", playerConfig.getString("lastKnownName"));
+		assertEquals("manual", playerConfig.getString("blaze.setting"));
+		assertEquals(100, playerConfig.getInt("blaze.manualPerformanceLevel"));
+		assertFalse(playerConfig.getBoolean("spider.scaleAttributes.loot"));
+	}
+	
+	/**
+	 * Tests that a player with no file gets the values in the
+	 * default_player.yml without a file being written.
+	 */
+	@Test
+	public void testLoadDefaults()
+	{
+		PlayerInfo playerInfo = ((YamlPlayerStore) store).loadDefaults(PLAYER_1_ID);
+		
+		assertEquals(PLAYER_1_ID, playerInfo.getPlayerID());
+		assertNull(playerInfo.getLastKnownName());
+		assertEquals(Setting.AUTO, playerInfo.getMobInfo(MobType.ZOMBIE).getSetting());
+		assertEquals(100, playerInfo.getMobInfo(MobType.ZOMBIE).getManualPerformanceLevel(), .0001);
+		assertFalse(playerInfo.isDirty());
+		assertFalse(new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml").exists());
+	}
+	
+	/**
+	 * Tests that saving a player again keeps the old player file as 
+	 * the last good copy and leaves no temp file behind.
+	 * @throws IOException if the player file cannot be written
+	 */
+	@Test
+	public void testSaveKeepsLastGoodCopy() throws IOException
+	{
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 0));
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 1));
+		
+		File playerFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml");
+		File backupFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml.bak");
+		
+		assertEquals("player1", YamlConfiguration.loadConfiguration(playerFile).getString("lastKnownName"));
+		assertEquals("player0", YamlConfiguration.loadConfiguration(backupFile).getString("lastKnownName"));
+		assertFalse(new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml.tmp").exists());
+	}
+	
+	/**
+	 * Tests that a player file that was cut short is noticed and the 
+	 * last good copy of it is read instead.
+	 * @throws IOException if the player file cannot be written
+	 */
+	@Test
+	public void testTruncatedFileReadsLastGoodCopy() throws IOException
+	{
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 0));
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 1));
+		
+		File playerFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml");
+		RandomAccessFile truncated = new RandomAccessFile(playerFile, "rw");
+		truncated.setLength(0);
+		truncated.close();
+		
+		assertConformancePlayerInfo(PLAYER_1_ID, 0, store.load(PLAYER_1_ID));
+	}
+	
+	/**
+	 * Tests that a player file that does not match its checksum is 
+	 * noticed and the last good copy of it is read instead, while a 
+	 * file that matches is read as usual.
+	 * @throws IOException if the player file cannot be written
+	 */
+	@Test
+	public void testChecksums() throws IOException
+	{
+		((YamlPlayerStore) store).setWriteChecksums(true);
+		
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 0));
+		store.save(makeConformancePlayerInfo(PLAYER_1_ID, 1));
+		
+		File playerFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml");
+		String contents = new String(Files.readAllBytes(playerFile.toPath()), "UTF-8");
+		assertTrue(contents.contains("\n# crc32: "));
+		
+		assertConformancePlayerInfo(PLAYER_1_ID, 1, store.load(PLAYER_1_ID));
+		
+		// still valid yml, but not what was written
+		Files.write(playerFile.toPath(), contents.replace("player1", "player9").getBytes("UTF-8"));
+		
+		assertConformancePlayerInfo(PLAYER_1_ID, 0, store.load(PLAYER_1_ID));
+	}
+	
+	/**
+	 * Tests that a corrupt player file with no good copy is moved out 
+	 * of the way, so that the player starts over from the defaults 
+	 * the next time the player is loaded.
+	 * @throws IOException if the player file cannot be written
+	 */
+	@Test
+	public void testCorruptFileWithoutGoodCopy() throws IOException
+	{
+		PLAYERS_FOLDER.mkdirs();
+		File playerFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml");
+		Files.write(playerFile.toPath(), "blaze: [".getBytes("UTF-8"));
+		
+		try
+		{
+			store.load(PLAYER_1_ID);
+			fail("a corrupt player file was loaded");
+		}
+		catch(IOException e)
+		{
+			// expected
+		}
+		
+		assertTrue(new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml.corrupt").exists());
+		assertFalse(store.exists(PLAYER_1_ID));
+		assertNull(store.load(PLAYER_1_ID));
+	}
+	
+	/**
+	 * Tests that when a player file and its last good copy are both 
+	 * corrupt, both are kept under new names, and that an earlier 
+	 * corrupt file is not replaced.
+	 * @throws IOException if the player file cannot be written
+	 */
+	@Test
+	public void testCorruptFileAndCopyAreKept() throws IOException
+	{
+		PLAYERS_FOLDER.mkdirs();
+		File playerFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml");
+		File backupFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml.bak");
+		File corruptFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml.corrupt");
+		File laterCorruptFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml.corrupt.1");
+		File corruptBackupFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml.bak.corrupt");
+		
+		Files.write(corruptFile.toPath(), "earlier".getBytes("UTF-8"));
+		Files.write(playerFile.toPath(), "blaze: [".getBytes("UTF-8"));
+		Files.write(backupFile.toPath(), "zombie: [".getBytes("UTF-8"));
+		
+		try
+		{
+			store.load(PLAYER_1_ID);
+			fail("a corrupt player file was loaded");
+		}
+		catch(IOException e)
+		{
+			// expected
+		}
+		
+		assertFalse(store.exists(PLAYER_1_ID));
+		assertEquals("earlier", new String(Files.readAllBytes(corruptFile.toPath()), "UTF-8"));
+		assertEquals("blaze: [", new String(Files.readAllBytes(laterCorruptFile.toPath()), "UTF-8"));
+		assertEquals("zombie: [", new String(Files.readAllBytes(corruptBackupFile.toPath()), "UTF-8"));
+	}
+	
+	/**
+	 * Tests that a sparse player file only holds the player's name and 
+	 * the values that differ from the default_player.yml, and that it 
+	 * is read back the same as a full player file.
+	 * @throws IOException if the player file cannot be written
+	 */
+	@Test
+	public void testSparsePlayerFile() throws IOException
+	{
+		((YamlPlayerStore) store).setSparse(true);
+		
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		playerInfo.setLastKnownName("player0");
+		playerInfo.getMobInfo(MobType.ZOMBIE).setAutoPerformanceLevel(123);
+		playerInfo.getMobInfo(MobType.SPIDER).setScaleLoot(false);
+		store.save(playerInfo.snapshot());
+		
+		File playerFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml");
+		FileConfiguration playerConfig = YamlConfiguration.loadConfiguration(playerFile);
+		assertEquals(7, playerConfig.getKeys(true).size());
+		assertTrue(playerConfig.getBoolean("sparse"));
+		assertEquals("player0", playerConfig.getString("lastKnownName"));
+		assertEquals(123, playerConfig.getInt("zombie.autoPerformanceLevel"));
+		assertFalse(playerConfig.getBoolean("spider.scaleAttributes.loot", true));
+		
+		PlayerInfo loaded = store.load(PLAYER_1_ID);
+		assertEquals(123, loaded.getMobInfo(MobType.ZOMBIE).getAutoPerformanceLevel(), .0001);
+		assertFalse(loaded.getMobInfo(MobType.SPIDER).shouldScaleLoot());
+		assertTrue(loaded.getMobInfo(MobType.SPIDER).shouldScaleAttack());
+		assertEquals(Setting.AUTO, loaded.getMobInfo(MobType.BLAZE).getSetting());
+		
+		store.save(makeConformancePlayerInfo(PLAYER_2_ID, 1));
+		assertConformancePlayerInfo(PLAYER_2_ID, 1, store.load(PLAYER_2_ID));
+	}
+	
+	/**
+	 * Tests that a sparse player file of a player with no name and 
+	 * only default values is not read as corrupt.
+	 * @throws IOException if the player file cannot be written
+	 */
+	@Test
+	public void testSparseDefaultPlayer() throws IOException
+	{
+		((YamlPlayerStore) store).setSparse(true);
+		
+		store.save(new PlayerInfo(PLAYER_1_ID));
+		
+		PlayerInfo loaded = store.load(PLAYER_1_ID);
+		assertNull(loaded.getLastKnownName());
+		assertEquals(100, loaded.getMobInfo(MobType.ZOMBIE).getAutoPerformanceLevel(), .0001);
+	}
+	
+	/**
+	 * Tests that values missing from a player file are read from the 
+	 * default player config, and that a sparse player file leaves out 
+	 * values that match the default player config even when they are 
+	 * not the usual defaults.
+	 * @throws IOException if the player file cannot be written
+	 */
+	@Test
+	public void testMissingValuesReadFromDefaults() throws IOException
+	{
+		FileConfiguration defaultPlayerConfig = YamlConfiguration.loadConfiguration(new File("default_player.yml"));
+		defaultPlayerConfig.set("creeper.maxIncrement", 25);
+		defaultPlayerConfig.set("creeper.setting", "manual");
+		
+		store.close();
+		store = new YamlPlayerStore(PLAYERS_FOLDER, defaultPlayerConfig);
+		((YamlPlayerStore) store).setSparse(true);
+		
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		playerInfo.getMobInfo(MobType.CREEPER).setMaxIncrement(25);
+		playerInfo.getMobInfo(MobType.CREEPER).setSetting(Setting.MANUAL);
+		store.save(playerInfo.snapshot());
+		
+		File playerFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml");
+		assertFalse(YamlConfiguration.loadConfiguration(playerFile).contains("creeper"));
+		
+		PlayerInfo loaded = store.load(PLAYER_1_ID);
+		assertEquals(25, loaded.getMobInfo(MobType.CREEPER).getMaxIncrement());
+		assertEquals(Setting.MANUAL, loaded.getMobInfo(MobType.CREEPER).getSetting());
+		assertEquals(MobInfo.DEFAULT_MAX_INCREMENT, loaded.getMobInfo(MobType.ZOMBIE).getMaxIncrement());
+	}
+	
+	/**
+	 * Tests that a player file that was changed by hand into a layout 
+	 * that the PlayerFileFormat does not read is still loaded.
+	 * @throws IOException if the player file cannot be written
+	 */
+	@Test
+	public void testHandEditedPlayerFile() throws IOException
+	{
+		PLAYERS_FOLDER.mkdirs();
+		File playerFile = new File(PLAYERS_FOLDER, PLAYER_1_ID + ".yml");
+		String contents = "lastKnownName: \"player0\"\n" + 
+				"blaze: {setting: manual, maxIncrement: 5}\n" + 
+				"spider:\n" + 
+				"  scaleAttributes:\n" + 
+				"    loot: no # no loot for spiders\n";
+		Files.write(playerFile.toPath(), contents.getBytes("UTF-8"));
+		
+		PlayerInfo playerInfo = store.load(PLAYER_1_ID);
+		assertEquals("player0", playerInfo.getLastKnownName());
+		assertEquals(Setting.MANUAL, playerInfo.getMobInfo(MobType.BLAZE).getSetting());
+		assertEquals(5, playerInfo.getMobInfo(MobType.BLAZE).getMaxIncrement());
+		assertFalse(playerInfo.getMobInfo(MobType.SPIDER).shouldScaleLoot());
+		assertTrue(playerInfo.getMobInfo(MobType.SPIDER).shouldScaleXP());
+	}
+}
@@ -16,8 +16,10 @@ import org.junit.Test;
 
 import com.cjmcguire.bukkit.dynamic.MockLivingEntity;
 import com.cjmcguire.bukkit.dynamic.MockPlayer;
+import com.cjmcguire.bukkit.dynamic.analyzer.EstimatorMode;
 import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
 import com.cjmcguire.bukkit.dynamic.playerdata.MobType;
+import com.cjmcguire.bukkit.dynamic.playerdata.MobTypeCache;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerDataManager;
 import com.cjmcguire.bukkit.dynamic.playerdata.PlayerInfo;
 import com.cjmcguire.bukkit.dynamic.playerdata.Setting;
@@ -48,6 +50,7 @@ public class TestMonitorListener
 		// Run the actual test.
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		MonitorListener monitor = new MonitorListener();
 
@@ -59,6 +62,7 @@ public class TestMonitorListener
 		MobInfo zombieInfo = playerInfo.getMobInfo(MobType.ZOMBIE);
 
 		assertEquals(2, zombieInfo.getDamagePlayerReceived(), ACCURACY);
+		assertEquals(1, playerInfo.takeCombatEvents());
 		
 		// Verify the Mock stuff.
 		EasyMock.verify(mockEntity);
@@ -72,6 +76,7 @@ public class TestMonitorListener
 	public void testUpdatePlayerDamageReceivedWhenManual()
 	{
 		Entity mockEntity = EasyMock.createMock(Entity.class);
+		EasyMock.expect(mockEntity.getEntityId()).andReturn(1);
 		EasyMock.expect(mockEntity.getType()).andReturn(EntityType.ZOMBIE);
 		
 		EasyMock.replay(mockEntity);
@@ -79,6 +84,7 @@ public class TestMonitorListener
 		// Run the actual test.
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 
 		MonitorListener monitor = new MonitorListener();
 
@@ -93,6 +99,7 @@ public class TestMonitorListener
 		MobInfo zombieInfo = playerInfo.getMobInfo(MobType.ZOMBIE);
 
 		assertEquals(0, zombieInfo.getDamagePlayerReceived(), ACCURACY);
+		assertEquals(0, playerInfo.takeCombatEvents());
 		EasyMock.verify(mockEntity);
 	}
 	
@@ -104,6 +111,7 @@ public class TestMonitorListener
 	public void testUpdatePlayerDamageReceivedWhenInvaldMobType()
 	{
 		Entity mockEntity = EasyMock.createMock(Entity.class);
+		EasyMock.expect(mockEntity.getEntityId()).andReturn(1);
 		EasyMock.expect(mockEntity.getType()).andReturn(EntityType.EGG);
 		
 		EasyMock.replay(mockEntity);
@@ -111,6 +119,7 @@ public class TestMonitorListener
 		// Run the actual test.
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 
 		MonitorListener monitor = new MonitorListener();
 
@@ -142,6 +151,7 @@ public class TestMonitorListener
 		// Run the actual test.
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 
 		MonitorListener monitor = new MonitorListener();
 
@@ -153,6 +163,8 @@ public class TestMonitorListener
 		MobInfo zombieInfo = playerInfo.getMobInfo(MobType.ZOMBIE);
 
 		assertEquals(2, zombieInfo.getDamagePlayerGave(), ACCURACY);
+		assertEquals(1, playerInfo.takeCombatEvents());
+		assertEquals(0, playerInfo.takeCombatEvents());
 		EasyMock.verify(mockEntity);
 	}
 
@@ -164,6 +176,7 @@ public class TestMonitorListener
 	public void testUpdatePlayerDamageGaveWhenManual()
 	{
 		Entity mockEntity = EasyMock.createMock(Entity.class);
+		EasyMock.expect(mockEntity.getEntityId()).andReturn(1);
 		EasyMock.expect(mockEntity.getType()).andReturn(EntityType.ZOMBIE);
 		
 		EasyMock.replay(mockEntity);
@@ -171,6 +184,7 @@ public class TestMonitorListener
 		// Run the actual test.
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 
 		MonitorListener monitor = new MonitorListener();
 
@@ -196,6 +210,7 @@ public class TestMonitorListener
 	public void testUpdatePlayerDamageGaveWhenInvaldMobType()
 	{
 		Entity mockEntity = EasyMock.createMock(Entity.class);
+		EasyMock.expect(mockEntity.getEntityId()).andReturn(1);
 		EasyMock.expect(mockEntity.getType()).andReturn(EntityType.EGG);
 		
 		EasyMock.replay(mockEntity);
@@ -203,6 +218,7 @@ public class TestMonitorListener
 		// Run the actual test.
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 
 		MonitorListener monitor = new MonitorListener();
 
@@ -245,6 +261,7 @@ public class TestMonitorListener
 		// Run the actual test.
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		playerDataManager.addPlayerInfo(playerInfo);
@@ -285,6 +302,7 @@ public class TestMonitorListener
 		// Run the actual test.
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		playerDataManager.addPlayerInfo(playerInfo);
@@ -333,6 +351,7 @@ public class TestMonitorListener
 		// Run the actual test.
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		playerDataManager.addPlayerInfo(playerInfo);
@@ -362,7 +381,7 @@ public class TestMonitorListener
 	public void testOnEntityDamageByEntityEventOutcome4()
 	{
 		LivingEntity mockDamaged = EasyMock.createMockBuilder(MockLivingEntity.class).createMock();
-		EasyMock.expect(mockDamaged.getEntityId()).andReturn(1);
+		EasyMock.expect(mockDamaged.getEntityId()).andReturn(1).times(2);
 		EasyMock.expect(mockDamaged.getType()).andReturn(EntityType.ZOMBIE);
         EasyMock.expect(mockDamaged.getNoDamageTicks()).andReturn(1);
         EasyMock.expect(mockDamaged.getMaximumNoDamageTicks()).andReturn(5);
@@ -377,6 +396,7 @@ public class TestMonitorListener
 		// Run the actual test.
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		playerDataManager.addPlayerInfo(playerInfo);
@@ -407,6 +427,7 @@ public class TestMonitorListener
 	public void testOnEntityDamageByEntityEventOutcome5()
 	{
 		LivingEntity mockDamaged = EasyMock.createMockBuilder(MockLivingEntity.class).createMock();
+		EasyMock.expect(mockDamaged.getEntityId()).andReturn(1);
         EasyMock.expect(mockDamaged.getNoDamageTicks()).andReturn(5);
         EasyMock.expect(mockDamaged.getMaximumNoDamageTicks()).andReturn(5);
 		EasyMock.replay(mockDamaged);
@@ -418,6 +439,7 @@ public class TestMonitorListener
 		// Run the actual test.
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		playerDataManager.addPlayerInfo(playerInfo);
@@ -456,7 +478,7 @@ public class TestMonitorListener
 		EasyMock.replay(mockArrow);
 		
         LivingEntity mockDamaged = EasyMock.createMockBuilder(MockLivingEntity.class).createMock();
-		EasyMock.expect(mockDamaged.getEntityId()).andReturn(1);
+		EasyMock.expect(mockDamaged.getEntityId()).andReturn(1).times(2);
 		EasyMock.expect(mockDamaged.getType()).andReturn(EntityType.ZOMBIE);
 		EasyMock.expect(mockDamaged.getNoDamageTicks()).andReturn(1);
         EasyMock.expect(mockDamaged.getMaximumNoDamageTicks()).andReturn(5);
@@ -465,6 +487,7 @@ public class TestMonitorListener
 		// Run the actual test.
 		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
 		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
 		
 		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
 		playerDataManager.addPlayerInfo(playerInfo);
@@ -483,4 +506,42 @@ public class TestMonitorListener
 		
 		EasyMock.verify(mockPlayer);
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Tests that the updatePlayerDamageGave() method updates the 
+	 * estimated performance level right away when the EstimatorMode 
+	 * is EWMA.
+	 */
+	@Test
+	public void testUpdatePlayerDamageGaveWhenEWMA()
+	{
+		// Set up the Mock stuff.
+		Entity mockEntity = EasyMock.createMock(Entity.class);
+		EasyMock.expect(mockEntity.getEntityId()).andReturn(3);
+		EasyMock.expect(mockEntity.getType()).andReturn(EntityType.ZOMBIE);
+		
+		EasyMock.replay(mockEntity);
+
+		// Run the actual test.
+		PlayerDataManager playerDataManager = PlayerDataManager.getInstance();
+		playerDataManager.clearPlayerData();
+		MobTypeCache.getInstance().clear();
+		
+		MonitorListener monitor = new MonitorListener(EstimatorMode.EWMA);
+
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		playerDataManager.addPlayerInfo(playerInfo);
+		
+		MobInfo zombieInfo = playerInfo.getMobInfo(MobType.ZOMBIE);
+		zombieInfo.addIDToInteractedWithIDs(1);
+		zombieInfo.addIDToInteractedWithIDs(2);
+
+		monitor.updateDamagePlayerGave(mockEntity, playerInfo.getPlayerID(), 20);
+
+		assertEquals(20, zombieInfo.getDamagePlayerGave(), ACCURACY);
+		assertTrue(zombieInfo.getEstimatedPerformanceLevel() > 100);
+		
+		// Verify the Mock stuff.
+		EasyMock.verify(mockEntity);
+	}
+}
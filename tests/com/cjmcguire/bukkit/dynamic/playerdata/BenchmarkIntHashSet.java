@@ -0,0 +1,137 @@
+package com.cjmcguire.bukkit.dynamic.playerdata;
+
+import java.util.ArrayList;
+
+import com.cjmcguire.bukkit.dynamic.Benchmark;
+
+/**
+ * Compares the ArrayList that MobInfo used to keep its interacted 
+ * with ids in against IntHashSet, both for a single hit once a 
+ * number of ids are known and for meeting that many mobs from 
+ * scratch. Run it through its main method.
+ * @author CJ McGuire
+ */
+public class BenchmarkIntHashSet
+{
+	private static final int HITS_PER_MOB = 4;
+	private static final int LOOKUPS = 2000;
+	private static final int MAX_LIST_FILL_SIZE = 10000;
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args not used
+	 */
+	public static void main(String[] args)
+	{
+		int[] sizes = {10, 1000, 100000};
+		
+		for(final int size: sizes)
+		{
+			final int[] ids = makeIDs(size);
+			
+			final ArrayList<Integer> fullList = new ArrayList<Integer>();
+			final IntHashSet fullSet = new IntHashSet();
+			final int[] probes = new int[LOOKUPS];
+			for(int id: ids)
+			{
+				fullList.add(id);
+				fullSet.add(id);
+			}
+			for(int looper = 0; looper < LOOKUPS; looper++)
+			{
+				probes[looper] = ids[(int) ((long) looper * size / LOOKUPS)];
+			}
+			
+			// A hit on a mob the player already knows, once the player 
+			// has met size mobs this session.
+			Benchmark.measure("ArrayList<Integer> hit, " + size + " ids known", LOOKUPS, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					boolean known = false;
+					for(int looper = 0; looper < LOOKUPS; looper++)
+					{
+						known ^= fullList.contains(probes[looper]);
+					}
+					Benchmark.sink = known;
+				}
+			});
+			
+			Benchmark.measure("IntHashSet hit, " + size + " ids known", LOOKUPS, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					boolean known = false;
+					for(int looper = 0; looper < LOOKUPS; looper++)
+					{
+						known ^= fullSet.contains(probes[looper]);
+					}
+					Benchmark.sink = known;
+				}
+			});
+			
+			// Meeting size new mobs from scratch, hitting each a few 
+			// times. The ArrayList is quadratic here, so it is left out 
+			// at sizes where it would take minutes.
+			long operations = (long) size * HITS_PER_MOB;
+			
+			if(size <= MAX_LIST_FILL_SIZE)
+			{
+				Benchmark.measure("ArrayList<Integer> fill, " + size + " ids", operations, new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						ArrayList<Integer> interactedWithIDs = new ArrayList<Integer>();
+						for(int id: ids)
+						{
+							for(int hit = 0; hit < HITS_PER_MOB; hit++)
+							{
+								if(!interactedWithIDs.contains(id))
+								{
+									interactedWithIDs.add(id);
+								}
+							}
+						}
+						Benchmark.sink = interactedWithIDs;
+					}
+				});
+			}
+			
+			Benchmark.measure("IntHashSet fill, " + size + " ids", operations, new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					IntHashSet interactedWithIDs = new IntHashSet();
+					for(int id: ids)
+					{
+						for(int hit = 0; hit < HITS_PER_MOB; hit++)
+						{
+							interactedWithIDs.add(id);
+						}
+					}
+					Benchmark.sink = interactedWithIDs;
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Makes ids that increase the way the server hands out entity 
+	 * ids, with gaps for the entities the player never touched.
+	 */
+	private static int[] makeIDs(int size)
+	{
+		int[] ids = new int[size];
+		int id = 100;
+		for(int looper = 0; looper < size; looper++)
+		{
+			id += 1 + (looper * 7) % 13;
+			ids[looper] = id;
+		}
+		return ids;
+	}
+}
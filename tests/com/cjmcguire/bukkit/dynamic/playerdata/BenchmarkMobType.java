@@ -0,0 +1,134 @@
+package com.cjmcguire.bukkit.dynamic.playerdata;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Guardian;
+import org.bukkit.entity.Rabbit;
+import org.bukkit.entity.Skeleton;
+import org.bukkit.entity.Skeleton.SkeletonType;
+
+import com.cjmcguire.bukkit.dynamic.Benchmark;
+
+/**
+ * Compares the old string based MobType.getEntitysMobType() with the 
+ * table based one. Run it through its main method.
+ * @author CJ McGuire
+ */
+public class BenchmarkMobType
+{
+	private static final int LOOKUPS = 1000000;
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args not used
+	 */
+	public static void main(String[] args)
+	{
+		final Entity[] entities = {
+			makeEntity(Entity.class, EntityType.ZOMBIE, null),
+			makeEntity(Skeleton.class, EntityType.SKELETON, SkeletonType.WITHER),
+			makeEntity(Skeleton.class, EntityType.SKELETON, SkeletonType.NORMAL),
+			makeEntity(Entity.class, EntityType.CREEPER, null),
+			makeEntity(Guardian.class, EntityType.GUARDIAN, Boolean.TRUE),
+			makeEntity(Rabbit.class, EntityType.RABBIT, Rabbit.Type.BROWN),
+			makeEntity(Entity.class, EntityType.PIG, null),
+			makeEntity(Entity.class, EntityType.ARROW, null),
+		};
+		
+		for(Entity entity: entities)
+		{
+			if(legacyGetEntitysMobType(entity) != MobType.getEntitysMobType(entity))
+			{
+				throw new IllegalStateException("Old and new lookups disagree on " + entity.getType());
+			}
+		}
+		
+		Benchmark.measure("getEntitysMobType (class name + scan)", LOOKUPS, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				MobType mobType = null;
+				for(int looper = 0; looper < LOOKUPS; looper++)
+				{
+					mobType = legacyGetEntitysMobType(entities[looper & 7]);
+				}
+				Benchmark.sink = mobType;
+			}
+		});
+		
+		Benchmark.measure("getEntitysMobType (EnumMap table)", LOOKUPS, new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				MobType mobType = null;
+				for(int looper = 0; looper < LOOKUPS; looper++)
+				{
+					mobType = MobType.getEntitysMobType(entities[looper & 7]);
+				}
+				Benchmark.sink = mobType;
+			}
+		});
+	}
+	
+	/**
+	 * The way getEntitysMobType() used to classify entities.
+	 */
+	private static MobType legacyGetEntitysMobType(Entity mob)
+	{
+		EntityType entityType = mob.getType();
+		String mobName = entityType.getEntityClass().getSimpleName().toLowerCase();
+
+		if(entityType == EntityType.SKELETON)
+		{
+			if(((Skeleton) mob).getSkeletonType() == SkeletonType.WITHER)
+			{
+				mobName = "wither" + mobName;
+			}
+		}
+		else if(entityType == EntityType.GUARDIAN)
+		{
+			if(((Guardian) mob).isElder())
+			{
+				mobName = "elder" + mobName;
+			}
+		}
+		else if(entityType == EntityType.RABBIT)
+		{
+			if(((Rabbit) mob).getRabbitType() == Rabbit.Type.THE_KILLER_BUNNY)
+			{
+				mobName = "killer" + mobName;
+			}
+		}
+		
+		return MobType.getMobType(mobName);
+	}
+	
+	/**
+	 * Makes a bare bones entity that only answers getType() and the 
+	 * one variant question that its EntityType needs.
+	 */
+	private static Entity makeEntity(Class<? extends Entity> entityClass, final EntityType entityType, final Object variant)
+	{
+		InvocationHandler handler = new InvocationHandler()
+		{
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args)
+			{
+				if(method.getName().equals("getType"))
+				{
+					return entityType;
+				}
+				return variant;
+			}
+		};
+		
+		return (Entity) Proxy.newProxyInstance(BenchmarkMobType.class.getClassLoader(), 
+				new Class<?>[] {entityClass}, handler);
+	}
+}
@@ -0,0 +1,180 @@
+package com.cjmcguire.bukkit.dynamic.playerdata;
+
+import java.util.HashMap;
+import java.util.UUID;
+
+/**
+ * Compares how much heap 10k PlayerInfos take up against 10k copies 
+ * of the way PlayerInfo used to be laid out, a HashMap of MobType to 
+ * a MobInfo object with its own fields. Run it through its main 
+ * method. The numbers come from Runtime, so run it with a fixed heap 
+ * (for example -Xms512m -Xmx512m) for steadier results.
+ * @author CJ McGuire
+ */
+public class BenchmarkPlayerInfoMemory
+{
+	private static final int PROFILES = 10000;
+	
+	/**
+	 * Runs the benchmark.
+	 * @param args not used
+	 */
+	public static void main(String[] args)
+	{
+		final MobType[] mobTypes = MobType.values();
+		
+		long legacy = measure(new ProfileFactory()
+		{
+			@Override
+			public Object create(UUID playerID)
+			{
+				return new LegacyPlayerInfo(playerID, mobTypes);
+			}
+		});
+		
+		long tableUntouched = measure(new ProfileFactory()
+		{
+			@Override
+			public Object create(UUID playerID)
+			{
+				return new PlayerInfo(playerID);
+			}
+		});
+		
+		long tableTouched = measure(new ProfileFactory()
+		{
+			@Override
+			public Object create(UUID playerID)
+			{
+				PlayerInfo playerInfo = new PlayerInfo(playerID);
+				for(MobType mobType: mobTypes)
+				{
+					playerInfo.getMobInfo(mobType);
+				}
+				return playerInfo;
+			}
+		});
+		
+		print("HashMap<MobType, MobInfo> (old layout)", legacy);
+		print("MobInfoTable, no MobInfo views created", tableUntouched);
+		print("MobInfoTable, every MobInfo view created", tableTouched);
+	}
+	
+	private interface ProfileFactory
+	{
+		Object create(UUID playerID);
+	}
+	
+	/**
+	 * @return the number of bytes that PROFILES profiles take up
+	 */
+	private static long measure(ProfileFactory factory)
+	{
+		Object[] profiles = new Object[PROFILES];
+		UUID[] playerIDs = new UUID[PROFILES];
+		for(int looper = 0; looper < PROFILES; looper++)
+		{
+			playerIDs[looper] = new UUID(0, looper);
+		}
+		
+		long before = usedMemory();
+		for(int looper = 0; looper < PROFILES; looper++)
+		{
+			profiles[looper] = factory.create(playerIDs[looper]);
+		}
+		long after = usedMemory();
+		
+		if(profiles[PROFILES - 1] == null)
+		{
+			throw new IllegalStateException();
+		}
+		
+		return after - before;
+	}
+	
+	private static long usedMemory()
+	{
+		Runtime runtime = Runtime.getRuntime();
+		
+		for(int looper = 0; looper < 5; looper++)
+		{
+			System.gc();
+			try
+			{
+				Thread.sleep(50);
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+		
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
+	private static void print(String name, long bytes)
+	{
+		System.out.println(String.format("%-45s %8.2f MB total %8d bytes/profile", 
+				name, bytes / (1024.0 * 1024.0), bytes / PROFILES));
+	}
+	
+	/**
+	 * The fields that a MobInfo used to have.
+	 */
+	@SuppressWarnings("unused")
+	private static class LegacyMobInfo
+	{
+		private final MobType mobType;
+		private Setting setting;
+		private int maxIncrement;
+		private double estimatedPerformanceLevel;
+		private double autoPerformanceLevel;
+		private double manualPerformanceLevel;
+		private boolean scaleAttack;
+		private boolean scaleDefense;
+		private boolean scaleSpeed;
+		private boolean scaleKnockBackResistance;
+		private boolean scaleMaxFollowDistance;
+		private boolean scaleXP;
+		private boolean scaleLoot;
+		private EncounterWindow encounters;
+		
+		LegacyMobInfo(MobType mobType)
+		{
+			this.mobType = mobType;
+			this.setting = Setting.AUTO;
+			this.maxIncrement = MobInfo.DEFAULT_MAX_INCREMENT;
+			this.estimatedPerformanceLevel = MobInfo.DEFAULT_PERFORMANCE_LEVEL;
+			this.autoPerformanceLevel = MobInfo.DEFAULT_PERFORMANCE_LEVEL;
+			this.manualPerformanceLevel = MobInfo.DEFAULT_PERFORMANCE_LEVEL;
+			this.scaleAttack = true;
+			this.scaleDefense = true;
+			this.scaleSpeed = true;
+			this.scaleKnockBackResistance = true;
+			this.scaleMaxFollowDistance = true;
+			this.scaleXP = true;
+			this.scaleLoot = true;
+			this.encounters = null;
+		}
+	}
+	
+	/**
+	 * The way a PlayerInfo used to hold its MobInfos.
+	 */
+	@SuppressWarnings("unused")
+	private static class LegacyPlayerInfo
+	{
+		private final UUID playerID;
+		private final HashMap<MobType, LegacyMobInfo> mobData;
+		
+		LegacyPlayerInfo(UUID playerID, MobType[] mobTypes)
+		{
+			this.playerID = playerID;
+			this.mobData = new HashMap<MobType, LegacyMobInfo>();
+			for(MobType mobType: mobTypes)
+			{
+				mobData.put(mobType, new LegacyMobInfo(mobType));
+			}
+		}
+	}
+}
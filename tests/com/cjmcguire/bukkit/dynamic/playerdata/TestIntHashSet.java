@@ -0,0 +1,158 @@
+package com.cjmcguire.bukkit.dynamic.playerdata;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests the IntHashSet class.
+ * @author CJ McGuire
+ */
+public class TestIntHashSet
+{
+	/**
+	 * Tests that a new IntHashSet is empty.
+	 */
+	@Test
+	public void testInitialSize()
+	{
+		IntHashSet set = new IntHashSet();
+		
+		assertEquals(0, set.size());
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(0));
+		assertFalse(set.contains(1));
+	}
+	
+	/**
+	 * Tests the add() method.
+	 */
+	@Test
+	public void testAdd()
+	{
+		IntHashSet set = new IntHashSet();
+		
+		assertTrue(set.add(5));
+		assertTrue(set.contains(5));
+		assertEquals(1, set.size());
+		
+		assertFalse(set.add(5));
+		assertEquals(1, set.size());
+	}
+	
+	/**
+	 * Tests the add() method with 0, which is also the value used to 
+	 * mark empty slots, and with negative values.
+	 */
+	@Test
+	public void testAddZeroAndNegative()
+	{
+		IntHashSet set = new IntHashSet();
+		
+		assertTrue(set.add(0));
+		assertFalse(set.add(0));
+		assertTrue(set.add(-1));
+		assertTrue(set.add(Integer.MIN_VALUE));
+		
+		assertTrue(set.contains(0));
+		assertTrue(set.contains(-1));
+		assertTrue(set.contains(Integer.MIN_VALUE));
+		assertEquals(3, set.size());
+	}
+	
+	/**
+	 * Tests that the set keeps every value when it grows.
+	 */
+	@Test
+	public void testGrow()
+	{
+		IntHashSet set = new IntHashSet();
+		
+		for(int id = 0; id < 10000; id++)
+		{
+			assertTrue(set.add(id));
+		}
+		
+		assertEquals(10000, set.size());
+		for(int id = 0; id < 10000; id++)
+		{
+			assertTrue(set.contains(id));
+		}
+		assertFalse(set.contains(10000));
+	}
+	
+	/**
+	 * Tests the remove() method.
+	 */
+	@Test
+	public void testRemove()
+	{
+		IntHashSet set = new IntHashSet();
+		set.add(0);
+		set.add(1);
+		set.add(2);
+		
+		assertTrue(set.remove(1));
+		assertFalse(set.remove(1));
+		assertTrue(set.remove(0));
+		
+		assertFalse(set.contains(0));
+		assertFalse(set.contains(1));
+		assertTrue(set.contains(2));
+		assertEquals(1, set.size());
+	}
+	
+	/**
+	 * Tests that removing values does not hide values that were 
+	 * placed after them, by checking a long run of random adds and 
+	 * removes against a HashSet.
+	 */
+	@Test
+	public void testAgainstHashSet()
+	{
+		Random random = new Random(1313);
+		IntHashSet set = new IntHashSet(4);
+		Set<Integer> expected = new HashSet<Integer>();
+		
+		for(int looper = 0; looper < 50000; looper++)
+		{
+			int value = random.nextInt(2000) - 1000;
+			if(random.nextInt(3) == 0)
+			{
+				assertEquals(expected.remove(value), set.remove(value));
+			}
+			else
+			{
+				assertEquals(expected.add(value), set.add(value));
+			}
+			assertEquals(expected.size(), set.size());
+		}
+		
+		for(int value = -1000; value < 1000; value++)
+		{
+			assertEquals(expected.contains(value), set.contains(value));
+		}
+	}
+	
+	/**
+	 * Tests the clear() method.
+	 */
+	@Test
+	public void testClear()
+	{
+		IntHashSet set = new IntHashSet();
+		set.add(0);
+		set.add(7);
+		
+		set.clear();
+		
+		assertTrue(set.isEmpty());
+		assertFalse(set.contains(0));
+		assertFalse(set.contains(7));
+		assertTrue(set.add(7));
+	}
+}
@@ -2,6 +2,8 @@ package com.cjmcguire.bukkit.dynamic.playerdata;
 
 import static org.junit.Assert.*;
 
+import java.util.UUID;
+
 import org.junit.Test;
 
 import com.cjmcguire.bukkit.dynamic.playerdata.MobInfo;
@@ -467,4 +469,163 @@ public class TestMobInfo
 		assertFalse(zombieInfo.addIDToInteractedWithIDs(0));
 		assertEquals(1, zombieInfo.getNumberInteractedWith());
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Tests that only the most recent ENCOUNTER_WINDOW_SIZE mobs are 
+	 * remembered, and that the damage recorded against the oldest 
+	 * mob is dropped along with it.
+	 */
+	@Test
+	public void testEncounterWindowDropsOldestMob()
+	{
+		MobInfo zombieInfo = new MobInfo(MobType.ZOMBIE);
+		
+		for(int id = 0; id < MobInfo.ENCOUNTER_WINDOW_SIZE; id++)
+		{
+			zombieInfo.addIDToInteractedWithIDs(id);
+			zombieInfo.addToDamagePlayerGave(id == 0 ? 20 : 1);
+			zombieInfo.addToDamagePlayerReceived(id == 0 ? 10 : 1);
+		}
+		
+		int windowSize = MobInfo.ENCOUNTER_WINDOW_SIZE;
+		assertEquals(windowSize, zombieInfo.getNumberInteractedWith());
+		assertEquals(20 + windowSize - 1, zombieInfo.getDamagePlayerGave());
+		assertEquals(10 + windowSize - 1, zombieInfo.getDamagePlayerReceived());
+		
+		// one more mob pushes out mob 0
+		assertTrue(zombieInfo.addIDToInteractedWithIDs(windowSize));
+		assertEquals(windowSize, zombieInfo.getNumberInteractedWith());
+		assertEquals(windowSize - 1, zombieInfo.getDamagePlayerGave());
+		assertEquals(windowSize - 1, zombieInfo.getDamagePlayerReceived());
+		
+		// mob 0 is new again, mob 1 is still known
+		assertFalse(zombieInfo.addIDToInteractedWithIDs(1));
+		assertTrue(zombieInfo.addIDToInteractedWithIDs(0));
+	}
+	
+	/**
+	 * Tests that damage is recorded against the mob that was most 
+	 * recently added, even if it was already known.
+	 */
+	@Test
+	public void testDamageFollowsCurrentMob()
+	{
+		MobInfo zombieInfo = new MobInfo(MobType.ZOMBIE);
+		
+		zombieInfo.addIDToInteractedWithIDs(0);
+		zombieInfo.addIDToInteractedWithIDs(1);
+		
+		// back to mob 0 before it is hit
+		zombieInfo.addIDToInteractedWithIDs(0);
+		zombieInfo.addToDamagePlayerReceived(7);
+		
+		for(int id = 2; id <= MobInfo.ENCOUNTER_WINDOW_SIZE; id++)
+		{
+			zombieInfo.addIDToInteractedWithIDs(id);
+		}
+		
+		// mob 0 was dropped and took its damage with it
+		assertEquals(0, zombieInfo.getDamagePlayerReceived());
+	}
+	
+	/**
+	 * Tests that damage received before any mob is known is kept 
+	 * and is given to the first mob.
+	 */
+	@Test
+	public void testDamageReceivedBeforeFirstMob()
+	{
+		MobInfo zombieInfo = new MobInfo(MobType.ZOMBIE);
+		
+		zombieInfo.addToDamagePlayerReceived(3);
+		zombieInfo.addIDToInteractedWithIDs(0);
+		assertEquals(3, zombieInfo.getDamagePlayerReceived());
+		
+		for(int id = 1; id <= MobInfo.ENCOUNTER_WINDOW_SIZE; id++)
+		{
+			zombieInfo.addIDToInteractedWithIDs(id);
+		}
+		assertEquals(0, zombieInfo.getDamagePlayerReceived());
+	}
+	
+	/**
+	 * Tests the updateAveragePerformanceLevel() method.
+	 */
+	@Test
+	public void testUpdateAveragePerformanceLevel()
+	{
+		MobInfo zombieInfo = new MobInfo(MobType.ZOMBIE);
+		
+		// update with too few mobs
+		zombieInfo.addIDToInteractedWithIDs(0);
+		zombieInfo.addToDamagePlayerGave(20);
+		assertEquals(100, zombieInfo.updateAveragePerformanceLevel(), .0001);
+		assertEquals(100, zombieInfo.getEstimatedPerformanceLevel(), .0001);
+		
+		zombieInfo.addIDToInteractedWithIDs(1);
+		zombieInfo.addToDamagePlayerGave(20);
+		zombieInfo.addIDToInteractedWithIDs(2);
+		zombieInfo.addToDamagePlayerReceived(10);
+		zombieInfo.updateAveragePerformanceLevel();
+		
+		double keep = 1 - MobInfo.AVERAGE_WEIGHT;
+		double given = 20*keep*keep + 20*keep;
+		double received = 10;
+		double mobs = keep*keep + keep + 1;
+		double expected = 100 + (given/20.0 - received/20.0)/mobs*100;
+		assertEquals(expected, zombieInfo.getEstimatedPerformanceLevel(), .0001);
+	}
+	
+	/**
+	 * Tests that updateAveragePerformanceLevel() weighs recent mobs 
+	 * more heavily than updateEstimatedPerformanceLevel() does.
+	 */
+	@Test
+	public void testUpdateAveragePerformanceLevelFavorsRecentMobs()
+	{
+		MobInfo zombieInfo = new MobInfo(MobType.ZOMBIE);
+		
+		// the player used to lose badly but now wins every fight
+		for(int id = 0; id < 20; id++)
+		{
+			zombieInfo.addIDToInteractedWithIDs(id);
+			zombieInfo.addToDamagePlayerReceived(20);
+		}
+		for(int id = 20; id < 40; id++)
+		{
+			zombieInfo.addIDToInteractedWithIDs(id);
+			zombieInfo.addToDamagePlayerGave(20);
+		}
+		
+		double windowLevel = zombieInfo.updateEstimatedPerformanceLevel();
+		double averageLevel = zombieInfo.updateAveragePerformanceLevel();
+		
+		assertEquals(100, windowLevel, .0001);
+		assertTrue(averageLevel > windowLevel);
+	}
+	
+	/**
+	 * Tests the getEstimatorState() and setEstimatorState() methods, 
+	 * and that the Estimator's numbers are not part of what gets 
+	 * saved.
+	 */
+	@Test
+	public void testEstimatorState()
+	{
+		PlayerInfo playerInfo = new PlayerInfo(UUID.fromString("12345678-1234-1234-1234-123456789001"));
+		MobInfo zombieInfo = playerInfo.getMobInfo(MobType.ZOMBIE);
+		long version = playerInfo.getVersion();
+		
+		for(int index = 0; index < MobInfo.ESTIMATOR_STATE_SIZE; index++)
+		{
+			assertEquals(0, zombieInfo.getEstimatorState(index), 0);
+		}
+		
+		zombieInfo.setEstimatorState(1, 12.5);
+		
+		assertEquals(12.5, zombieInfo.getEstimatorState(1), 0);
+		assertEquals(0, zombieInfo.getEstimatorState(0), 0);
+		assertEquals(0, playerInfo.getMobInfo(MobType.BLAZE).getEstimatorState(1), 0);
+		assertEquals(version, playerInfo.getVersion());
+	}
+}
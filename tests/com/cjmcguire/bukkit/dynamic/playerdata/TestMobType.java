@@ -2,7 +2,10 @@ package com.cjmcguire.bukkit.dynamic.playerdata;
 
 import static org.junit.Assert.*;
 
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
+import org.bukkit.entity.Guardian;
+import org.bukkit.entity.Rabbit;
 import org.bukkit.entity.Skeleton.SkeletonType;
 import org.easymock.EasyMock;
 import org.junit.Test;
@@ -151,4 +154,79 @@ public class TestMobType
 		assertEquals(MobType.ZOMBIE, MobType.getEntitysMobType(mockZombie));
 		EasyMock.verify(mockZombie);
 	}
+	
+	/**
+	 * Tests the getEntitysMobType() method for guardians and elder
+	 * guardians.
+	 */
+	@Test
+	public void testGetEntitysMobTypeGuardian()
+	{
+		Guardian mockGuardian = EasyMock.createMock(Guardian.class);
+		EasyMock.expect(mockGuardian.getType()).andReturn(EntityType.GUARDIAN);
+		EasyMock.expect(mockGuardian.isElder()).andReturn(false);
+		EasyMock.replay(mockGuardian);
+		assertEquals(MobType.GUARDIAN, MobType.getEntitysMobType(mockGuardian));
+		EasyMock.verify(mockGuardian);
+		
+		Guardian mockElderGuardian = EasyMock.createMock(Guardian.class);
+		EasyMock.expect(mockElderGuardian.getType()).andReturn(EntityType.GUARDIAN);
+		EasyMock.expect(mockElderGuardian.isElder()).andReturn(true);
+		EasyMock.replay(mockElderGuardian);
+		assertEquals(MobType.ELDER_GUARDIAN, MobType.getEntitysMobType(mockElderGuardian));
+		EasyMock.verify(mockElderGuardian);
+	}
+	
+	/**
+	 * Tests the getEntitysMobType() method for rabbits and killer 
+	 * rabbits.
+	 */
+	@Test
+	public void testGetEntitysMobTypeRabbit()
+	{
+		Rabbit mockRabbit = EasyMock.createMock(Rabbit.class);
+		EasyMock.expect(mockRabbit.getType()).andReturn(EntityType.RABBIT);
+		EasyMock.expect(mockRabbit.getRabbitType()).andReturn(Rabbit.Type.BROWN);
+		EasyMock.replay(mockRabbit);
+		assertNull(MobType.getEntitysMobType(mockRabbit));
+		EasyMock.verify(mockRabbit);
+		
+		Rabbit mockKillerRabbit = EasyMock.createMock(Rabbit.class);
+		EasyMock.expect(mockKillerRabbit.getType()).andReturn(EntityType.RABBIT);
+		EasyMock.expect(mockKillerRabbit.getRabbitType()).andReturn(Rabbit.Type.THE_KILLER_BUNNY);
+		EasyMock.replay(mockKillerRabbit);
+		assertEquals(MobType.KILLER_RABBIT, MobType.getEntitysMobType(mockKillerRabbit));
+		EasyMock.verify(mockKillerRabbit);
+	}
+	
+	/**
+	 * Tests that getEntitysMobType() gives the same MobType as 
+	 * matching on the name of the entity's class for every 
+	 * EntityType that does not need to look at the entity itself.
+	 */
+	@Test
+	public void testGetEntitysMobTypeMatchesClassName()
+	{
+		for(EntityType entityType: EntityType.values())
+		{
+			if(entityType == EntityType.SKELETON || 
+			   entityType == EntityType.GUARDIAN || 
+			   entityType == EntityType.RABBIT)
+			{
+				continue;
+			}
+			
+			MobType expected = null;
+			if(entityType.getEntityClass() != null)
+			{
+				expected = MobType.getMobType(entityType.getEntityClass().getSimpleName());
+			}
+			
+			Entity mockEntity = EasyMock.createMock(Entity.class);
+			EasyMock.expect(mockEntity.getType()).andReturn(entityType);
+			EasyMock.replay(mockEntity);
+			assertEquals(entityType.toString(), expected, MobType.getEntitysMobType(mockEntity));
+			EasyMock.verify(mockEntity);
+		}
+	}
 }
\ No newline at end of file
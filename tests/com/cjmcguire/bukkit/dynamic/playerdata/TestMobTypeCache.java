@@ -0,0 +1,140 @@
+package com.cjmcguire.bukkit.dynamic.playerdata;
+
+import static org.junit.Assert.*;
+
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.cjmcguire.bukkit.dynamic.MockLivingEntity;
+
+/**
+ * Tests the MobTypeCache class.
+ * @author CJ McGuire
+ */
+public class TestMobTypeCache
+{
+	private MobTypeCache mobTypeCache;
+	
+	/**
+	 * Clears the cache before every test.
+	 */
+	@Before
+	public void setUp()
+	{
+		mobTypeCache = MobTypeCache.getInstance();
+		mobTypeCache.clear();
+	}
+	
+	/**
+	 * Tests that getMobType() only classifies an entity the first 
+	 * time it is seen.
+	 */
+	@Test
+	public void testGetMobTypeClassifiesOnce()
+	{
+		LivingEntity mockEntity = EasyMock.createMockBuilder(MockLivingEntity.class).createMock();
+		EasyMock.expect(mockEntity.getEntityId()).andReturn(7).times(2);
+		EasyMock.expect(mockEntity.getType()).andReturn(EntityType.ZOMBIE);
+		EasyMock.replay(mockEntity);
+		
+		assertEquals(MobType.ZOMBIE, mobTypeCache.getMobType(mockEntity));
+		assertEquals(MobType.ZOMBIE, mobTypeCache.getMobType(mockEntity));
+		assertTrue(mobTypeCache.isCached(7));
+		
+		EasyMock.verify(mockEntity);
+	}
+	
+	/**
+	 * Tests that getMobType() also remembers entities that have no 
+	 * MobType.
+	 */
+	@Test
+	public void testGetMobTypeCachesNull()
+	{
+		LivingEntity mockEntity = EasyMock.createMockBuilder(MockLivingEntity.class).createMock();
+		EasyMock.expect(mockEntity.getType()).andReturn(EntityType.COW);
+		EasyMock.replay(mockEntity);
+		
+		assertNull(mobTypeCache.getMobType(8, mockEntity));
+		assertNull(mobTypeCache.getMobType(8, mockEntity));
+		
+		EasyMock.verify(mockEntity);
+	}
+	
+	/**
+	 * Tests that potentiallyHostile() only checks an entity the first 
+	 * time it is seen and checks it again once its hostility has been 
+	 * invalidated.
+	 */
+	@Test
+	public void testPotentiallyHostile()
+	{
+		LivingEntity mockEntity = EasyMock.createMockBuilder(MockLivingEntity.class).createMock();
+		EasyMock.expect(mockEntity.getEntityId()).andReturn(9).times(3);
+		EasyMock.replay(mockEntity);
+		
+		assertTrue(mobTypeCache.potentiallyHostile(mockEntity));
+		assertTrue(mobTypeCache.potentiallyHostile(mockEntity));
+		
+		mobTypeCache.invalidateHostility(9);
+		assertTrue(mobTypeCache.isCached(9));
+		assertTrue(mobTypeCache.potentiallyHostile(mockEntity));
+		
+		EasyMock.verify(mockEntity);
+	}
+	
+	/**
+	 * Tests the evict() method.
+	 */
+	@Test
+	public void testEvict()
+	{
+		LivingEntity mockEntity = EasyMock.createMockBuilder(MockLivingEntity.class).createMock();
+		EasyMock.expect(mockEntity.getType()).andReturn(EntityType.SPIDER).times(2);
+		EasyMock.replay(mockEntity);
+		
+		assertEquals(MobType.SPIDER, mobTypeCache.getMobType(10, mockEntity));
+		
+		mobTypeCache.evict(10);
+		assertFalse(mobTypeCache.isCached(10));
+		
+		assertEquals(MobType.SPIDER, mobTypeCache.getMobType(10, mockEntity));
+		
+		EasyMock.verify(mockEntity);
+	}
+	
+	/**
+	 * Tests that two entities that share a slot replace each other 
+	 * instead of growing the cache.
+	 */
+	@Test
+	public void testSlotCollision()
+	{
+		int firstID = 11;
+		int secondID = firstID + MobTypeCache.CACHE_SIZE;
+		
+		LivingEntity mockZombie = EasyMock.createMockBuilder(MockLivingEntity.class).createMock();
+		EasyMock.expect(mockZombie.getType()).andReturn(EntityType.ZOMBIE);
+		EasyMock.replay(mockZombie);
+		
+		LivingEntity mockCreeper = EasyMock.createMockBuilder(MockLivingEntity.class).createMock();
+		EasyMock.expect(mockCreeper.getType()).andReturn(EntityType.CREEPER);
+		EasyMock.replay(mockCreeper);
+		
+		assertEquals(MobType.ZOMBIE, mobTypeCache.getMobType(firstID, mockZombie));
+		assertEquals(MobType.CREEPER, mobTypeCache.getMobType(secondID, mockCreeper));
+		
+		assertFalse(mobTypeCache.isCached(firstID));
+		assertTrue(mobTypeCache.isCached(secondID));
+		
+		// evicting the old id must not touch the new entry
+		mobTypeCache.evict(firstID);
+		assertTrue(mobTypeCache.isCached(secondID));
+		
+		EasyMock.verify(mockZombie);
+		EasyMock.verify(mockCreeper);
+	}
+}
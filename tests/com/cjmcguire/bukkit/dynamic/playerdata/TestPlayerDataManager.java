@@ -6,6 +6,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.util.UUID;
 
 import org.junit.Test;
@@ -196,5 +197,8 @@ public class TestPlayerDataManager
 		
 		MobInfo zombieInfo = playerInfo3.getMobInfo(MobType.ZOMBIE);
 		assertEquals(100, zombieInfo.getAutoPerformanceLevel(), .0001);
+		
+		// the player file itself is part of the test data
+		new File("players" + File.separator + PLAYER_2_ID + ".yml.bak").delete();
 	}
 }
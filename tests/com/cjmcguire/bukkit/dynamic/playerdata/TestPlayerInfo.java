@@ -50,4 +50,193 @@ public class TestPlayerInfo
 		assertEquals(MobType.ZOMBIE, playerInfo.getMobInfo(MobType.ZOMBIE).getMobType());
 		assertEquals(MobType.PIG_ZOMBIE, playerInfo.getMobInfo(MobType.PIG_ZOMBIE).getMobType());
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Tests that getMobInfo() hands out the same MobInfo every time 
+	 * it is asked for the same MobType.
+	 */
+	@Test
+	public void testGetMobInfoIsSame()
+	{
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		
+		assertSame(playerInfo.getMobInfo(MobType.ZOMBIE), playerInfo.getMobInfo(MobType.ZOMBIE));
+	}
+	
+	/**
+	 * Tests that changing one MobType's MobInfo does not change any 
+	 * of the other MobInfos in the PlayerInfo.
+	 */
+	@Test
+	public void testMobInfosAreIndependent()
+	{
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		
+		MobInfo zombieInfo = playerInfo.getMobInfo(MobType.ZOMBIE);
+		zombieInfo.setSetting(Setting.MANUAL);
+		zombieInfo.setMaxIncrement(3);
+		zombieInfo.setManualPerformanceLevel(150);
+		zombieInfo.setScaleLoot(false);
+		zombieInfo.addIDToInteractedWithIDs(1);
+		zombieInfo.addToDamagePlayerReceived(4);
+		
+		for(MobType mobType: MobType.values())
+		{
+			if(mobType != MobType.ZOMBIE)
+			{
+				MobInfo mobInfo = playerInfo.getMobInfo(mobType);
+				
+				assertEquals(Setting.AUTO, mobInfo.getSetting());
+				assertEquals(MobInfo.DEFAULT_MAX_INCREMENT, mobInfo.getMaxIncrement());
+				assertEquals(100, mobInfo.getManualPerformanceLevel(), .0001);
+				assertTrue(mobInfo.shouldScaleLoot());
+				assertEquals(0, mobInfo.getNumberInteractedWith());
+				assertEquals(0, mobInfo.getDamagePlayerReceived());
+			}
+		}
+		
+		assertEquals(Setting.MANUAL, zombieInfo.getSetting());
+		assertEquals(3, zombieInfo.getMaxIncrement());
+		assertEquals(150, zombieInfo.getManualPerformanceLevel(), .0001);
+		assertFalse(zombieInfo.shouldScaleLoot());
+		assertEquals(1, zombieInfo.getNumberInteractedWith());
+		assertEquals(4, zombieInfo.getDamagePlayerReceived());
+	}
+	
+	/**
+	 * Tests that a new PlayerInfo starts out clean and becomes dirty 
+	 * when a saved value changes.
+	 */
+	@Test
+	public void testIsDirty()
+	{
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		assertFalse(playerInfo.isDirty());
+		
+		playerInfo.getMobInfo(MobType.ZOMBIE).setManualPerformanceLevel(150);
+		assertTrue(playerInfo.isDirty());
+		
+		playerInfo.markSaved(playerInfo.getVersion());
+		assertFalse(playerInfo.isDirty());
+		assertEquals(playerInfo.getVersion(), playerInfo.getSavedVersion());
+		
+		playerInfo.getMobInfo(MobType.CREEPER).setScaleXP(false);
+		assertTrue(playerInfo.isDirty());
+	}
+	
+	/**
+	 * Tests that setting a value to what it already is and recording 
+	 * combat does not make a PlayerInfo dirty.
+	 */
+	@Test
+	public void testIsDirtyUnchangedValues()
+	{
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		
+		MobInfo zombieInfo = playerInfo.getMobInfo(MobType.ZOMBIE);
+		zombieInfo.setSetting(Setting.AUTO);
+		zombieInfo.setMaxIncrement(MobInfo.DEFAULT_MAX_INCREMENT);
+		zombieInfo.setAutoPerformanceLevel(100);
+		zombieInfo.setManualPerformanceLevel(100);
+		zombieInfo.setScaleAttack(true);
+		zombieInfo.setEstimatedPerformanceLevel(150);
+		zombieInfo.addIDToInteractedWithIDs(1);
+		zombieInfo.addToDamagePlayerGave(5);
+		zombieInfo.addToDamagePlayerReceived(5);
+		
+		assertFalse(playerInfo.isDirty());
+	}
+	
+	/**
+	 * Tests that a save that started before a change does not hide 
+	 * the change.
+	 */
+	@Test
+	public void testChangeDuringSaveStaysDirty()
+	{
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		
+		playerInfo.getMobInfo(MobType.ZOMBIE).setSetting(Setting.MANUAL);
+		long savingVersion = playerInfo.getVersion();
+		
+		playerInfo.getMobInfo(MobType.ZOMBIE).setSetting(Setting.DISABLED);
+		playerInfo.markSaved(savingVersion);
+		
+		assertTrue(playerInfo.isDirty());
+	}
+	
+	/**
+	 * Tests that a snapshot holds the same saved values and version 
+	 * as the PlayerInfo it was made from and does not change with it.
+	 */
+	@Test
+	public void testSnapshot()
+	{
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		
+		MobInfo zombieInfo = playerInfo.getMobInfo(MobType.ZOMBIE);
+		zombieInfo.setSetting(Setting.MANUAL);
+		zombieInfo.setManualPerformanceLevel(150);
+		zombieInfo.setScaleLoot(false);
+		
+		PlayerInfo snapshot = playerInfo.snapshot();
+		
+		zombieInfo.setManualPerformanceLevel(60);
+		zombieInfo.setScaleLoot(true);
+		
+		assertEquals(PLAYER_1_ID, snapshot.getPlayerID());
+		assertNotSame(playerInfo.getMobInfo(MobType.ZOMBIE), snapshot.getMobInfo(MobType.ZOMBIE));
+		
+		MobInfo zombieSnapshot = snapshot.getMobInfo(MobType.ZOMBIE);
+		assertEquals(Setting.MANUAL, zombieSnapshot.getSetting());
+		assertEquals(150, zombieSnapshot.getManualPerformanceLevel(), .0001);
+		assertFalse(zombieSnapshot.shouldScaleLoot());
+		
+		assertFalse(snapshot.isDirty());
+		assertTrue(snapshot.getVersion() < playerInfo.getVersion());
+	}
+	
+	/**
+	 * Tests that fighting a type of mob and changing its setting mark 
+	 * it for analysis, and that taking the mask unmarks everything.
+	 */
+	@Test
+	public void testTakeAnalysisMask()
+	{
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		assertEquals(0, playerInfo.takeAnalysisMask());
+		
+		playerInfo.getMobInfo(MobType.ZOMBIE).addToDamagePlayerGave(5);
+		playerInfo.getMobInfo(MobType.BLAZE).setSetting(Setting.MANUAL);
+		playerInfo.getMobInfo(MobType.SPIDER).setScaleLoot(false);
+		
+		long expected = (1L << MobType.ZOMBIE.ordinal()) | (1L << MobType.BLAZE.ordinal());
+		assertEquals(expected, playerInfo.takeAnalysisMask());
+		assertEquals(0, playerInfo.takeAnalysisMask());
+		
+		playerInfo.markForAnalysis(expected);
+		assertEquals(expected, playerInfo.takeAnalysisMask());
+	}
+	
+	/**
+	 * Tests that resetEstimatedPerformanceLevels() sets every estimated 
+	 * performance level to the auto performance level without making 
+	 * the PlayerInfo dirty.
+	 */
+	@Test
+	public void testResetEstimatedPerformanceLevels()
+	{
+		PlayerInfo playerInfo = new PlayerInfo(PLAYER_1_ID);
+		
+		MobInfo zombieInfo = playerInfo.getMobInfo(MobType.ZOMBIE);
+		zombieInfo.setAutoPerformanceLevel(150);
+		zombieInfo.setEstimatedPerformanceLevel(80);
+		playerInfo.markSaved(playerInfo.getVersion());
+		
+		playerInfo.resetEstimatedPerformanceLevels();
+		
+		assertEquals(150, zombieInfo.getEstimatedPerformanceLevel(), .0001);
+		assertEquals(100, playerInfo.getMobInfo(MobType.BLAZE).getEstimatedPerformanceLevel(), .0001);
+		assertFalse(playerInfo.isDirty());
+	}
+}